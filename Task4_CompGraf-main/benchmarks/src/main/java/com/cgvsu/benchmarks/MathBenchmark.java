@@ -0,0 +1,135 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.math.Vector4f;
+import com.cgvsu.render_engine.GraphicConveyor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Матрицы и векторы: умножение, обращение, преобразование точек.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MathBenchmark {
+    private static final int POINT_COUNT = 1024;
+
+    private Matrix4f matrix;
+    private Matrix4f other;
+    private Matrix4f result;
+    private Vector4f vector4;
+    private Vector3f a;
+    private Vector3f b;
+    private Vector3f output;
+    private float[] points;
+    private float[] transformed;
+
+    @Setup
+    public void setUp() {
+        matrix = GraphicConveyor.scaleRotateTranslate(new Vector3f(10, 20, 30), new Vector3f(1, 2, 3), new Vector3f(4, 5, 6));
+        other = GraphicConveyor.scaleRotateTranslate(new Vector3f(-5, 15, 0), new Vector3f(1, 1, 1), new Vector3f(0, 0, 0));
+        result = new Matrix4f(1);
+        vector4 = new Vector4f(1, 2, 3, 1);
+        a = new Vector3f(1, 2, 3);
+        b = new Vector3f(-4, 0.5f, 2);
+        output = new Vector3f();
+        points = new float[POINT_COUNT * 3];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = (i % 7) - 3;
+        }
+        transformed = new float[points.length];
+    }
+
+    /**
+     * other - чистый поворот, поэтому многократное умножение на месте не разгоняет значения.
+     */
+    @Benchmark
+    public Matrix4f matrixMultiplyInPlace() {
+        result.multiply(other);
+        return result;
+    }
+
+    @Benchmark
+    public Matrix4f matrixMultiplyNew() {
+        return matrix.multiplyNew(other);
+    }
+
+    @Benchmark
+    public Vector4f matrixMultiplyVector() {
+        return matrix.multiply(vector4);
+    }
+
+    @Benchmark
+    public Matrix4f matrixInverse() {
+        return matrix.inverse();
+    }
+
+    @Benchmark
+    public Matrix4f matrixInverseInto() {
+        return matrix.inverse(result);
+    }
+
+    @Benchmark
+    public Matrix4f matrixAffineInverse() {
+        return matrix.affineInverse(result);
+    }
+
+    @Benchmark
+    public float matrixDeterminant() {
+        return matrix.determinant();
+    }
+
+    @Benchmark
+    public Vector3f multiplyMatrix4ByVector3() {
+        return GraphicConveyor.multiplyMatrix4ByVector3(matrix, a);
+    }
+
+    @Benchmark
+    public Vector3f transformPointInto() {
+        return matrix.transformPoint(a, output);
+    }
+
+    /**
+     * Пакетное преобразование {@value #POINT_COUNT} точек.
+     */
+    @Benchmark
+    public float[] transformPoints() {
+        matrix.transformPoints(points, 0, transformed, 0, POINT_COUNT);
+        return transformed;
+    }
+
+    @Benchmark
+    public Vector3f vectorAdd() {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public Vector3f vectorCross() {
+        return a.cross(b);
+    }
+
+    @Benchmark
+    public float vectorDot() {
+        return a.dot(b);
+    }
+
+    @Benchmark
+    public Vector3f vectorNormalize() {
+        return a.normalizeV();
+    }
+}
@@ -0,0 +1,98 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.model.PackedMesh;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Синтетические сетки для бенчмарков: плоская решетка из четырехугольников в квадрате [-40, 40] x [-40, 40]
+ * с небольшим рельефом по z - целиком попадает в кадр камеры сцены по умолчанию.
+ */
+final class MeshGenerator {
+    private static final float SIZE = 80;
+
+    private MeshGenerator() {
+    }
+
+    /**
+     * Сторона решетки (в четырехугольниках), чтобы получить не меньше faceCount граней.
+     */
+    static int sideFor(int faceCount) {
+        return (int) Math.ceil(Math.sqrt(faceCount));
+    }
+
+    /**
+     * Решетка ровно из faceCount четырехугольников с текстурными координатами.
+     */
+    static PackedMesh quadGrid(int faceCount) {
+        int side = sideFor(faceCount);
+        int vertexSide = side + 1;
+        float[] positions = new float[vertexSide * vertexSide * 3];
+        float[] textureVertices = new float[vertexSide * vertexSide * 2];
+        for (int row = 0, i = 0; row < vertexSide; row++) {
+            for (int col = 0; col < vertexSide; col++, i++) {
+                positions[i * 3] = col * SIZE / side - SIZE / 2;
+                positions[i * 3 + 1] = row * SIZE / side - SIZE / 2;
+                positions[i * 3 + 2] = height(row, col);
+                textureVertices[i * 2] = (float) col / side;
+                textureVertices[i * 2 + 1] = (float) row / side;
+            }
+        }
+
+        int[] faceOffsets = new int[faceCount + 1];
+        int[] vertexIndices = new int[faceCount * 4];
+        int[] normalIndices = new int[faceCount * 4];
+        for (int face = 0; face < faceCount; face++) {
+            int row = face / side;
+            int col = face % side;
+            int corner = face * 4;
+            int v = row * vertexSide + col;
+            vertexIndices[corner] = v;
+            vertexIndices[corner + 1] = v + 1;
+            vertexIndices[corner + 2] = v + vertexSide + 1;
+            vertexIndices[corner + 3] = v + vertexSide;
+            faceOffsets[face + 1] = corner + 4;
+        }
+        Arrays.fill(normalIndices, PackedMesh.ABSENT);
+        return new PackedMesh(positions, textureVertices, new float[0],
+                faceOffsets, vertexIndices, vertexIndices.clone(), normalIndices);
+    }
+
+    /**
+     * Записывает ту же решетку во временный OBJ-файл (v, vt и f v/vt).
+     */
+    static Path writeObj(int faceCount) throws IOException {
+        PackedMesh mesh = quadGrid(faceCount);
+        Path path = Files.createTempFile("grid" + faceCount + "-", ".obj");
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            float[] positions = mesh.getPositions();
+            for (int i = 0; i < positions.length; i += 3) {
+                writer.write("v " + positions[i] + " " + positions[i + 1] + " " + positions[i + 2] + "\n");
+            }
+            float[] textureVertices = mesh.getTextureVertices();
+            for (int i = 0; i < textureVertices.length; i += 2) {
+                writer.write("vt " + textureVertices[i] + " " + textureVertices[i + 1] + "\n");
+            }
+            int[] vertexIndices = mesh.getVertexIndices();
+            StringBuilder line = new StringBuilder();
+            for (int face = 0; face < mesh.getFaceCount(); face++) {
+                line.setLength(0);
+                line.append('f');
+                for (int i = mesh.getFaceStart(face); i < mesh.getFaceStart(face + 1); i++) {
+                    int index = vertexIndices[i] + 1;
+                    line.append(' ').append(index).append('/').append(index);
+                }
+                writer.write(line.append('\n').toString());
+            }
+        }
+        return path;
+    }
+
+    private static float height(int row, int col) {
+        return (float) (Math.sin(row * 0.05) * Math.cos(col * 0.05));
+    }
+}
@@ -0,0 +1,69 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.ModelTriangulator;
+import com.cgvsu.model.NormalCalculator;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.Polygon;
+import com.cgvsu.math.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Триангуляция и расчет нормалей в списочном и упакованном представлениях.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MeshProcessingBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int faces;
+
+    private PackedMesh mesh;
+    private Model model;
+    private ArrayList<Polygon> polygons;
+
+    @Setup
+    public void setUp() {
+        mesh = MeshGenerator.quadGrid(faces);
+        model = new Model(mesh);
+        polygons = model.getPolygons();
+        model.getVertices();
+    }
+
+    @Benchmark
+    public ArrayList<Polygon> triangulateModel() {
+        return ModelTriangulator.triangulateModel(polygons);
+    }
+
+    @Benchmark
+    public PackedMesh triangulateMesh() {
+        return ModelTriangulator.triangulate(mesh);
+    }
+
+    @Benchmark
+    public ArrayList<Vector3f> calculateNormalsModel() {
+        return NormalCalculator.calculateNormals(model);
+    }
+
+    @Benchmark
+    public float[] calculateNormalsMesh() {
+        return NormalCalculator.calculateNormals(mesh);
+    }
+}
@@ -0,0 +1,69 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.objreader.ObjData;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objreader.ParallelObjReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение OBJ-файла со сгенерированной решеткой из faces четырехугольников.
+ * Файл создается один раз на набор параметров и удаляется после прогона.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ObjReaderBenchmark {
+
+    @Param({"10000", "100000", "1000000", "5000000"})
+    public int faces;
+
+    private Path path;
+
+    @Setup
+    public void setUp() throws IOException {
+        path = MeshGenerator.writeObj(faces);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public Model readModel() throws IOException {
+        return ObjReader.read(path);
+    }
+
+    @Benchmark
+    public ObjData readData() throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return ObjReader.readData(in);
+        }
+    }
+
+    @Benchmark
+    public ObjData readDataParallel() throws IOException {
+        return ParallelObjReader.readData(path);
+    }
+}
@@ -0,0 +1,72 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.ModelTriangulator;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.RenderContext;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderParameters;
+import com.cgvsu.scene.Scene;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Один кадр без окна: сцена рисуется в буферы RenderContext, JavaFX-холст не нужен.
+ * Решетка триангулирована, чтобы работала цветная заливка треугольников.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RenderBenchmark {
+
+    @Param({"10000", "500000"})
+    public int faces;
+
+    @Param({"wireframe", "color"})
+    public String mode;
+
+    @Param({"1280x720"})
+    public String resolution;
+
+    private RenderContext context;
+    private Camera camera;
+    private Scene scene;
+    private RenderParameters renderParameters;
+
+    @Setup
+    public void setUp() {
+        String[] size = resolution.split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        context = new RenderContext(width, height);
+
+        scene = new Scene();
+        Model model = new Model(ModelTriangulator.triangulate(MeshGenerator.quadGrid(faces)));
+        scene.addModel(model);
+        camera = scene.getActiveCamera();
+        camera.setAspectRatio((float) width / height);
+
+        renderParameters = new RenderParameters();
+        renderParameters.setColorPolygon(mode.equals("color"));
+    }
+
+    @Benchmark
+    public RenderContext frame() {
+        RenderEngine.render(context, camera, scene, renderParameters);
+        return context;
+    }
+}
@@ -0,0 +1,290 @@
+package com.cgvsu;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.BoundingVolumeHierarchy;
+import com.cgvsu.model.Model;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.FrameEncoder;
+import com.cgvsu.render_engine.RenderContext;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderParameters;
+import com.cgvsu.scene.Scene;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Пакетный рендер без окна и без запуска JavaFX: каждый OBJ-файл каталога рисуется в свой
+ * {@link RenderContext} и записывается в PNG или PPM. Модели рисуются параллельно на пуле потоков,
+ * для каждой печатается время загрузки, первого кадра (с построением иерархии) и среднего кадра.
+ */
+public class BatchRenderer {
+
+    private static final String USAGE = String.join("\n",
+            "Usage: BatchRenderer <obj directory> <output directory> [options]",
+            "  --size WxH          frame size, default 800x600",
+            "  --format png|ppm    image format, default png",
+            "  --eye x,y,z         camera position, default fits the model into the frame",
+            "  --target x,y,z      camera target, default the model center",
+            "  --fov radians       vertical field of view, default 1",
+            "  --mode wireframe|color|allcolor|texture   fill mode, default wireframe",
+            "  --frames n          frames per model for timing, default 1",
+            "  --threads n         models rendered in parallel, default the number of processors");
+
+    // Камера по умолчанию отодвигается так, чтобы описанная сфера модели занимала кадр с этим запасом
+    private static final float FIT_MARGIN = 1.1f;
+
+    private BatchRenderer() {
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            List<Result> results = render(options);
+            report(results, System.out);
+            System.exit(results.stream().anyMatch(result -> result.error() != null) ? 1 : 0);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Параметры запуска.
+     */
+    public static final class Options {
+        Path inputDirectory;
+        Path outputDirectory;
+        int width = 800;
+        int height = 600;
+        String format = FrameEncoder.PNG;
+        Vector3f eye;
+        Vector3f target;
+        float fov = 1.0f;
+        String mode = "wireframe";
+        int frames = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        private Options() {
+        }
+
+        public static Options parse(String[] args) {
+            Options options = new Options();
+            List<String> positional = new ArrayList<>();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (!arg.startsWith("--")) {
+                    positional.add(arg);
+                    continue;
+                }
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                try {
+                    switch (arg) {
+                        case "--size" -> {
+                            String[] size = value.split("x");
+                            options.width = Integer.parseInt(size[0]);
+                            options.height = Integer.parseInt(size[1]);
+                        }
+                        case "--format" -> options.format = value.toLowerCase(Locale.ROOT);
+                        case "--eye" -> options.eye = parseVector(value);
+                        case "--target" -> options.target = parseVector(value);
+                        case "--fov" -> options.fov = Float.parseFloat(value);
+                        case "--mode" -> options.mode = value.toLowerCase(Locale.ROOT);
+                        case "--frames" -> options.frames = Integer.parseInt(value);
+                        case "--threads" -> options.threads = Integer.parseInt(value);
+                        default -> throw new IllegalArgumentException("Unknown option " + arg);
+                    }
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+                }
+            }
+            if (positional.size() != 2) {
+                throw new IllegalArgumentException("Expected an input and an output directory");
+            }
+            options.inputDirectory = Path.of(positional.get(0));
+            options.outputDirectory = Path.of(positional.get(1));
+            if (options.width <= 0 || options.height <= 0 || options.frames <= 0 || options.threads <= 0) {
+                throw new IllegalArgumentException("Size, frames and threads must be positive");
+            }
+            if (!options.format.equals(FrameEncoder.PNG) && !options.format.equals(FrameEncoder.PPM)) {
+                throw new IllegalArgumentException("Unsupported format " + options.format);
+            }
+            if (!List.of("wireframe", "color", "allcolor", "texture").contains(options.mode)) {
+                throw new IllegalArgumentException("Unsupported mode " + options.mode);
+            }
+            return options;
+        }
+
+        private static Vector3f parseVector(String value) {
+            String[] parts = value.split(",");
+            return new Vector3f(Float.parseFloat(parts[0]), Float.parseFloat(parts[1]), Float.parseFloat(parts[2]));
+        }
+    }
+
+    /**
+     * Итог по одной модели. Если модель не удалось прочитать или записать, error - сообщение об ошибке.
+     */
+    public record Result(Path source, Path output, int faceCount, double loadMillis,
+                         double firstFrameMillis, double averageFrameMillis, String error) {
+    }
+
+    /**
+     * Рисует все OBJ-файлы каталога и возвращает итоги в порядке имен файлов.
+     */
+    public static List<Result> render(Options options) throws IOException {
+        List<Path> files;
+        try (Stream<Path> entries = Files.list(options.inputDirectory)) {
+            files = entries
+                    .filter(path -> path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".obj"))
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .toList();
+        }
+        Files.createDirectories(options.outputDirectory);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(options.threads, Math.max(1, files.size())));
+        try {
+            List<Future<Result>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                futures.add(executor.submit(() -> renderFile(file, options)));
+            }
+            List<Result> results = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                results.add(await(futures.get(i), files.get(i)));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Result await(Future<Result> future, Path file) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch rendering interrupted");
+        } catch (ExecutionException e) {
+            return new Result(file, null, 0, 0, 0, 0, String.valueOf(e.getCause()));
+        }
+    }
+
+    private static Result renderFile(Path file, Options options) {
+        String name = file.getFileName().toString();
+        Path output = options.outputDirectory.resolve(name.substring(0, name.length() - ".obj".length())
+                + "." + options.format);
+        long start = System.nanoTime();
+        Model model;
+        try {
+            model = ObjReader.read(file);
+        } catch (IOException | RuntimeException e) {
+            return new Result(file, null, 0, 0, 0, 0, e.getMessage());
+        }
+        double loadMillis = (System.nanoTime() - start) / 1e6;
+
+        Scene scene = new Scene();
+        scene.addModel(model);
+        Camera camera = createCamera(model, options);
+        RenderParameters parameters = createParameters(options);
+        RenderContext context = new RenderContext(options.width, options.height);
+
+        double firstFrameMillis = 0;
+        double totalMillis = 0;
+        for (int frame = 0; frame < options.frames; frame++) {
+            long frameStart = System.nanoTime();
+            RenderEngine.render(context, camera, scene, parameters);
+            double millis = (System.nanoTime() - frameStart) / 1e6;
+            if (frame == 0) {
+                firstFrameMillis = millis;
+            }
+            totalMillis += millis;
+        }
+        int faceCount = model.getMesh().getFaceCount();
+        try {
+            FrameEncoder.write(context, output);
+        } catch (IOException e) {
+            return new Result(file, null, faceCount, loadMillis, firstFrameMillis, totalMillis / options.frames,
+                    e.getMessage());
+        }
+        return new Result(file, output, faceCount, loadMillis, firstFrameMillis, totalMillis / options.frames, null);
+    }
+
+    /**
+     * Камера из параметров. Не заданные положение и цель выбираются так, чтобы модель целиком попала в кадр.
+     */
+    static Camera createCamera(Model model, Options options) {
+        float aspectRatio = (float) options.width / options.height;
+        BoundingVolumeHierarchy hierarchy = model.getBoundingVolumeHierarchy();
+        Vector3f center = new Vector3f(0, 0, 0);
+        float radius = 1;
+        if (hierarchy.getFaceCount() > 0) {
+            float[] size = new float[3];
+            for (int axis = 0; axis < 3; axis++) {
+                center.setNum(axis, (hierarchy.getMin(axis) + hierarchy.getMax(axis)) * 0.5f);
+                size[axis] = hierarchy.getMax(axis) - hierarchy.getMin(axis);
+            }
+            radius = Math.max(1e-3f, (float) Math.sqrt(size[0] * size[0] + size[1] * size[1] + size[2] * size[2]) * 0.5f);
+        }
+        Vector3f target = options.target != null ? options.target : center;
+        float halfFov = options.fov * 0.5f;
+        // Вертикальный угол у узкого кадра меньше горизонтального
+        float fitAngle = aspectRatio < 1 ? (float) Math.atan(Math.tan(halfFov) * aspectRatio) : halfFov;
+        Vector3f eye = options.eye != null ? options.eye
+                : new Vector3f(target.getX(), target.getY(), target.getZ() + FIT_MARGIN * radius / (float) Math.sin(fitAngle));
+        float distance = eye.sub(center).length();
+        float farPlane = distance + radius * 2;
+        float nearPlane = Math.max(farPlane * 1e-4f, distance - radius * 2);
+        return new Camera(eye, target, options.fov, aspectRatio, nearPlane, farPlane);
+    }
+
+    private static RenderParameters createParameters(Options options) {
+        RenderParameters parameters = new RenderParameters();
+        switch (options.mode) {
+            case "color" -> parameters.setColorPolygon(true);
+            case "allcolor" -> parameters.setAllColorPolygon(true);
+            case "texture" -> parameters.setTexturePolygon(true);
+            default -> { }
+        }
+        // Модели и так рисуются параллельно, делить кадр на плитки по потокам незачем
+        parameters.setTileRasterizer(options.threads == 1 && parameters.isTileRasterizer());
+        return parameters;
+    }
+
+    public static void report(List<Result> results, PrintStream out) {
+        double totalFrameMillis = 0;
+        for (Result result : results) {
+            String name = result.source().getFileName().toString();
+            if (result.error() != null) {
+                out.printf(Locale.ROOT, "%-40s FAILED: %s%n", name, result.error());
+                continue;
+            }
+            out.printf(Locale.ROOT, "%-40s %10d faces  load %9.1f ms  first frame %8.2f ms  frame %8.2f ms  -> %s%n",
+                    name, result.faceCount(), result.loadMillis(), result.firstFrameMillis(),
+                    result.averageFrameMillis(), result.output());
+            totalFrameMillis += result.averageFrameMillis();
+        }
+        out.printf(Locale.ROOT, "%d models, %.2f ms per frame in total%n", results.size(), totalFrameMillis);
+    }
+}
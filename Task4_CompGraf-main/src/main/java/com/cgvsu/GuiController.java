@@ -6,11 +6,10 @@ import com.cgvsu.math.Matrix4f;
 import com.cgvsu.math.Point2f;
 import com.cgvsu.math.Vector3f;
 import com.cgvsu.model.*;
-import com.cgvsu.model.CalculateNormals;
 import com.cgvsu.model.ModelEditingTools;
 import com.cgvsu.model.Model;
 import com.cgvsu.objWriter.FileDialogHandler;
-import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objreader.ModelLoader;
 import com.cgvsu.render_engine.*;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -19,6 +18,7 @@ import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.image.*;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.AnchorPane;
@@ -28,20 +28,18 @@ import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import javafx.stage.FileChooser;
-import javafx.util.Duration;
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 
 import java.io.File;
 import java.io.IOException;
 import java.awt.image.BufferedImage;
 import java.io.InputStream;
 import java.net.URL;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Objects;
 
+import com.cgvsu.scene.PolygonIndexData;
+import com.cgvsu.scene.RayPicker;
 import com.cgvsu.scene.Scene;
 
 import javax.imageio.ImageIO;
@@ -162,9 +160,19 @@ public class GuiController {
     @FXML
     private Label rotationLabel;
 
+    @FXML
+    private Label statsLabel;
+
     private Scene scene;
 
-    private Timeline timeline;
+    // Буфер кадра рисуется в отдельном потоке, на холст выводится последний готовый кадр
+    private final BackgroundRenderer backgroundRenderer = new BackgroundRenderer(null);
+    // Кадр перерисовывается на импульсе JavaFX только после изменений
+    private final RenderScheduler renderScheduler = new RenderScheduler(this::render, this::onPulse);
+    // Пока камера движется, кадры упрощаются под бюджет времени, после остановки дорисовываются
+    private final ProgressiveRefinement refinement = new ProgressiveRefinement();
+    // Разрешение полных кадров подбирается под целевое время кадра
+    private final DynamicResolution dynamicResolution = new DynamicResolution();
 
     private Model model = new Model();
     private Camera camera = new Camera(
@@ -179,6 +187,8 @@ public class GuiController {
     private boolean isFPressed = false;
     private boolean isDarkTheme = false;
     private ActionHistory historyBuffer;
+    // Полигон под последним щелчком по холсту
+    private PolygonIndexData pickedPolygon;
 
     boolean isFirstDrawPolygons = false;
 
@@ -187,27 +197,27 @@ public class GuiController {
     private final CameraManager cameraManager = new CameraManager();
     boolean isAllColor = false;
 
+    private final FrameStatistics frameBufferStatistics = new FrameStatistics(100);
+    private final FrameStatistics pixelWriterStatistics = new FrameStatistics(100);
+    private final FrameStatistics tileRasterizerStatistics = new FrameStatistics(100);
+
     @FXML
     private void initialize() {
         System.out.println("initialize");
 
         anchorPane.prefWidthProperty().addListener((ov, oldValue, newValue) -> canvas.setWidth(newValue.doubleValue()));
         anchorPane.prefHeightProperty().addListener((ov, oldValue, newValue) -> canvas.setHeight(newValue.doubleValue()));
+        canvas.widthProperty().addListener((ov, oldValue, newValue) -> renderScheduler.requestRender());
+        canvas.heightProperty().addListener((ov, oldValue, newValue) -> renderScheduler.requestRender());
         historyBuffer = new ActionHistory(5);
         scene = new Scene();
-        timeline = new Timeline();
-        timeline.setCycleCount(Animation.INDEFINITE);
-
-        KeyFrame frame = new KeyFrame(Duration.millis(100), event -> {
-            render();
-        });
-
+        // Подсветка полигона под курсором читает буфер идентификаторов
+        params.setIdBuffer(true);
         cameraManager.getActiveCamera().setAzimuth(0);
         cameraManager.getActiveCamera().setElevation(0);
         cameraManager.getActiveCamera().setDistance(100);
 
-        timeline.getKeyFrames().add(frame);
-        timeline.play();
+        renderScheduler.start();
 
         applyButton.setOnAction(event -> applyTransformation());
         saveButton.setOnAction(event -> saveModel());
@@ -216,19 +226,43 @@ public class GuiController {
 
         addNewCamera.setOnAction(event -> addNewCameraButton());
 
-        useTextureRadioButton.setOnAction(event -> applyTexture(useTextureRadioButton.isSelected()));
-        useTriangleRadioButton.setOnAction(event -> applyTriangle(useTriangleRadioButton.isSelected()));
-        useColorRadioButton.setOnAction(event -> applyColor(useColorRadioButton.isSelected()));
-        useAllColorRadioButton.setOnAction(event -> applyAllColor(useAllColorRadioButton.isSelected()));
-        useWithoutColorRadioButton.setOnAction(event -> applyWithoutColor(useWithoutColorRadioButton.isSelected()));
+        useTextureRadioButton.setOnAction(event -> {
+            applyTexture(useTextureRadioButton.isSelected());
+            renderScheduler.requestRender();
+            buildLevelsOfDetail(scene.getActiveModel());
+        });
+        useTriangleRadioButton.setOnAction(event -> {
+            applyTriangle(useTriangleRadioButton.isSelected());
+            renderScheduler.requestRender();
+            buildLevelsOfDetail(scene.getActiveModel());
+        });
+        useColorRadioButton.setOnAction(event -> {
+            applyColor(useColorRadioButton.isSelected());
+            renderScheduler.requestRender();
+            buildLevelsOfDetail(scene.getActiveModel());
+        });
+        useAllColorRadioButton.setOnAction(event -> {
+            applyAllColor(useAllColorRadioButton.isSelected());
+            renderScheduler.requestRender();
+            buildLevelsOfDetail(scene.getActiveModel());
+        });
+        useWithoutColorRadioButton.setOnAction(event -> {
+            applyWithoutColor(useWithoutColorRadioButton.isSelected());
+            renderScheduler.requestRender();
+            buildLevelsOfDetail(scene.getActiveModel());
+        });
         resetTransformationFields();
-        canvas.setOnMouseClicked(event -> canvas.requestFocus());
+        canvas.setOnMouseClicked(event -> {
+            canvas.requestFocus();
+            handleMouseClicked(event);
+        });
         canvas.requestFocus();
 
         modelComboBox.setOnAction(event -> setActiveModel());
         canvas.setOnMousePressed(this::handleMousePressed);
         canvas.setOnMouseReleased(this::handleMouseReleased);
         canvas.setOnMouseDragged(this::handleMouseDragged);
+        canvas.setOnMouseMoved(this::handleMouseMoved);
         canvas.setOnScroll(this::handleOnScroll);
 
         canvas.setOnKeyPressed(event -> {
@@ -242,6 +276,7 @@ public class GuiController {
             if (event.getCode() == KeyCode.F) {
                 scene.getActiveCamera().cameraReset();
             }
+            renderScheduler.requestRender();
         });
 
         updateModelComboBox();
@@ -250,20 +285,192 @@ public class GuiController {
     private void render() {
         double width = canvas.getWidth();
         double height = canvas.getHeight();
-        canvas.getGraphicsContext2D().clearRect(0, 0, width, height);
         cameraManager.getActiveCamera().setAspectRatio((float) (width / height));
+        refinement.setMaxScale(params.isDynamicResolution() ? dynamicResolution.getScale() : 1);
+        ProgressiveRefinement.Pass pass = refinement.nextPass(System.nanoTime(), params);
+        if (isBackgroundRendering()) {
+            // Поток JavaFX только снимает состояние сцены, кадр появится на холсте в presentFrame
+            if ((int) width > 0 && (int) height > 0) {
+                backgroundRenderer.submit(FrameSnapshot.capture(scene, cameraManager.getActiveCamera(), pass,
+                        width, height));
+            }
+            return;
+        }
+        canvas.getGraphicsContext2D().clearRect(0, 0, width, height);
+
+        // Без фонового потока кадр рисуется прямо на холст, упрощаются только режимы, не разрешение
+        long start = System.nanoTime();
+        RenderEngine.render(canvas.getGraphicsContext2D(), cameraManager.getActiveCamera(), scene, (int) width, (int) height,
+                pass.getRenderParameters());
+        long frameTime = System.nanoTime() - start;
+        refinement.onFrameRendered(pass, frameTime);
+        updateStatsOverlay((int) width, (int) height, frameTime, renderScheduler.toString());
+        if (params.isFrameBuffer() && params.isTileRasterizer()) {
+            tileRasterizerStatistics.record(frameTime);
+        } else if (params.isFrameBuffer()) {
+            frameBufferStatistics.record(frameTime);
+        } else {
+            pixelWriterStatistics.record(frameTime);
+        }
+    }
 
-        RenderEngine.render(canvas.getGraphicsContext2D(), cameraManager.getActiveCamera(), scene, (int) width, (int) height, this.params);
+    private void onPulse() {
+        presentFrame();
+        if (refinement.isRefinementDue(System.nanoTime())) {
+            renderScheduler.requestRender();
+        }
+    }
+
+    /**
+     * Выводит на холст кадр, готовый в фоновом потоке, если такой есть. Кадр в пониженном разрешении
+     * растягивается на весь холст.
+     */
+    private void presentFrame() {
+        RenderContext frame = backgroundRenderer.takeFrame();
+        if (frame == null || !isBackgroundRendering()) {
+            return;
+        }
+        GraphicsContext graphicsContext = canvas.getGraphicsContext2D();
+        graphicsContext.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        RenderEngine.presentFrame(graphicsContext, frame, canvas.getWidth(), canvas.getHeight());
+        FrameSnapshot snapshot = frame.getSnapshot();
+        ProgressiveRefinement.Pass pass = snapshot == null ? null : snapshot.getPass();
+        if (pass != null) {
+            refinement.onFrameRendered(pass, frame.getFrameTimeNanos());
+            // Упрощенные кадры при движении камеры не показательны для полного кадра
+            if (!pass.isInteractive() && params.isDynamicResolution()) {
+                dynamicResolution.onFrameRendered(pass.getScale(), frame.getFrameTimeNanos());
+            }
+        }
+        updateStatsOverlay(frame.getWidth(), frame.getHeight(), frame.getFrameTimeNanos(), backgroundRenderer.toString());
+    }
+
+    /**
+     * Показывает поверх холста разрешение кадра, его долю от холста и время отрисовки.
+     */
+    private void updateStatsOverlay(int frameWidth, int frameHeight, long frameTimeNanos, String statistics) {
+        if (!statsLabel.isVisible()) {
+            return;
+        }
+        double scale = (double) frameWidth / Math.max(1, (int) canvas.getWidth());
+        statsLabel.setText(String.format("%dx%d -> %dx%d, scale %.2f%s%nframe %.2f ms, target %.2f ms%n%s",
+                frameWidth, frameHeight, (int) canvas.getWidth(), (int) canvas.getHeight(), scale,
+                refinement.isWireframeOnly() && refinement.isInteractive() ? ", wireframe" : "",
+                frameTimeNanos / 1e6, dynamicResolution.getTargetFrameTimeNanos() / 1e6, statistics));
+    }
+
+    private void onCameraMoved() {
+        refinement.onCameraMoved(System.nanoTime());
+        renderScheduler.requestRender();
+    }
+
+    private boolean isBackgroundRendering() {
+        return params.isFrameBuffer() && params.isBackgroundRendering();
+    }
+
+    /**
+     * Контекст кадра на холсте: последний выведенный кадр фонового потока или кадр RenderEngine.
+     */
+    private RenderContext displayedFrame() {
+        return isBackgroundRendering() ? backgroundRenderer.getFrontFrame() : RenderEngine.getFrameContext();
+    }
+
+    @FXML
+    private void toggleBackgroundRendering(ActionEvent event) {
+        params.setBackgroundRendering(!params.isBackgroundRendering());
+        System.out.println("Background rendering: " + (params.isBackgroundRendering() ? "on" : "off"));
+        System.out.println("  render thread: " + backgroundRenderer);
+        System.out.println("  scheduler: " + renderScheduler);
+        renderScheduler.requestRender();
+    }
+
+    @FXML
+    private void toggleDynamicResolution(ActionEvent event) {
+        params.setDynamicResolution(!params.isDynamicResolution());
+        dynamicResolution.reset();
+        System.out.println("Dynamic resolution: " + (params.isDynamicResolution() ? "on" : "off"));
+        renderScheduler.requestRender();
+    }
+
+    @FXML
+    private void toggleStatsOverlay(ActionEvent event) {
+        statsLabel.setVisible(!statsLabel.isVisible());
+        renderScheduler.requestRender();
+    }
+
+    @FXML
+    private void toggleFrameBuffer(ActionEvent event) {
+        params.setFrameBuffer(!params.isFrameBuffer());
+        System.out.println("Frame buffer rendering: " + (params.isFrameBuffer() ? "on" : "off"));
+        System.out.println("  int[] frame buffer: " + frameBufferStatistics);
+        System.out.println("  PixelWriter.setColor: " + pixelWriterStatistics);
+        System.out.println("  scheduler: " + renderScheduler);
+        renderScheduler.requestRender();
+    }
+
+    @FXML
+    private void toggleHierarchicalDepth(ActionEvent event) {
+        RenderContext frameContext = displayedFrame();
+        if (frameContext != null) {
+            RasterStatistics statistics = frameContext.getStatistics();
+            System.out.println("Last frame: " + statistics);
+            System.out.printf("  overdraw %.2f%n", statistics.getOverdraw(frameContext.countCoveredPixels()));
+        }
+        params.setHierarchicalDepth(!params.isHierarchicalDepth());
+        System.out.println("Hierarchical Z: " + (params.isHierarchicalDepth() ? "on" : "off"));
+        renderScheduler.requestRender();
+    }
+
+    @FXML
+    private void toggleBackFaceCulling(ActionEvent event) {
+        RenderContext frameContext = displayedFrame();
+        if (frameContext != null) {
+            System.out.println("Last frame: " + frameContext.getStatistics());
+        }
+        params.setBackFaceCulling(!params.isBackFaceCulling());
+        System.out.println("Back-face culling: " + (params.isBackFaceCulling() ? "on" : "off"));
+        renderScheduler.requestRender();
+    }
+
+    @FXML
+    private void toggleFrustumClipping(ActionEvent event) {
+        params.setFrustumClipping(!params.isFrustumClipping());
+        System.out.println("Frustum clipping: " + (params.isFrustumClipping() ? "all planes" : "near plane"));
+        renderScheduler.requestRender();
+    }
+
+    @FXML
+    private void toggleIdBuffer(ActionEvent event) {
+        params.setIdBuffer(!params.isIdBuffer());
+        scene.setHighlightedPolygon(null);
+        System.out.println("Polygon ID buffer: " + (params.isIdBuffer() ? "on" : "off"));
+        renderScheduler.requestRender();
+    }
+
+    @FXML
+    private void toggleFrustumCulling(ActionEvent event) {
+        params.setFrustumCulling(!params.isFrustumCulling());
+        System.out.println("BVH frustum culling: " + (params.isFrustumCulling() ? "on" : "off"));
+        renderScheduler.requestRender();
+    }
+
+    @FXML
+    private void toggleTileRasterizer(ActionEvent event) {
+        params.setTileRasterizer(!params.isTileRasterizer());
+        System.out.println("Tile rasterizer: " + (params.isTileRasterizer() ? "on" : "off"));
+        System.out.println("  tiles, " + Runtime.getRuntime().availableProcessors() + " cores: " + tileRasterizerStatistics);
+        System.out.println("  single thread: " + frameBufferStatistics);
+        renderScheduler.requestRender();
     }
 
     private void addTexture(Model model) {
         model.loadTexture("/images/123.jpg");
-        render();
+        renderScheduler.requestRender();
     }
 
     private void removeTexture(Model model) {
         model.clearTexture();
-        render();
+        renderScheduler.requestRender();
     }
 
     @FXML
@@ -277,22 +484,35 @@ public class GuiController {
         Path fileName = Path.of(file.getAbsolutePath());
 
         try {
-            String fileContent = Files.readString(fileName);
-            Model model = ObjReader.read(fileContent);
+            Model model = ModelLoader.load(fileName);
 
             model.setName(file.getName());
-            model.setOriginalVertices(model.getVertices());
             scene.addModel(model);
             scene.setActiveModel(model);
             updateModelComboBox();
             modelComboBox.getSelectionModel().select(model);
-            model.setOriginalPolygons(model.getPolygons());
             historyBuffer.addAction(new TransformAction(model));
+            renderScheduler.requestRender();
+            buildLevelsOfDetail(model);
         } catch (IOException exception) {
             System.err.println("Error reading file: " + exception.getMessage());
         }
     }
 
+    /**
+     * Строит упрощенные сетки для дальних планов в фоне, пока модель рисуется целиком. После деформации
+     * уровни не устаревают (модель переносит на них новые координаты), после правки граней строятся заново.
+     */
+    private void buildLevelsOfDetail(Model model) {
+        if (model == null || model.getLevelsOfDetail() != null) {
+            return;
+        }
+        LevelsOfDetail.buildAsync(model).thenRun(renderScheduler::requestRender).exceptionally(error -> {
+            System.err.println("Error building levels of detail: " + error.getMessage());
+            return null;
+        });
+    }
+
     private FileChooser createFileChooser(String description, String extension, String title) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(description, extension));
@@ -338,6 +558,7 @@ public class GuiController {
 
             ModelEditingTools.deformModelFromRawData(transformationList, activeModel);
             historyBuffer.addAction(new TransformAction(activeModel));
+            renderScheduler.requestRender();
 
             resetTransformationFields();
         } catch (NumberFormatException e) {
@@ -347,15 +568,7 @@ public class GuiController {
 
     private void recalculateNormals(ArrayList<Vector3f> trList, Model model) {
         Matrix4f transformationMatrix = GraphicConveyor.scaleRotateTranslate(trList.get(0), trList.get(1), trList.get(2));
-        ArrayList<Vector3f> transformedVertices = new ArrayList<>();
-
-        for (Vector3f vertex : model.getOriginalVertices()) {
-            Vector3f transformedVertex = GraphicConveyor.multiplyMatrix4ByVector3(transformationMatrix, vertex);
-            transformedVertices.add(transformedVertex);
-        }
-
-        model.setVertices(transformedVertices);
-        model.setNormals(CalculateNormals.calculateNormals(model));
+        ModelEditingTools.deformModelFromTransformationMatrix(transformationMatrix, model);
         System.out.println("8888888");
     }
 
@@ -391,6 +604,7 @@ public class GuiController {
         if (selectedModel != null) {
             scene.deleteModel(selectedModel);
             updateModelComboBox();
+            renderScheduler.requestRender();
         }
     }
 
@@ -402,14 +616,22 @@ public class GuiController {
             return;
         }
 
-        int selectedPolygonIndex = modelComboBox.getSelectionModel().getSelectedIndex();
-        if (selectedPolygonIndex < 0 || selectedPolygonIndex >= activeModel.getPolygons().size()) {
+        if (pickedPolygon == null || pickedPolygon.getModel() != activeModel) {
+            System.err.println("Error: No polygon selected. Click a polygon of the active model.");
+            return;
+        }
+        int selectedPolygonIndex = pickedPolygon.getPolygonIndex();
+        if (selectedPolygonIndex >= activeModel.getPolygons().size()) {
             System.err.println("Error: Invalid polygon index.");
             return;
         }
 
         activeModel.deletePolygon(selectedPolygonIndex);
-        render();
+        // Индексы остальных полигонов сдвинулись
+        pickedPolygon = null;
+        scene.setHighlightedPolygon(null);
+        renderScheduler.requestRender();
+        buildLevelsOfDetail(activeModel);
     }
 
     private void applyTriangle(boolean is) {
@@ -620,6 +842,7 @@ public class GuiController {
         cameraManager.getActiveCamera().setElevation(elevation);
 
         cameraManager.getActiveCamera().updatePosition();
+        onCameraMoved();
     }
 
     private void panCamera(double deltaX, double deltaY) {
@@ -637,6 +860,7 @@ public class GuiController {
 
         cameraManager.getActiveCamera().setTarget(cameraManager.getActiveCamera().getTarget().add(right).add(up));
         cameraManager.getActiveCamera().updatePosition();
+        onCameraMoved();
     }
 
     private void handleOnScroll(ScrollEvent event) {
@@ -648,6 +872,7 @@ public class GuiController {
         distance = Math.max(10.0f, distance);
         cameraManager.getActiveCamera().setDistance(distance);
         cameraManager.getActiveCamera().updatePosition();
+        onCameraMoved();
     }
 
     private void handleMouseReleased(MouseEvent event) {
@@ -690,31 +915,37 @@ public class GuiController {
     @FXML
     public void handleCameraForward(ActionEvent actionEvent) {
         cameraManager.getActiveCamera().movePosition(new Vector3f(0, 0, -TRANSLATION));
+        onCameraMoved();
     }
 
     @FXML
     public void handleCameraBackward(ActionEvent actionEvent) {
         cameraManager.getActiveCamera().movePosition(new Vector3f(0, 0, TRANSLATION));
+        onCameraMoved();
     }
 
     @FXML
     public void handleCameraLeft(ActionEvent actionEvent) {
         cameraManager.getActiveCamera().movePosition(new Vector3f(TRANSLATION, 0, 0));
+        onCameraMoved();
     }
 
     @FXML
     public void handleCameraRight(ActionEvent actionEvent) {
         cameraManager.getActiveCamera().movePosition(new Vector3f(-TRANSLATION, 0, 0));
+        onCameraMoved();
     }
 
     @FXML
     public void handleCameraUp(ActionEvent actionEvent) {
         cameraManager.getActiveCamera().movePosition(new Vector3f(0, TRANSLATION, 0));
+        onCameraMoved();
     }
 
     @FXML
     public void handleCameraDown(ActionEvent actionEvent) {
         cameraManager.getActiveCamera().movePosition(new Vector3f(0, -TRANSLATION, 0));
+        onCameraMoved();
     }
 
     private void setActiveModel() {
@@ -730,18 +961,61 @@ public class GuiController {
     }
 
     private void handleMouseClicked(MouseEvent event) {
-        if (event.isPrimaryButtonDown()) {
-            double x = event.getX();
-            double y = event.getY();
-            Vector3f point = new Vector3f((float) x, (float) y, 0);
-            Model model = scene.getModelAt(point);
-            if (model != null) {
-                scene.setActiveModel(model);
-                modelComboBox.getSelectionModel().select(model);
-            }
+        // Отпускание после вращения камеры - не выбор
+        if (event.getButton() != MouseButton.PRIMARY || !event.isStillSincePress()) {
+            return;
+        }
+        PolygonIndexData pick = polygonAt(event.getX(), event.getY());
+        pickedPolygon = pick;
+        if (pick != null) {
+            scene.setActiveModel(pick.getModel());
+            modelComboBox.getSelectionModel().select(pick.getModel());
+            renderScheduler.requestRender();
         }
     }
 
+    private void handleMouseMoved(MouseEvent event) {
+        PrimitiveIdBuffer idBuffer = frameIdBuffer();
+        PolygonIndexData highlighted = idBuffer == null ? null : polygonInFrame(idBuffer, event.getX(), event.getY());
+        // Движение мыши в пределах одного полигона кадр не меняет
+        if (!Objects.equals(highlighted, scene.getHighlightedPolygon())) {
+            scene.setHighlightedPolygon(highlighted);
+            renderScheduler.requestRender();
+        }
+    }
+
+    /**
+     * Полигон под точкой холста: из буфера идентификаторов последнего кадра, а без него - лучом через сцену.
+     */
+    private PolygonIndexData polygonAt(double x, double y) {
+        PrimitiveIdBuffer idBuffer = frameIdBuffer();
+        if (idBuffer != null) {
+            return polygonInFrame(idBuffer, x, y);
+        }
+        return RayPicker.pick(scene, cameraManager.getActiveCamera(), x, y, (int) canvas.getWidth(), (int) canvas.getHeight());
+    }
+
+    /**
+     * Буфер идентификаторов последнего кадра; null, если он выключен или кадр рисуется через PixelWriter.
+     */
+    private PrimitiveIdBuffer frameIdBuffer() {
+        RenderContext context = displayedFrame();
+        return params.isFrameBuffer() && context != null ? context.getIdBuffer() : null;
+    }
+
+    /**
+     * Полигон буфера идентификаторов под точкой холста; кадр может быть меньше холста.
+     */
+    private PolygonIndexData polygonInFrame(PrimitiveIdBuffer idBuffer, double x, double y) {
+        RenderContext frame = displayedFrame();
+        return idBuffer.getPolygonAt(pixel(x * frame.getWidth() / canvas.getWidth()),
+                pixel(y * frame.getHeight() / canvas.getHeight()));
+    }
+
+    private static int pixel(double coordinate) {
+        return (int) Math.floor(coordinate);
+    }
+
     @FXML
     private void addNewCameraButton() {
         try {
@@ -771,7 +1045,7 @@ public class GuiController {
             addCameraControls(cameraId);
             switchToCamera(cameraId);
             updateCameraPosition();
-            render();
+            renderScheduler.requestRender();
         } catch (NumberFormatException e) {
             System.err.println("ERROR " + "Input error: incorrect data" +
                     "Enter numeric values for the camera position and direction coordinates and try again");
@@ -799,7 +1073,7 @@ public class GuiController {
             }
             return false;
         });
-        render();
+        renderScheduler.requestRender();
     }
 
     private void switchToCamera(int cameraId) {
@@ -815,7 +1089,7 @@ public class GuiController {
         textFieldCameraPointOfDirectionY.setText(String.valueOf(target.getY()));
         textFieldCameraPointOfDirectionZ.setText(String.valueOf(target.getZ()));
 
-        render();
+        renderScheduler.requestRender();
     }
 
     private void updateCameraPosition() {
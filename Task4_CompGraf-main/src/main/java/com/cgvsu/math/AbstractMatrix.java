@@ -32,6 +32,13 @@ public abstract class AbstractMatrix {
         this.elements = new float[size][size];
     }
 
+    /**
+     * Для наследников, которые хранят элементы сами (см. {@link Matrix4f}): массив elements не создается,
+     * а все операции над ним наследник переопределяет.
+     */
+    protected AbstractMatrix(boolean ownStorage) {
+    }
+
     public AbstractMatrix(float[][] array) {
         int size = this.getSize();
         if (array.length != size || array[0].length != size) {
@@ -224,7 +231,14 @@ public abstract class AbstractMatrix {
 
 
     public float determinant() {
-        return determinant(this.elements, getSize());
+        return determinant(rows(), getSize());
+    }
+
+    /**
+     * Элементы матрицы по строкам для общих алгоритмов (определитель, обратная матрица).
+     */
+    protected float[][] rows() {
+        return elements;
     }
 
     public void inverseV() {
@@ -253,10 +267,11 @@ public abstract class AbstractMatrix {
     private float[][] computeDopMatrix() {
         int size = getSize();
         float[][] dopMatrix = new float[size][size];
+        float[][] rows = rows();
         for (int i = 0; i < size; i++) {
             for (int j = 0; j < size; j++) {
                 float sign = (i + j) % 2 == 0 ? 1 : -1;
-                float minor = determinant(getMinorMatrix(elements, i, j, size - 1), size - 1);
+                float minor = determinant(getMinorMatrix(rows, i, j, size - 1), size - 1);
                 dopMatrix[i][j] = sign * minor;
             }
         }
@@ -286,7 +301,7 @@ public abstract class AbstractMatrix {
         int result = 1;
         for (int i = 0; i < getSize(); i++) {
             for (int j = 0; j < getSize(); j++) {
-                result = 31 * result + Float.hashCode(elements[i][j]);
+                result = 31 * result + Float.hashCode(getElement(i, j));
             }
         }
         return result;
@@ -298,7 +313,7 @@ public abstract class AbstractMatrix {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < getSize(); i++) { // Итерация по строкам
             for (int j = 0; j < getSize(); j++) { // Итерация по столбцам
-                sb.append(String.format("%.2f\t", elements[i][j]));
+                sb.append(String.format("%.2f\t", getElement(i, j)));
             }
             sb.append("\n");
         }
@@ -94,9 +94,73 @@ public class Matrix3f extends AbstractMatrix {
     }
 
 
+    /**
+     * Определитель разложением по первой строке в явном виде - без рекурсии и промежуточных миноров.
+     */
+    @Override
+    public float determinant() {
+        float[][] e = elements;
+        return e[0][0] * (e[1][1] * e[2][2] - e[1][2] * e[2][1])
+                - e[0][1] * (e[1][0] * e[2][2] - e[1][2] * e[2][0])
+                + e[0][2] * (e[1][0] * e[2][1] - e[1][1] * e[2][0]);
+    }
+
     @Override
     public Matrix3f inverse() {
-        return (Matrix3f) (super.inverse());
+        return inverse(new Matrix3f());
+    }
+
+    /**
+     * Обратная матрица через присоединенную, записывается в result (может совпадать с this).
+     *
+     * @return result.
+     * @throws ArithmeticException если матрица вырождена.
+     */
+    public Matrix3f inverse(Matrix3f result) {
+        return invert(result, false);
+    }
+
+    /**
+     * Транспонированная обратная матрица (например, для преобразования нормалей), записывается в result.
+     *
+     * @return result.
+     * @throws ArithmeticException если матрица вырождена.
+     */
+    public Matrix3f inverseTranspose(Matrix3f result) {
+        return invert(result, true);
+    }
+
+    private Matrix3f invert(Matrix3f result, boolean transpose) {
+        float[][] e = elements;
+        float e00 = e[0][0], e01 = e[0][1], e02 = e[0][2];
+        float e10 = e[1][0], e11 = e[1][1], e12 = e[1][2];
+        float e20 = e[2][0], e21 = e[2][1], e22 = e[2][2];
+        // Алгебраические дополнения c[i][j]; обратная матрица - транспонированная матрица дополнений, деленная на det
+        float c00 = e11 * e22 - e12 * e21;
+        float c01 = -(e10 * e22 - e12 * e20);
+        float c02 = e10 * e21 - e11 * e20;
+        float det = e00 * c00 + e01 * c01 + e02 * c02;
+        if (det == 0) {
+            throw new ArithmeticException("Матрица вырождена и не имеет обратной.");
+        }
+        float c10 = -(e01 * e22 - e02 * e21);
+        float c11 = e00 * e22 - e02 * e20;
+        float c12 = -(e00 * e21 - e01 * e20);
+        float c20 = e01 * e12 - e02 * e11;
+        float c21 = -(e00 * e12 - e02 * e10);
+        float c22 = e00 * e11 - e01 * e10;
+
+        float[][] r = result.elements;
+        if (transpose) {
+            r[0][0] = c00 / det; r[0][1] = c01 / det; r[0][2] = c02 / det;
+            r[1][0] = c10 / det; r[1][1] = c11 / det; r[1][2] = c12 / det;
+            r[2][0] = c20 / det; r[2][1] = c21 / det; r[2][2] = c22 / det;
+        } else {
+            r[0][0] = c00 / det; r[0][1] = c10 / det; r[0][2] = c20 / det;
+            r[1][0] = c01 / det; r[1][1] = c11 / det; r[1][2] = c21 / det;
+            r[2][0] = c02 / det; r[2][1] = c12 / det; r[2][2] = c22 / det;
+        }
+        return result;
     }
 
 
@@ -1,38 +1,70 @@
 package com.cgvsu.math;
 
 
+/**
+ * Матрица 4x4 на плоском массиве float[16] (по строкам: элемент [row][col] лежит в m[row * 4 + col]).
+ *
+ * <p>Операции на месте (multiply, addV, subV, transposition) и преобразование точек
+ * в массивы или переданные векторы ничего не выделяют в куче, поэтому годятся для покадрового кода.</p>
+ *
+ * <p>Суммы в умножениях начинаются с 0f, как в цикле {@link AbstractMatrix}: так результат совпадает
+ * с прежним побитно, включая знак нуля.</p>
+ */
 public class Matrix4f extends AbstractMatrix {
     private static final int SIZE = 4;
+
+    private final float[] m = new float[SIZE * SIZE];
+
     // Конструкторы + getters and setters
 
     public Matrix4f(float[][] elements){
-        super(elements);
+        super(false);
+        if (elements.length != SIZE || elements[0].length != SIZE) {
+            throw new IllegalArgumentException("Массив должен содержать ровно " + (SIZE * SIZE) + " элементов.");
+        }
+        for (int i = 0; i < SIZE; i++) {
+            System.arraycopy(elements[i], 0, m, i * SIZE, SIZE);
+        }
     }
 
     public Matrix4f(float... elements) {
-        super(elements);
+        super(false);
+        if (elements.length != SIZE * SIZE) {
+            throw new IllegalArgumentException("Массив должен содержать ровно " + (SIZE * SIZE) + " элементов.");
+        }
+        System.arraycopy(elements, 0, m, 0, SIZE * SIZE);
     }
 
     public Matrix4f(Matrix4f elements) {
-        super(elements);
+        super(false);
+        System.arraycopy(elements.m, 0, m, 0, SIZE * SIZE);
     }
 
     public Matrix4f(int one) {
-        super(1);
+        super(false);
+        m[0] = 1;
+        m[5] = 1;
+        m[10] = 1;
+        m[15] = 1;
     }
 
     public Matrix4f() {
-        super();
+        super(false);
     }
 
     @Override
     public Matrix4f add(AbstractMatrix other) {
-        return (Matrix4f) super.add(other);
+        Matrix4f result = new Matrix4f(this);
+        result.addV(other);
+        return result;
     }
 
     @Override
     public void addV(AbstractMatrix other) {
-        super.addV(other);
+        checkSize(other);
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            m[i] += other.getElement(i / SIZE, i % SIZE);
+        }
     }
 
     @Override
@@ -63,48 +95,319 @@ public class Matrix4f extends AbstractMatrix {
 
     @Override
     public Matrix4f sub(AbstractMatrix other) {
-        return (Matrix4f) super.sub(other);
+        Matrix4f result = new Matrix4f(this);
+        result.subV(other);
+        return result;
     }
 
     @Override
     public void subV(AbstractMatrix other) {
-        super.subV(other);
+        checkSize(other);
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            m[i] -= other.getElement(i / SIZE, i % SIZE);
+        }
     }
 
     @Override
     public Vector4f multiply(AbstractVector other) {
-        return (Vector4f) super.multiply(other);
+        if (other.components.length != SIZE) {
+            throw new IllegalArgumentException("Кол-во строк должно быть равно кол-ву столбцов");
+        }
+        float[] v = other.components;
+        return new Vector4f(
+                0f + m[0] * v[0] + m[1] * v[1] + m[2] * v[2] + m[3] * v[3],
+                0f + m[4] * v[0] + m[5] * v[1] + m[6] * v[2] + m[7] * v[3],
+                0f + m[8] * v[0] + m[9] * v[1] + m[10] * v[2] + m[11] * v[3],
+                0f + m[12] * v[0] + m[13] * v[1] + m[14] * v[2] + m[15] * v[3]);
+    }
+
+    /**
+     * Умножает матрицу на точку (x, y, z, 1) и делит результат на w, как
+     * {@link com.cgvsu.render_engine.GraphicConveyor#multiplyMatrix4ByVector3}.
+     *
+     * @param result вектор, в который записывается результат.
+     * @return result.
+     */
+    public Vector3f transformPoint(Vector3f point, Vector3f result) {
+        float x = point.components[0];
+        float y = point.components[1];
+        float z = point.components[2];
+        float w = 0f + m[12] * x + m[13] * y + m[14] * z + m[15];
+        result.components[0] = (0f + m[0] * x + m[1] * y + m[2] * z + m[3]) / w;
+        result.components[1] = (0f + m[4] * x + m[5] * y + m[6] * z + m[7]) / w;
+        result.components[2] = (0f + m[8] * x + m[9] * y + m[10] * z + m[11]) / w;
+        result.calcLength();
+        return result;
+    }
+
+    /**
+     * Преобразует count точек: тройки (x, y, z) из source, начиная с sourceOffset, умножаются на матрицу,
+     * делятся на w и записываются тройками в target с targetOffset. source и target могут совпадать.
+     */
+    public void transformPoints(float[] source, int sourceOffset, float[] target, int targetOffset, int count) {
+        final float m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+        final float m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+        final float m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+        final float m12 = m[12], m13 = m[13], m14 = m[14], m15 = m[15];
+        for (int i = 0; i < count; i++) {
+            int s = sourceOffset + i * 3;
+            int t = targetOffset + i * 3;
+            float x = source[s];
+            float y = source[s + 1];
+            float z = source[s + 2];
+            float w = 0f + m12 * x + m13 * y + m14 * z + m15;
+            target[t] = (0f + m0 * x + m1 * y + m2 * z + m3) / w;
+            target[t + 1] = (0f + m4 * x + m5 * y + m6 * z + m7) / w;
+            target[t + 2] = (0f + m8 * x + m9 * y + m10 * z + m11) / w;
+        }
+    }
+
+    /**
+     * Однородное преобразование без деления на w: тройки (x, y, z) из source переходят
+     * в четверки (x', y', z', w') в target.
+     */
+    public void transformHomogeneous(float[] source, int sourceOffset, float[] target, int targetOffset, int count) {
+        for (int i = 0; i < count; i++) {
+            int s = sourceOffset + i * 3;
+            int t = targetOffset + i * 4;
+            float x = source[s];
+            float y = source[s + 1];
+            float z = source[s + 2];
+            target[t] = 0f + m[0] * x + m[1] * y + m[2] * z + m[3];
+            target[t + 1] = 0f + m[4] * x + m[5] * y + m[6] * z + m[7];
+            target[t + 2] = 0f + m[8] * x + m[9] * y + m[10] * z + m[11];
+            target[t + 3] = 0f + m[12] * x + m[13] * y + m[14] * z + m[15];
+        }
     }
 
     @Override
     public void multiply(AbstractMatrix other) {
-        super.multiply(other);
+        checkSize(other);
+        if (other == this) {
+            multiply(new Matrix4f(this));
+            return;
+        }
+        float[] b = other instanceof Matrix4f ? ((Matrix4f) other).m : new Matrix4f(other.rows()).m;
+        for (int row = 0; row < SIZE * SIZE; row += SIZE) {
+            float a0 = m[row], a1 = m[row + 1], a2 = m[row + 2], a3 = m[row + 3];
+            m[row] = 0f + a0 * b[0] + a1 * b[4] + a2 * b[8] + a3 * b[12];
+            m[row + 1] = 0f + a0 * b[1] + a1 * b[5] + a2 * b[9] + a3 * b[13];
+            m[row + 2] = 0f + a0 * b[2] + a1 * b[6] + a2 * b[10] + a3 * b[14];
+            m[row + 3] = 0f + a0 * b[3] + a1 * b[7] + a2 * b[11] + a3 * b[15];
+        }
     }
 
     @Override
     public Matrix4f multiplyNew(AbstractMatrix other) {
-        return (Matrix4f) super.multiplyNew(other);
+        Matrix4f result = new Matrix4f(this);
+        result.multiply(other);
+        return result;
     }
 
+    @Override
+    public void transposition() {
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = i + 1; j < SIZE; j++) {
+                float temp = m[i * SIZE + j];
+                m[i * SIZE + j] = m[j * SIZE + i];
+                m[j * SIZE + i] = temp;
+            }
+        }
+    }
 
     @Override
     public Matrix4f transpositionNew() {
-        return (Matrix4f) super.transpositionNew();
+        Matrix4f result = new Matrix4f(this);
+        result.transposition();
+        return result;
+    }
+
+    /**
+     * Определитель через шесть 2x2 миноров верхних и шесть нижних двух строк (разложение Лапласа).
+     */
+    @Override
+    public float determinant() {
+        float s0 = m[0] * m[5] - m[4] * m[1];
+        float s1 = m[0] * m[6] - m[4] * m[2];
+        float s2 = m[0] * m[7] - m[4] * m[3];
+        float s3 = m[1] * m[6] - m[5] * m[2];
+        float s4 = m[1] * m[7] - m[5] * m[3];
+        float s5 = m[2] * m[7] - m[6] * m[3];
+        float c5 = m[10] * m[15] - m[14] * m[11];
+        float c4 = m[9] * m[15] - m[13] * m[11];
+        float c3 = m[9] * m[14] - m[13] * m[10];
+        float c2 = m[8] * m[15] - m[12] * m[11];
+        float c1 = m[8] * m[14] - m[12] * m[10];
+        float c0 = m[8] * m[13] - m[12] * m[9];
+        return s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
     }
 
     @Override
     public Matrix4f inverse() {
-        return (Matrix4f) super.inverse();
+        return inverse(new Matrix4f());
+    }
+
+    @Override
+    public void inverseV() {
+        inverse(this);
+    }
+
+    /**
+     * Обратная матрица в явном виде (присоединенная матрица из 2x2 миноров), записывается в result.
+     * result может совпадать с this.
+     *
+     * @return result.
+     * @throws ArithmeticException если матрица вырождена.
+     */
+    public Matrix4f inverse(Matrix4f result) {
+        return invert(result, false);
+    }
+
+    /**
+     * Транспонированная обратная матрица, записывается в result (может совпадать с this).
+     *
+     * @return result.
+     * @throws ArithmeticException если матрица вырождена.
+     */
+    public Matrix4f inverseTranspose(Matrix4f result) {
+        return invert(result, true);
+    }
+
+    private Matrix4f invert(Matrix4f result, boolean transpose) {
+        final float a00 = m[0], a01 = m[1], a02 = m[2], a03 = m[3];
+        final float a10 = m[4], a11 = m[5], a12 = m[6], a13 = m[7];
+        final float a20 = m[8], a21 = m[9], a22 = m[10], a23 = m[11];
+        final float a30 = m[12], a31 = m[13], a32 = m[14], a33 = m[15];
+
+        float s0 = a00 * a11 - a10 * a01;
+        float s1 = a00 * a12 - a10 * a02;
+        float s2 = a00 * a13 - a10 * a03;
+        float s3 = a01 * a12 - a11 * a02;
+        float s4 = a01 * a13 - a11 * a03;
+        float s5 = a02 * a13 - a12 * a03;
+        float c5 = a22 * a33 - a32 * a23;
+        float c4 = a21 * a33 - a31 * a23;
+        float c3 = a21 * a32 - a31 * a22;
+        float c2 = a20 * a33 - a30 * a23;
+        float c1 = a20 * a32 - a30 * a22;
+        float c0 = a20 * a31 - a30 * a21;
+        float det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+        if (det == 0) {
+            throw new ArithmeticException("Матрица вырождена и не имеет обратной.");
+        }
+
+        float[] r = result.m;
+        int i = transpose ? 4 : 1;
+        int j = transpose ? 1 : 4;
+        r[0] = (a11 * c5 - a12 * c4 + a13 * c3) / det;
+        r[i] = (-a01 * c5 + a02 * c4 - a03 * c3) / det;
+        r[2 * i] = (a31 * s5 - a32 * s4 + a33 * s3) / det;
+        r[3 * i] = (-a21 * s5 + a22 * s4 - a23 * s3) / det;
+        r[j] = (-a10 * c5 + a12 * c2 - a13 * c1) / det;
+        r[j + i] = (a00 * c5 - a02 * c2 + a03 * c1) / det;
+        r[j + 2 * i] = (-a30 * s5 + a32 * s2 - a33 * s1) / det;
+        r[j + 3 * i] = (a20 * s5 - a22 * s2 + a23 * s1) / det;
+        r[2 * j] = (a10 * c4 - a11 * c2 + a13 * c0) / det;
+        r[2 * j + i] = (-a00 * c4 + a01 * c2 - a03 * c0) / det;
+        r[2 * j + 2 * i] = (a30 * s4 - a31 * s2 + a33 * s0) / det;
+        r[2 * j + 3 * i] = (-a20 * s4 + a21 * s2 - a23 * s0) / det;
+        r[3 * j] = (-a10 * c3 + a11 * c1 - a12 * c0) / det;
+        r[3 * j + i] = (a00 * c3 - a01 * c1 + a02 * c0) / det;
+        r[3 * j + 2 * i] = (-a30 * s3 + a31 * s1 - a32 * s0) / det;
+        r[3 * j + 3 * i] = (a20 * s3 - a21 * s1 + a22 * s0) / det;
+        return result;
+    }
+
+    /**
+     * Обратная для аффинной матрицы (последняя строка 0 0 0 1): [A | t]^-1 = [A^-1 | -A^-1 * t].
+     * Дешевле общего случая - обращается только блок 3x3. Для неаффинной матрицы результат неверен.
+     *
+     * @return result (может совпадать с this).
+     * @throws ArithmeticException если блок 3x3 вырожден.
+     */
+    public Matrix4f affineInverse(Matrix4f result) {
+        final float a00 = m[0], a01 = m[1], a02 = m[2], t0 = m[3];
+        final float a10 = m[4], a11 = m[5], a12 = m[6], t1 = m[7];
+        final float a20 = m[8], a21 = m[9], a22 = m[10], t2 = m[11];
+
+        float c00 = a11 * a22 - a12 * a21;
+        float c01 = a12 * a20 - a10 * a22;
+        float c02 = a10 * a21 - a11 * a20;
+        float det = a00 * c00 + a01 * c01 + a02 * c02;
+        if (det == 0) {
+            throw new ArithmeticException("Матрица вырождена и не имеет обратной.");
+        }
+
+        float[] r = result.m;
+        float i00 = c00 / det;
+        float i01 = (a02 * a21 - a01 * a22) / det;
+        float i02 = (a01 * a12 - a02 * a11) / det;
+        float i10 = c01 / det;
+        float i11 = (a00 * a22 - a02 * a20) / det;
+        float i12 = (a02 * a10 - a00 * a12) / det;
+        float i20 = c02 / det;
+        float i21 = (a01 * a20 - a00 * a21) / det;
+        float i22 = (a00 * a11 - a01 * a10) / det;
+        r[0] = i00;
+        r[1] = i01;
+        r[2] = i02;
+        r[3] = -(i00 * t0 + i01 * t1 + i02 * t2);
+        r[4] = i10;
+        r[5] = i11;
+        r[6] = i12;
+        r[7] = -(i10 * t0 + i11 * t1 + i12 * t2);
+        r[8] = i20;
+        r[9] = i21;
+        r[10] = i22;
+        r[11] = -(i20 * t0 + i21 * t1 + i22 * t2);
+        r[12] = 0;
+        r[13] = 0;
+        r[14] = 0;
+        r[15] = 1;
+        return result;
+    }
+
+    /**
+     * Матрица нормалей: транспонированная обратная к верхнему левому блоку 3x3, записывается в result.
+     * Для поворота с равномерным масштабом совпадает с самим блоком с точностью до множителя.
+     *
+     * @return result.
+     * @throws ArithmeticException если блок 3x3 вырожден.
+     */
+    public Matrix3f normalMatrix(Matrix3f result) {
+        float[][] block = result.elements;
+        for (int row = 0; row < 3; row++) {
+            System.arraycopy(m, row * SIZE, block[row], 0, 3);
+        }
+        return result.inverseTranspose(result);
     }
 
     @Override
     public float getElement(int rows, int col) {
-        return elements[rows][col];
+        return m[rows * SIZE + col];
     }
 
     @Override
     public void setElement(int rows, int col, float result) {
-        elements[rows][col] = result;
+        m[rows * SIZE + col] = result;
+    }
+
+    /**
+     * Копирует элементы по строкам в target[offset .. offset + 16).
+     */
+    public void toArray(float[] target, int offset) {
+        System.arraycopy(m, 0, target, offset, SIZE * SIZE);
+    }
+
+    @Override
+    protected float[][] rows() {
+        return getElements();
+    }
+
+    private static void checkSize(AbstractMatrix other) {
+        if (other == null || other.getSize() != SIZE) {
+            throw new IllegalArgumentException("Матрицы должны иметь одинаковый размер.");
+        }
     }
 
 
@@ -113,17 +416,22 @@ public class Matrix4f extends AbstractMatrix {
         if (this == obj) return true;
         if (!(obj instanceof Matrix4f)) return false;
         Matrix4f other = (Matrix4f) obj;
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                if (Float.compare(this.elements[i][j], other.elements[i][j]) != 0) {
-                    return false;
-                }
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            if (Float.compare(this.m[i], other.m[i]) != 0) {
+                return false;
             }
         }
         return true;
     }
 
+    /**
+     * Копия элементов в виде двумерного массива; изменение копии на матрицу не влияет.
+     */
     public float[][] getElements() {
-        return elements;
+        float[][] result = new float[SIZE][SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            System.arraycopy(m, i * SIZE, result[i], 0, SIZE);
+        }
+        return result;
     }
 }
@@ -0,0 +1,623 @@
+package com.cgvsu.model;
+
+import com.cgvsu.render_engine.Frustum;
+
+import java.util.Arrays;
+
+/**
+ * Иерархия ограничивающих параллелепипедов (BVH) по граням {@link PackedMesh}.
+ *
+ * <p>Дерево строится сверху вниз по эвристике площади поверхности (SAH): центры граней раскладываются
+ * по {@value #BIN_COUNT} корзинам вдоль каждой оси, и выбирается разрез с наименьшей ожидаемой стоимостью
+ * обхода. Узлы лежат в плоских массивах: у внутреннего узла дети идут подряд, дочерние узлы всегда стоят
+ * после родителя, а грани любого поддерева занимают непрерывный диапазон в {@link #faces}.</p>
+ *
+ * <p>После изменения координат вершин при той же топологии дерево не перестраивается, а уточняется
+ * ({@link #refit}): границы листьев пересчитываются по граням, границы внутренних узлов - по детям,
+ * снизу вверх за один проход.</p>
+ */
+public final class BoundingVolumeHierarchy {
+
+    private static final int BIN_COUNT = 16;
+    // Лист, который не выгодно делить по SAH, но больше этого размера, все равно делится
+    private static final int MAX_LEAF_SIZE = 16;
+    // Лист из стольких граней не делится вовсе
+    private static final int MIN_LEAF_SIZE = 4;
+    // Стоимость обхода узла относительно проверки одной грани
+    private static final float TRAVERSAL_COST = 1.0f;
+    // Глубже этого узлы делятся пополам по числу граней: на вырожденных раскладках SAH может строить цепочку
+    private static final int MAX_SAH_DEPTH = 48;
+
+    // Узел: minX, minY, minZ, maxX, maxY, maxZ
+    private static final int BOUNDS_STRIDE = 6;
+    // Узел: индекс левого ребенка (правый следующий, -1 у листа), начало и число граней поддерева
+    private static final int CHILD = 0, FIRST_FACE = 1, FACE_COUNT = 2;
+    private static final int NODE_STRIDE = 3;
+
+    private final int[] faceOffsets;
+    private final int[] vertexIndices;
+    private final int faceCount;
+    private final int[] faces;
+    private final float[] bounds;
+    private final int[] nodes;
+    private int nodeCount;
+    private float[] positions;
+
+    // Рабочие массивы построения, после него обнуляются
+    private float[] faceBounds;
+    private float[] centroids;
+    private int[] binCounts;
+    private float[] binBounds;
+    private float[] rightAreas;
+    private float[] centroidBounds;
+    private float[] sweep;
+
+    private BoundingVolumeHierarchy(PackedMesh mesh) {
+        this.faceOffsets = mesh.getFaceOffsets();
+        this.vertexIndices = mesh.getVertexIndices();
+        this.faceCount = mesh.getFaceCount();
+        this.positions = mesh.getPositions();
+        this.faces = new int[faceCount];
+        int maxNodes = Math.max(1, 2 * faceCount - 1);
+        this.bounds = new float[maxNodes * BOUNDS_STRIDE];
+        this.nodes = new int[maxNodes * NODE_STRIDE];
+    }
+
+    /**
+     * Копия со своими границами узлов; структура дерева и грани общие.
+     */
+    private BoundingVolumeHierarchy(BoundingVolumeHierarchy other) {
+        this.faceOffsets = other.faceOffsets;
+        this.vertexIndices = other.vertexIndices;
+        this.faceCount = other.faceCount;
+        this.positions = other.positions;
+        this.faces = other.faces;
+        this.bounds = new float[other.bounds.length];
+        this.nodes = other.nodes;
+        this.nodeCount = other.nodeCount;
+    }
+
+    /**
+     * Строит иерархию по граням mesh.
+     */
+    public static BoundingVolumeHierarchy build(PackedMesh mesh) {
+        BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(mesh);
+        hierarchy.build();
+        return hierarchy;
+    }
+
+    /**
+     * Построена ли иерархия по тем же граням, что у mesh. Тогда после смены координат достаточно {@link #refit}.
+     */
+    public boolean hasTopologyOf(PackedMesh mesh) {
+        return mesh.getFaceOffsets() == faceOffsets && mesh.getVertexIndices() == vertexIndices;
+    }
+
+    /**
+     * Координаты вершин, по которым посчитаны границы узлов.
+     */
+    public float[] getPositions() {
+        return positions;
+    }
+
+    /**
+     * Пересчитывает границы узлов по новым координатам вершин без изменения структуры дерева.
+     */
+    public void refit(float[] positions) {
+        this.positions = positions;
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            int child = nodes[node * NODE_STRIDE + CHILD];
+            int offset = node * BOUNDS_STRIDE;
+            if (child < 0) {
+                resetBounds(bounds, offset);
+                int first = nodes[node * NODE_STRIDE + FIRST_FACE];
+                int last = first + nodes[node * NODE_STRIDE + FACE_COUNT];
+                for (int i = first; i < last; i++) {
+                    includeFace(bounds, offset, faces[i]);
+                }
+            } else {
+                resetBounds(bounds, offset);
+                includeBounds(bounds, offset, bounds, child * BOUNDS_STRIDE);
+                includeBounds(bounds, offset, bounds, (child + 1) * BOUNDS_STRIDE);
+            }
+        }
+    }
+
+    /**
+     * Уточненная по новым координатам копия, сама иерархия не меняется. Нужна, когда по ней
+     * в это время может рисовать другой поток.
+     */
+    public BoundingVolumeHierarchy refitted(float[] positions) {
+        BoundingVolumeHierarchy copy = new BoundingVolumeHierarchy(this);
+        copy.refit(positions);
+        return copy;
+    }
+
+    public int getFaceCount() {
+        return faceCount;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Граница корня по оси axis (0 - x, 1 - y, 2 - z).
+     */
+    public float getMin(int axis) {
+        return bounds[axis];
+    }
+
+    public float getMax(int axis) {
+        return bounds[3 + axis];
+    }
+
+    /**
+     * Отмечает в visibleFaces грани, чьи листья не лежат целиком снаружи пирамиды видимости.
+     * Возвращает положение всей модели: при {@link Frustum#OUTSIDE} и {@link Frustum#INSIDE}
+     * массив не заполняется - модель либо не видна, либо видна вся.
+     *
+     * @param visibleFaces массив длиной не меньше числа граней
+     */
+    public int cullFrustum(Frustum frustum, boolean[] visibleFaces) {
+        if (faceCount == 0) {
+            return Frustum.OUTSIDE;
+        }
+        int visibility = classify(frustum, 0);
+        if (visibility != Frustum.INTERSECTS) {
+            return visibility;
+        }
+        Arrays.fill(visibleFaces, 0, faceCount, false);
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int nodeVisibility = node == 0 ? visibility : classify(frustum, node);
+            if (nodeVisibility == Frustum.OUTSIDE) {
+                continue;
+            }
+            int child = nodes[node * NODE_STRIDE + CHILD];
+            if (nodeVisibility == Frustum.INSIDE || child < 0) {
+                int first = nodes[node * NODE_STRIDE + FIRST_FACE];
+                int last = first + nodes[node * NODE_STRIDE + FACE_COUNT];
+                for (int i = first; i < last; i++) {
+                    visibleFaces[faces[i]] = true;
+                }
+                continue;
+            }
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[top++] = child + 1;
+            stack[top++] = child;
+        }
+        return Frustum.INTERSECTS;
+    }
+
+    /**
+     * Грань, одна из вершин которой точно совпадает с (x, y, z), или -1. Проверяются только листья,
+     * параллелепипеды которых содержат точку.
+     */
+    public int findFaceWithVertex(float x, float y, float z) {
+        if (faceCount == 0) {
+            return -1;
+        }
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int offset = node * BOUNDS_STRIDE;
+            if (x < bounds[offset] || y < bounds[offset + 1] || z < bounds[offset + 2]
+                    || x > bounds[offset + 3] || y > bounds[offset + 4] || z > bounds[offset + 5]) {
+                continue;
+            }
+            int child = nodes[node * NODE_STRIDE + CHILD];
+            if (child < 0) {
+                int first = nodes[node * NODE_STRIDE + FIRST_FACE];
+                int last = first + nodes[node * NODE_STRIDE + FACE_COUNT];
+                for (int i = first; i < last; i++) {
+                    if (hasVertex(faces[i], x, y, z)) {
+                        return faces[i];
+                    }
+                }
+                continue;
+            }
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[top++] = child + 1;
+            stack[top++] = child;
+        }
+        return -1;
+    }
+
+    /**
+     * Ближайшее пересечение луча (ox, oy, oz) + t * (dx, dy, dz) с гранями при 0 <= t <= hit[0].
+     * Многоугольник проверяется веером треугольников из первой вершины по Мёллеру - Трамбору, с обеих сторон.
+     * Дети узла обходятся от ближнего к дальнему, узлы дальше уже найденного пересечения пропускаются.
+     *
+     * @param distance на входе distance[0] - наибольшее t, при попадании туда записывается t пересечения
+     * @return индекс грани или -1, если луч ничего не пересекает
+     */
+    public int intersectRay(float ox, float oy, float oz, float dx, float dy, float dz, float[] distance) {
+        if (faceCount == 0) {
+            return -1;
+        }
+        final float inverseX = 1 / dx, inverseY = 1 / dy, inverseZ = 1 / dz;
+        float nearest = distance[0];
+        float rootEntry = entryDistance(0, ox, oy, oz, inverseX, inverseY, inverseZ, nearest);
+        if (rootEntry > nearest) {
+            return -1;
+        }
+        int result = -1;
+        int[] stack = new int[64];
+        float[] entries = new float[64];
+        int top = 0;
+        stack[top] = 0;
+        entries[top++] = rootEntry;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entries[top] > nearest) {
+                continue;
+            }
+            int child = nodes[node * NODE_STRIDE + CHILD];
+            if (child < 0) {
+                int first = nodes[node * NODE_STRIDE + FIRST_FACE];
+                int last = first + nodes[node * NODE_STRIDE + FACE_COUNT];
+                for (int i = first; i < last; i++) {
+                    int face = faces[i];
+                    int start = faceOffsets[face];
+                    int a = vertexIndices[start] * 3;
+                    for (int corner = start + 1; corner + 1 < faceOffsets[face + 1]; corner++) {
+                        float t = intersectTriangle(ox, oy, oz, dx, dy, dz,
+                                a, vertexIndices[corner] * 3, vertexIndices[corner + 1] * 3, nearest);
+                        if (t >= 0) {
+                            nearest = t;
+                            result = face;
+                        }
+                    }
+                }
+                continue;
+            }
+            float leftEntry = entryDistance(child, ox, oy, oz, inverseX, inverseY, inverseZ, nearest);
+            float rightEntry = entryDistance(child + 1, ox, oy, oz, inverseX, inverseY, inverseZ, nearest);
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+                entries = Arrays.copyOf(entries, entries.length * 2);
+            }
+            // Ближний ребенок кладется последним, чтобы снять его первым
+            boolean leftFirst = leftEntry <= rightEntry;
+            if (rightEntry <= nearest && leftFirst) {
+                stack[top] = child + 1;
+                entries[top++] = rightEntry;
+            }
+            if (leftEntry <= nearest) {
+                stack[top] = child;
+                entries[top++] = leftEntry;
+            }
+            if (rightEntry <= nearest && !leftFirst) {
+                stack[top] = child + 1;
+                entries[top++] = rightEntry;
+            }
+        }
+        if (result >= 0) {
+            distance[0] = nearest;
+        }
+        return result;
+    }
+
+    /**
+     * Параметр t входа луча в параллелепипед узла (0, если начало луча внутри) или +бесконечность,
+     * если луч его не пересекает при 0 <= t <= maxDistance.
+     */
+    private float entryDistance(int node, float ox, float oy, float oz,
+                                float inverseX, float inverseY, float inverseZ, float maxDistance) {
+        int offset = node * BOUNDS_STRIDE;
+        float near = 0;
+        float far = maxDistance;
+        // При нулевой компоненте направления и начале на грани слоя получается NaN; сравнения с NaN ложны,
+        // и такой слой просто не сужает отрезок
+        float t0 = (bounds[offset] - ox) * inverseX;
+        float t1 = (bounds[offset + 3] - ox) * inverseX;
+        if (t0 > t1) {
+            float swap = t0;
+            t0 = t1;
+            t1 = swap;
+        }
+        if (t0 > near) {
+            near = t0;
+        }
+        if (t1 < far) {
+            far = t1;
+        }
+        t0 = (bounds[offset + 1] - oy) * inverseY;
+        t1 = (bounds[offset + 4] - oy) * inverseY;
+        if (t0 > t1) {
+            float swap = t0;
+            t0 = t1;
+            t1 = swap;
+        }
+        if (t0 > near) {
+            near = t0;
+        }
+        if (t1 < far) {
+            far = t1;
+        }
+        t0 = (bounds[offset + 2] - oz) * inverseZ;
+        t1 = (bounds[offset + 5] - oz) * inverseZ;
+        if (t0 > t1) {
+            float swap = t0;
+            t0 = t1;
+            t1 = swap;
+        }
+        if (t0 > near) {
+            near = t0;
+        }
+        if (t1 < far) {
+            far = t1;
+        }
+        return near <= far ? near : Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Тест Мёллера - Трамбора для треугольника с вершинами по смещениям a, b, c в positions.
+     * Возвращает t пересечения или -1, если пересечения нет при 0 <= t <= maxDistance.
+     */
+    private float intersectTriangle(float ox, float oy, float oz, float dx, float dy, float dz,
+                                    int a, int b, int c, float maxDistance) {
+        final float[] p = positions;
+        float e1x = p[b] - p[a], e1y = p[b + 1] - p[a + 1], e1z = p[b + 2] - p[a + 2];
+        float e2x = p[c] - p[a], e2y = p[c + 1] - p[a + 1], e2z = p[c + 2] - p[a + 2];
+        float px = dy * e2z - dz * e2y;
+        float py = dz * e2x - dx * e2z;
+        float pz = dx * e2y - dy * e2x;
+        float determinant = e1x * px + e1y * py + e1z * pz;
+        // Луч параллелен плоскости треугольника или треугольник вырожден
+        if (determinant == 0 || determinant != determinant) {
+            return -1;
+        }
+        float inverse = 1 / determinant;
+        float sx = ox - p[a], sy = oy - p[a + 1], sz = oz - p[a + 2];
+        float u = (sx * px + sy * py + sz * pz) * inverse;
+        if (u < 0 || u > 1) {
+            return -1;
+        }
+        float qx = sy * e1z - sz * e1y;
+        float qy = sz * e1x - sx * e1z;
+        float qz = sx * e1y - sy * e1x;
+        float v = (dx * qx + dy * qy + dz * qz) * inverse;
+        if (v < 0 || u + v > 1) {
+            return -1;
+        }
+        float t = (e2x * qx + e2y * qy + e2z * qz) * inverse;
+        return t >= 0 && t <= maxDistance ? t : -1;
+    }
+
+    private boolean hasVertex(int face, float x, float y, float z) {
+        for (int corner = faceOffsets[face]; corner < faceOffsets[face + 1]; corner++) {
+            int vertex = vertexIndices[corner] * 3;
+            if (Float.compare(positions[vertex], x) == 0 && Float.compare(positions[vertex + 1], y) == 0
+                    && Float.compare(positions[vertex + 2], z) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int classify(Frustum frustum, int node) {
+        int offset = node * BOUNDS_STRIDE;
+        return frustum.classify(bounds[offset], bounds[offset + 1], bounds[offset + 2],
+                bounds[offset + 3], bounds[offset + 4], bounds[offset + 5]);
+    }
+
+    private void build() {
+        faceBounds = new float[faceCount * BOUNDS_STRIDE];
+        centroids = new float[faceCount * 3];
+        binCounts = new int[3 * BIN_COUNT];
+        binBounds = new float[3 * BIN_COUNT * BOUNDS_STRIDE];
+        rightAreas = new float[BIN_COUNT];
+        centroidBounds = new float[BOUNDS_STRIDE];
+        sweep = new float[BOUNDS_STRIDE];
+        for (int face = 0; face < faceCount; face++) {
+            faces[face] = face;
+            int offset = face * BOUNDS_STRIDE;
+            resetBounds(faceBounds, offset);
+            includeFace(faceBounds, offset, face);
+            for (int axis = 0; axis < 3; axis++) {
+                float min = faceBounds[offset + axis];
+                float max = faceBounds[offset + 3 + axis];
+                // У грани без вершин границы пустые, ее центр берется в начале координат
+                centroids[face * 3 + axis] = min <= max ? (min + max) * 0.5f : 0;
+            }
+        }
+        nodeCount = 1;
+        buildNode(0, 0, faceCount, 0);
+        faceBounds = null;
+        centroids = null;
+        binCounts = null;
+        binBounds = null;
+        rightAreas = null;
+        centroidBounds = null;
+        sweep = null;
+    }
+
+    /**
+     * Строит поддерево по граням faces[start, end). Границы и центры граней лежат в faceBounds и centroids
+     * по позиции в faces и переставляются вместе с ней, поэтому проходы по диапазону читают память подряд.
+     */
+    private void buildNode(int node, int start, int end, int depth) {
+        final int offset = node * BOUNDS_STRIDE;
+        final int count = end - start;
+        nodes[node * NODE_STRIDE + CHILD] = -1;
+        nodes[node * NODE_STRIDE + FIRST_FACE] = start;
+        nodes[node * NODE_STRIDE + FACE_COUNT] = count;
+        resetBounds(bounds, offset);
+        resetBounds(centroidBounds, 0);
+        for (int i = start; i < end; i++) {
+            includeBounds(bounds, offset, faceBounds, i * BOUNDS_STRIDE);
+            for (int axis = 0; axis < 3; axis++) {
+                float centroid = centroids[i * 3 + axis];
+                if (centroid < centroidBounds[axis]) {
+                    centroidBounds[axis] = centroid;
+                }
+                if (centroid > centroidBounds[3 + axis]) {
+                    centroidBounds[3 + axis] = centroid;
+                }
+            }
+        }
+        if (count <= MIN_LEAF_SIZE) {
+            return;
+        }
+
+        // Корзины по всем трем осям
+        int bestAxis = -1;
+        int bestBin = 0;
+        float bestCost = Float.POSITIVE_INFINITY;
+        if (depth < MAX_SAH_DEPTH) {
+            Arrays.fill(binCounts, 0);
+            for (int bin = 0; bin < 3 * BIN_COUNT; bin++) {
+                resetBounds(binBounds, bin * BOUNDS_STRIDE);
+            }
+            for (int axis = 0; axis < 3; axis++) {
+                float min = centroidBounds[axis];
+                float extent = centroidBounds[3 + axis] - min;
+                if (!(extent > 0)) {
+                    continue;
+                }
+                float scale = BIN_COUNT / extent;
+                for (int i = start; i < end; i++) {
+                    int bin = axis * BIN_COUNT + binOf(centroids[i * 3 + axis], min, scale);
+                    binCounts[bin]++;
+                    includeBounds(binBounds, bin * BOUNDS_STRIDE, faceBounds, i * BOUNDS_STRIDE);
+                }
+            }
+        }
+        // Лучший разрез по SAH: стоимость = площадь левой части * число граней слева + то же справа
+        for (int axis = 0; axis < 3 && depth < MAX_SAH_DEPTH; axis++) {
+            if (!(centroidBounds[3 + axis] - centroidBounds[axis] > 0)) {
+                continue;
+            }
+            int firstBin = axis * BIN_COUNT;
+            resetBounds(sweep, 0);
+            for (int bin = BIN_COUNT - 1; bin > 0; bin--) {
+                includeBounds(sweep, 0, binBounds, (firstBin + bin) * BOUNDS_STRIDE);
+                rightAreas[bin] = surfaceArea(sweep, 0);
+            }
+            resetBounds(sweep, 0);
+            int leftCount = 0;
+            for (int bin = 0; bin < BIN_COUNT - 1; bin++) {
+                includeBounds(sweep, 0, binBounds, (firstBin + bin) * BOUNDS_STRIDE);
+                leftCount += binCounts[firstBin + bin];
+                if (leftCount == 0 || leftCount == count) {
+                    continue;
+                }
+                float cost = surfaceArea(sweep, 0) * leftCount + rightAreas[bin + 1] * (count - leftCount);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = bin;
+                }
+            }
+        }
+
+        float leafCost = surfaceArea(bounds, offset) * count;
+        float splitCost = TRAVERSAL_COST * surfaceArea(bounds, offset) + bestCost;
+        if (count <= MAX_LEAF_SIZE && (bestAxis < 0 || !(splitCost < leafCost))) {
+            return;
+        }
+
+        int middle;
+        if (bestAxis < 0) {
+            // Центры всех граней совпадают или дерево слишком глубокое - делим пополам по порядку
+            middle = (start + end) >>> 1;
+        } else {
+            float min = centroidBounds[bestAxis];
+            float scale = BIN_COUNT / (centroidBounds[3 + bestAxis] - min);
+            int left = start;
+            int right = end - 1;
+            while (left <= right) {
+                if (binOf(centroids[left * 3 + bestAxis], min, scale) <= bestBin) {
+                    left++;
+                } else {
+                    swapFaces(left, right--);
+                }
+            }
+            middle = left;
+        }
+
+        int child = nodeCount;
+        nodeCount += 2;
+        nodes[node * NODE_STRIDE + CHILD] = child;
+        buildNode(child, start, middle, depth + 1);
+        buildNode(child + 1, middle, end, depth + 1);
+    }
+
+    private void swapFaces(int i, int j) {
+        int face = faces[i];
+        faces[i] = faces[j];
+        faces[j] = face;
+        for (int k = 0; k < BOUNDS_STRIDE; k++) {
+            float value = faceBounds[i * BOUNDS_STRIDE + k];
+            faceBounds[i * BOUNDS_STRIDE + k] = faceBounds[j * BOUNDS_STRIDE + k];
+            faceBounds[j * BOUNDS_STRIDE + k] = value;
+        }
+        for (int k = 0; k < 3; k++) {
+            float value = centroids[i * 3 + k];
+            centroids[i * 3 + k] = centroids[j * 3 + k];
+            centroids[j * 3 + k] = value;
+        }
+    }
+
+    private static int binOf(float centroid, float min, float scale) {
+        return Math.min(BIN_COUNT - 1, (int) ((centroid - min) * scale));
+    }
+
+    private void includeFace(float[] target, int offset, int face) {
+        for (int corner = faceOffsets[face]; corner < faceOffsets[face + 1]; corner++) {
+            int vertex = vertexIndices[corner] * 3;
+            for (int axis = 0; axis < 3; axis++) {
+                float value = positions[vertex + axis];
+                if (value < target[offset + axis]) {
+                    target[offset + axis] = value;
+                }
+                if (value > target[offset + 3 + axis]) {
+                    target[offset + 3 + axis] = value;
+                }
+            }
+        }
+    }
+
+    private static void resetBounds(float[] target, int offset) {
+        Arrays.fill(target, offset, offset + 3, Float.POSITIVE_INFINITY);
+        Arrays.fill(target, offset + 3, offset + 6, Float.NEGATIVE_INFINITY);
+    }
+
+    // Сравнения вместо Math.min/max: построение почти все время проводит здесь, а учет NaN и -0 не нужен
+    private static void includeBounds(float[] target, int offset, float[] source, int sourceOffset) {
+        for (int axis = 0; axis < 3; axis++) {
+            float min = source[sourceOffset + axis];
+            float max = source[sourceOffset + 3 + axis];
+            if (min < target[offset + axis]) {
+                target[offset + axis] = min;
+            }
+            if (max > target[offset + 3 + axis]) {
+                target[offset + 3 + axis] = max;
+            }
+        }
+    }
+
+    /**
+     * Половина площади поверхности параллелепипеда; для пустого - 0.
+     */
+    private static float surfaceArea(float[] source, int offset) {
+        float dx = source[offset + 3] - source[offset];
+        float dy = source[offset + 4] - source[offset + 1];
+        float dz = source[offset + 5] - source[offset + 2];
+        if (!(dx >= 0 && dy >= 0 && dz >= 0)) {
+            return 0;
+        }
+        return dx * dy + dy * dz + dz * dx;
+    }
+}
@@ -7,8 +7,7 @@ import com.cgvsu.math.Vector3f;
 public class CalculateNormals {
 
 	public static ArrayList<Vector3f> calculateNormals(Model model) {
-		// TODO Auto-generated method stub
-		throw new UnsupportedOperationException("Unimplemented method 'calculateNormals'");
+		return NormalCalculator.calculateNormals(model);
 	}
 
 }
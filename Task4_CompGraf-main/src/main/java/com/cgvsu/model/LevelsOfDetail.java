@@ -0,0 +1,168 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Уровни детализации модели: упрощенные копии ее треугольной сетки от подробной к грубой,
+ * каждая примерно в {@value #REDUCTION} раза меньше предыдущей (см. {@link MeshDecimator}).
+ *
+ * <p>Уровни строятся по конкретному {@link PackedMesh}. Для каждой вершины уровня хранится индекс вершины
+ * исходного mesh, поэтому после деформации уровни не строятся заново, а получают новые координаты и нормали
+ * ({@link #refitted(PackedMesh)}); после правки граней {@link Model#getLevelsOfDetail()} перестает их отдавать,
+ * пока они не будут построены заново. Для каждого треугольника уровня хранится индекс грани исходного mesh,
+ * из которой он остался, - по нему буфер идентификаторов и выбор полигона ссылаются на полигоны модели.</p>
+ *
+ * <p>Уровни строятся только для сеток из одних треугольников: рендер заливает треугольники и четырехугольники
+ * разными режимами, и треугольное упрощение четырехугольной модели изменило бы ее вид.</p>
+ */
+public final class LevelsOfDetail {
+
+    private static final int REDUCTION = 4;
+    private static final int MAX_LEVELS = 4;
+    // Сетки меньше этого не упрощаются: их и так дешево рисовать
+    private static final int MIN_FACE_COUNT = 4096;
+    // Самый грубый уровень не меньше этого
+    private static final int MIN_LEVEL_FACE_COUNT = 256;
+    // Сколько пикселей квадрата, описанного вокруг проекции модели, приходится на треугольник уровня
+    private static final float PIXELS_PER_TRIANGLE = 4;
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "levels-of-detail");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private final PackedMesh source;
+    private final PackedMesh[] meshes;
+    private final int[][] sourceFaces;
+    private final int[][] sourceVertices;
+
+    private LevelsOfDetail(PackedMesh source, PackedMesh[] meshes, int[][] sourceFaces, int[][] sourceVertices) {
+        this.source = source;
+        this.meshes = meshes;
+        this.sourceFaces = sourceFaces;
+        this.sourceVertices = sourceVertices;
+    }
+
+    /**
+     * Строит уровни детализации mesh. Для маленьких сеток и сеток не из одних треугольников уровней нет.
+     */
+    public static LevelsOfDetail build(PackedMesh mesh) {
+        int[] targets = new int[MAX_LEVELS];
+        int levelCount = 0;
+        if (mesh.getFaceCount() >= MIN_FACE_COUNT && isTriangleMesh(mesh)) {
+            for (int target = mesh.getFaceCount() / REDUCTION;
+                 target >= MIN_LEVEL_FACE_COUNT && levelCount < MAX_LEVELS; target /= REDUCTION) {
+                targets[levelCount++] = target;
+            }
+        }
+        PackedMesh[] meshes = new PackedMesh[levelCount];
+        int[][] sourceFaces = new int[levelCount][];
+        int[][] sourceVertices = new int[levelCount][];
+        int built = levelCount == 0 ? 0 : MeshDecimator.decimate(mesh, Arrays.copyOf(targets, levelCount),
+                meshes, sourceFaces, sourceVertices);
+        return new LevelsOfDetail(mesh, Arrays.copyOf(meshes, built), Arrays.copyOf(sourceFaces, built),
+                Arrays.copyOf(sourceVertices, built));
+    }
+
+    /**
+     * Строит уровни по текущему mesh модели в фоновом потоке и записывает их в модель.
+     * Если к концу построения грани модели успели измениться, уровни ей не достанутся. Если к началу
+     * построения у модели уже есть уровни с теми же гранями (например, от построения, запрошенного раньше),
+     * они только получают координаты mesh.
+     */
+    public static CompletableFuture<LevelsOfDetail> buildAsync(Model model) {
+        PackedMesh mesh = model.getMesh();
+        return CompletableFuture.supplyAsync(() -> {
+            LevelsOfDetail previous = model.getLatestLevelsOfDetail();
+            LevelsOfDetail levels = previous != null && previous.hasTopologyOf(mesh)
+                    ? previous.refitted(mesh) : build(mesh);
+            model.setLevelsOfDetail(levels);
+            return levels;
+        }, EXECUTOR);
+    }
+
+    private static boolean isTriangleMesh(PackedMesh mesh) {
+        for (int face = 0; face < mesh.getFaceCount(); face++) {
+            if (mesh.getFaceSize(face) != 3) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Построены ли уровни по этому mesh.
+     */
+    public boolean isBuiltFrom(PackedMesh mesh) {
+        return mesh == source;
+    }
+
+    /**
+     * Совпадают ли грани mesh с гранями, по которым построены уровни. Углы уровней ссылаются
+     * на текстурные вершины и нормали исходного mesh, поэтому сравниваются и их индексы.
+     */
+    public boolean hasTopologyOf(PackedMesh mesh) {
+        return mesh.getFaceOffsets() == source.getFaceOffsets()
+                && mesh.getVertexIndices() == source.getVertexIndices()
+                && mesh.getTextureVertexIndices() == source.getTextureVertexIndices()
+                && mesh.getNormalIndices() == source.getNormalIndices();
+    }
+
+    /**
+     * Те же уровни для mesh с теми же гранями ({@link #hasTopologyOf(PackedMesh)}), но другими координатами
+     * вершин, текстурными координатами или нормалями. Занимает время, линейное по числу вершин уровней.
+     */
+    public LevelsOfDetail refitted(PackedMesh mesh) {
+        float[] positions = mesh.getPositions();
+        PackedMesh[] refitted = new PackedMesh[meshes.length];
+        for (int level = 0; level < meshes.length; level++) {
+            int[] vertices = sourceVertices[level];
+            float[] levelPositions = new float[vertices.length * 3];
+            for (int vertex = 0; vertex < vertices.length; vertex++) {
+                System.arraycopy(positions, vertices[vertex] * 3, levelPositions, vertex * 3, 3);
+            }
+            PackedMesh levelMesh = meshes[level];
+            refitted[level] = new PackedMesh(levelPositions, mesh.getTextureVertices(), mesh.getNormals(),
+                    levelMesh.getFaceOffsets(), levelMesh.getVertexIndices(), levelMesh.getTextureVertexIndices(),
+                    levelMesh.getNormalIndices());
+        }
+        return new LevelsOfDetail(mesh, refitted, sourceFaces, sourceVertices);
+    }
+
+    public int getLevelCount() {
+        return meshes.length;
+    }
+
+    /**
+     * Сетка уровня level, от 0 (самый подробный из упрощенных) до {@link #getLevelCount()} - 1.
+     */
+    public PackedMesh getMesh(int level) {
+        return meshes[level];
+    }
+
+    /**
+     * Индексы граней исходного mesh для треугольников уровня level.
+     */
+    public int[] getSourceFaces(int level) {
+        return sourceFaces[level];
+    }
+
+    /**
+     * Самый грубый уровень, у которого треугольников не меньше, чем нужно модели с проекцией размером
+     * projectedSize пикселей, или -1, если нужен исходный mesh.
+     */
+    public int select(float projectedSize) {
+        float budget = projectedSize * projectedSize / PIXELS_PER_TRIANGLE;
+        for (int level = meshes.length - 1; level >= 0; level--) {
+            if (meshes[level].getFaceCount() >= budget) {
+                return level;
+            }
+        }
+        return -1;
+    }
+}
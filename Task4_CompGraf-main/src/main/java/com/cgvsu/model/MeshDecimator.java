@@ -0,0 +1,551 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+
+/**
+ * Упрощение треугольной сетки стягиванием ребер по квадрикам ошибки (Garland, Heckbert).
+ *
+ * <p>У каждой вершины копится квадрика - сумма квадратов расстояний до плоскостей ее треугольников
+ * с весом площади. Ребро v - u стягивается в вершину u (половинное стягивание): новых вершин
+ * не появляется, поэтому координаты, текстурные координаты и нормали упрощенной сетки - это исходные
+ * значения, а стоимость стягивания - квадрика v + u в точке u. Из очереди всегда берется самое дешевое
+ * допустимое стягивание.</p>
+ *
+ * <p>Вершины на границе сетки, на неманифолдных ребрах и на швах развертки или нормалей (углы вершины
+ * ссылаются на разные текстурные вершины или нормали) закреплены: их можно стягивать в себя, но не удалять.
+ * Поэтому швы развертки сохраняются, а текстурные координаты углов берутся у вершины u в той же карте.
+ * Стягивание отклоняется, если нарушает условие связности (сетка перестает быть многообразием)
+ * или переворачивает соседний треугольник.</p>
+ */
+final class MeshDecimator {
+    // Стягивание, после которого нормаль треугольника отклоняется сильнее (косинус меньше), считается переворотом
+    private static final double MIN_NORMAL_COSINE = 0.2;
+    private static final int QUADRIC_SIZE = 10;
+
+    private final PackedMesh source;
+    private final float[] positions;
+    private final int vertexCount;
+    private final int triangleCount;
+    // Три угла на треугольник: вершина, текстурная вершина, нормаль
+    private final int[] corners;
+    private final int[] textureCorners;
+    private final int[] normalCorners;
+    private final boolean[] removedTriangles;
+    private int liveTriangles;
+
+    private final double[] quadrics;
+    private final int[][] incident;
+    private final int[] incidentCount;
+    private final boolean[] locked;
+    private final boolean[] removedVertices;
+    // Номер последнего пересчета кандидата вершины; запись в очереди со старым номером устарела
+    private final int[] stamps;
+
+    private float[] heapCosts = new float[64];
+    private int[] heapVertices = new int[64];
+    private int[] heapTargets = new int[64];
+    private int[] heapStamps = new int[64];
+    private int heapSize;
+
+    private int[] neighbors = new int[16];
+    private int[] targetNeighbors = new int[16];
+    private int[] updated = new int[16];
+
+    private MeshDecimator(PackedMesh mesh) {
+        this.source = mesh;
+        this.positions = mesh.getPositions();
+        this.vertexCount = mesh.getVertexCount();
+        this.triangleCount = mesh.getFaceCount();
+        this.corners = mesh.getVertexIndices().clone();
+        this.textureCorners = mesh.getTextureVertexIndices().clone();
+        this.normalCorners = mesh.getNormalIndices().clone();
+        this.removedTriangles = new boolean[triangleCount];
+        this.liveTriangles = triangleCount;
+        this.quadrics = new double[vertexCount * QUADRIC_SIZE];
+        this.incident = new int[vertexCount][];
+        this.incidentCount = new int[vertexCount];
+        this.locked = new boolean[vertexCount];
+        this.removedVertices = new boolean[vertexCount];
+        this.stamps = new int[vertexCount];
+    }
+
+    /**
+     * Упрощает треугольную сетку и сохраняет ее копии, когда число треугольников опускается до очередной цели.
+     *
+     * @param mesh         сетка, все грани которой - треугольники
+     * @param targets      целевые числа треугольников по убыванию
+     * @param meshes       сюда записываются упрощенные сетки по целям
+     * @param sourceFaces  сюда записываются индексы исходных граней для треугольников каждой сетки
+     * @param sourceVertices сюда записываются индексы исходных вершин для вершин каждой сетки
+     * @return число достигнутых целей; оставшиеся не достигнуты, потому что допустимых стягиваний больше нет
+     */
+    static int decimate(PackedMesh mesh, int[] targets, PackedMesh[] meshes, int[][] sourceFaces,
+                        int[][] sourceVertices) {
+        MeshDecimator decimator = new MeshDecimator(mesh);
+        decimator.initialize();
+        int level = 0;
+        while (level < targets.length) {
+            if (decimator.liveTriangles <= targets[level]) {
+                decimator.snapshot(level, meshes, sourceFaces, sourceVertices);
+                level++;
+            } else if (!decimator.collapseCheapest()) {
+                break;
+            }
+        }
+        return level;
+    }
+
+    private void initialize() {
+        for (int corner = 0; corner < corners.length; corner++) {
+            incidentCount[corners[corner]]++;
+        }
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            incident[vertex] = new int[incidentCount[vertex]];
+            incidentCount[vertex] = 0;
+        }
+        for (int triangle = 0; triangle < triangleCount; triangle++) {
+            int a = corners[triangle * 3], b = corners[triangle * 3 + 1], c = corners[triangle * 3 + 2];
+            addIncident(a, triangle);
+            addIncident(b, triangle);
+            addIncident(c, triangle);
+            if (a == b || b == c || c == a) {
+                locked[a] = locked[b] = locked[c] = true;
+            } else {
+                addPlaneQuadric(a, b, c);
+            }
+        }
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            locked[vertex] |= isOnSeamOrBoundary(vertex);
+        }
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            updateCandidate(vertex);
+        }
+    }
+
+    private void addIncident(int vertex, int triangle) {
+        int[] list = incident[vertex];
+        if (incidentCount[vertex] == list.length) {
+            list = incident[vertex] = Arrays.copyOf(list, Math.max(4, list.length * 2));
+        }
+        list[incidentCount[vertex]++] = triangle;
+    }
+
+    /**
+     * Добавляет квадрику плоскости треугольника a, b, c с весом его площади к трем вершинам.
+     */
+    private void addPlaneQuadric(int a, int b, int c) {
+        double ax = positions[a * 3], ay = positions[a * 3 + 1], az = positions[a * 3 + 2];
+        double e1x = positions[b * 3] - ax, e1y = positions[b * 3 + 1] - ay, e1z = positions[b * 3 + 2] - az;
+        double e2x = positions[c * 3] - ax, e2y = positions[c * 3 + 1] - ay, e2z = positions[c * 3 + 2] - az;
+        double nx = e1y * e2z - e1z * e2y;
+        double ny = e1z * e2x - e1x * e2z;
+        double nz = e1x * e2y - e1y * e2x;
+        double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (length == 0) {
+            return;
+        }
+        double area = length * 0.5;
+        nx /= length;
+        ny /= length;
+        nz /= length;
+        double d = -(nx * ax + ny * ay + nz * az);
+        for (int vertex : new int[]{a, b, c}) {
+            int q = vertex * QUADRIC_SIZE;
+            quadrics[q] += area * nx * nx;
+            quadrics[q + 1] += area * nx * ny;
+            quadrics[q + 2] += area * nx * nz;
+            quadrics[q + 3] += area * nx * d;
+            quadrics[q + 4] += area * ny * ny;
+            quadrics[q + 5] += area * ny * nz;
+            quadrics[q + 6] += area * ny * d;
+            quadrics[q + 7] += area * nz * nz;
+            quadrics[q + 8] += area * nz * d;
+            quadrics[q + 9] += area * d * d;
+        }
+    }
+
+    /**
+     * Лежит ли вершина на границе, на неманифолдном ребре или на шве: у всех ее ребер должно быть ровно
+     * по два треугольника, а у всех ее углов - одна текстурная вершина и одна нормаль.
+     */
+    private boolean isOnSeamOrBoundary(int vertex) {
+        int count = incidentCount[vertex];
+        if (count == 0) {
+            return true;
+        }
+        int firstCorner = cornerOf(incident[vertex][0], vertex);
+        int[] edgeCounts = new int[2 * count];
+        int neighborCount = 0;
+        for (int i = 0; i < count; i++) {
+            int triangle = incident[vertex][i];
+            int corner = cornerOf(triangle, vertex);
+            if (textureCorners[corner] != textureCorners[firstCorner] || normalCorners[corner] != normalCorners[firstCorner]) {
+                return true;
+            }
+            for (int k = 0; k < 3; k++) {
+                int other = corners[triangle * 3 + k];
+                if (other == vertex) {
+                    continue;
+                }
+                int j = indexOf(neighbors, neighborCount, other);
+                if (j < 0) {
+                    neighbors = ensureCapacity(neighbors, neighborCount + 1);
+                    j = neighborCount++;
+                    neighbors[j] = other;
+                    edgeCounts[j] = 0;
+                }
+                edgeCounts[j]++;
+            }
+        }
+        for (int j = 0; j < neighborCount; j++) {
+            if (edgeCounts[j] != 2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Пересчитывает самое дешевое допустимое стягивание вершины и кладет его в очередь.
+     */
+    private void updateCandidate(int vertex) {
+        stamps[vertex]++;
+        if (locked[vertex] || removedVertices[vertex]) {
+            return;
+        }
+        int neighborCount = collectNeighbors(vertex);
+        int[] candidates = neighbors;
+        float bestCost = Float.POSITIVE_INFINITY;
+        int bestTarget = -1;
+        for (int i = 0; i < neighborCount; i++) {
+            int target = candidates[i];
+            float cost = collapseCost(vertex, target);
+            if (cost < bestCost && canCollapse(vertex, target, candidates, neighborCount)) {
+                bestCost = cost;
+                bestTarget = target;
+            }
+        }
+        if (bestTarget >= 0) {
+            push(bestCost, vertex, bestTarget, stamps[vertex]);
+        }
+    }
+
+    /**
+     * Стягивает самое дешевое допустимое ребро. Возвращает false, если таких не осталось.
+     */
+    private boolean collapseCheapest() {
+        while (heapSize > 0) {
+            int vertex = heapVertices[0];
+            int target = heapTargets[0];
+            int stamp = heapStamps[0];
+            pop();
+            if (stamp != stamps[vertex] || removedVertices[vertex] || removedVertices[target]) {
+                continue;
+            }
+            int neighborCount = collectNeighbors(vertex);
+            if (!canCollapse(vertex, target, neighbors, neighborCount)) {
+                updateCandidate(vertex);
+                continue;
+            }
+            collapse(vertex, target);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Соседи вершины по живым треугольникам, записываются в {@link #neighbors}.
+     */
+    private int collectNeighbors(int vertex) {
+        int count = 0;
+        for (int i = 0; i < incidentCount[vertex]; i++) {
+            int triangle = incident[vertex][i];
+            if (removedTriangles[triangle]) {
+                continue;
+            }
+            for (int k = 0; k < 3; k++) {
+                int other = corners[triangle * 3 + k];
+                if (other != vertex && indexOf(neighbors, count, other) < 0) {
+                    neighbors = ensureCapacity(neighbors, count + 1);
+                    neighbors[count++] = other;
+                }
+            }
+        }
+        return count;
+    }
+
+    private float collapseCost(int vertex, int target) {
+        int qv = vertex * QUADRIC_SIZE;
+        int qt = target * QUADRIC_SIZE;
+        double x = positions[target * 3], y = positions[target * 3 + 1], z = positions[target * 3 + 2];
+        double a2 = quadrics[qv] + quadrics[qt], ab = quadrics[qv + 1] + quadrics[qt + 1];
+        double ac = quadrics[qv + 2] + quadrics[qt + 2], ad = quadrics[qv + 3] + quadrics[qt + 3];
+        double b2 = quadrics[qv + 4] + quadrics[qt + 4], bc = quadrics[qv + 5] + quadrics[qt + 5];
+        double bd = quadrics[qv + 6] + quadrics[qt + 6], c2 = quadrics[qv + 7] + quadrics[qt + 7];
+        double cd = quadrics[qv + 8] + quadrics[qt + 8], d2 = quadrics[qv + 9] + quadrics[qt + 9];
+        double error = a2 * x * x + 2 * ab * x * y + 2 * ac * x * z + 2 * ad * x
+                + b2 * y * y + 2 * bc * y * z + 2 * bd * y
+                + c2 * z * z + 2 * cd * z + d2;
+        // Ошибка неотрицательна, отрицательное значение - погрешность округления
+        return (float) Math.max(0, error);
+    }
+
+    /**
+     * Можно ли стянуть vertex в target: ребро внутреннее, общих соседей ровно два (условие связности),
+     * у target в обоих общих треугольниках одни и те же атрибуты и ни один треугольник не переворачивается.
+     */
+    private boolean canCollapse(int vertex, int target, int[] vertexNeighbors, int neighborCount) {
+        int shared = 0;
+        int sharedCorner = -1;
+        for (int i = 0; i < incidentCount[vertex]; i++) {
+            int triangle = incident[vertex][i];
+            if (removedTriangles[triangle]) {
+                continue;
+            }
+            int corner = cornerOf(triangle, target);
+            if (corner >= 0) {
+                if (sharedCorner >= 0 && (textureCorners[corner] != textureCorners[sharedCorner]
+                        || normalCorners[corner] != normalCorners[sharedCorner])) {
+                    return false;
+                }
+                sharedCorner = corner;
+                shared++;
+            } else if (flips(triangle, vertex, target)) {
+                return false;
+            }
+        }
+        if (shared != 2) {
+            return false;
+        }
+
+        int[] saved = neighbors;
+        neighbors = targetNeighbors;
+        int targetCount = collectNeighbors(target);
+        targetNeighbors = neighbors;
+        neighbors = saved;
+        int common = 0;
+        for (int i = 0; i < neighborCount; i++) {
+            if (indexOf(targetNeighbors, targetCount, vertexNeighbors[i]) >= 0) {
+                common++;
+            }
+        }
+        return common == 2;
+    }
+
+    /**
+     * Переворачивается ли треугольник (или вырождается), если его вершину vertex перенести в target.
+     */
+    private boolean flips(int triangle, int vertex, int target) {
+        int base = triangle * 3;
+        int k = corners[base] == vertex ? 0 : corners[base + 1] == vertex ? 1 : 2;
+        int moved = corners[base + k] * 3;
+        int next = corners[base + (k + 1) % 3] * 3;
+        int previous = corners[base + (k + 2) % 3] * 3;
+        double e1x = positions[next] - positions[previous];
+        double e1y = positions[next + 1] - positions[previous + 1];
+        double e1z = positions[next + 2] - positions[previous + 2];
+        // Нормали до и после: (next - previous) x (moved - previous)
+        double bx = positions[moved] - positions[previous];
+        double by = positions[moved + 1] - positions[previous + 1];
+        double bz = positions[moved + 2] - positions[previous + 2];
+        int t = target * 3;
+        double ax = positions[t] - positions[previous];
+        double ay = positions[t + 1] - positions[previous + 1];
+        double az = positions[t + 2] - positions[previous + 2];
+        double n0x = e1y * bz - e1z * by, n0y = e1z * bx - e1x * bz, n0z = e1x * by - e1y * bx;
+        double n1x = e1y * az - e1z * ay, n1y = e1z * ax - e1x * az, n1z = e1x * ay - e1y * ax;
+        double before = Math.sqrt(n0x * n0x + n0y * n0y + n0z * n0z);
+        double after = Math.sqrt(n1x * n1x + n1y * n1y + n1z * n1z);
+        if (after == 0) {
+            return true;
+        }
+        return n0x * n1x + n0y * n1y + n0z * n1z < MIN_NORMAL_COSINE * before * after;
+    }
+
+    private void collapse(int vertex, int target) {
+        int textureVertex = 0;
+        int normal = 0;
+        for (int i = 0; i < incidentCount[vertex]; i++) {
+            int triangle = incident[vertex][i];
+            int corner = removedTriangles[triangle] ? -1 : cornerOf(triangle, target);
+            if (corner >= 0) {
+                textureVertex = textureCorners[corner];
+                normal = normalCorners[corner];
+                break;
+            }
+        }
+        for (int i = 0; i < incidentCount[vertex]; i++) {
+            int triangle = incident[vertex][i];
+            if (removedTriangles[triangle]) {
+                continue;
+            }
+            if (cornerOf(triangle, target) >= 0) {
+                removedTriangles[triangle] = true;
+                liveTriangles--;
+                continue;
+            }
+            int corner = cornerOf(triangle, vertex);
+            corners[corner] = target;
+            textureCorners[corner] = textureVertex;
+            normalCorners[corner] = normal;
+            addIncident(target, triangle);
+        }
+        removedVertices[vertex] = true;
+        incident[vertex] = null;
+        incidentCount[vertex] = 0;
+        stamps[vertex]++;
+        for (int k = 0; k < QUADRIC_SIZE; k++) {
+            quadrics[target * QUADRIC_SIZE + k] += quadrics[vertex * QUADRIC_SIZE + k];
+        }
+        compactIncident(target);
+
+        // Стоимость и допустимость изменились у target и всех его соседей
+        int count = collectNeighbors(target);
+        updated = ensureCapacity(updated, count);
+        System.arraycopy(neighbors, 0, updated, 0, count);
+        updateCandidate(target);
+        for (int i = 0; i < count; i++) {
+            updateCandidate(updated[i]);
+        }
+    }
+
+    private void compactIncident(int vertex) {
+        int[] list = incident[vertex];
+        int count = 0;
+        for (int i = 0; i < incidentCount[vertex]; i++) {
+            if (!removedTriangles[list[i]]) {
+                list[count++] = list[i];
+            }
+        }
+        incidentCount[vertex] = count;
+    }
+
+    /**
+     * Индекс угла треугольника с данной вершиной или -1.
+     */
+    private int cornerOf(int triangle, int vertex) {
+        int base = triangle * 3;
+        if (corners[base] == vertex) {
+            return base;
+        }
+        if (corners[base + 1] == vertex) {
+            return base + 1;
+        }
+        return corners[base + 2] == vertex ? base + 2 : -1;
+    }
+
+    /**
+     * Записывает живые треугольники в новую сетку. Вершины переупаковываются, массивы текстурных вершин
+     * и нормалей общие с исходной сеткой.
+     */
+    private void snapshot(int level, PackedMesh[] meshes, int[][] sourceFaces, int[][] sourceVertices) {
+        int[] remap = new int[vertexCount];
+        Arrays.fill(remap, -1);
+        int newVertexCount = 0;
+        int[] faceOffsets = new int[liveTriangles + 1];
+        int[] vertexIndices = new int[liveTriangles * 3];
+        int[] textureVertexIndices = new int[liveTriangles * 3];
+        int[] normalIndices = new int[liveTriangles * 3];
+        int[] faces = new int[liveTriangles];
+        int face = 0;
+        for (int triangle = 0; triangle < triangleCount; triangle++) {
+            if (removedTriangles[triangle]) {
+                continue;
+            }
+            for (int k = 0; k < 3; k++) {
+                int vertex = corners[triangle * 3 + k];
+                if (remap[vertex] < 0) {
+                    remap[vertex] = newVertexCount++;
+                }
+                vertexIndices[face * 3 + k] = remap[vertex];
+                textureVertexIndices[face * 3 + k] = textureCorners[triangle * 3 + k];
+                normalIndices[face * 3 + k] = normalCorners[triangle * 3 + k];
+            }
+            faces[face] = triangle;
+            faceOffsets[++face] = face * 3;
+        }
+        float[] newPositions = new float[newVertexCount * 3];
+        int[] vertices = new int[newVertexCount];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            if (remap[vertex] >= 0) {
+                System.arraycopy(positions, vertex * 3, newPositions, remap[vertex] * 3, 3);
+                vertices[remap[vertex]] = vertex;
+            }
+        }
+        meshes[level] = new PackedMesh(newPositions, source.getTextureVertices(), source.getNormals(),
+                faceOffsets, vertexIndices, textureVertexIndices, normalIndices);
+        sourceFaces[level] = faces;
+        sourceVertices[level] = vertices;
+    }
+
+    private void push(float cost, int vertex, int target, int stamp) {
+        if (heapSize == heapCosts.length) {
+            int capacity = heapSize * 2;
+            heapCosts = Arrays.copyOf(heapCosts, capacity);
+            heapVertices = Arrays.copyOf(heapVertices, capacity);
+            heapTargets = Arrays.copyOf(heapTargets, capacity);
+            heapStamps = Arrays.copyOf(heapStamps, capacity);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapCosts[parent] <= cost) {
+                break;
+            }
+            moveHeapEntry(parent, i);
+            i = parent;
+        }
+        heapCosts[i] = cost;
+        heapVertices[i] = vertex;
+        heapTargets[i] = target;
+        heapStamps[i] = stamp;
+    }
+
+    private void pop() {
+        int last = --heapSize;
+        if (last == 0) {
+            return;
+        }
+        float cost = heapCosts[last];
+        int vertex = heapVertices[last], target = heapTargets[last], stamp = heapStamps[last];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= last) {
+                break;
+            }
+            if (child + 1 < last && heapCosts[child + 1] < heapCosts[child]) {
+                child++;
+            }
+            if (heapCosts[child] >= cost) {
+                break;
+            }
+            moveHeapEntry(child, i);
+            i = child;
+        }
+        heapCosts[i] = cost;
+        heapVertices[i] = vertex;
+        heapTargets[i] = target;
+        heapStamps[i] = stamp;
+    }
+
+    private void moveHeapEntry(int from, int to) {
+        heapCosts[to] = heapCosts[from];
+        heapVertices[to] = heapVertices[from];
+        heapTargets[to] = heapTargets[from];
+        heapStamps[to] = heapStamps[from];
+    }
+
+    private static int indexOf(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] ensureCapacity(int[] values, int capacity) {
+        return capacity <= values.length ? values : Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+    }
+}
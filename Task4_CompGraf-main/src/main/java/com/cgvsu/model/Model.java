@@ -21,6 +21,23 @@ public class Model {
     private ArrayList<Polygon> colorsPolygons = new ArrayList<Polygon>();
     private ArrayList<Polygon> allColorPolygons = new ArrayList<Polygon>();
     private ArrayList<Polygon> texturePolygons = new ArrayList<Polygon>();
+    // Упакованная геометрия для рендера и записи. У модели, собранной из PackedMesh, списки выше равны null
+    // и строятся из mesh при первом обращении; у модели, заполняемой через списки, mesh пересобирается из них.
+    private PackedMesh mesh;
+    private PackedMesh originalMesh;
+    // Списки, из которых собран mesh: по ним getMesh() понимает, что mesh устарел
+    private ArrayList<Vector3f> meshVertices;
+    private ArrayList<Vector2f> meshTextureVertices;
+    private ArrayList<Vector3f> meshNormals;
+    private ArrayList<Polygon> meshPolygons;
+    // Иерархия ограничивающих объемов по граням mesh, строится при первом обращении
+    private BoundingVolumeHierarchy boundingVolumeHierarchy;
+    // Иерархия, построенная в потоке отрисовки по снимку mesh (см. buildBoundingVolumeHierarchy)
+    private volatile BoundingVolumeHierarchy sharedHierarchy;
+    // Смежность вершин и граней с нормалями граней при исходных координатах, строится при первой деформации
+    private NormalUpdater normalUpdater;
+    // Уровни детализации, строятся в фоновом потоке (см. LevelsOfDetail.buildAsync)
+    private volatile LevelsOfDetail levelsOfDetail;
     private RenderParameters renderParameters = new RenderParameters();
     private String name = "Model";
     private Texture texture;
@@ -46,6 +63,182 @@ public class Model {
         transformations.add(null);
     }
 
+    /**
+     * Модель с упакованной геометрией. Списочные представления (вершины, полигоны и т.д.) не создаются,
+     * пока к ним не обратятся.
+     */
+    public Model(PackedMesh mesh) {
+        this();
+        this.mesh = mesh;
+        this.originalMesh = mesh;
+        this.vertices = null;
+        this.textureVertices = null;
+        this.normals = null;
+        this.polygons = null;
+        this.originalVertices = null;
+        this.originalPolygons = null;
+    }
+
+    /**
+     * Упакованная геометрия модели. Если списки были заменены через сеттеры или изменился их размер,
+     * mesh пересобирается; после изменения элементов списков на месте нужно вызвать {@link #invalidateMesh()}.
+     */
+    public PackedMesh getMesh() {
+        if (mesh == null || polygons != null && !isInSync(polygons, meshPolygons, mesh.getFaceCount())) {
+            mesh = PackedMesh.fromPolygons(
+                    vertices == null ? mesh.getPositions() : PackedMesh.packVectors3(vertices),
+                    textureVertices == null ? mesh.getTextureVertices() : PackedMesh.packVectors2(textureVertices),
+                    normals == null ? mesh.getNormals() : PackedMesh.packVectors3(normals),
+                    polygons);
+            meshVertices = vertices;
+            meshTextureVertices = textureVertices;
+            meshNormals = normals;
+            meshPolygons = polygons;
+            return mesh;
+        }
+        if (vertices != null && !isInSync(vertices, meshVertices, mesh.getVertexCount())) {
+            mesh = mesh.withPositions(PackedMesh.packVectors3(vertices));
+            meshVertices = vertices;
+        }
+        if (textureVertices != null && !isInSync(textureVertices, meshTextureVertices, mesh.getTextureVertexCount())) {
+            mesh = mesh.withTextureVertices(PackedMesh.packVectors2(textureVertices));
+            meshTextureVertices = textureVertices;
+        }
+        if (normals != null && !isInSync(normals, meshNormals, mesh.getNormalCount())) {
+            mesh = mesh.withNormals(PackedMesh.packVectors3(normals));
+            meshNormals = normals;
+        }
+        return mesh;
+    }
+
+    /**
+     * Упакованная геометрия с исходными (не деформированными) координатами вершин.
+     */
+    public PackedMesh getOriginalMesh() {
+        PackedMesh current = getMesh();
+        if (originalVertices == null) {
+            return current.withPositions(originalMesh.getPositions());
+        }
+        return current.withPositions(PackedMesh.packVectors3(originalVertices));
+    }
+
+    /**
+     * Помечает упакованную геометрию устаревшей, например после изменения вершин или полигонов на месте.
+     */
+    public void invalidateMesh() {
+        meshVertices = null;
+        meshTextureVertices = null;
+        meshNormals = null;
+        meshPolygons = null;
+    }
+
+    /**
+     * Иерархия ограничивающих объемов по граням текущего mesh. Если с прошлого обращения изменились только
+     * координаты вершин (например, после деформации в {@link ModelEditingTools}), иерархия уточняется
+     * за линейное время, если изменились грани - строится заново. Выданная ранее иерархия не меняется:
+     * по ней может дорисовываться кадр в фоновом потоке.
+     */
+    public BoundingVolumeHierarchy getBoundingVolumeHierarchy() {
+        BoundingVolumeHierarchy hierarchy = findBoundingVolumeHierarchy();
+        if (hierarchy == null) {
+            hierarchy = BoundingVolumeHierarchy.build(getMesh());
+            boundingVolumeHierarchy = hierarchy;
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Иерархия по текущему mesh, если ее не нужно строить заново: прежняя, уточненная после деформации,
+     * или построенная в потоке отрисовки. Иначе null - в отличие от {@link #getBoundingVolumeHierarchy()},
+     * не занимает вызывающий поток построением.
+     */
+    public BoundingVolumeHierarchy findBoundingVolumeHierarchy() {
+        PackedMesh current = getMesh();
+        BoundingVolumeHierarchy hierarchy = boundingVolumeHierarchy;
+        if (hierarchy == null || !hierarchy.hasTopologyOf(current)) {
+            hierarchy = sharedHierarchy;
+            if (hierarchy == null || !hierarchy.hasTopologyOf(current)) {
+                return null;
+            }
+        }
+        if (hierarchy.getPositions() != current.getPositions()) {
+            hierarchy = hierarchy.refitted(current.getPositions());
+        }
+        boundingVolumeHierarchy = hierarchy;
+        return hierarchy;
+    }
+
+    /**
+     * Иерархия по снимку mesh модели для потока отрисовки. Строится, если в этом потоке еще нет иерархии
+     * с теми же гранями, и затем достается модели через {@link #findBoundingVolumeHierarchy()}.
+     */
+    public BoundingVolumeHierarchy buildBoundingVolumeHierarchy(PackedMesh mesh) {
+        BoundingVolumeHierarchy hierarchy = sharedHierarchy;
+        if (hierarchy == null || !hierarchy.hasTopologyOf(mesh)) {
+            hierarchy = BoundingVolumeHierarchy.build(mesh);
+            sharedHierarchy = hierarchy;
+        } else if (hierarchy.getPositions() != mesh.getPositions()) {
+            hierarchy = hierarchy.refitted(mesh.getPositions());
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Пересчет нормалей по граням текущего mesh и исходным координатам вершин. Строится заново,
+     * если с прошлого обращения изменились грани.
+     */
+    public NormalUpdater getNormalUpdater() {
+        if (normalUpdater == null || !normalUpdater.hasTopologyOf(getMesh())) {
+            normalUpdater = new NormalUpdater(getOriginalMesh());
+        }
+        return normalUpdater;
+    }
+
+    /**
+     * Заменяет координаты вершин и нормали упакованными массивами. Списки вершин и нормалей строятся
+     * из mesh заново при следующем обращении.
+     */
+    public void setPositionsAndNormals(float[] positions, float[] normals) {
+        mesh = getMesh().withPositions(positions).withNormals(normals);
+        this.vertices = null;
+        this.normals = null;
+        meshVertices = null;
+        meshNormals = null;
+    }
+
+    /**
+     * Уровни детализации по текущему mesh или null, если их нет или с тех пор изменились грани.
+     * Если изменились только координаты вершин или нормали, уровни получают их за линейное время.
+     */
+    public LevelsOfDetail getLevelsOfDetail() {
+        LevelsOfDetail levels = levelsOfDetail;
+        PackedMesh current = getMesh();
+        if (levels == null || levels.isBuiltFrom(current)) {
+            return levels;
+        }
+        if (!levels.hasTopologyOf(current)) {
+            return null;
+        }
+        levels = levels.refitted(current);
+        levelsOfDetail = levels;
+        return levels;
+    }
+
+    /**
+     * Последние записанные в модель уровни, без сверки с текущим mesh: их читает фоновое построение.
+     */
+    LevelsOfDetail getLatestLevelsOfDetail() {
+        return levelsOfDetail;
+    }
+
+    public void setLevelsOfDetail(LevelsOfDetail levelsOfDetail) {
+        this.levelsOfDetail = levelsOfDetail;
+    }
+
+    private static boolean isInSync(ArrayList<?> list, ArrayList<?> meshList, int meshCount) {
+        return list == meshList && list.size() == meshCount;
+    }
+
     public Matrix4f getTransformation(int index) {
         return transformations.get(index);
     }
@@ -60,6 +253,10 @@ public class Model {
     }
 
     public ArrayList<Vector3f> getVertices() {
+        if (vertices == null) {
+            vertices = mesh.toVertexList();
+            meshVertices = vertices;
+        }
         return vertices;
     }
 
@@ -68,6 +265,10 @@ public class Model {
     }
 
     public ArrayList<Vector2f> getTextureVertices() {
+        if (textureVertices == null) {
+            textureVertices = mesh.toTextureVertexList();
+            meshTextureVertices = textureVertices;
+        }
         return textureVertices;
     }
 
@@ -76,6 +277,10 @@ public class Model {
     }
 
     public ArrayList<Vector3f> getNormals() {
+        if (normals == null) {
+            normals = mesh.toNormalList();
+            meshNormals = normals;
+        }
         return normals;
     }
 
@@ -84,6 +289,10 @@ public class Model {
     }
 
     public ArrayList<Polygon> getPolygons() {
+        if (polygons == null) {
+            polygons = mesh.toPolygonList(getTextureVertices());
+            meshPolygons = polygons;
+        }
         return polygons;
     }
 
@@ -100,6 +309,9 @@ public class Model {
     }
 
     public ArrayList<Vector3f> getOriginalVertices() {
+        if (originalVertices == null) {
+            originalVertices = originalMesh.toVertexList();
+        }
         return originalVertices;
     }
 
@@ -116,6 +328,9 @@ public class Model {
     }
 
     public ArrayList<Polygon> getOriginalPolygons() {
+        if (originalPolygons == null) {
+            originalPolygons = originalMesh.toPolygonList(getTextureVertices());
+        }
         return originalPolygons;
     }
 
@@ -161,7 +376,7 @@ public class Model {
     }
 
     public void loadTexture(String texturePath) {
-        this.texture = new Texture(texturePath);
+        this.texture = TextureCache.get(texturePath);
     }
 
     public Texture getTexture() {
@@ -173,8 +388,17 @@ public class Model {
     }
 
     public void deletePolygon(int index) {
+        ArrayList<Polygon> polygons = getPolygons();
         if (index >= 0 && index < polygons.size()) {
+            // Если нормали уже поддерживаются пересчетом, обновляются только вершины удаленного полигона
+            NormalUpdater updater = normalUpdater != null && normalUpdater.hasTopologyOf(getMesh())
+                    ? normalUpdater : null;
             polygons.remove(index);
+            invalidateMesh();
+            if (updater != null) {
+                PackedMesh current = getMesh();
+                setPositionsAndNormals(current.getPositions(), updater.removeFace(current, index));
+            }
         } else {
             throw new IndexOutOfBoundsException("Polygon index out of bounds: " + index);
         }
@@ -11,25 +11,18 @@ public class ModelEditingTools {
     public static void deformModelFromRawData(ArrayList<Vector3f> trList, Model model) {
         Matrix4f transformationMatrix = GraphicConveyor.scaleRotateTranslate(trList.get(0), trList.get(1), trList.get(2));
         model.addTransformation(transformationMatrix);
-        ArrayList<Vector3f> transformedVertices = new ArrayList<>();
-
-        for (Vector3f vertex : model.getOriginalVertices()) {
-            Vector3f transformedVertex = GraphicConveyor.multiplyMatrix4ByVector3(transformationMatrix, vertex);
-            transformedVertices.add(transformedVertex);
-        }
-
-        model.setVertices(transformedVertices);
-        model.setNormals(com.cgvsu.model.CalculateNormals.calculateNormals(model));
+        deformModelFromTransformationMatrix(transformationMatrix, model);
     }
-    public static void deformModelFromTransformationMatrix(Matrix4f transformationMatrix, Model model) {
-        ArrayList<Vector3f> transformedVertices = new ArrayList<>();
 
-        for (Vector3f vertex : model.getOriginalVertices()) {
-            Vector3f transformedVertex = GraphicConveyor.multiplyMatrix4ByVector3(transformationMatrix, vertex);
-            transformedVertices.add(transformedVertex);
-        }
-
-        model.setVertices(transformedVertices);
-        model.setNormals(com.cgvsu.model.CalculateNormals.calculateNormals(model));
+    /**
+     * Умножает исходные вершины модели на матрицу. Нормали не считаются заново по вершинам,
+     * а поворачиваются вслед за ними (см. {@link NormalUpdater#transform}).
+     */
+    public static void deformModelFromTransformationMatrix(Matrix4f transformationMatrix, Model model) {
+        NormalUpdater normalUpdater = model.getNormalUpdater();
+        float[] originalPositions = model.getOriginalMesh().getPositions();
+        float[] positions = new float[originalPositions.length];
+        transformationMatrix.transformPoints(originalPositions, 0, positions, 0, positions.length / 3);
+        model.setPositionsAndNormals(positions, normalUpdater.transform(transformationMatrix));
     }
 }
@@ -91,6 +91,45 @@ public class ModelTriangulator {
         return newModelPoly1;
     }
 
+    /**
+     * Веерная триангуляция упакованной геометрии: полигон (0, 1, ..., n-1) заменяется треугольниками (0, i-1, i).
+     * В отличие от {@link #triangulateModel(ArrayList)} индексы текстур и нормалей углов сохраняются.
+     * Полигоны меньше чем из трех вершин отбрасываются, координаты не копируются.
+     */
+    public static PackedMesh triangulate(PackedMesh mesh) {
+        int[] faceOffsets = mesh.getFaceOffsets();
+        int[] vertexIndices = mesh.getVertexIndices();
+        int[] textureVertexIndices = mesh.getTextureVertexIndices();
+        int[] normalIndices = mesh.getNormalIndices();
+
+        int triangleCount = 0;
+        for (int face = 0; face < mesh.getFaceCount(); face++) {
+            triangleCount += Math.max(0, mesh.getFaceSize(face) - 2);
+        }
+
+        int[] newFaceOffsets = new int[triangleCount + 1];
+        int[] newVertexIndices = new int[triangleCount * 3];
+        int[] newTextureVertexIndices = new int[triangleCount * 3];
+        int[] newNormalIndices = new int[triangleCount * 3];
+        int corner = 0;
+        int triangle = 0;
+        for (int face = 0; face < mesh.getFaceCount(); face++) {
+            int start = faceOffsets[face];
+            for (int i = start + 2; i < faceOffsets[face + 1]; i++) {
+                for (int k = 0; k < 3; k++, corner++) {
+                    int source = k == 0 ? start : i - 2 + k;
+                    newVertexIndices[corner] = vertexIndices[source];
+                    newTextureVertexIndices[corner] = textureVertexIndices[source];
+                    newNormalIndices[corner] = normalIndices[source];
+                }
+                newFaceOffsets[++triangle] = corner;
+            }
+        }
+
+        return new PackedMesh(mesh.getPositions(), mesh.getTextureVertices(), mesh.getNormals(),
+                newFaceOffsets, newVertexIndices, newTextureVertexIndices, newNormalIndices);
+    }
+
     public static class Triangle {
         public int v1, v2, v3;
 
@@ -3,42 +3,77 @@ package com.cgvsu.model;
 import com.cgvsu.math.Vector3f;
 
 import java.util.ArrayList;
-import java.util.List;
 
 public class NormalCalculator {
 
     public static ArrayList<Vector3f> calculateNormals(Model model) {
-        ArrayList<Vector3f> normals = new ArrayList<>();
-        ArrayList<Vector3f> vertices = model.getVertices();
-        ArrayList<Polygon> polygons = model.getPolygons();
-
-        for (int i = 0; i < vertices.size(); i++) {
-            normals.add(new Vector3f(0, 0, 0));
+        float[] normals = calculateNormals(model.getMesh());
+        ArrayList<Vector3f> result = new ArrayList<>(normals.length / 3);
+        for (int i = 0; i < normals.length; i += 3) {
+            result.add(new Vector3f(normals[i], normals[i + 1], normals[i + 2]));
         }
+        return result;
+    }
 
-        for (Polygon polygon : polygons) {
-            List<Integer> vertexIndices = polygon.getVertexIndices();
-            Vector3f v0 = vertices.get(vertexIndices.get(0));
-            Vector3f v1 = vertices.get(vertexIndices.get(1));
-            Vector3f v2 = vertices.get(vertexIndices.get(2));
+    /**
+     * Нормали вершин по упакованной геометрии: сумма нормалей граней, в которые входит вершина, затем нормировка.
+     * Нормаль грани считается по первым трем вершинам, грани меньше чем из трех вершин пропускаются.
+     *
+     * @return нормали тройками (x, y, z), по одной на вершину.
+     */
+    public static float[] calculateNormals(PackedMesh mesh) {
+        float[] positions = mesh.getPositions();
+        int[] faceOffsets = mesh.getFaceOffsets();
+        int[] vertexIndices = mesh.getVertexIndices();
+        float[] normals = new float[positions.length];
 
-            Vector3f edge1 = v1.sub(v0);
-            Vector3f edge2 = v2.sub(v0);
-            Vector3f faceNormal = edge1.cross(edge2);
-            faceNormal.normalize();
+        for (int face = 0; face < mesh.getFaceCount(); face++) {
+            int start = faceOffsets[face];
+            int end = faceOffsets[face + 1];
+            if (end - start < 3) {
+                continue;
+            }
+            int v0 = vertexIndices[start] * 3;
+            int v1 = vertexIndices[start + 1] * 3;
+            int v2 = vertexIndices[start + 2] * 3;
 
-            for (int index : vertexIndices) {
-                Vector3f currentNormal = normals.get(index);
-                normals.set(index, currentNormal.add(faceNormal));
+            float edge1X = positions[v1] - positions[v0];
+            float edge1Y = positions[v1 + 1] - positions[v0 + 1];
+            float edge1Z = positions[v1 + 2] - positions[v0 + 2];
+            float edge2X = positions[v2] - positions[v0];
+            float edge2Y = positions[v2 + 1] - positions[v0 + 1];
+            float edge2Z = positions[v2 + 2] - positions[v0 + 2];
+
+            float normalX = edge1Y * edge2Z - edge1Z * edge2Y;
+            float normalY = edge1Z * edge2X - edge1X * edge2Z;
+            float normalZ = edge1X * edge2Y - edge1Y * edge2X;
+            float length = length(normalX, normalY, normalZ);
+            if (length != 0) {
+                normalX /= length;
+                normalY /= length;
+                normalZ /= length;
             }
-        }
 
-        for (int i = 0; i < normals.size(); i++) {
-            Vector3f normal = normals.get(i);
-            normal.normalize();
-            normals.set(i, normal);
+            for (int i = start; i < end; i++) {
+                int index = vertexIndices[i] * 3;
+                normals[index] += normalX;
+                normals[index + 1] += normalY;
+                normals[index + 2] += normalZ;
+            }
         }
 
+        for (int i = 0; i < normals.length; i += 3) {
+            float length = length(normals[i], normals[i + 1], normals[i + 2]);
+            if (length != 0) {
+                normals[i] /= length;
+                normals[i + 1] /= length;
+                normals[i + 2] /= length;
+            }
+        }
         return normals;
     }
+
+    private static float length(float x, float y, float z) {
+        return (float) Math.sqrt(x * x + y * y + z * z);
+    }
 }
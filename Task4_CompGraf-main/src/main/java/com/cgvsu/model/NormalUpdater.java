@@ -0,0 +1,349 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Matrix4f;
+
+import java.util.Arrays;
+
+/**
+ * Поддержка нормалей вершин без полного пересчета по {@link NormalCalculator}.
+ *
+ * <p>Хранит индекс смежности вершина - грани (в формате CSR) и нормали граней. Нормали считаются так же,
+ * как в {@link NormalCalculator}: нормаль грани - единичное векторное произведение по первым трем вершинам,
+ * нормаль вершины - нормированная сумма нормалей ее граней. Отсюда:</p>
+ * <ul>
+ *     <li>при аффинном преобразовании исходных вершин векторное произведение ребер переходит
+ *     в произведение с присоединенной матрицей (det * обратная транспонированная), поэтому нормали граней
+ *     поворачиваются без обращения к вершинам, а для подобия (поворот, равномерный масштаб, перенос)
+ *     так же поворачиваются сразу нормали вершин;</li>
+ *     <li>после правки вершин или удаления полигона пересчитываются только грани вокруг затронутых вершин.</li>
+ * </ul>
+ *
+ * <p>Возвращаемые массивы нормалей после выдачи не меняются: каждое обновление создает новый массив,
+ * поэтому его можно отдавать в {@link PackedMesh}.</p>
+ */
+public final class NormalUpdater {
+
+    // Допуск на проверку подобия, относительно квадрата масштаба
+    private static final float SIMILARITY_EPSILON = 1e-5f;
+
+    private int[] faceOffsets;
+    private int[] vertexIndices;
+    private int faceCount;
+    private final int vertexCount;
+    // Грани вершины v: adjacentFaces[adjacencyOffsets[v]] ... adjacentFaces[adjacencyOffsets[v + 1] - 1]
+    private int[] adjacencyOffsets;
+    private int[] adjacentFaces;
+
+    // Нормали при координатах, по которым построен объект; от них считается transform
+    private float[] baseFaceNormals;
+    private float[] baseNormals;
+    // Текущие нормали граней; null, если после transform их еще не пересчитывали
+    private float[] faceNormals;
+    private final float[] faceCofactor = new float[9];
+    private float[] normals;
+
+    /**
+     * Строит индекс смежности и нормали по граням и координатам mesh.
+     */
+    public NormalUpdater(PackedMesh mesh) {
+        this.faceOffsets = mesh.getFaceOffsets();
+        this.vertexIndices = mesh.getVertexIndices();
+        this.faceCount = mesh.getFaceCount();
+        this.vertexCount = mesh.getVertexCount();
+        buildAdjacency();
+        this.baseFaceNormals = new float[faceCount * 3];
+        float[] positions = mesh.getPositions();
+        for (int face = 0; face < faceCount; face++) {
+            computeFaceNormal(positions, face, baseFaceNormals);
+        }
+        this.baseNormals = new float[vertexCount * 3];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            accumulateVertexNormal(vertex, baseFaceNormals, baseNormals);
+        }
+        this.faceNormals = baseFaceNormals.clone();
+        this.normals = baseNormals;
+    }
+
+    private void buildAdjacency() {
+        adjacencyOffsets = new int[vertexCount + 1];
+        for (int face = 0; face < faceCount; face++) {
+            if (faceOffsets[face + 1] - faceOffsets[face] < 3) {
+                continue;
+            }
+            for (int i = faceOffsets[face]; i < faceOffsets[face + 1]; i++) {
+                adjacencyOffsets[vertexIndices[i] + 1]++;
+            }
+        }
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            adjacencyOffsets[vertex + 1] += adjacencyOffsets[vertex];
+        }
+        adjacentFaces = new int[adjacencyOffsets[vertexCount]];
+        int[] next = Arrays.copyOf(adjacencyOffsets, vertexCount);
+        for (int face = 0; face < faceCount; face++) {
+            if (faceOffsets[face + 1] - faceOffsets[face] < 3) {
+                continue;
+            }
+            for (int i = faceOffsets[face]; i < faceOffsets[face + 1]; i++) {
+                adjacentFaces[next[vertexIndices[i]]++] = face;
+            }
+        }
+    }
+
+    /**
+     * Построен ли объект по тем же граням, что у mesh.
+     */
+    public boolean hasTopologyOf(PackedMesh mesh) {
+        return mesh.getFaceOffsets() == faceOffsets && mesh.getVertexIndices() == vertexIndices;
+    }
+
+    /**
+     * Текущие нормали вершин тройками (x, y, z).
+     */
+    public float[] getNormals() {
+        return normals;
+    }
+
+    /**
+     * Грани, в которые входит вершина, записываются в faces; возвращается их число.
+     *
+     * @param faces массив длиной не меньше {@link #getAdjacentFaceCount(int)}
+     */
+    public int getAdjacentFaces(int vertex, int[] faces) {
+        int start = adjacencyOffsets[vertex];
+        int count = adjacencyOffsets[vertex + 1] - start;
+        System.arraycopy(adjacentFaces, start, faces, 0, count);
+        return count;
+    }
+
+    public int getAdjacentFaceCount(int vertex) {
+        return adjacencyOffsets[vertex + 1] - adjacencyOffsets[vertex];
+    }
+
+    /**
+     * Нормали вершин после того, как исходные координаты (по которым построен объект) умножены на matrix.
+     * Преобразование должно быть аффинным: проективная часть матрицы не учитывается.
+     */
+    public float[] transform(Matrix4f matrix) {
+        float[] c = faceCofactor;
+        float m00 = matrix.getElement(0, 0), m01 = matrix.getElement(0, 1), m02 = matrix.getElement(0, 2);
+        float m10 = matrix.getElement(1, 0), m11 = matrix.getElement(1, 1), m12 = matrix.getElement(1, 2);
+        float m20 = matrix.getElement(2, 0), m21 = matrix.getElement(2, 1), m22 = matrix.getElement(2, 2);
+        // Присоединенная матрица: (M a) x (M b) = C (a x b)
+        c[0] = m11 * m22 - m12 * m21;
+        c[1] = m12 * m20 - m10 * m22;
+        c[2] = m10 * m21 - m11 * m20;
+        c[3] = m02 * m21 - m01 * m22;
+        c[4] = m00 * m22 - m02 * m20;
+        c[5] = m01 * m20 - m00 * m21;
+        c[6] = m01 * m12 - m02 * m11;
+        c[7] = m02 * m10 - m00 * m12;
+        c[8] = m00 * m11 - m01 * m10;
+
+        // Нормали граней досчитываются по c, только когда понадобятся
+        faceNormals = null;
+        if (isIdentity(c)) {
+            normals = baseNormals;
+            return normals;
+        }
+        float[] result = new float[vertexCount * 3];
+        if (isSimilarity(c)) {
+            // Сумма единичных нормалей граней поворачивается вместе с ними
+            for (int i = 0; i < result.length; i += 3) {
+                transformNormal(c, baseNormals, i, result, i);
+            }
+        } else {
+            ensureFaceNormals();
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                accumulateVertexNormal(vertex, faceNormals, result);
+            }
+        }
+        normals = result;
+        return normals;
+    }
+
+    /**
+     * Нормали вершин после того, как у вершин changedVertices[0..count) изменились координаты.
+     * Пересчитываются нормали их граней и нормали вершин этих граней.
+     *
+     * @param positions все координаты вершин после правки
+     */
+    public float[] updateVertices(float[] positions, int[] changedVertices, int count) {
+        ensureFaceNormals();
+        boolean[] dirtyFaces = new boolean[faceCount];
+        for (int i = 0; i < count; i++) {
+            int vertex = changedVertices[i];
+            for (int j = adjacencyOffsets[vertex]; j < adjacencyOffsets[vertex + 1]; j++) {
+                int face = adjacentFaces[j];
+                if (!dirtyFaces[face]) {
+                    dirtyFaces[face] = true;
+                    computeFaceNormal(positions, face, faceNormals);
+                }
+            }
+        }
+        float[] result = normals.clone();
+        for (int i = 0; i < count; i++) {
+            int vertex = changedVertices[i];
+            for (int j = adjacencyOffsets[vertex]; j < adjacencyOffsets[vertex + 1]; j++) {
+                int face = adjacentFaces[j];
+                for (int k = faceOffsets[face]; k < faceOffsets[face + 1]; k++) {
+                    accumulateVertexNormal(vertexIndices[k], faceNormals, result);
+                }
+            }
+        }
+        normals = result;
+        return normals;
+    }
+
+    /**
+     * Нормали вершин после удаления грани face. mesh - геометрия после удаления: те же грани без face,
+     * следующие за ней сдвинуты на одну назад. Пересчитываются только нормали вершин удаленной грани.
+     */
+    public float[] removeFace(PackedMesh mesh, int face) {
+        int start = faceOffsets[face];
+        int end = faceOffsets[face + 1];
+        int[] removedVertices = Arrays.copyOfRange(vertexIndices, start, end);
+
+        int write = 0;
+        for (int read = 0; read < adjacentFaces.length; read++) {
+            int adjacent = adjacentFaces[read];
+            if (adjacent != face) {
+                adjacentFaces[write++] = adjacent > face ? adjacent - 1 : adjacent;
+            }
+        }
+        if (end - start >= 3) {
+            // Смещения вершин грани уменьшаются на ее вхождения в них и во все вершины перед ними
+            int[] removedBefore = new int[vertexCount + 1];
+            for (int vertex : removedVertices) {
+                removedBefore[vertex + 1]++;
+            }
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                removedBefore[vertex + 1] += removedBefore[vertex];
+                adjacencyOffsets[vertex + 1] -= removedBefore[vertex + 1];
+            }
+        }
+        adjacentFaces = Arrays.copyOf(adjacentFaces, write);
+
+        faceOffsets = mesh.getFaceOffsets();
+        vertexIndices = mesh.getVertexIndices();
+        faceCount = mesh.getFaceCount();
+        baseFaceNormals = removeTriple(baseFaceNormals, face);
+        faceNormals = faceNormals == null ? null : removeTriple(faceNormals, face);
+
+        boolean untransformed = normals == baseNormals;
+        baseNormals = baseNormals.clone();
+        for (int vertex : removedVertices) {
+            accumulateVertexNormal(vertex, baseFaceNormals, baseNormals);
+        }
+        float[] result = baseNormals;
+        if (!untransformed) {
+            result = normals.clone();
+            ensureFaceNormals();
+            for (int vertex : removedVertices) {
+                accumulateVertexNormal(vertex, faceNormals, result);
+            }
+        }
+        normals = result;
+        return normals;
+    }
+
+    private static float[] removeTriple(float[] values, int index) {
+        float[] result = new float[values.length - 3];
+        System.arraycopy(values, 0, result, 0, index * 3);
+        System.arraycopy(values, index * 3 + 3, result, index * 3, result.length - index * 3);
+        return result;
+    }
+
+    /**
+     * Досчитывает текущие нормали граней после transform: исходные, умноженные на присоединенную матрицу.
+     */
+    private void ensureFaceNormals() {
+        if (faceNormals != null) {
+            return;
+        }
+        faceNormals = new float[faceCount * 3];
+        for (int i = 0; i < faceNormals.length; i += 3) {
+            transformNormal(faceCofactor, baseFaceNormals, i, faceNormals, i);
+        }
+    }
+
+    /**
+     * Единичная нормаль грани по первым трем вершинам; у вырожденной грани - ненормированная.
+     */
+    private void computeFaceNormal(float[] positions, int face, float[] target) {
+        int start = faceOffsets[face];
+        if (faceOffsets[face + 1] - start < 3) {
+            return;
+        }
+        int v0 = vertexIndices[start] * 3;
+        int v1 = vertexIndices[start + 1] * 3;
+        int v2 = vertexIndices[start + 2] * 3;
+        float edge1X = positions[v1] - positions[v0];
+        float edge1Y = positions[v1 + 1] - positions[v0 + 1];
+        float edge1Z = positions[v1 + 2] - positions[v0 + 2];
+        float edge2X = positions[v2] - positions[v0];
+        float edge2Y = positions[v2 + 1] - positions[v0 + 1];
+        float edge2Z = positions[v2 + 2] - positions[v0 + 2];
+        target[face * 3] = edge1Y * edge2Z - edge1Z * edge2Y;
+        target[face * 3 + 1] = edge1Z * edge2X - edge1X * edge2Z;
+        target[face * 3 + 2] = edge1X * edge2Y - edge1Y * edge2X;
+        normalize(target, face * 3);
+    }
+
+    /**
+     * Нормаль вершины - нормированная сумма нормалей ее граней с учетом повторов вершины в грани.
+     */
+    private void accumulateVertexNormal(int vertex, float[] faceNormals, float[] target) {
+        float x = 0, y = 0, z = 0;
+        for (int j = adjacencyOffsets[vertex]; j < adjacencyOffsets[vertex + 1]; j++) {
+            int face = adjacentFaces[j] * 3;
+            x += faceNormals[face];
+            y += faceNormals[face + 1];
+            z += faceNormals[face + 2];
+        }
+        target[vertex * 3] = x;
+        target[vertex * 3 + 1] = y;
+        target[vertex * 3 + 2] = z;
+        normalize(target, vertex * 3);
+    }
+
+    private static void transformNormal(float[] c, float[] source, int sourceOffset, float[] target, int targetOffset) {
+        float x = source[sourceOffset];
+        float y = source[sourceOffset + 1];
+        float z = source[sourceOffset + 2];
+        target[targetOffset] = c[0] * x + c[1] * y + c[2] * z;
+        target[targetOffset + 1] = c[3] * x + c[4] * y + c[5] * z;
+        target[targetOffset + 2] = c[6] * x + c[7] * y + c[8] * z;
+        normalize(target, targetOffset);
+    }
+
+    private static void normalize(float[] values, int offset) {
+        float length = (float) Math.sqrt(values[offset] * values[offset]
+                + values[offset + 1] * values[offset + 1] + values[offset + 2] * values[offset + 2]);
+        if (length != 0) {
+            values[offset] /= length;
+            values[offset + 1] /= length;
+            values[offset + 2] /= length;
+        }
+    }
+
+    private static boolean isIdentity(float[] c) {
+        return c[0] == 1 && c[1] == 0 && c[2] == 0
+                && c[3] == 0 && c[4] == 1 && c[5] == 0
+                && c[6] == 0 && c[7] == 0 && c[8] == 1;
+    }
+
+    /**
+     * Ортогональны ли столбцы матрицы и равны ли их длины - тогда она масштабирует все векторы одинаково.
+     */
+    private static boolean isSimilarity(float[] c) {
+        float xx = c[0] * c[0] + c[3] * c[3] + c[6] * c[6];
+        float yy = c[1] * c[1] + c[4] * c[4] + c[7] * c[7];
+        float zz = c[2] * c[2] + c[5] * c[5] + c[8] * c[8];
+        float xy = c[0] * c[1] + c[3] * c[4] + c[6] * c[7];
+        float xz = c[0] * c[2] + c[3] * c[5] + c[6] * c[8];
+        float yz = c[1] * c[2] + c[4] * c[5] + c[7] * c[8];
+        float tolerance = SIMILARITY_EPSILON * xx;
+        return xx > 0 && Math.abs(yy - xx) <= tolerance && Math.abs(zz - xx) <= tolerance
+                && Math.abs(xy) <= tolerance && Math.abs(xz) <= tolerance && Math.abs(yz) <= tolerance;
+    }
+}
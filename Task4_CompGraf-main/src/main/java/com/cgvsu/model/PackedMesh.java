@@ -0,0 +1,246 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+
+import java.util.ArrayList;
+
+/**
+ * Неизменяемая упакованная геометрия модели (structure of arrays).
+ *
+ * <p>Координаты лежат подряд в float[]: вершины и нормали тройками (x, y, z), текстурные вершины парами (u, v).
+ * Полигоны хранятся в CSR-виде: углы полигона f занимают диапазон [faceOffsets[f], faceOffsets[f + 1])
+ * в массивах индексов. Массивы индексов текстур и нормалей выровнены по углам, отсутствующий индекс - {@link #ABSENT}.</p>
+ *
+ * <p>Массивы не копируются и наружу отдаются как есть - изменять их нельзя.</p>
+ */
+public final class PackedMesh {
+
+    public static final int ABSENT = Integer.MIN_VALUE;
+
+    private final float[] positions;
+    private final float[] textureVertices;
+    private final float[] normals;
+    private final int[] faceOffsets;
+    private final int[] vertexIndices;
+    private final int[] textureVertexIndices;
+    private final int[] normalIndices;
+
+    public PackedMesh(float[] positions, float[] textureVertices, float[] normals,
+                      int[] faceOffsets, int[] vertexIndices, int[] textureVertexIndices, int[] normalIndices) {
+        if (faceOffsets.length == 0 || faceOffsets[faceOffsets.length - 1] != vertexIndices.length
+                || textureVertexIndices.length != vertexIndices.length || normalIndices.length != vertexIndices.length) {
+            throw new IllegalArgumentException("Inconsistent mesh index arrays");
+        }
+        this.positions = positions;
+        this.textureVertices = textureVertices;
+        this.normals = normals;
+        this.faceOffsets = faceOffsets;
+        this.vertexIndices = vertexIndices;
+        this.textureVertexIndices = textureVertexIndices;
+        this.normalIndices = normalIndices;
+    }
+
+    /**
+     * Упаковывает списочное представление модели. Индексы текстур и нормалей раскладываются по углам
+     * полигона по порядку; лишние (сверх числа вершин полигона) отбрасываются.
+     */
+    public static PackedMesh fromLists(
+            ArrayList<Vector3f> vertices,
+            ArrayList<Vector2f> textureVertices,
+            ArrayList<Vector3f> normals,
+            ArrayList<Polygon> polygons) {
+        return fromPolygons(packVectors3(vertices), packVectors2(textureVertices), packVectors3(normals), polygons);
+    }
+
+    /**
+     * Упаковывает полигоны поверх уже упакованных координат.
+     */
+    public static PackedMesh fromPolygons(float[] positions, float[] textureVertices, float[] normals,
+                                          ArrayList<Polygon> polygons) {
+        int cornerCount = 0;
+        for (Polygon polygon : polygons) {
+            cornerCount += polygon.getVertexIndices().size();
+        }
+
+        int[] faceOffsets = new int[polygons.size() + 1];
+        int[] vertexIndices = new int[cornerCount];
+        int[] textureVertexIndices = new int[cornerCount];
+        int[] normalIndices = new int[cornerCount];
+        int corner = 0;
+        for (int face = 0; face < polygons.size(); face++) {
+            Polygon polygon = polygons.get(face);
+            ArrayList<Integer> polygonVertexIndices = polygon.getVertexIndices();
+            ArrayList<Integer> polygonTextureVertexIndices = polygon.getTextureVertexIndices();
+            ArrayList<Integer> polygonNormalIndices = polygon.getNormalIndices();
+            for (int i = 0; i < polygonVertexIndices.size(); i++, corner++) {
+                vertexIndices[corner] = polygonVertexIndices.get(i);
+                textureVertexIndices[corner] = i < polygonTextureVertexIndices.size() ? polygonTextureVertexIndices.get(i) : ABSENT;
+                normalIndices[corner] = i < polygonNormalIndices.size() ? polygonNormalIndices.get(i) : ABSENT;
+            }
+            faceOffsets[face + 1] = corner;
+        }
+
+        return new PackedMesh(positions, textureVertices, normals,
+                faceOffsets, vertexIndices, textureVertexIndices, normalIndices);
+    }
+
+    public static float[] packVectors3(ArrayList<Vector3f> vectors) {
+        float[] result = new float[vectors.size() * 3];
+        for (int i = 0; i < vectors.size(); i++) {
+            Vector3f vector = vectors.get(i);
+            result[i * 3] = vector.getX();
+            result[i * 3 + 1] = vector.getY();
+            result[i * 3 + 2] = vector.getZ();
+        }
+        return result;
+    }
+
+    public static float[] packVectors2(ArrayList<Vector2f> vectors) {
+        float[] result = new float[vectors.size() * 2];
+        for (int i = 0; i < vectors.size(); i++) {
+            result[i * 2] = vectors.get(i).getX();
+            result[i * 2 + 1] = vectors.get(i).getY();
+        }
+        return result;
+    }
+
+    /**
+     * Та же топология с новыми координатами вершин (например, после аффинного преобразования).
+     */
+    public PackedMesh withPositions(float[] positions) {
+        return new PackedMesh(positions, textureVertices, normals, faceOffsets, vertexIndices, textureVertexIndices, normalIndices);
+    }
+
+    public PackedMesh withTextureVertices(float[] textureVertices) {
+        return new PackedMesh(positions, textureVertices, normals, faceOffsets, vertexIndices, textureVertexIndices, normalIndices);
+    }
+
+    public PackedMesh withNormals(float[] normals) {
+        return new PackedMesh(positions, textureVertices, normals, faceOffsets, vertexIndices, textureVertexIndices, normalIndices);
+    }
+
+    public int getVertexCount() {
+        return positions.length / 3;
+    }
+
+    public int getTextureVertexCount() {
+        return textureVertices.length / 2;
+    }
+
+    public int getNormalCount() {
+        return normals.length / 3;
+    }
+
+    public int getFaceCount() {
+        return faceOffsets.length - 1;
+    }
+
+    public int getCornerCount() {
+        return vertexIndices.length;
+    }
+
+    public int getFaceStart(int face) {
+        return faceOffsets[face];
+    }
+
+    public int getFaceSize(int face) {
+        return faceOffsets[face + 1] - faceOffsets[face];
+    }
+
+    public float[] getPositions() {
+        return positions;
+    }
+
+    public float[] getTextureVertices() {
+        return textureVertices;
+    }
+
+    public float[] getNormals() {
+        return normals;
+    }
+
+    public int[] getFaceOffsets() {
+        return faceOffsets;
+    }
+
+    public int[] getVertexIndices() {
+        return vertexIndices;
+    }
+
+    public int[] getTextureVertexIndices() {
+        return textureVertexIndices;
+    }
+
+    public int[] getNormalIndices() {
+        return normalIndices;
+    }
+
+    /**
+     * Приблизительный объем памяти под массивы в байтах.
+     */
+    public long getByteSize() {
+        return 4L * (positions.length + textureVertices.length + normals.length + faceOffsets.length
+                + vertexIndices.length + textureVertexIndices.length + normalIndices.length);
+    }
+
+    public ArrayList<Vector3f> toVertexList() {
+        return unpackVectors3(positions);
+    }
+
+    public ArrayList<Vector2f> toTextureVertexList() {
+        ArrayList<Vector2f> result = new ArrayList<>(getTextureVertexCount());
+        for (int i = 0; i < getTextureVertexCount(); i++) {
+            result.add(new Vector2f(textureVertices[i * 2], textureVertices[i * 2 + 1]));
+        }
+        return result;
+    }
+
+    public ArrayList<Vector3f> toNormalList() {
+        return unpackVectors3(normals);
+    }
+
+    /**
+     * Полигоны в прежнем списочном виде. Текстурные координаты полигонов ссылаются на элементы textureVertexList.
+     */
+    public ArrayList<Polygon> toPolygonList(ArrayList<Vector2f> textureVertexList) {
+        ArrayList<Polygon> result = new ArrayList<>(getFaceCount());
+        for (int face = 0; face < getFaceCount(); face++) {
+            int start = faceOffsets[face];
+            int end = faceOffsets[face + 1];
+            ArrayList<Integer> polygonVertexIndices = new ArrayList<>(end - start);
+            ArrayList<Integer> polygonTextureVertexIndices = new ArrayList<>(end - start);
+            ArrayList<Integer> polygonNormalIndices = new ArrayList<>(end - start);
+            ArrayList<Vector2f> polygonTextureCoordinates = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                polygonVertexIndices.add(vertexIndices[i]);
+                int textureVertexIndex = textureVertexIndices[i];
+                if (textureVertexIndex != ABSENT) {
+                    polygonTextureVertexIndices.add(textureVertexIndex);
+                    if (textureVertexIndex >= 0 && textureVertexIndex < textureVertexList.size()) {
+                        polygonTextureCoordinates.add(textureVertexList.get(textureVertexIndex));
+                    }
+                }
+                if (normalIndices[i] != ABSENT) {
+                    polygonNormalIndices.add(normalIndices[i]);
+                }
+            }
+
+            Polygon polygon = new Polygon();
+            polygon.setVertexIndices(polygonVertexIndices);
+            polygon.setTextureVertexIndices(polygonTextureVertexIndices);
+            polygon.setTextureCoordinates(polygonTextureCoordinates);
+            polygon.setNormalIndices(polygonNormalIndices);
+            result.add(polygon);
+        }
+        return result;
+    }
+
+    private static ArrayList<Vector3f> unpackVectors3(float[] values) {
+        ArrayList<Vector3f> result = new ArrayList<>(values.length / 3);
+        for (int i = 0; i < values.length / 3; i++) {
+            result.add(new Vector3f(values[i * 3], values[i * 3 + 1], values[i * 3 + 2]));
+        }
+        return result;
+    }
+}
@@ -1,20 +1,17 @@
 package com.cgvsu.model;
 
-import com.cgvsu.render_engine.RenderEngine;
-import javafx.scene.image.Image;
-import javafx.scene.image.PixelReader;
 import javafx.scene.paint.Color;
 
-import java.util.Objects;
-
 /**
  * Класс для управления текстурами.
+ *
+ * <p>Тексели хранятся в массиве int ARGB построчно, поэтому выборка цвета - это обращение к массиву
+ * без выделения памяти. Декодирование и разделение текстур между моделями выполняет {@link TextureCache}.</p>
  */
 public class Texture {
-    private Image image;
-    private PixelReader pixelReader;
-    private int width;
-    private int height;
+    private final int[] texels;
+    private final int width;
+    private final int height;
 
     /**
      * Конструктор Texture.
@@ -22,32 +19,59 @@ public class Texture {
      * @param filePath Путь к файлу текстуры.
      */
     public Texture(String filePath) {
-      //  image = new Image("file:" + filePath);
-        image = new Image(Objects.requireNonNull(RenderEngine.class.getResourceAsStream("/images/123.jpg")));
+        Texture cached = TextureCache.get(filePath);
+        if (cached == null) {
+            throw new IllegalArgumentException("Texture not found: " + filePath);
+        }
+        this.texels = cached.texels;
+        this.width = cached.width;
+        this.height = cached.height;
+    }
+
+    Texture(int[] texels, int width, int height) {
+        this.texels = texels;
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
 
-        pixelReader = image.getPixelReader();
-        width = (int) image.getWidth();
-        height = (int) image.getHeight();
+    public int getHeight() {
+        return height;
     }
 
     /**
-     * Получает цвет по текстурным координатам (u, v).
+     * Получает цвет в формате ARGB по текстурным координатам (u, v).
      *
      * @param u Координата U (от 0 до 1).
      * @param v Координата V (от 0 до 1).
-     * @return Цвет пикселя.
+     * @return Цвет пикселя в формате 0xAARRGGBB.
      */
-    public Color getColor(float u, float v) {
+    public int getArgb(float u, float v) {
         u = clamp(u, 0.0f, 1.0f);
         v = clamp(v, 0.0f, 1.0f);
 
         int x = Math.min((int) (u * (width - 1)), width - 1);
         int y = Math.min((int) ((1 - v) * (height - 1)), height - 1); // Инвертируем V
 
-        return pixelReader.getColor(x, y);
+        return texels[y * width + x];
+    }
+
+    /**
+     * Получает цвет по текстурным координатам (u, v).
+     *
+     * @param u Координата U (от 0 до 1).
+     * @param v Координата V (от 0 до 1).
+     * @return Цвет пикселя.
+     */
+    public Color getColor(float u, float v) {
+        int argb = getArgb(u, v);
+        return Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF, ((argb >>> 24) & 0xFF) / 255.0);
     }
 
     private float clamp(float value, float min, float max) {
         return Math.max(min, Math.min(max, value));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package com.cgvsu.model;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Кэш декодированных текстур по пути к файлу.
+ *
+ * <p>Каждая текстура декодируется один раз в массив int ARGB и затем переиспользуется
+ * всеми моделями и рендером. Суммарный объем текселей ограничен; при превышении лимита
+ * вытесняются давно не использовавшиеся текстуры (LRU).</p>
+ */
+public class TextureCache {
+    private static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    // accessOrder = true: порядок обхода от давно использованных к недавно использованным
+    private static final LinkedHashMap<String, Texture> textures = new LinkedHashMap<>(16, 0.75f, true);
+    private static long maxBytes = DEFAULT_MAX_BYTES;
+    private static long usedBytes = 0;
+
+    /**
+     * Возвращает текстуру по пути, декодируя ее при первом обращении.
+     * Путь ищется сначала среди ресурсов приложения, затем в файловой системе.
+     *
+     * @param path Путь к изображению (например, "/images/123.jpg").
+     * @return Текстура или {@code null}, если изображение не найдено или не читается.
+     */
+    public static synchronized Texture get(String path) {
+        Texture texture = textures.get(path);
+        if (texture != null) {
+            return texture;
+        }
+
+        texture = decode(path);
+        if (texture == null) {
+            return null;
+        }
+        textures.put(path, texture);
+        usedBytes += sizeOf(texture);
+        evict();
+        return texture;
+    }
+
+    public static synchronized void setMaxBytes(long bytes) {
+        maxBytes = bytes;
+        evict();
+    }
+
+    public static synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public static synchronized int size() {
+        return textures.size();
+    }
+
+    public static synchronized void clear() {
+        textures.clear();
+        usedBytes = 0;
+    }
+
+    // Самая свежая текстура остается в кэше, даже если одна превышает лимит
+    private static void evict() {
+        Iterator<Map.Entry<String, Texture>> iterator = textures.entrySet().iterator();
+        while (usedBytes > maxBytes && textures.size() > 1 && iterator.hasNext()) {
+            Texture eldest = iterator.next().getValue();
+            usedBytes -= sizeOf(eldest);
+            iterator.remove();
+        }
+    }
+
+    private static long sizeOf(Texture texture) {
+        return (long) texture.getWidth() * texture.getHeight() * Integer.BYTES;
+    }
+
+    private static Texture decode(String path) {
+        try {
+            BufferedImage image = readImage(path);
+            if (image == null) {
+                System.err.println("Error: Could not find texture: " + path);
+                return null;
+            }
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int[] texels = image.getRGB(0, 0, width, height, null, 0, width);
+            return new Texture(texels, width, height);
+        } catch (IOException e) {
+            System.err.println("Error: Could not read texture " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static BufferedImage readImage(String path) throws IOException {
+        try (InputStream resource = TextureCache.class.getResourceAsStream(path)) {
+            if (resource != null) {
+                return ImageIO.read(resource);
+            }
+        }
+        Path file = Path.of(path);
+        if (Files.isRegularFile(file)) {
+            return ImageIO.read(file.toFile());
+        }
+        return null;
+    }
+}
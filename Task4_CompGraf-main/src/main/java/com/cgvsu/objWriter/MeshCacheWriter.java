@@ -0,0 +1,98 @@
+package com.cgvsu.objWriter;
+
+import com.cgvsu.objreader.MeshCache;
+import com.cgvsu.objreader.ObjData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Класс MeshCacheWriter записывает разобранный OBJ в бинарный кэш формата {@link MeshCache}.
+ *
+ * <p>Файл сначала пишется во временный файл рядом с целевым и затем атомарно переименовывается,
+ * поэтому недописанный кэш никогда не будет прочитан.</p>
+ */
+public class MeshCacheWriter {
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Записывает данные модели в кэш.
+     *
+     * @param data      Данные модели в примитивных массивах.
+     * @param cachePath Путь к файлу кэша.
+     * @param source    Сведения об исходном OBJ-файле, по которым кэш будет проверяться на актуальность.
+     */
+    public static void write(ObjData data, Path cachePath, MeshCache.SourceInfo source) throws IOException {
+        Path tempPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MeshCache.MAGIC)
+                    .putInt(MeshCache.VERSION)
+                    .putLong(source.getSize())
+                    .putLong(source.getLastModified())
+                    .putLong(source.getHash())
+                    .putInt(data.getVertexCount())
+                    .putInt(data.getTextureVertexCount())
+                    .putInt(data.getNormalCount())
+                    .putInt(data.getFaceCount())
+                    .putInt(data.getIndexCount());
+            while (buffer.position() < MeshCache.HEADER_SIZE) {
+                buffer.put((byte) 0);
+            }
+            flush(channel, buffer);
+
+            writeFloats(channel, buffer, data.getVertices(), data.getVertexCount() * 3);
+            writeFloats(channel, buffer, data.getTextureVertices(), data.getTextureVertexCount() * 2);
+            writeFloats(channel, buffer, data.getNormals(), data.getNormalCount() * 3);
+            writeInts(channel, buffer, data.getFaceOffsets(), data.getFaceCount() + 1);
+            writeInts(channel, buffer, data.getVertexIndices(), data.getIndexCount());
+            writeInts(channel, buffer, data.getTextureVertexIndices(), data.getIndexCount());
+            writeInts(channel, buffer, data.getNormalIndices(), data.getIndexCount());
+        } catch (IOException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        try {
+            Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeFloats(FileChannel channel, ByteBuffer buffer, float[] values, int count) throws IOException {
+        for (int i = 0; i < count; ) {
+            int length = Math.min(count - i, buffer.capacity() / Float.BYTES);
+            buffer.asFloatBuffer().put(values, i, length);
+            buffer.position(length * Float.BYTES);
+            flush(channel, buffer);
+            i += length;
+        }
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values, int count) throws IOException {
+        for (int i = 0; i < count; ) {
+            int length = Math.min(count - i, buffer.capacity() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, i, length);
+            buffer.position(length * Integer.BYTES);
+            flush(channel, buffer);
+            i += length;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -3,6 +3,7 @@ package com.cgvsu.objWriter;
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
 import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
 import com.cgvsu.model.Polygon;
 
 import java.io.File;
@@ -41,26 +42,67 @@ public class ObjWriter {
             return;
         }
         try (PrintWriter writer = new PrintWriter(file)) {
-            if (saveDeformation) {
-                model.getVertices().forEach(v -> writer.println(vertexToString(v)));
-                model.getTextureVertices().forEach(v -> writer.println(textureVertexToString(v)));
-                model.getNormals().forEach(v -> writer.println(normalToString(v)));
-                model.getPolygons().forEach(v -> writer.println(polygonToString(v)));
-            } else {
-                model.getOriginalVertices().forEach(v -> writer.println(vertexToString(v)));
-                //TODO изменить эту штуку когда нормально отработаем класс Model и удалить те 3 строки что снизу.
-                model.getTextureVertices().forEach(v -> writer.println(textureVertexToString(v)));
-                model.getNormals().forEach(v -> writer.println(normalToString(v)));
-                model.getPolygons().forEach(v -> writer.println(polygonToString(v)));
-                //model.getOriginalTextureVertices().forEach(v -> writer.println(textureVertexToString(v)));
-                //model.getOriginalNormals().forEach(v -> writer.println(normalToString(v)));
-                //model.getOriginalPolygons().forEach(v -> writer.println(polygonToString(v)));
-            }
+            //TODO текстурные вершины, нормали и полигоны пока пишутся текущие, исходные хранятся только для вершин.
+            writeMesh(saveDeformation ? model.getMesh() : model.getOriginalMesh(), writer);
         } catch (IOException e) {
             System.out.println("Error while writing file");
         }
     }
 
+    /**
+     * Пишет упакованную геометрию построчно, не создавая списочного представления модели.
+     * Формат строк совпадает с {@link #vertexToString}, {@link #textureVertexToString},
+     * {@link #normalToString} и {@link #polygonToString}.
+     */
+    private static void writeMesh(PackedMesh mesh, PrintWriter writer) {
+        float[] positions = mesh.getPositions();
+        for (int i = 0; i < positions.length; i += 3) {
+            writer.println(OBJ_VERTEX_TOKEN + " " + positions[i] + " " + positions[i + 1] + " " + positions[i + 2]);
+        }
+        float[] textureVertices = mesh.getTextureVertices();
+        for (int i = 0; i < textureVertices.length; i += 2) {
+            writer.println(OBJ_TEXTURE_TOKEN + " " + textureVertices[i] + " " + textureVertices[i + 1]);
+        }
+        float[] normals = mesh.getNormals();
+        for (int i = 0; i < normals.length; i += 3) {
+            writer.println(OBJ_NORMAL_TOKEN + " " + normals[i] + " " + normals[i + 1] + " " + normals[i + 2]);
+        }
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int face = 0; face < mesh.getFaceCount(); face++) {
+            stringBuilder.setLength(0);
+            appendFace(stringBuilder, mesh, face);
+            writer.println(stringBuilder);
+        }
+    }
+
+    private static void appendFace(StringBuilder stringBuilder, PackedMesh mesh, int face) {
+        int start = mesh.getFaceStart(face);
+        int end = start + mesh.getFaceSize(face);
+        int[] vertexIndices = mesh.getVertexIndices();
+        int[] textureVertexIndices = mesh.getTextureVertexIndices();
+        int[] normalIndices = mesh.getNormalIndices();
+        boolean hasTextures = true;
+        boolean hasNormals = true;
+        for (int i = start; i < end; i++) {
+            hasTextures &= textureVertexIndices[i] != PackedMesh.ABSENT;
+            hasNormals &= normalIndices[i] != PackedMesh.ABSENT;
+        }
+
+        stringBuilder.append(OBJ_FACE_TOKEN);
+        for (int i = start; i < end; i++) {
+            stringBuilder.append(" ").append(vertexIndices[i] + 1);
+            if (hasNormals) {
+                stringBuilder.append("/");
+                if (hasTextures) {
+                    stringBuilder.append(textureVertexIndices[i] + 1);
+                }
+                stringBuilder.append("/").append(normalIndices[i] + 1);
+            } else if (hasTextures) {
+                stringBuilder.append("/").append(textureVertexIndices[i] + 1);
+            }
+        }
+    }
+
 
     /**
      * Создает директорию, если она отсутствует.
@@ -0,0 +1,176 @@
+package com.cgvsu.objreader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Бинарный кэш разобранного OBJ-файла, лежит рядом с исходником: model.obj -> model.obj.mesh.
+ *
+ * <p>Формат (little-endian): заголовок из {@value #HEADER_SIZE} байт - магическое число, версия,
+ * размер, время изменения и CRC32C исходного файла, количества элементов. Затем блоки:
+ * вершины (float x3), текстурные вершины (float x2), нормали (float x3), смещения полигонов (int),
+ * индексы вершин, текстур и нормалей (int). Отсутствующий индекс хранится как {@link ObjData#ABSENT}.</p>
+ *
+ * <p>Кэш считается актуальным, если совпадает размер исходника и либо время изменения,
+ * либо (если время изменилось) хэш содержимого. Во втором случае в заголовок записывается новое время,
+ * чтобы следующее чтение не хэшировало исходник заново.</p>
+ */
+public class MeshCache {
+
+	public static final int MAGIC = 0x4D564743; // "CGVM"
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 64;
+	public static final String EXTENSION = ".mesh";
+
+	private static final long HASH_WINDOW = 64L << 20;
+
+	public static Path cachePathFor(Path objPath) {
+		return objPath.resolveSibling(objPath.getFileName() + EXTENSION);
+	}
+
+	/**
+	 * Читает кэш, отображая файл в память.
+	 *
+	 * @return данные модели или {@code null}, если кэша нет, он поврежден или устарел.
+	 */
+	public static ObjData read(Path cachePath, SourceInfo source) throws IOException {
+		try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			if (fileSize < HEADER_SIZE) {
+				return null;
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+				return null;
+			}
+			if (header.getLong(8) != source.getSize()) {
+				return null;
+			}
+			boolean touched = header.getLong(16) != source.getLastModified();
+			if (touched && header.getLong(24) != source.getHash()) {
+				return null;
+			}
+
+			int vertexCount = header.getInt(32);
+			int textureVertexCount = header.getInt(36);
+			int normalCount = header.getInt(40);
+			int faceCount = header.getInt(44);
+			int indexCount = header.getInt(48);
+			if (vertexCount < 0 || textureVertexCount < 0 || normalCount < 0 || faceCount < 0 || indexCount < 0
+					|| fileSize != sizeOf(vertexCount, textureVertexCount, normalCount, faceCount, indexCount)) {
+				return null;
+			}
+
+			long offset = HEADER_SIZE;
+			float[] vertices = new float[vertexCount * 3];
+			offset = readFloats(channel, offset, vertices);
+			float[] textureVertices = new float[textureVertexCount * 2];
+			offset = readFloats(channel, offset, textureVertices);
+			float[] normals = new float[normalCount * 3];
+			offset = readFloats(channel, offset, normals);
+			int[] faceOffsets = new int[faceCount + 1];
+			offset = readInts(channel, offset, faceOffsets);
+			int[] vertexIndices = new int[indexCount];
+			offset = readInts(channel, offset, vertexIndices);
+			int[] textureVertexIndices = new int[indexCount];
+			offset = readInts(channel, offset, textureVertexIndices);
+			int[] normalIndices = new int[indexCount];
+			readInts(channel, offset, normalIndices);
+
+			if (touched) {
+				updateLastModified(cachePath, source.getLastModified());
+			}
+			return new ObjData(vertices, textureVertices, normals,
+					faceOffsets, vertexIndices, textureVertexIndices, normalIndices);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Записывает в заголовок кэша время изменения исходника. Кэш без права записи остается как есть.
+	 */
+	private static void updateLastModified(Path cachePath, long lastModified) {
+		ByteBuffer value = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(0, lastModified);
+		try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.WRITE)) {
+			channel.write(value, 16);
+		} catch (IOException e) {
+			System.err.println("Cannot update mesh cache header " + cachePath + ": " + e.getMessage());
+		}
+	}
+
+	public static long sizeOf(int vertexCount, int textureVertexCount, int normalCount, int faceCount, int indexCount) {
+		return HEADER_SIZE + 4L * (vertexCount * 3L + textureVertexCount * 2L + normalCount * 3L
+				+ (faceCount + 1L) + indexCount * 3L);
+	}
+
+	private static long readFloats(FileChannel channel, long offset, float[] target) throws IOException {
+		if (target.length > 0) {
+			MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, offset, target.length * 4L);
+			block.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(target);
+		}
+		return offset + target.length * 4L;
+	}
+
+	private static long readInts(FileChannel channel, long offset, int[] target) throws IOException {
+		if (target.length > 0) {
+			MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, offset, target.length * 4L);
+			block.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(target);
+		}
+		return offset + target.length * 4L;
+	}
+
+	/**
+	 * Размер, время изменения и хэш исходного OBJ-файла. Хэш считается лениво - только если он нужен.
+	 */
+	public static final class SourceInfo {
+		private final Path path;
+		private final long size;
+		private final long lastModified;
+		private Long hash;
+
+		private SourceInfo(Path path, long size, long lastModified) {
+			this.path = path;
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+
+		public static SourceInfo of(Path path) throws IOException {
+			return new SourceInfo(path, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		public long getHash() throws IOException {
+			if (hash == null) {
+				hash = hashFile(path);
+			}
+			return hash;
+		}
+	}
+
+	private static long hashFile(Path path) throws IOException {
+		CRC32C crc = new CRC32C();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			for (long offset = 0; offset < size; offset += HASH_WINDOW) {
+				crc.update(channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(HASH_WINDOW, size - offset)));
+			}
+		}
+		return crc.getValue();
+	}
+}
@@ -0,0 +1,41 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.objWriter.MeshCacheWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Загрузка модели с бинарным кэшем: если рядом с OBJ лежит актуальный {@link MeshCache}, читается он,
+ * иначе файл разбирается {@link ParallelObjReader} и кэш записывается для следующих открытий.
+ */
+public class ModelLoader {
+
+	public static Model load(Path path) throws IOException {
+		return loadData(path).toModel();
+	}
+
+	public static ObjData loadData(Path path) throws IOException {
+		MeshCache.SourceInfo source = MeshCache.SourceInfo.of(path);
+		Path cachePath = MeshCache.cachePathFor(path);
+		try {
+			ObjData cached = MeshCache.read(cachePath, source);
+			if (cached != null) {
+				return cached;
+			}
+		} catch (IOException e) {
+			System.err.println("Couldn't read mesh cache " + cachePath + ": " + e.getMessage());
+		}
+
+		// Хэш считается до разбора, чтобы кэш описывал ровно то содержимое, которое было прочитано
+		source.getHash();
+		ObjData data = ParallelObjReader.readData(path);
+		try {
+			MeshCacheWriter.write(data, cachePath, source);
+		} catch (IOException e) {
+			System.err.println("Couldn't write mesh cache " + cachePath + ": " + e.getMessage());
+		}
+		return data;
+	}
+}
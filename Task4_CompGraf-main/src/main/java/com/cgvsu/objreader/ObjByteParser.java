@@ -0,0 +1,320 @@
+package com.cgvsu.objreader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Разбор OBJ прямо по байтам, без Scanner, String.split и промежуточных строк.
+ * Числа разбираются вручную; к Float.parseFloat откатываемся только в редких случаях,
+ * когда быстрый путь не гарантирует точно такой же результат (длинная мантисса, большой порядок, NaN и т.п.).
+ * Семантика и тексты ошибок совпадают с {@link ObjReader#read(String)}.
+ */
+final class ObjByteParser {
+
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	private static final int MAX_FAST_DIGITS = 18;
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	// У float на 29 бит мантиссы меньше, чем у double: середина между соседними float в этих битах выглядит так
+	private static final long FLOAT_ROUNDING_BITS = (1L << 29) - 1;
+	private static final long FLOAT_HALFWAY = 1L << 28;
+
+	private final ObjData data;
+	private final int textureVertexBase;
+	private boolean deferTextureIndexCheck;
+	private int maxTextureIndexOverflow = Integer.MIN_VALUE;
+	private final int[] partStarts = new int[3];
+	private final int[] partEnds = new int[3];
+	private ByteBuffer buffer;
+	private int position;
+	private int limit;
+	private int lineInd;
+
+	ObjByteParser(ObjData data, int firstLineInd) {
+		this(data, firstLineInd, 0);
+	}
+
+	/**
+	 * @param textureVertexBase сколько текстурных вершин объявлено в файле до первой разбираемой строки
+	 */
+	ObjByteParser(ObjData data, int firstLineInd, int textureVertexBase) {
+		this.data = data;
+		this.lineInd = firstLineInd - 1;
+		this.textureVertexBase = textureVertexBase;
+	}
+
+	/**
+	 * Для куска файла, начало которого еще не разобрано: число текстурных вершин до него неизвестно,
+	 * поэтому вместо проверки индекса запоминается наибольшее превышение над локальным числом вершин.
+	 */
+	void deferTextureIndexCheck() {
+		deferTextureIndexCheck = true;
+	}
+
+	/**
+	 * Индексы текстур корректны, если это значение меньше числа текстурных вершин до куска.
+	 */
+	int getMaxTextureIndexOverflow() {
+		return maxTextureIndexOverflow;
+	}
+
+	int getLineInd() {
+		return lineInd;
+	}
+
+	/**
+	 * Разбирает строки из диапазона [from, to). Диапазон должен начинаться с начала строки,
+	 * последняя строка может не заканчиваться переводом строки.
+	 */
+	void parse(ByteBuffer buffer, int from, int to) {
+		this.buffer = buffer;
+		this.position = from;
+		this.limit = to;
+		while (position < limit) {
+			++lineInd;
+			parseLine();
+			skipLine();
+		}
+	}
+
+	private void parseLine() {
+		skipSpaces();
+		if (atLineEnd()) {
+			return;
+		}
+		int tokenStart = position;
+		int tokenLength = skipWord() - tokenStart;
+		byte first = buffer.get(tokenStart);
+		if (first == 'v') {
+			if (tokenLength == 1) {
+				data.addVertex(
+						nextFloat("Too few vertex arguments."),
+						nextFloat("Too few vertex arguments."),
+						nextFloat("Too few vertex arguments."));
+			} else if (tokenLength == 2 && buffer.get(tokenStart + 1) == 't') {
+				data.addTextureVertex(
+						nextFloat("Too few texture vertex arguments."),
+						nextFloat("Too few texture vertex arguments."));
+			} else if (tokenLength == 2 && buffer.get(tokenStart + 1) == 'n') {
+				data.addNormal(
+						nextFloat("Too few normal arguments."),
+						nextFloat("Too few normal arguments."),
+						nextFloat("Too few normal arguments."));
+			}
+		} else if (first == 'f' && tokenLength == 1) {
+			parseFace();
+		}
+	}
+
+	private void parseFace() {
+		while (true) {
+			skipSpaces();
+			if (atLineEnd()) {
+				break;
+			}
+			int wordStart = position;
+			parseFaceWord(wordStart, skipWord());
+		}
+		data.endFace();
+	}
+
+	// Повторяет String.split("/"): пустые части в конце слова отбрасываются
+	private void parseFaceWord(int start, int end) {
+		int partCount = 0;
+		int nonEmptyCount = 0;
+		int partStart = start;
+		for (int i = start; i <= end; i++) {
+			if (i == end || buffer.get(i) == '/') {
+				if (partCount < 3) {
+					partStarts[partCount] = partStart;
+					partEnds[partCount] = i;
+				}
+				partCount++;
+				if (i > partStart) {
+					nonEmptyCount = partCount;
+				}
+				partStart = i + 1;
+			}
+		}
+
+		switch (nonEmptyCount) {
+			case 1 -> data.addFaceWord(parsePart(0) - 1, ObjData.ABSENT, ObjData.ABSENT);
+			case 2 -> {
+				int vertexIndex = parsePart(0) - 1;
+				data.addFaceWord(vertexIndex, checkTextureIndex(parsePart(1) - 1), ObjData.ABSENT);
+			}
+			case 3 -> {
+				int vertexIndex = parsePart(0) - 1;
+				int normalIndex = parsePart(2) - 1;
+				int textureIndex = partEnds[1] == partStarts[1]
+						? ObjData.ABSENT
+						: checkTextureIndex(parsePart(1) - 1);
+				data.addFaceWord(vertexIndex, textureIndex, normalIndex);
+			}
+			default -> throw new ObjReaderException("Invalid element size.", lineInd);
+		}
+	}
+
+	private int checkTextureIndex(int textureIndex) {
+		if (deferTextureIndexCheck && textureIndex >= 0) {
+			maxTextureIndexOverflow = Math.max(maxTextureIndexOverflow, textureIndex - data.textureVertexCount);
+			return textureIndex;
+		}
+		if (textureIndex < 0 || textureIndex >= textureVertexBase + data.textureVertexCount) {
+			throw new ObjReaderException("Texture index " + textureIndex + " out of bounds.", lineInd);
+		}
+		return textureIndex;
+	}
+
+	private int parsePart(int part) {
+		int i = partStarts[part];
+		int end = partEnds[part];
+		if (i == end) {
+			throw new ObjReaderException("Failed to parse int value.", lineInd);
+		}
+		boolean negative = false;
+		byte sign = buffer.get(i);
+		if (sign == '-' || sign == '+') {
+			negative = sign == '-';
+			if (++i == end) {
+				throw new ObjReaderException("Failed to parse int value.", lineInd);
+			}
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			int digit = buffer.get(i) - '0';
+			if (digit < 0 || digit > 9) {
+				throw new ObjReaderException("Failed to parse int value.", lineInd);
+			}
+			value = value * 10 + digit;
+			if (value > (long) Integer.MAX_VALUE + 1) {
+				throw new ObjReaderException("Failed to parse int value.", lineInd);
+			}
+		}
+		if (negative) {
+			return (int) -value;
+		}
+		if (value > Integer.MAX_VALUE) {
+			throw new ObjReaderException("Failed to parse int value.", lineInd);
+		}
+		return (int) value;
+	}
+
+	private float nextFloat(String tooFewMessage) {
+		skipSpaces();
+		if (atLineEnd()) {
+			throw new ObjReaderException(tooFewMessage, lineInd);
+		}
+		int start = position;
+		return parseFloat(start, skipWord());
+	}
+
+	private float parseFloat(int start, int end) {
+		int i = start;
+		boolean negative = false;
+		byte b = buffer.get(i);
+		if (b == '-' || b == '+') {
+			negative = b == '-';
+			i++;
+		}
+
+		long mantissa = 0;
+		int significantDigits = 0;
+		int digits = 0;
+		int exponent = 0;
+		for (; i < end && (b = buffer.get(i)) >= '0' && b <= '9'; i++, digits++) {
+			mantissa = mantissa * 10 + (b - '0');
+			if (mantissa != 0) {
+				significantDigits++;
+			}
+		}
+		if (i < end && buffer.get(i) == '.') {
+			for (i++; i < end && (b = buffer.get(i)) >= '0' && b <= '9'; i++, digits++) {
+				mantissa = mantissa * 10 + (b - '0');
+				if (mantissa != 0) {
+					significantDigits++;
+				}
+				exponent--;
+			}
+		}
+		if (digits > 0 && i < end && ((b = buffer.get(i)) == 'e' || b == 'E')) {
+			i++;
+			boolean negativeExponent = false;
+			if (i < end && ((b = buffer.get(i)) == '-' || b == '+')) {
+				negativeExponent = b == '-';
+				i++;
+			}
+			int exponentValue = 0;
+			int exponentDigits = 0;
+			for (; i < end && (b = buffer.get(i)) >= '0' && b <= '9'; i++, exponentDigits++) {
+				exponentValue = Math.min(exponentValue * 10 + (b - '0'), 1000);
+			}
+			if (exponentDigits == 0) {
+				return parseFloatSlow(start, end);
+			}
+			exponent += negativeExponent ? -exponentValue : exponentValue;
+		}
+
+		if (digits == 0 || i != end || significantDigits > MAX_FAST_DIGITS) {
+			return parseFloatSlow(start, end);
+		}
+		if (mantissa == 0) {
+			return negative ? -0.0f : 0.0f;
+		}
+		if (mantissa >= MAX_EXACT_MANTISSA || exponent < -22 || exponent > 22) {
+			return parseFloatSlow(start, end);
+		}
+
+		// Мантисса и степень десяти точны в double, поэтому одно умножение/деление дает корректно округленный double.
+		// Повторное округление до float совпадет с прямым, если double не попал ровно в середину между float.
+		double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+		if (value < Float.MIN_NORMAL || value > Float.MAX_VALUE
+				|| (Double.doubleToRawLongBits(value) & FLOAT_ROUNDING_BITS) == FLOAT_HALFWAY) {
+			return parseFloatSlow(start, end);
+		}
+		return negative ? (float) -value : (float) value;
+	}
+
+	private float parseFloatSlow(int start, int end) {
+		byte[] bytes = new byte[end - start];
+		buffer.get(start, bytes);
+		try {
+			return Float.parseFloat(new String(bytes, StandardCharsets.ISO_8859_1));
+		} catch (NumberFormatException e) {
+			throw new ObjReaderException("Failed to parse float value.", lineInd);
+		}
+	}
+
+	private boolean atLineEnd() {
+		return position >= limit || buffer.get(position) == '\n';
+	}
+
+	private void skipSpaces() {
+		while (position < limit && isSpace(buffer.get(position))) {
+			position++;
+		}
+	}
+
+	private int skipWord() {
+		byte b;
+		while (position < limit && (b = buffer.get(position)) != '\n' && !isSpace(b)) {
+			position++;
+		}
+		return position;
+	}
+
+	private void skipLine() {
+		while (position < limit && buffer.get(position) != '\n') {
+			position++;
+		}
+		if (position < limit) {
+			position++;
+		}
+	}
+
+	private static boolean isSpace(byte b) {
+		return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+	}
+}
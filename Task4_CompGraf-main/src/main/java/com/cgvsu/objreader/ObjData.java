@@ -0,0 +1,241 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Сырые данные OBJ-файла в примитивных массивах.
+ * Вершины лежат подряд тройками (x, y, z), текстурные вершины - парами (u, v).
+ * Полигоны хранятся в CSR-виде: слова полигона i занимают диапазон [faceOffsets[i], faceOffsets[i + 1])
+ * в массивах индексов. Отсутствующий индекс текстуры или нормали помечается {@link #ABSENT}.
+ */
+public final class ObjData {
+
+	public static final int ABSENT = PackedMesh.ABSENT;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	float[] vertices;
+	float[] textureVertices;
+	float[] normals;
+	int vertexCount;
+	int textureVertexCount;
+	int normalCount;
+
+	int[] faceOffsets;
+	int[] vertexIndices;
+	int[] textureVertexIndices;
+	int[] normalIndices;
+	int faceCount;
+	int indexCount;
+
+	public ObjData() {
+		this(INITIAL_CAPACITY, INITIAL_CAPACITY, INITIAL_CAPACITY, INITIAL_CAPACITY, INITIAL_CAPACITY * 4);
+	}
+
+	private ObjData(int vertexCapacity, int textureVertexCapacity, int normalCapacity, int faceCapacity, int indexCapacity) {
+		vertices = new float[Math.max(vertexCapacity, 1) * 3];
+		textureVertices = new float[Math.max(textureVertexCapacity, 1) * 2];
+		normals = new float[Math.max(normalCapacity, 1) * 3];
+		faceOffsets = new int[Math.max(faceCapacity, 1) + 1];
+		vertexIndices = new int[Math.max(indexCapacity, 1)];
+		textureVertexIndices = new int[Math.max(indexCapacity, 1)];
+		normalIndices = new int[Math.max(indexCapacity, 1)];
+	}
+
+	/**
+	 * Оборачивает готовые массивы без копирования (используется при чтении бинарного кэша).
+	 */
+	ObjData(float[] vertices, float[] textureVertices, float[] normals,
+			int[] faceOffsets, int[] vertexIndices, int[] textureVertexIndices, int[] normalIndices) {
+		this.vertices = vertices;
+		this.textureVertices = textureVertices;
+		this.normals = normals;
+		this.faceOffsets = faceOffsets;
+		this.vertexIndices = vertexIndices;
+		this.textureVertexIndices = textureVertexIndices;
+		this.normalIndices = normalIndices;
+		this.vertexCount = vertices.length / 3;
+		this.textureVertexCount = textureVertices.length / 2;
+		this.normalCount = normals.length / 3;
+		this.faceCount = faceOffsets.length - 1;
+		this.indexCount = vertexIndices.length;
+	}
+
+	/**
+	 * Склеивает данные кусков файла в порядке следования. Индексы в OBJ абсолютные,
+	 * поэтому сдвигаются только смещения полигонов.
+	 */
+	static ObjData concat(List<ObjData> parts) {
+		if (parts.size() == 1) {
+			return parts.get(0);
+		}
+		int vertexTotal = 0;
+		int textureVertexTotal = 0;
+		int normalTotal = 0;
+		int faceTotal = 0;
+		int indexTotal = 0;
+		for (ObjData part : parts) {
+			vertexTotal += part.vertexCount;
+			textureVertexTotal += part.textureVertexCount;
+			normalTotal += part.normalCount;
+			faceTotal += part.faceCount;
+			indexTotal += part.indexCount;
+		}
+
+		ObjData result = new ObjData(vertexTotal, textureVertexTotal, normalTotal, faceTotal, indexTotal);
+		for (ObjData part : parts) {
+			System.arraycopy(part.vertices, 0, result.vertices, result.vertexCount * 3, part.vertexCount * 3);
+			System.arraycopy(part.textureVertices, 0, result.textureVertices, result.textureVertexCount * 2, part.textureVertexCount * 2);
+			System.arraycopy(part.normals, 0, result.normals, result.normalCount * 3, part.normalCount * 3);
+			System.arraycopy(part.vertexIndices, 0, result.vertexIndices, result.indexCount, part.indexCount);
+			System.arraycopy(part.textureVertexIndices, 0, result.textureVertexIndices, result.indexCount, part.indexCount);
+			System.arraycopy(part.normalIndices, 0, result.normalIndices, result.indexCount, part.indexCount);
+			for (int face = 1; face <= part.faceCount; face++) {
+				result.faceOffsets[result.faceCount + face] = part.faceOffsets[face] + result.indexCount;
+			}
+			result.vertexCount += part.vertexCount;
+			result.textureVertexCount += part.textureVertexCount;
+			result.normalCount += part.normalCount;
+			result.faceCount += part.faceCount;
+			result.indexCount += part.indexCount;
+		}
+		return result;
+	}
+
+	void addVertex(float x, float y, float z) {
+		if (vertexCount * 3 + 3 > vertices.length) {
+			vertices = Arrays.copyOf(vertices, vertices.length * 2);
+		}
+		int base = vertexCount++ * 3;
+		vertices[base] = x;
+		vertices[base + 1] = y;
+		vertices[base + 2] = z;
+	}
+
+	void addTextureVertex(float u, float v) {
+		if (textureVertexCount * 2 + 2 > textureVertices.length) {
+			textureVertices = Arrays.copyOf(textureVertices, textureVertices.length * 2);
+		}
+		int base = textureVertexCount++ * 2;
+		textureVertices[base] = u;
+		textureVertices[base + 1] = v;
+	}
+
+	void addNormal(float x, float y, float z) {
+		if (normalCount * 3 + 3 > normals.length) {
+			normals = Arrays.copyOf(normals, normals.length * 2);
+		}
+		int base = normalCount++ * 3;
+		normals[base] = x;
+		normals[base + 1] = y;
+		normals[base + 2] = z;
+	}
+
+	void addFaceWord(int vertexIndex, int textureVertexIndex, int normalIndex) {
+		if (indexCount == vertexIndices.length) {
+			int capacity = indexCount * 2;
+			vertexIndices = Arrays.copyOf(vertexIndices, capacity);
+			textureVertexIndices = Arrays.copyOf(textureVertexIndices, capacity);
+			normalIndices = Arrays.copyOf(normalIndices, capacity);
+		}
+		vertexIndices[indexCount] = vertexIndex;
+		textureVertexIndices[indexCount] = textureVertexIndex;
+		normalIndices[indexCount] = normalIndex;
+		indexCount++;
+	}
+
+	/**
+	 * Закрывает текущий полигон: все слова, добавленные после предыдущего вызова, относятся к нему.
+	 */
+	void endFace() {
+		if (faceCount + 2 > faceOffsets.length) {
+			faceOffsets = Arrays.copyOf(faceOffsets, faceOffsets.length * 2);
+		}
+		faceOffsets[++faceCount] = indexCount;
+	}
+
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	public int getTextureVertexCount() {
+		return textureVertexCount;
+	}
+
+	public int getNormalCount() {
+		return normalCount;
+	}
+
+	public int getFaceCount() {
+		return faceCount;
+	}
+
+	public int getIndexCount() {
+		return indexCount;
+	}
+
+	// Геттеры массивов возвращают внутренние массивы без копирования.
+	// Массивы могут быть длиннее данных - значимы только первые элементы согласно счетчикам.
+
+	public float[] getVertices() {
+		return vertices;
+	}
+
+	public float[] getTextureVertices() {
+		return textureVertices;
+	}
+
+	public float[] getNormals() {
+		return normals;
+	}
+
+	public int[] getFaceOffsets() {
+		return faceOffsets;
+	}
+
+	public int[] getVertexIndices() {
+		return vertexIndices;
+	}
+
+	public int[] getTextureVertexIndices() {
+		return textureVertexIndices;
+	}
+
+	public int[] getNormalIndices() {
+		return normalIndices;
+	}
+
+	/**
+	 * Упаковывает данные в {@link PackedMesh}; массивы точного размера передаются без копирования.
+	 */
+	public PackedMesh toMesh() {
+		return new PackedMesh(
+				trim(vertices, vertexCount * 3),
+				trim(textureVertices, textureVertexCount * 2),
+				trim(normals, normalCount * 3),
+				trim(faceOffsets, faceCount + 1),
+				trim(vertexIndices, indexCount),
+				trim(textureVertexIndices, indexCount),
+				trim(normalIndices, indexCount));
+	}
+
+	/**
+	 * Собирает модель с той же геометрией, что и {@link ObjReader#read(String)}. Геометрия хранится упакованной,
+	 * списки вершин и полигонов создаются только при первом обращении к ним.
+	 */
+	public Model toModel() {
+		return new Model(toMesh());
+	}
+
+	private static float[] trim(float[] array, int length) {
+		return array.length == length ? array : Arrays.copyOf(array, length);
+	}
+
+	private static int[] trim(int[] array, int length) {
+		return array.length == length ? array : Arrays.copyOf(array, length);
+	}
+}
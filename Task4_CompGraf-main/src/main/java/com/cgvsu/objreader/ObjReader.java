@@ -4,6 +4,12 @@ import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
 import com.cgvsu.model.Model;
 import com.cgvsu.model.Polygon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Scanner;
@@ -15,6 +21,55 @@ public class ObjReader {
 	private static final String OBJ_NORMAL_TOKEN = "vn";
 	private static final String OBJ_FACE_TOKEN = "f";
 
+	private static final int READ_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Потоковое чтение файла: байты разбираются по мере чтения, весь файл в память не загружается.
+	 */
+	public static Model read(Path path) throws IOException {
+		try (InputStream in = Files.newInputStream(path)) {
+			return read(in);
+		}
+	}
+
+	public static Model read(InputStream in) throws IOException {
+		return readData(in).toModel();
+	}
+
+	/**
+	 * Читает поток в примитивные массивы без сборки {@link Model}.
+	 */
+	public static ObjData readData(InputStream in) throws IOException {
+		ObjData data = new ObjData();
+		ObjByteParser parser = new ObjByteParser(data, 1);
+		byte[] chunk = new byte[READ_BUFFER_SIZE];
+		ByteBuffer view = ByteBuffer.wrap(chunk);
+		int filled = 0;
+		int read;
+		while ((read = in.read(chunk, filled, chunk.length - filled)) >= 0) {
+			filled += read;
+			int linesEnd = filled;
+			while (linesEnd > 0 && chunk[linesEnd - 1] != '\n') {
+				linesEnd--;
+			}
+			if (linesEnd == 0) {
+				// Строка длиннее буфера - расширяем его и дочитываем
+				if (filled == chunk.length) {
+					chunk = Arrays.copyOf(chunk, chunk.length * 2);
+					view = ByteBuffer.wrap(chunk);
+				}
+				continue;
+			}
+			parser.parse(view, 0, linesEnd);
+			System.arraycopy(chunk, linesEnd, chunk, 0, filled - linesEnd);
+			filled -= linesEnd;
+		}
+		if (filled > 0) {
+			parser.parse(view, 0, filled);
+		}
+		return data;
+	}
+
 	public static Model read(String fileContent) {
 		Model result = new Model();
 
@@ -0,0 +1,174 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.Model;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Параллельное чтение больших OBJ-файлов. Файл отображается в память кусками (FileChannel.map),
+ * границы кусков выравниваются по концам строк, куски разбираются одновременно на ForkJoinPool
+ * и склеиваются в исходном порядке - результат совпадает с {@link ObjReader#read(Path)}.
+ */
+public class ParallelObjReader {
+
+	private static final long MIN_CHUNK_SIZE = 1L << 20;
+	private static final long MAX_CHUNK_SIZE = 64L << 20;
+	private static final int CHUNKS_PER_THREAD = 4;
+	private static final int PROBE_SIZE = 4096;
+
+	public static Model read(Path path) throws IOException {
+		return readData(path).toModel();
+	}
+
+	public static ObjData readData(Path path) throws IOException {
+		return readData(path, ForkJoinPool.commonPool());
+	}
+
+	public static ObjData readData(Path path, ForkJoinPool pool) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long chunkSize = Math.min(MAX_CHUNK_SIZE,
+					Math.max(MIN_CHUNK_SIZE, size / ((long) pool.getParallelism() * CHUNKS_PER_THREAD)));
+			return readData(channel, pool, chunkSize);
+		}
+	}
+
+	static ObjData readData(Path path, ForkJoinPool pool, long chunkSize) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return readData(channel, pool, chunkSize);
+		}
+	}
+
+	private static ObjData readData(FileChannel channel, ForkJoinPool pool, long chunkSize) throws IOException {
+		long[] bounds = splitByLines(channel, chunkSize);
+		int chunkCount = bounds.length - 1;
+
+		List<Callable<Chunk>> tasks = new ArrayList<>(chunkCount);
+		for (int i = 0; i < chunkCount; i++) {
+			long start = bounds[i];
+			long end = bounds[i + 1];
+			tasks.add(() -> {
+				try {
+					return parseChunk(channel, start, end, 1, 0, true);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		List<Future<Chunk>> futures = pool.invokeAll(tasks);
+
+		// Склейка по порядку. Кусок с ошибкой или с подозрительным индексом текстуры разбирается заново
+		// последовательно, уже зная номер первой строки и число текстурных вершин до него, - так
+		// выбрасывается ровно та же ошибка, что и при последовательном чтении.
+		List<ObjData> parts = new ArrayList<>(chunkCount);
+		int lineCount = 0;
+		int textureVertexCount = 0;
+		for (int i = 0; i < chunkCount; i++) {
+			Chunk chunk = awaitChunk(futures.get(i));
+			if (chunk == null || chunk.maxTextureIndexOverflow >= textureVertexCount) {
+				chunk = parseChunk(channel, bounds[i], bounds[i + 1], lineCount + 1, textureVertexCount, false);
+			}
+			parts.add(chunk.data);
+			lineCount += chunk.lineCount;
+			textureVertexCount += chunk.data.textureVertexCount;
+		}
+		return parts.isEmpty() ? new ObjData() : ObjData.concat(parts);
+	}
+
+	private static Chunk awaitChunk(Future<Chunk> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("OBJ loading interrupted");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof ObjReaderException) {
+				return null;
+			}
+			if (cause instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) cause).getCause();
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	private static Chunk parseChunk(FileChannel channel, long start, long end, int firstLineInd,
+									int textureVertexBase, boolean deferTextureIndexCheck) throws IOException {
+		ObjData data = new ObjData();
+		ObjByteParser parser = new ObjByteParser(data, firstLineInd, textureVertexBase);
+		if (deferTextureIndexCheck) {
+			parser.deferTextureIndexCheck();
+		}
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		parser.parse(buffer, 0, (int) (end - start));
+		return new Chunk(data, parser.getLineInd() - firstLineInd + 1, parser.getMaxTextureIndexOverflow());
+	}
+
+	/**
+	 * Границы кусков: каждый кусок, кроме последнего, заканчивается сразу после перевода строки.
+	 */
+	private static long[] splitByLines(FileChannel channel, long chunkSize) throws IOException {
+		long size = channel.size();
+		List<Long> bounds = new ArrayList<>();
+		bounds.add(0L);
+		long start = 0;
+		while (start < size) {
+			long end = start + chunkSize >= size ? size : findLineEnd(channel, start + chunkSize, size);
+			bounds.add(end);
+			start = end;
+		}
+
+		long[] result = new long[bounds.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = bounds.get(i);
+		}
+		return result;
+	}
+
+	private static long findLineEnd(FileChannel channel, long position, long size) throws IOException {
+		ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+		while (position < size) {
+			probe.clear();
+			int read = channel.read(probe, position);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (probe.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+	private static final class Chunk {
+		private final ObjData data;
+		private final int lineCount;
+		private final int maxTextureIndexOverflow;
+
+		private Chunk(ObjData data, int lineCount, int maxTextureIndexOverflow) {
+			this.data = data;
+			this.lineCount = lineCount;
+			this.maxTextureIndexOverflow = maxTextureIndexOverflow;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.cgvsu.render_engine;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Отрисовка кадров в отдельном потоке с тройной буферизацией. Поток JavaFX отдает снимок сцены
+ * ({@link #submit}) и забирает последний готовый кадр ({@link #takeFrame}), не дожидаясь отрисовки.
+ *
+ * <p>Три буфера кадра: выведенный на холст (принадлежит потоку JavaFX), готовый и рисуемый (принадлежит
+ * потоку отрисовки). Обмен идет без блокировок через две ячейки: готовый кадр и освободившийся буфер.
+ * Снимки тоже передаются через ячейку: если поток отрисовки занят, непрочитанный снимок заменяется новым,
+ * и после долгого кадра рисуется сразу последнее состояние сцены.</p>
+ */
+public class BackgroundRenderer {
+    private static final int STATISTICS_WINDOW = 120;
+
+    private final AtomicReference<FrameSnapshot> pendingSnapshot = new AtomicReference<>();
+    private final AtomicReference<RenderContext> readyFrame = new AtomicReference<>();
+    private final AtomicReference<RenderContext> freeFrame = new AtomicReference<>();
+    private final Runnable onFrameReady;
+    private final Thread thread;
+    private volatile boolean running = true;
+    // Кадр на холсте, только для потока JavaFX
+    private RenderContext frontFrame;
+
+    private final FrameStatistics renderTimes = new FrameStatistics(STATISTICS_WINDOW);
+    // Интервалы между кадрами, нарисованными подряд без простоя
+    private final FrameStatistics frameIntervals = new FrameStatistics(STATISTICS_WINDOW);
+
+    /**
+     * Запускает поток отрисовки. onFrameReady вызывается в нем после каждого готового кадра, может быть null.
+     */
+    public BackgroundRenderer(Runnable onFrameReady) {
+        this.onFrameReady = onFrameReady;
+        this.thread = new Thread(this::run, "Render thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Ставит снимок в очередь на отрисовку, заменяя еще не начатый.
+     */
+    public void submit(FrameSnapshot snapshot) {
+        pendingSnapshot.set(snapshot);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Забирает последний готовый кадр или возвращает null, если нового нет. Прошлый кадр, полученный
+     * отсюда, возвращается потоку отрисовки и больше не должен использоваться.
+     */
+    public RenderContext takeFrame() {
+        RenderContext frame = readyFrame.getAndSet(null);
+        if (frame == null) {
+            return null;
+        }
+        if (frontFrame != null) {
+            freeFrame.set(frontFrame);
+        }
+        frontFrame = frame;
+        return frame;
+    }
+
+    /**
+     * Кадр, последним полученный через {@link #takeFrame}, или null.
+     */
+    public RenderContext getFrontFrame() {
+        return frontFrame;
+    }
+
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        RenderContext backFrame = null;
+        long previousFrameEnd = 0;
+        boolean continuous = false;
+        while (running) {
+            FrameSnapshot snapshot = pendingSnapshot.getAndSet(null);
+            if (snapshot == null) {
+                continuous = false;
+                LockSupport.park(this);
+                continue;
+            }
+            if (backFrame == null) {
+                backFrame = freeFrame.getAndSet(null);
+            }
+            if (backFrame == null) {
+                // Поток JavaFX еще не вернул выведенный кадр
+                backFrame = new RenderContext(snapshot.getWidth(), snapshot.getHeight());
+            }
+            long start = System.nanoTime();
+            try {
+                RenderEngine.render(backFrame, snapshot);
+            } catch (RuntimeException e) {
+                System.err.println("Error rendering frame: " + e);
+                continuous = false;
+                continue;
+            }
+            long end = System.nanoTime();
+            // Время кадра - без растяжения: оно зависит только от размера холста, не от разрешения кадра
+            backFrame.setFrameTimeNanos(end - start);
+            backFrame.upscale(snapshot.getOutputWidth(), snapshot.getOutputHeight());
+            synchronized (renderTimes) {
+                renderTimes.record(end - start);
+                if (continuous) {
+                    frameIntervals.record(end - previousFrameEnd);
+                }
+            }
+            continuous = true;
+            previousFrameEnd = end;
+            // Непрочитанный кадр устарел, его буфер идет под следующий
+            backFrame = readyFrame.getAndSet(backFrame);
+            if (onFrameReady != null) {
+                onFrameReady.run();
+            }
+        }
+    }
+
+    /**
+     * Кадров в секунду, которые поток отрисовки успевает при непрерывной работе.
+     */
+    public double getAchievedFps() {
+        synchronized (renderTimes) {
+            return frameIntervals.getFps();
+        }
+    }
+
+    public double getRenderTimePercentileMs(double percentile) {
+        synchronized (renderTimes) {
+            return renderTimes.getPercentileMs(percentile);
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (renderTimes) {
+            return String.format("%.1f fps, render time p50 %.2f ms, p95 %.2f ms, p99 %.2f ms (%d frames)",
+                    frameIntervals.getFps(), renderTimes.getPercentileMs(50), renderTimes.getPercentileMs(95),
+                    renderTimes.getPercentileMs(99), renderTimes.getCount());
+        }
+    }
+}
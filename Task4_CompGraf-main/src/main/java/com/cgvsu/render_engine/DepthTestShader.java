@@ -0,0 +1,99 @@
+package com.cgvsu.render_engine;
+
+/**
+ * Основа заливки с тестом глубины по буферу RenderContext и иерархическим отсечением:
+ * треугольник или блок 8x8, ближайшая точка которого не ближе самой дальней сохраненной глубины
+ * во всех его блоках, пропускается до расчета пикселей. После обхода блока с записанными пикселями
+ * его границы глубины пересчитываются.
+ *
+ * <p>Счетчики копятся в полях экземпляра и переносятся в статистику контекста в {@link #flushStatistics()},
+ * поэтому каждый поток работает со своим экземпляром без синхронизации.</p>
+ */
+abstract class DepthTestShader implements TriangleRasterizer.FragmentShader {
+    // Запас на погрешность интерполяции: барицентрические координаты в сумме могут чуть превышать единицу
+    private static final int DEPTH_MARGIN_ULPS = 4;
+
+    protected final RenderContext context;
+    private final int width;
+    private final boolean hierarchical;
+    private float z0, z1, z2;
+    private float nearestDepth;
+    private boolean blockWritten;
+
+    private long triangles;
+    private long culledTriangles;
+    private long blocks;
+    private long culledBlocks;
+    private long fragments;
+    private long depthPassed;
+
+    DepthTestShader(RenderContext context, boolean hierarchical) {
+        this.context = context;
+        this.width = context.getWidth();
+        this.hierarchical = hierarchical;
+    }
+
+    /**
+     * Задает глубины вершин следующего треугольника.
+     */
+    void setDepths(float z0, float z1, float z2) {
+        this.z0 = z0;
+        this.z1 = z1;
+        this.z2 = z2;
+        float nearest = Math.min(z0, Math.min(z1, z2));
+        this.nearestDepth = nearest - DEPTH_MARGIN_ULPS * Math.ulp(nearest);
+        triangles++;
+    }
+
+    /**
+     * Проверяет, что треугольник с глубинами из {@link #setDepths} целиком закрыт в прямоугольнике пикселей.
+     */
+    boolean isOccluded(int minX, int minY, int maxX, int maxY) {
+        if (hierarchical && context.isDepthOccluded(minX, minY, maxX, maxY, nearestDepth)) {
+            culledTriangles++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean beginBlock(int left, int top, int right, int bottom) {
+        blocks++;
+        if (hierarchical && context.isDepthOccluded(left, top, right, bottom, nearestDepth)) {
+            culledBlocks++;
+            return false;
+        }
+        blockWritten = false;
+        return true;
+    }
+
+    @Override
+    public void endBlock(int left, int top, int right, int bottom) {
+        if (blockWritten) {
+            context.updateDepthBlock(left, top);
+        }
+    }
+
+    /**
+     * Тест глубины с записью для фрагмента (x, y) с барицентрическими координатами lambda.
+     */
+    protected final boolean testDepth(int x, int y, float lambda0, float lambda1, float lambda2) {
+        fragments++;
+        if (!context.testAndSetDepth(y * width + x, lambda0 * z0 + lambda1 * z1 + lambda2 * z2)) {
+            return false;
+        }
+        depthPassed++;
+        blockWritten = true;
+        return true;
+    }
+
+    void flushStatistics() {
+        context.getStatistics().add(triangles, culledTriangles, blocks, culledBlocks, fragments, depthPassed);
+        triangles = 0;
+        culledTriangles = 0;
+        blocks = 0;
+        culledBlocks = 0;
+        fragments = 0;
+        depthPassed = 0;
+    }
+}
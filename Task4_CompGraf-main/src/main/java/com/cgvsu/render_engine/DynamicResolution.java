@@ -0,0 +1,66 @@
+package com.cgvsu.render_engine;
+
+/**
+ * Динамическое разрешение: доля разрешения холста, в которой рисуется кадр, подбирается по замерам так,
+ * чтобы время кадра держалось около целевого. Кадр затем растягивается на холст ({@link FrameUpscaler}),
+ * поэтому большой холст не увеличивает стоимость заливки без предела.
+ */
+public class DynamicResolution {
+    public static final long DEFAULT_TARGET_FRAME_TIME_NANOS = 16_000_000L;
+    static final float MIN_SCALE = 0.25f;
+    // Масштаб за один кадр меняется не больше чем во столько раз, чтобы разовый выброс не обрушил качество
+    private static final float MAX_SCALE_STEP = 1.25f;
+    // Пока время в пределах этой доли от цели, масштаб не трогается, чтобы кадры не дрожали
+    private static final float TOLERANCE = 0.1f;
+
+    private long targetFrameTimeNanos;
+    private float scale = 1;
+
+    public DynamicResolution() {
+        this(DEFAULT_TARGET_FRAME_TIME_NANOS);
+    }
+
+    public DynamicResolution(long targetFrameTimeNanos) {
+        setTargetFrameTimeNanos(targetFrameTimeNanos);
+    }
+
+    /**
+     * Кадр с долей разрешения renderedScale нарисован за frameTimeNanos: пересчитывает масштаб.
+     */
+    public void onFrameRendered(float renderedScale, long frameTimeNanos) {
+        long deviation = Math.abs(frameTimeNanos - targetFrameTimeNanos);
+        if (renderedScale == scale && deviation <= targetFrameTimeNanos * TOLERANCE) {
+            return;
+        }
+        scale = adaptScale(renderedScale, frameTimeNanos, targetFrameTimeNanos, MIN_SCALE);
+    }
+
+    /**
+     * Масштаб, при котором кадр, нарисованный в масштабе scale за frameTimeNanos, уложится в targetNanos.
+     * Время заливки растет с числом пикселей, то есть с квадратом масштаба.
+     */
+    static float adaptScale(float scale, long frameTimeNanos, long targetNanos, float minScale) {
+        float ratio = (float) Math.sqrt((double) targetNanos / Math.max(1, frameTimeNanos));
+        ratio = Math.max(1 / MAX_SCALE_STEP, Math.min(MAX_SCALE_STEP, ratio));
+        return Math.max(minScale, Math.min(1, scale * ratio));
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    public void reset() {
+        scale = 1;
+    }
+
+    public long getTargetFrameTimeNanos() {
+        return targetFrameTimeNanos;
+    }
+
+    public void setTargetFrameTimeNanos(long targetFrameTimeNanos) {
+        if (targetFrameTimeNanos <= 0) {
+            throw new IllegalArgumentException("Frame time target must be positive: " + targetFrameTimeNanos);
+        }
+        this.targetFrameTimeNanos = targetFrameTimeNanos;
+    }
+}
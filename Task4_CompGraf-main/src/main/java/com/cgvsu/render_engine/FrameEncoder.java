@@ -0,0 +1,64 @@
+package com.cgvsu.render_engine;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Запись кадра из буфера цвета {@link RenderContext} в файл без JavaFX: PNG через ImageIO
+ * (с альфа-каналом, пустые пиксели прозрачны) и двоичный PPM (P6, альфа-канал отбрасывается).
+ */
+public class FrameEncoder {
+
+    public static final String PNG = "png";
+    public static final String PPM = "ppm";
+
+    /**
+     * Записывает кадр в формате по расширению файла: .ppm - PPM, иначе PNG.
+     */
+    public static void write(RenderContext context, Path path) throws IOException {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            write(context, name.endsWith("." + PPM) ? PPM : PNG, out);
+        }
+    }
+
+    /**
+     * Записывает кадр в поток в формате format ({@link #PNG} или {@link #PPM}). Поток не закрывается.
+     */
+    public static void write(RenderContext context, String format, OutputStream out) throws IOException {
+        switch (format) {
+            case PNG -> writePng(context.getColorBuffer(), context.getWidth(), context.getHeight(), out);
+            case PPM -> writePpm(context.getColorBuffer(), context.getWidth(), context.getHeight(), out);
+            default -> throw new IllegalArgumentException("Unsupported image format: " + format);
+        }
+    }
+
+    public static void writePng(int[] argb, int width, int height, OutputStream out) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, argb, 0, width);
+        if (!ImageIO.write(image, PNG, out)) {
+            throw new IOException("No PNG writer available");
+        }
+    }
+
+    public static void writePpm(int[] argb, int width, int height, OutputStream out) throws IOException {
+        out.write(("P6\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+        byte[] row = new byte[width * 3];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int color = argb[y * width + x];
+                row[x * 3] = (byte) (color >> 16);
+                row[x * 3 + 1] = (byte) (color >> 8);
+                row[x * 3 + 2] = (byte) color;
+            }
+            out.write(row);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.model.BoundingVolumeHierarchy;
+import com.cgvsu.model.LevelsOfDetail;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.Texture;
+import com.cgvsu.scene.PolygonIndexData;
+import com.cgvsu.scene.Scene;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Неизменяемый снимок всего, что нужно для кадра: матрица камеры, копия параметров и для каждой модели
+ * ее упакованная геометрия, иерархия, уровни детализации и текстура. Снимается в потоке JavaFX, после чего
+ * кадр можно рисовать в другом потоке, пока пользователь меняет сцену.
+ */
+public final class FrameSnapshot {
+    private final Matrix4f modelViewProjectionMatrix;
+    private final int width;
+    private final int height;
+    // Размер холста, до которого кадр растягивается после отрисовки
+    private final int outputWidth;
+    private final int outputHeight;
+    private final RenderParameters renderParameters;
+    private final List<ModelSnapshot> models;
+    private final PolygonIndexData highlightedPolygon;
+    // Проход прогрессивного уточнения, для которого снят кадр, или null
+    private final ProgressiveRefinement.Pass pass;
+
+    private FrameSnapshot(Matrix4f modelViewProjectionMatrix, int width, int height, int outputWidth,
+                          int outputHeight, RenderParameters renderParameters, List<ModelSnapshot> models,
+                          PolygonIndexData highlightedPolygon, ProgressiveRefinement.Pass pass) {
+        this.modelViewProjectionMatrix = modelViewProjectionMatrix;
+        this.width = width;
+        this.height = height;
+        this.outputWidth = outputWidth;
+        this.outputHeight = outputHeight;
+        this.renderParameters = renderParameters;
+        this.models = models;
+        this.highlightedPolygon = highlightedPolygon;
+        this.pass = pass;
+    }
+
+    /**
+     * Снимок сцены для кадра width x height. Вызывается в том потоке, где меняются модели.
+     */
+    public static FrameSnapshot capture(Scene scene, Camera camera, RenderParameters renderParameters,
+                                        int width, int height) {
+        return capture(scene, camera, renderParameters, width, height, width, height, null);
+    }
+
+    /**
+     * Снимок для прохода прогрессивного уточнения: кадр с долей pass от разрешения холста canvasWidth x canvasHeight,
+     * который затем растягивается до размера холста.
+     */
+    public static FrameSnapshot capture(Scene scene, Camera camera, ProgressiveRefinement.Pass pass,
+                                        double canvasWidth, double canvasHeight) {
+        return capture(scene, camera, pass.getRenderParameters(), pass.scaleSize(canvasWidth),
+                pass.scaleSize(canvasHeight), Math.max(1, (int) canvasWidth), Math.max(1, (int) canvasHeight), pass);
+    }
+
+    private static FrameSnapshot capture(Scene scene, Camera camera, RenderParameters renderParameters,
+                                         int width, int height, int outputWidth, int outputHeight,
+                                         ProgressiveRefinement.Pass pass) {
+        RenderParameters parameters = new RenderParameters(renderParameters);
+        return new FrameSnapshot(RenderEngine.calculateModelViewProjectionMatrix(camera), width, height,
+                outputWidth, outputHeight, parameters, captureModels(scene, parameters), scene.getHighlightedPolygon(),
+                pass);
+    }
+
+    static List<ModelSnapshot> captureModels(Scene scene, RenderParameters renderParameters) {
+        List<ModelSnapshot> models = new ArrayList<>(scene.getModels().size());
+        for (Model model : scene.getModels()) {
+            if (model != null) {
+                models.add(new ModelSnapshot(model, renderParameters));
+            }
+        }
+        return Collections.unmodifiableList(models);
+    }
+
+    public Matrix4f getModelViewProjectionMatrix() {
+        return modelViewProjectionMatrix;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getOutputWidth() {
+        return outputWidth;
+    }
+
+    public int getOutputHeight() {
+        return outputHeight;
+    }
+
+    public RenderParameters getRenderParameters() {
+        return renderParameters;
+    }
+
+    List<ModelSnapshot> getModels() {
+        return models;
+    }
+
+    public PolygonIndexData getHighlightedPolygon() {
+        return highlightedPolygon;
+    }
+
+    public ProgressiveRefinement.Pass getPass() {
+        return pass;
+    }
+
+    /**
+     * Состояние модели на момент снимка. Иерархия и уровни детализации берутся, только если их использует
+     * кадр, текстура - только в режиме текстурирования. Иерархия в снимок попадает, только если ее не нужно
+     * строить заново (после загрузки или правки граней): построение на большой модели занимает секунды,
+     * поэтому оно откладывается до отрисовки кадра ({@link #getHierarchy()}).
+     */
+    static final class ModelSnapshot {
+        final Model model;
+        final PackedMesh mesh;
+        final LevelsOfDetail levelsOfDetail;
+        final Texture texture;
+        private final boolean needsHierarchy;
+        private BoundingVolumeHierarchy hierarchy;
+
+        ModelSnapshot(Model model, RenderParameters renderParameters) {
+            this.model = model;
+            this.mesh = model.getMesh();
+            this.levelsOfDetail = renderParameters.isLevelOfDetail() ? model.getLevelsOfDetail() : null;
+            this.needsHierarchy = renderParameters.isFrustumCulling() || levelsOfDetail != null;
+            this.hierarchy = needsHierarchy ? model.findBoundingVolumeHierarchy() : null;
+            this.texture = renderParameters.isTexturePolygon() ? RenderEngine.resolveTexture(model) : null;
+        }
+
+        /**
+         * Иерархия по mesh снимка или null, если кадр ее не использует. Если ее не было при снимке,
+         * она строится в потоке, который рисует кадр.
+         */
+        BoundingVolumeHierarchy getHierarchy() {
+            if (hierarchy == null && needsHierarchy) {
+                hierarchy = model.buildBoundingVolumeHierarchy(mesh);
+            }
+            return hierarchy;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.cgvsu.render_engine;
+
+import java.util.Arrays;
+
+/**
+ * Скользящая статистика времени кадра: хранит последние N замеров и считает по ним средний FPS.
+ */
+public class FrameStatistics {
+    private final long[] frameTimes;
+    private int count;
+    private int next;
+    private long total;
+
+    public FrameStatistics(int capacity) {
+        this.frameTimes = new long[capacity];
+    }
+
+    public void record(long frameTimeNanos) {
+        if (count == frameTimes.length) {
+            total -= frameTimes[next];
+        } else {
+            count++;
+        }
+        frameTimes[next] = frameTimeNanos;
+        total += frameTimeNanos;
+        next = (next + 1) % frameTimes.length;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getAverageFrameTimeMs() {
+        if (count == 0) {
+            return 0;
+        }
+        return total / (double) count / 1_000_000.0;
+    }
+
+    public double getFps() {
+        double average = getAverageFrameTimeMs();
+        return average == 0 ? 0 : 1000.0 / average;
+    }
+
+    /**
+     * Время кадра в миллисекундах, которое не превышают percentile процентов замеров окна (по ближайшему рангу).
+     */
+    public double getPercentileMs(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        // Пока окно не заполнено, замеры лежат в начале массива
+        long[] sorted = Arrays.copyOf(frameTimes, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(0, Math.min(count - 1, rank - 1))] / 1_000_000.0;
+    }
+
+    public void reset() {
+        count = 0;
+        next = 0;
+        total = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f fps (%.2f ms/frame, %d frames)", getFps(), getAverageFrameTimeMs(), count);
+    }
+}
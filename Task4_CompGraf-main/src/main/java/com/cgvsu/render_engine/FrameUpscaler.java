@@ -0,0 +1,72 @@
+package com.cgvsu.render_engine;
+
+/**
+ * Билинейное растяжение кадра ARGB. Центры пикселей результата проецируются на исходный кадр, цвет
+ * смешивается из четырех соседних пикселей с весами в фиксированной точке (8 бит дробной части).
+ * Индексы и веса столбцов считаются один раз на кадр, строки - один раз на строку результата.
+ */
+public final class FrameUpscaler {
+    private static final int FRACTION_BITS = 8;
+    private static final int ONE = 1 << FRACTION_BITS;
+
+    private FrameUpscaler() {
+    }
+
+    /**
+     * Растягивает source размером sourceWidth x sourceHeight в target размером targetWidth x targetHeight.
+     */
+    public static void bilinear(int[] source, int sourceWidth, int sourceHeight,
+                                int[] target, int targetWidth, int targetHeight) {
+        if (source.length < sourceWidth * sourceHeight || target.length < targetWidth * targetHeight) {
+            throw new IllegalArgumentException("Buffer is smaller than its frame size");
+        }
+        if (sourceWidth == targetWidth && sourceHeight == targetHeight) {
+            System.arraycopy(source, 0, target, 0, targetWidth * targetHeight);
+            return;
+        }
+        int[] left = new int[targetWidth];
+        int[] right = new int[targetWidth];
+        int[] weightX = new int[targetWidth];
+        for (int x = 0; x < targetWidth; x++) {
+            int position = samplePosition(x, sourceWidth, targetWidth);
+            left[x] = position >> FRACTION_BITS;
+            right[x] = Math.min(left[x] + 1, sourceWidth - 1);
+            weightX[x] = position & (ONE - 1);
+        }
+        for (int y = 0; y < targetHeight; y++) {
+            int position = samplePosition(y, sourceHeight, targetHeight);
+            int top = (position >> FRACTION_BITS) * sourceWidth;
+            int bottom = Math.min((position >> FRACTION_BITS) + 1, sourceHeight - 1) * sourceWidth;
+            int weightY = position & (ONE - 1);
+            int offset = y * targetWidth;
+            for (int x = 0; x < targetWidth; x++) {
+                int upper = lerp(source[top + left[x]], source[top + right[x]], weightX[x]);
+                int lower = lerp(source[bottom + left[x]], source[bottom + right[x]], weightX[x]);
+                target[offset + x] = lerp(upper, lower, weightY);
+            }
+        }
+    }
+
+    /**
+     * Координата центра пикселя index результата в исходном кадре, в фиксированной точке, не меньше нуля.
+     */
+    private static int samplePosition(int index, int sourceSize, int targetSize) {
+        long position = ((2L * index + 1) * sourceSize * ONE) / (2L * targetSize) - ONE / 2;
+        return (int) Math.max(0, Math.min(position, (long) (sourceSize - 1) * ONE));
+    }
+
+    /**
+     * Смешивает каналы a и b: weight = 0 дает a, ONE - b.
+     */
+    private static int lerp(int a, int b, int weight) {
+        if (a == b || weight == 0) {
+            return a;
+        }
+        // Каналы 0 и 2 и каналы 1 и 3 смешиваются парами: сумма весов равна ONE, поэтому произведение
+        // канала не выходит за свои 16 бит
+        int even = (((a & 0x00FF00FF) * (ONE - weight) + (b & 0x00FF00FF) * weight) >>> FRACTION_BITS) & 0x00FF00FF;
+        int odd = ((((a >>> 8) & 0x00FF00FF) * (ONE - weight) + ((b >>> 8) & 0x00FF00FF) * weight)
+                >>> FRACTION_BITS) & 0x00FF00FF;
+        return even | (odd << 8);
+    }
+}
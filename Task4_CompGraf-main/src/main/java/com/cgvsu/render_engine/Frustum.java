@@ -0,0 +1,63 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+
+/**
+ * Шесть плоскостей пирамиды видимости в координатах модели, извлеченные из строк матрицы MVP.
+ *
+ * <p>Точка p видима, когда -w <= x, y, z <= w для (x, y, z, w) = MVP * p, то есть когда все шесть выражений
+ * w + x, w - x, w + y, w - y, w + z, w - z неотрицательны. Каждое из них линейно по p и задает плоскость,
+ * поэтому ограничивающий параллелепипед проверяется по двум его углам на плоскость без умножения вершин на матрицу.</p>
+ */
+public final class Frustum {
+
+    public static final int OUTSIDE = 0;
+    public static final int INTERSECTS = 1;
+    public static final int INSIDE = 2;
+
+    private static final int PLANE_COUNT = 6;
+
+    private final float[] matrix = new float[16];
+    // Плоскость i: planes[4i] * x + planes[4i + 1] * y + planes[4i + 2] * z + planes[4i + 3] >= 0 внутри
+    private final float[] planes = new float[PLANE_COUNT * 4];
+
+    public Frustum() {
+    }
+
+    public Frustum(Matrix4f modelViewProjectionMatrix) {
+        set(modelViewProjectionMatrix);
+    }
+
+    public void set(Matrix4f modelViewProjectionMatrix) {
+        final float[] m = matrix;
+        modelViewProjectionMatrix.toArray(m, 0);
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 4; column++) {
+                planes[row * 8 + column] = m[12 + column] + m[row * 4 + column];
+                planes[row * 8 + 4 + column] = m[12 + column] - m[row * 4 + column];
+            }
+        }
+    }
+
+    /**
+     * Положение параллелепипеда [minX, maxX] x [minY, maxY] x [minZ, maxZ] относительно пирамиды:
+     * {@link #OUTSIDE}, {@link #INTERSECTS} или {@link #INSIDE}. OUTSIDE означает, что параллелепипед целиком
+     * снаружи одной из плоскостей; параллелепипед у ребра пирамиды может получить INTERSECTS, будучи невидимым.
+     */
+    public int classify(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        int result = INSIDE;
+        for (int plane = 0; plane < PLANE_COUNT * 4; plane += 4) {
+            final float a = planes[plane], b = planes[plane + 1], c = planes[plane + 2], d = planes[plane + 3];
+            // Самый дальний от плоскости угол внутрь и самый дальний наружу
+            float farthest = a * (a >= 0 ? maxX : minX) + b * (b >= 0 ? maxY : minY) + c * (c >= 0 ? maxZ : minZ) + d;
+            if (farthest < 0) {
+                return OUTSIDE;
+            }
+            float nearest = a * (a >= 0 ? minX : maxX) + b * (b >= 0 ? minY : maxY) + c * (c >= 0 ? minZ : maxZ) + d;
+            if (nearest < 0) {
+                result = INTERSECTS;
+            }
+        }
+        return result;
+    }
+}
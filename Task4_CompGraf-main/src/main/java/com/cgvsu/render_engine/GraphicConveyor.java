@@ -3,7 +3,6 @@ package com.cgvsu.render_engine;
 import com.cgvsu.math.Matrix4f;
 import com.cgvsu.math.Point2f;
 import com.cgvsu.math.Vector3f;
-import com.cgvsu.math.Vector4f;
 
 import static java.lang.Math.*;
 
@@ -91,9 +90,7 @@ public class GraphicConveyor {
      * @return {@code Vector3f} - нормализованные экранные координаты вершины.
      */
     public static Vector3f multiplyMatrix4ByVector3(Matrix4f matrix, Vector3f vertex) {
-        Vector4f res = matrix.multiply(new Vector4f(vertex.getX(), vertex.getY(), vertex.getZ(), 1));
-        float w = res.getW();
-        return new Vector3f(res.getX() / w, res.getY() / w, res.getZ() / w);
+        return matrix.transformPoint(vertex, new Vector3f());
     }
 
     /**
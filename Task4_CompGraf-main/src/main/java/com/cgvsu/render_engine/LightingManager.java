@@ -5,7 +5,7 @@ import com.cgvsu.math.Matrix4f;
 
 import com.cgvsu.math.Vector3f;
 import com.cgvsu.model.Model;
-import com.cgvsu.model.NormalCalculator;
+import com.cgvsu.model.ModelEditingTools;
 import javafx.scene.paint.Color;
 
 import java.util.*;
@@ -151,14 +151,8 @@ public class LightingManager {
                     new Vector3f(1, 1, 1),
                     light.getPosition());
 
-            ArrayList<Vector3f> transformedVertices = new ArrayList<>();
-            for (Vector3f vertex : light.getSphere().getOriginalVertices()) {
-                Vector3f transformedVertex = GraphicConveyor.multiplyMatrix4ByVector3(transformationMatrix, vertex);
-                transformedVertices.add(transformedVertex);
-            }
-
-            light.getSphere().setVertices(transformedVertices);
-            light.getSphere().setNormals(NormalCalculator.calculateNormals(light.getSphere()));
+            // Перенос не меняет нормалей, они остаются прежними
+            ModelEditingTools.deformModelFromTransformationMatrix(transformationMatrix, light.getSphere());
 
 
         }
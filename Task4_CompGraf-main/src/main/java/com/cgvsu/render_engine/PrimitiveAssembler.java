@@ -0,0 +1,137 @@
+package com.cgvsu.render_engine;
+
+/**
+ * Сборка треугольников между проекцией вершин и заливкой: отбрасывает треугольники, обращенные от камеры
+ * или лежащие целиком снаружи пирамиды видимости, и отсекает пересекающие ее в однородных координатах.
+ *
+ * <p>Ориентация на экране считается через определитель из координат x, y, w трех вершин. Его знак совпадает
+ * со знаком площади спроецированного треугольника, пока все вершины перед камерой, и остается верным,
+ * когда часть вершин за ней, поэтому отсечение идет уже после отбрасывания задних граней.</p>
+ *
+ * <p>Ближней плоскостью отсекается всегда: вершины за камерой иначе проецируются в мусор. Остальные пять
+ * плоскостей включаются отдельно; без них треугольник режется ими, только если его экранные координаты
+ * не помещаются в фиксированную точку растеризатора. Части отсеченного треугольника заливаются веером
+ * из новых вершин {@link ScreenVertices#appendVertex}, текстурные координаты и цвета новых вершин
+ * интерполируются по барицентрическим весам.</p>
+ */
+final class PrimitiveAssembler {
+
+    private final TriangleClipper clipper = new TriangleClipper();
+    private final int[] clippedVertices = new int[TriangleClipper.MAX_VERTICES];
+    private final int[] clippedTextureVertices = new int[TriangleClipper.MAX_VERTICES];
+    private final int[] clippedColors = new int[TriangleClipper.MAX_VERTICES];
+
+    private ScreenVertices vertices;
+    private TileRasterizer rasterizer;
+    private boolean backFaceCulling;
+    private int planes;
+
+    private long backFaces;
+    private long outsideTriangles;
+    private long clippedTriangles;
+
+    /**
+     * Начинает сборку модели, вершины которой уже переведены {@link ScreenVertices#transform}.
+     *
+     * @param backFaceCulling отбрасывать ли треугольники, обращенные от камеры
+     * @param frustumClipping отсекать ли всеми шестью плоскостями, а не только ближней
+     */
+    void begin(ScreenVertices vertices, TileRasterizer rasterizer, boolean backFaceCulling, boolean frustumClipping) {
+        this.vertices = vertices;
+        this.rasterizer = rasterizer;
+        this.backFaceCulling = backFaceCulling;
+        this.planes = frustumClipping ? TriangleClipper.ALL_PLANES : ScreenVertices.OUTSIDE_NEAR;
+        this.backFaces = 0;
+        this.outsideTriangles = 0;
+        this.clippedTriangles = 0;
+    }
+
+    /**
+     * Передает треугольник в растеризатор целиком, по частям или никак. Параметры те же,
+     * что у {@link TileRasterizer#addTriangle}.
+     */
+    void addTriangle(int a, int b, int c,
+                     int textureA, int textureB, int textureC,
+                     int colorA, int colorB, int colorC) {
+        final int[] outcodes = vertices.getOutcodes();
+        final int outcodeA = outcodes[a], outcodeB = outcodes[b], outcodeC = outcodes[c];
+        if ((outcodeA & outcodeB & outcodeC) != 0) {
+            outsideTriangles++;
+            return;
+        }
+        if (backFaceCulling && isBackFace(a, b, c)) {
+            backFaces++;
+            return;
+        }
+
+        int clipPlanes = (outcodeA | outcodeB | outcodeC) & planes;
+        if (clipPlanes == 0 && !isRepresentable(a, b, c)) {
+            clipPlanes = (outcodeA | outcodeB | outcodeC) & TriangleClipper.ALL_PLANES;
+        }
+        if (clipPlanes == 0) {
+            rasterizer.addTriangle(a, b, c, textureA, textureB, textureC, colorA, colorB, colorC);
+            return;
+        }
+
+        clippedTriangles++;
+        final int count = clipper.clip(vertices, a, b, c, clipPlanes);
+        final boolean textured = textureA != TileRasterizer.NO_TEXTURE;
+        for (int i = 0; i < count; i++) {
+            float weightA = clipper.getWeight(i, 0);
+            float weightB = clipper.getWeight(i, 1);
+            float weightC = clipper.getWeight(i, 2);
+            clippedVertices[i] = vertices.appendVertex(clipper.getX(i), clipper.getY(i), clipper.getZ(i), clipper.getW(i));
+            if (textured) {
+                clippedTextureVertices[i] = rasterizer.addTextureVertex(
+                        weightA * rasterizer.getTextureU(textureA) + weightB * rasterizer.getTextureU(textureB)
+                                + weightC * rasterizer.getTextureU(textureC),
+                        weightA * rasterizer.getTextureV(textureA) + weightB * rasterizer.getTextureV(textureB)
+                                + weightC * rasterizer.getTextureV(textureC));
+            } else {
+                clippedTextureVertices[i] = TileRasterizer.NO_TEXTURE;
+            }
+            clippedColors[i] = colorA == colorB && colorB == colorC
+                    ? colorA
+                    : TriangleRasterizer.interpolateArgb(weightA, weightB, weightC, colorA, colorB, colorC);
+        }
+        for (int i = 1; i + 1 < count; i++) {
+            rasterizer.addTriangle(clippedVertices[0], clippedVertices[i], clippedVertices[i + 1],
+                    clippedTextureVertices[0], clippedTextureVertices[i], clippedTextureVertices[i + 1],
+                    clippedColors[0], clippedColors[i], clippedColors[i + 1]);
+        }
+    }
+
+    /**
+     * Переносит счетчики модели в статистику кадра.
+     */
+    void finish(RenderContext context) {
+        context.getStatistics().addPrimitives(backFaces, outsideTriangles, clippedTriangles);
+    }
+
+    /**
+     * Обращен ли треугольник от камеры. Вырожденный треугольник тоже отбрасывается.
+     */
+    boolean isBackFace(int a, int b, int c) {
+        final float[] x = vertices.getClipX();
+        final float[] y = vertices.getClipY();
+        final float[] w = vertices.getClipW();
+        return orientation(x[a], y[a], w[a], x[b], y[b], w[b], x[c], y[c], w[c]) >= 0;
+    }
+
+    /**
+     * Определитель матрицы из строк (x, y, w) трех вершин в координатах отсечения.
+     */
+    static double orientation(float x0, float y0, float w0, float x1, float y1, float w1, float x2, float y2, float w2) {
+        return (double) x0 * ((double) y1 * w2 - (double) w1 * y2)
+                - (double) y0 * ((double) x1 * w2 - (double) w1 * x2)
+                + (double) w0 * ((double) x1 * y2 - (double) y1 * x2);
+    }
+
+    private boolean isRepresentable(int a, int b, int c) {
+        final float[] x = vertices.getX();
+        final float[] y = vertices.getY();
+        return TriangleRasterizer.isRepresentable(x[a]) && TriangleRasterizer.isRepresentable(y[a])
+                && TriangleRasterizer.isRepresentable(x[b]) && TriangleRasterizer.isRepresentable(y[b])
+                && TriangleRasterizer.isRepresentable(x[c]) && TriangleRasterizer.isRepresentable(y[c]);
+    }
+}
@@ -0,0 +1,140 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.scene.PolygonIndexData;
+
+import java.util.Arrays;
+
+/**
+ * Буфер идентификаторов полигонов: для каждого пикселя - какой полигон какой модели в нем виден.
+ *
+ * <p>Идентификатор упаковывает в int номер модели в кадре (старшие {@value #MODEL_BITS} бит, с единицы)
+ * и индекс полигона (младшие {@value #POLYGON_BITS} бит); 0 означает пустой пиксель. Номера раздаются
+ * моделям по порядку отрисовки через {@link #registerModel} и живут до следующей очистки, поэтому запрос
+ * полигона под курсором - одно чтение массива и одно обращение к таблице моделей.</p>
+ */
+public final class PrimitiveIdBuffer {
+
+    public static final int NO_ID = 0;
+    public static final int MODEL_BITS = 8;
+    public static final int POLYGON_BITS = Integer.SIZE - MODEL_BITS;
+    // Модели и полигоны сверх этих пределов не получают идентификатор, их пиксели остаются пустыми
+    public static final int MAX_MODELS = (1 << MODEL_BITS) - 1;
+    public static final int MAX_POLYGONS = 1 << POLYGON_BITS;
+
+    private static final int POLYGON_MASK = MAX_POLYGONS - 1;
+
+    private int width;
+    private int height;
+    private int[] ids;
+    private final Model[] models = new Model[MAX_MODELS];
+    private int modelCount;
+
+    PrimitiveIdBuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.ids = new int[width * height];
+    }
+
+    void resize(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.ids = new int[width * height];
+        clearModels();
+    }
+
+    /**
+     * Очищает пиксели и таблицу моделей.
+     */
+    void clear() {
+        Arrays.fill(ids, NO_ID);
+        clearModels();
+    }
+
+    private void clearModels() {
+        Arrays.fill(models, 0, modelCount, null);
+        modelCount = 0;
+    }
+
+    /**
+     * Выдает модели номер в текущем кадре, 0 - если номера кончились.
+     */
+    int registerModel(Model model) {
+        if (modelCount == MAX_MODELS) {
+            return 0;
+        }
+        models[modelCount] = model;
+        return ++modelCount;
+    }
+
+    /**
+     * Идентификатор полигона polygon модели с номером modelSlot или {@link #NO_ID}, если он не помещается.
+     */
+    static int pack(int modelSlot, int polygon) {
+        if (modelSlot <= 0 || modelSlot > MAX_MODELS || polygon < 0 || polygon >= MAX_POLYGONS) {
+            return NO_ID;
+        }
+        return modelSlot << POLYGON_BITS | polygon;
+    }
+
+    /**
+     * Идентификаторы по строкам кадра, длина width * height.
+     */
+    public int[] getIds() {
+        return ids;
+    }
+
+    /**
+     * Идентификатор в пикселе (x, y); за пределами кадра - {@link #NO_ID}.
+     */
+    public int getId(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return NO_ID;
+        }
+        return ids[y * width + x];
+    }
+
+    /**
+     * Идентификатор, под которым в текущем кадре записан полигон polygon модели model,
+     * или {@link #NO_ID}, если модель в кадре не рисовалась.
+     */
+    public int getId(Model model, int polygon) {
+        for (int slot = 0; slot < modelCount; slot++) {
+            if (models[slot] == model) {
+                return pack(slot + 1, polygon);
+            }
+        }
+        return NO_ID;
+    }
+
+    public Model getModel(int id) {
+        return id == NO_ID ? null : models[(id >>> POLYGON_BITS) - 1];
+    }
+
+    public static int getPolygonIndex(int id) {
+        return id & POLYGON_MASK;
+    }
+
+    /**
+     * Полигон, видимый в пикселе (x, y), или null.
+     */
+    public PolygonIndexData getPolygonAt(int x, int y) {
+        int id = getId(x, y);
+        return id == NO_ID ? null : new PolygonIndexData(getPolygonIndex(id), getModel(id));
+    }
+
+    /**
+     * Смешивает пополам с color цвет пикселей colorBuffer, в которых виден полигон id.
+     */
+    public void highlight(int id, int[] colorBuffer, int color) {
+        if (id == NO_ID) {
+            return;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                // Среднее по каналам без переноса между ними
+                colorBuffer[i] = 0xFF000000 | ((colorBuffer[i] & 0xFEFEFE) >>> 1) + ((color & 0xFEFEFE) >>> 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.cgvsu.render_engine;
+
+/**
+ * Прогрессивное уточнение кадра. Пока камера движется, кадры рисуются в пониженном разрешении без буфера
+ * идентификаторов, а если и в минимальном разрешении кадр не укладывается в бюджет времени - только каркасом.
+ * Разрешение подбирается по замерам: время заливки растет с числом пикселей, то есть с квадратом масштаба.
+ * Меньшая высота кадра заодно выбирает более грубые уровни детализации моделей.
+ *
+ * <p>Когда ввода нет дольше idleDelay, кадр дорисовывается по ступеням {@link #REFINEMENT_SCALES}
+ * до полного разрешения и всех включенных в {@link RenderParameters} режимов. Следующая ступень
+ * запрашивается ({@link #isRefinementDue}) после того, как нарисована предыдущая.</p>
+ */
+public class ProgressiveRefinement {
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = 16_000_000L;
+    public static final long DEFAULT_IDLE_DELAY_NANOS = 150_000_000L;
+
+    // Доля разрешения по каждой оси на ступенях уточнения после остановки камеры; последняя - полный кадр
+    static final float[] REFINEMENT_SCALES = {0.5f, 1.0f};
+    static final float MIN_SCALE = DynamicResolution.MIN_SCALE;
+
+    private static final int INTERACTIVE = -1;
+    private static final int COMPLETE = REFINEMENT_SCALES.length;
+
+    private final long frameBudgetNanos;
+    private final long idleDelayNanos;
+    private float interactiveScale = 1;
+    // Предел масштаба всех проходов, например от динамического разрешения
+    private float maxScale = 1;
+    private boolean wireframeOnly;
+    private int stage = COMPLETE;
+    private boolean stageSubmitted;
+    private long lastInteraction;
+
+    public ProgressiveRefinement() {
+        this(DEFAULT_FRAME_BUDGET_NANOS, DEFAULT_IDLE_DELAY_NANOS);
+    }
+
+    public ProgressiveRefinement(long frameBudgetNanos, long idleDelayNanos) {
+        this.frameBudgetNanos = frameBudgetNanos;
+        this.idleDelayNanos = idleDelayNanos;
+    }
+
+    /**
+     * Параметры одного кадра: доля разрешения холста и режимы отрисовки.
+     */
+    public static final class Pass {
+        private final int stage;
+        private final float scale;
+        private final RenderParameters renderParameters;
+
+        private Pass(int stage, float scale, RenderParameters renderParameters) {
+            this.stage = stage;
+            this.scale = scale;
+            this.renderParameters = renderParameters;
+        }
+
+        public float getScale() {
+            return scale;
+        }
+
+        public RenderParameters getRenderParameters() {
+            return renderParameters;
+        }
+
+        public boolean isInteractive() {
+            return stage == INTERACTIVE;
+        }
+
+        /**
+         * Размер кадра по стороне холста size, не меньше пикселя.
+         */
+        public int scaleSize(double size) {
+            return Math.max(1, (int) Math.round(size * scale));
+        }
+    }
+
+    /**
+     * Камера сдвинулась в момент now (наносекунды): следующие кадры рисуются в интерактивном режиме.
+     */
+    public void onCameraMoved(long now) {
+        lastInteraction = now;
+        stage = INTERACTIVE;
+        stageSubmitted = false;
+    }
+
+    /**
+     * Проход для кадра, который начинают рисовать в момент now, по параметрам пользователя renderParameters.
+     */
+    public Pass nextPass(long now, RenderParameters renderParameters) {
+        if (stage == INTERACTIVE && now - lastInteraction >= idleDelayNanos) {
+            stage = firstRefinementStage();
+            stageSubmitted = false;
+        }
+        RenderParameters parameters = new RenderParameters(renderParameters);
+        if (stage == INTERACTIVE) {
+            parameters.setIdBuffer(false);
+            parameters.setLevelOfDetail(true);
+            if (wireframeOnly) {
+                parameters.setAllParams(false, false, false, false);
+            }
+            return new Pass(INTERACTIVE, Math.min(interactiveScale, maxScale), parameters);
+        }
+        if (stage < COMPLETE) {
+            stageSubmitted = true;
+            if (stage < COMPLETE - 1) {
+                parameters.setIdBuffer(false);
+            }
+            return new Pass(stage, Math.min(REFINEMENT_SCALES[stage], maxScale), parameters);
+        }
+        return new Pass(COMPLETE, maxScale, parameters);
+    }
+
+    /**
+     * Первая ступень, которая лучше последнего интерактивного кадра и не упирается в предел масштаба.
+     */
+    private int firstRefinementStage() {
+        int first = 0;
+        while (first < COMPLETE - 1 && (REFINEMENT_SCALES[first] >= maxScale
+                || !wireframeOnly && REFINEMENT_SCALES[first] <= Math.min(interactiveScale, maxScale))) {
+            first++;
+        }
+        return first;
+    }
+
+    /**
+     * Кадр прохода pass нарисован за frameTimeNanos. По интерактивным кадрам подбирается разрешение,
+     * после кадра ступени уточнения становится нужна следующая.
+     */
+    public void onFrameRendered(Pass pass, long frameTimeNanos) {
+        if (pass.stage == INTERACTIVE) {
+            adapt(pass, frameTimeNanos);
+        } else if (pass.stage == stage && stage < COMPLETE) {
+            stage++;
+            stageSubmitted = false;
+        }
+    }
+
+    private void adapt(Pass pass, long frameTimeNanos) {
+        if (wireframeOnly) {
+            // Заливка возвращается с запасом, чтобы режимы не чередовались каждый кадр
+            if (frameTimeNanos < frameBudgetNanos / 3) {
+                wireframeOnly = false;
+            }
+            return;
+        }
+        if (frameTimeNanos > frameBudgetNanos && pass.scale <= MIN_SCALE) {
+            wireframeOnly = true;
+            return;
+        }
+        interactiveScale = DynamicResolution.adaptScale(pass.scale, frameTimeNanos, frameBudgetNanos, MIN_SCALE);
+    }
+
+    /**
+     * Пора ли рисовать следующую ступень уточнения: ввода нет дольше idleDelay, а нужная ступень
+     * еще не отдана на отрисовку.
+     */
+    public boolean isRefinementDue(long now) {
+        if (stage == INTERACTIVE) {
+            return now - lastInteraction >= idleDelayNanos;
+        }
+        return stage < COMPLETE && !stageSubmitted;
+    }
+
+    public boolean isInteractive() {
+        return stage == INTERACTIVE;
+    }
+
+    public float getInteractiveScale() {
+        return interactiveScale;
+    }
+
+    /**
+     * Ограничивает масштаб всех следующих проходов, включая полный кадр после остановки камеры.
+     */
+    public void setMaxScale(float maxScale) {
+        this.maxScale = Math.max(MIN_SCALE, Math.min(1, maxScale));
+    }
+
+    public float getMaxScale() {
+        return maxScale;
+    }
+
+    public boolean isWireframeOnly() {
+        return wireframeOnly;
+    }
+}
@@ -0,0 +1,119 @@
+package com.cgvsu.render_engine;
+
+/**
+ * Счетчики заливки за кадр: сколько треугольников и блоков отброшено иерархическим буфером глубины
+ * и сколько фрагментов дошло до теста глубины и прошло его. Потоки копят счетчики у себя
+ * и переносят сюда одним вызовом {@link #add}. Сборка примитивов до заливки переносит свои счетчики
+ * через {@link #addPrimitives}.
+ */
+public class RasterStatistics {
+    private long triangles;
+    private long culledTriangles;
+    private long blocks;
+    private long culledBlocks;
+    private long fragments;
+    private long depthPassed;
+    private long backFaces;
+    private long outsideTriangles;
+    private long clippedTriangles;
+
+    public synchronized void add(long triangles, long culledTriangles, long blocks, long culledBlocks,
+                                 long fragments, long depthPassed) {
+        this.triangles += triangles;
+        this.culledTriangles += culledTriangles;
+        this.blocks += blocks;
+        this.culledBlocks += culledBlocks;
+        this.fragments += fragments;
+        this.depthPassed += depthPassed;
+    }
+
+    public synchronized void addPrimitives(long backFaces, long outsideTriangles, long clippedTriangles) {
+        this.backFaces += backFaces;
+        this.outsideTriangles += outsideTriangles;
+        this.clippedTriangles += clippedTriangles;
+    }
+
+    public synchronized void reset() {
+        triangles = 0;
+        culledTriangles = 0;
+        blocks = 0;
+        culledBlocks = 0;
+        fragments = 0;
+        depthPassed = 0;
+        backFaces = 0;
+        outsideTriangles = 0;
+        clippedTriangles = 0;
+    }
+
+    /**
+     * Треугольники, дошедшие до заливки (части треугольника в разных плитках считаются отдельно).
+     */
+    public synchronized long getTriangles() {
+        return triangles;
+    }
+
+    public synchronized long getCulledTriangles() {
+        return culledTriangles;
+    }
+
+    /**
+     * Блоки 8x8, пересекающие треугольник и проверенные по иерархическому буферу глубины.
+     */
+    public synchronized long getBlocks() {
+        return blocks;
+    }
+
+    public synchronized long getCulledBlocks() {
+        return culledBlocks;
+    }
+
+    /**
+     * Фрагменты внутри треугольников, для которых выполнялся попиксельный тест глубины.
+     */
+    public synchronized long getFragments() {
+        return fragments;
+    }
+
+    /**
+     * Фрагменты, прошедшие тест глубины и записанные в буфер.
+     */
+    public synchronized long getDepthPassed() {
+        return depthPassed;
+    }
+
+    /**
+     * Треугольники, отброшенные как обращенные от камеры.
+     */
+    public synchronized long getBackFaces() {
+        return backFaces;
+    }
+
+    /**
+     * Треугольники, целиком лежащие снаружи одной из плоскостей пирамиды видимости.
+     */
+    public synchronized long getOutsideTriangles() {
+        return outsideTriangles;
+    }
+
+    /**
+     * Треугольники, разрезанные плоскостями отсечения.
+     */
+    public synchronized long getClippedTriangles() {
+        return clippedTriangles;
+    }
+
+    /**
+     * Перерисовка: сколько раз в среднем записан каждый закрашенный пиксель.
+     */
+    public synchronized double getOverdraw(long coveredPixels) {
+        return coveredPixels == 0 ? 0 : depthPassed / (double) coveredPixels;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("back faces %d, outside %d, clipped %d, "
+                        + "triangles %d (Hi-Z culled %d), blocks %d (Hi-Z culled %d), fragments %d, depth passed %d",
+                backFaces, outsideTriangles, clippedTriangles,
+                triangles, culledTriangles, blocks, culledBlocks, fragments, depthPassed);
+    }
+}
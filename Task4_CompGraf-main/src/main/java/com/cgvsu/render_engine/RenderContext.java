@@ -1,27 +1,50 @@
 package com.cgvsu.render_engine;
 
-
-import com.cgvsu.model.Model;
-import com.cgvsu.scene.PolygonIndexData;
+import java.util.Arrays;
 
 public class RenderContext {
 
+    /**
+     * Сторона блока иерархического буфера глубины, совпадает с блоком обхода {@link TriangleRasterizer}.
+     */
+    public static final int DEPTH_BLOCK_SIZE = TriangleRasterizer.BLOCK_SIZE;
+
     private int width;
     private int height;
     private float[] zBuffer;
     private int[] colorBuffer;
-    private final PolygonIndexData[][] polygonZBuffer;
-    private final PolygonIndexData chosenPolygonIndexData;
+    // Идентификаторы полигонов по пикселям, null - пока буфер не включен
+    private PrimitiveIdBuffer idBuffer;
+    // Ближайшая и самая дальняя глубина в каждом блоке DEPTH_BLOCK_SIZE x DEPTH_BLOCK_SIZE.
+    // Глубина за кадр только уменьшается, поэтому устаревший максимум лишь завышен и отсечение остается верным
+    private int blocksX;
+    private float[] blockMinDepth;
+    private float[] blockMaxDepth;
+    private final RasterStatistics statistics = new RasterStatistics();
+    // Снимок, по которому нарисован кадр, и время отрисовки; заполняются при отрисовке по снимку
+    private FrameSnapshot snapshot;
+    private long frameTimeNanos;
+    // Кадр, растянутый до размера холста при динамическом разрешении; действует до следующей очистки
+    private int[] outputBuffer;
+    private int outputWidth;
+    private int outputHeight;
+    private boolean upscaled;
 
-    public RenderContext(int width, int height, float[] zBuffer, int[] colorBuffer,
-                         PolygonIndexData[][] polygonZBuffer, PolygonIndexData chosenPolygonIndex) {
+    public RenderContext(int width, int height, float[] zBuffer, int[] colorBuffer) {
 
         this.width = width;
         this.height = height;
         this.zBuffer = zBuffer;
         this.colorBuffer = colorBuffer;
-        this.polygonZBuffer = polygonZBuffer;
-        this.chosenPolygonIndexData = chosenPolygonIndex;
+        allocateDepthBlocks();
+    }
+
+    /**
+     * Создает контекст с собственными буферами цвета (ARGB) и глубины размером width * height.
+     */
+    public RenderContext(int width, int height) {
+        this(width, height, new float[width * height], new int[width * height]);
+        clear();
     }
 
     public int getWidth() {
@@ -40,6 +63,173 @@ public class RenderContext {
         return colorBuffer;
     }
 
+    /**
+     * Снимок сцены, по которому нарисован последний кадр, или null, если кадр рисовался без снимка.
+     */
+    public FrameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    void setSnapshot(FrameSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public long getFrameTimeNanos() {
+        return frameTimeNanos;
+    }
+
+    void setFrameTimeNanos(long frameTimeNanos) {
+        this.frameTimeNanos = frameTimeNanos;
+    }
+
+    /**
+     * Растягивает нарисованный кадр билинейно до outputWidth x outputHeight; результат доступен
+     * через {@link #getOutputBuffer()} до следующей очистки.
+     */
+    void upscale(int outputWidth, int outputHeight) {
+        if (outputWidth == width && outputHeight == height) {
+            upscaled = false;
+            return;
+        }
+        if (outputBuffer == null || outputBuffer.length != outputWidth * outputHeight) {
+            outputBuffer = new int[outputWidth * outputHeight];
+        }
+        FrameUpscaler.bilinear(colorBuffer, width, height, outputBuffer, outputWidth, outputHeight);
+        this.outputWidth = outputWidth;
+        this.outputHeight = outputHeight;
+        upscaled = true;
+    }
+
+    /**
+     * Буфер цвета для вывода на холст: растянутый кадр или сам буфер цвета, если кадр не растягивался.
+     */
+    public int[] getOutputBuffer() {
+        return upscaled ? outputBuffer : colorBuffer;
+    }
+
+    public int getOutputWidth() {
+        return upscaled ? outputWidth : width;
+    }
+
+    public int getOutputHeight() {
+        return upscaled ? outputHeight : height;
+    }
+
+    /**
+     * Подгоняет буферы под размер холста. Массивы пересоздаются только при изменении размера.
+     */
+    public void resize(int width, int height) {
+        if (this.width == width && this.height == height) {
+            return;
+        }
+        this.width = width;
+        this.height = height;
+        this.zBuffer = new float[width * height];
+        this.colorBuffer = new int[width * height];
+        if (idBuffer != null) {
+            idBuffer.resize(width, height);
+        }
+        allocateDepthBlocks();
+        clear();
+    }
+
+    /**
+     * Очищает кадр: прозрачный цвет, бесконечно дальняя глубина и пустые идентификаторы.
+     * Статистика заливки обнуляется.
+     */
+    public void clear() {
+        Arrays.fill(colorBuffer, 0);
+        Arrays.fill(zBuffer, Float.MAX_VALUE);
+        if (idBuffer != null) {
+            idBuffer.clear();
+        }
+        resetDepthBlocks();
+        statistics.reset();
+        upscaled = false;
+    }
+
+    private void allocateDepthBlocks() {
+        blocksX = (width + DEPTH_BLOCK_SIZE - 1) / DEPTH_BLOCK_SIZE;
+        int blocksY = (height + DEPTH_BLOCK_SIZE - 1) / DEPTH_BLOCK_SIZE;
+        blockMinDepth = new float[blocksX * blocksY];
+        blockMaxDepth = new float[blocksX * blocksY];
+        resetDepthBlocks();
+    }
+
+    private void resetDepthBlocks() {
+        Arrays.fill(blockMinDepth, Float.MAX_VALUE);
+        Arrays.fill(blockMaxDepth, Float.MAX_VALUE);
+    }
+
+    /**
+     * Проверяет по блокам, что в прямоугольнике пикселей [minX, maxX] x [minY, maxY] все сохраненные глубины
+     * не дальше depth, то есть фрагмент с глубиной не ближе depth не пройдет тест ни в одном пикселе.
+     */
+    public boolean isDepthOccluded(int minX, int minY, int maxX, int maxY, float depth) {
+        for (int blockY = minY / DEPTH_BLOCK_SIZE; blockY <= maxY / DEPTH_BLOCK_SIZE; blockY++) {
+            int row = blockY * blocksX;
+            for (int blockX = minX / DEPTH_BLOCK_SIZE; blockX <= maxX / DEPTH_BLOCK_SIZE; blockX++) {
+                if (blockMaxDepth[row + blockX] > depth) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Пересчитывает ближайшую и дальнюю глубину блока, содержащего пиксель (x, y).
+     */
+    public void updateDepthBlock(int x, int y) {
+        int blockX = x / DEPTH_BLOCK_SIZE;
+        int blockY = y / DEPTH_BLOCK_SIZE;
+        int left = blockX * DEPTH_BLOCK_SIZE;
+        int top = blockY * DEPTH_BLOCK_SIZE;
+        int right = Math.min(width, left + DEPTH_BLOCK_SIZE);
+        int bottom = Math.min(height, top + DEPTH_BLOCK_SIZE);
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (int row = top; row < bottom; row++) {
+            for (int index = row * width + left, end = row * width + right; index < end; index++) {
+                float depth = zBuffer[index];
+                min = Math.min(min, depth);
+                max = Math.max(max, depth);
+            }
+        }
+        blockMinDepth[blockY * blocksX + blockX] = min;
+        blockMaxDepth[blockY * blocksX + blockX] = max;
+    }
+
+    /**
+     * Ближайшая сохраненная глубина в блоке пикселя (x, y).
+     */
+    public float getBlockMinDepth(int x, int y) {
+        return blockMinDepth[y / DEPTH_BLOCK_SIZE * blocksX + x / DEPTH_BLOCK_SIZE];
+    }
+
+    /**
+     * Самая дальняя сохраненная глубина в блоке пикселя (x, y).
+     */
+    public float getBlockMaxDepth(int x, int y) {
+        return blockMaxDepth[y / DEPTH_BLOCK_SIZE * blocksX + x / DEPTH_BLOCK_SIZE];
+    }
+
+    public RasterStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Число пикселей, в которые за кадр записан хотя бы один фрагмент.
+     */
+    public long countCoveredPixels() {
+        long covered = 0;
+        for (float depth : zBuffer) {
+            if (depth != Float.MAX_VALUE) {
+                covered++;
+            }
+        }
+        return covered;
+    }
 
     public void updateZBuffer(int x, int y, float z) {
         int index = y * width + x;
@@ -48,6 +238,16 @@ public class RenderContext {
         }
     }
 
+    /**
+     * Тест глубины с записью: возвращает true, если фрагмент ближе сохраненного и глубина обновлена.
+     */
+    public boolean testAndSetDepth(int index, float z) {
+        if (z < zBuffer[index]) {
+            zBuffer[index] = z;
+            return true;
+        }
+        return false;
+    }
 
     public void updateColorBuffer(int x, int y, int color) {
         int index = y * width + x;
@@ -56,20 +256,29 @@ public class RenderContext {
 
     public void setzBuffer(float[] zBuffer) {
         this.zBuffer = zBuffer;
+        resetDepthBlocks();
     }
 
     public void setColorBuffer(int[] colorBuffer) {
         this.colorBuffer = colorBuffer;
     }
 
-    public boolean isChosenAnyPolygon() {
-        return chosenPolygonIndexData != null;
+    /**
+     * Включает или выключает буфер идентификаторов полигонов. Включенный буфер заполняется при заливке
+     * со следующей очистки кадра; выключенный освобождается и ничего не стоит.
+     */
+    public void setIdBufferEnabled(boolean enabled) {
+        if (!enabled) {
+            idBuffer = null;
+        } else if (idBuffer == null) {
+            idBuffer = new PrimitiveIdBuffer(width, height);
+        }
     }
 
-    public PolygonIndexData getChosenPolygonIndexData() {
-        return chosenPolygonIndexData;
-    }
-    public void updatePolygonZBuffer(int x, int y, int polygonIndex, Model model) {
-        polygonZBuffer[y][x] = new PolygonIndexData(polygonIndex, model);
+    /**
+     * Буфер идентификаторов полигонов или null, если он выключен.
+     */
+    public PrimitiveIdBuffer getIdBuffer() {
+        return idBuffer;
     }
 }
@@ -1,9 +1,14 @@
 package com.cgvsu.render_engine;
 
 import com.cgvsu.math.*;
+import com.cgvsu.model.BoundingVolumeHierarchy;
+import com.cgvsu.model.LevelsOfDetail;
 import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
 import com.cgvsu.model.Polygon;
 import com.cgvsu.model.Texture;
+import com.cgvsu.model.TextureCache;
+import com.cgvsu.scene.PolygonIndexData;
 import com.cgvsu.scene.Scene;
 import javafx.scene.paint.Color;
 import javafx.scene.canvas.GraphicsContext;
@@ -11,6 +16,7 @@ import javafx.scene.canvas.GraphicsContext;
 import java.util.*;
 
 import static com.cgvsu.render_engine.GraphicConveyor.*;
+import static com.cgvsu.render_engine.TileRasterizer.NO_TEXTURE;
 
 import javafx.scene.image.*;
 
@@ -19,6 +25,38 @@ public class RenderEngine {
     private static Matrix4f modelViewProjectionMatrix;
     private static Texture texture = null;
 
+    private static final String DEFAULT_TEXTURE_PATH = "/images/123.jpg";
+
+    private static final int WIREFRAME_COLOR = 0xFF000000;
+    private static final int ALL_COLOR = 0xFFFF0000;
+    private static final int COLOR_A = 0xFF008000;
+    private static final int COLOR_B = 0xFF000000;
+    private static final int COLOR_C = 0xFFFFFF00;
+    private static final int HIGHLIGHT_COLOR = 0xFF00A0FF;
+    private static final boolean[] NO_FACES = new boolean[0];
+
+    // Кадровый буфер переиспользуется между кадрами и пересоздается только при изменении размера холста.
+    // Его буфер глубины общий для всех моделей сцены, в том числе в режиме PixelWriter
+    private static RenderContext frameContext;
+    private static WritableImage frameImage;
+    // Рабочие буферы конвейера у каждого потока свои: кадры в разные RenderContext можно рисовать параллельно
+    private static final ThreadLocal<Pipeline> pipelines = ThreadLocal.withInitial(Pipeline::new);
+    // Экранные координаты вершин для режима PixelWriter, он работает только в потоке JavaFX
+    private static final ScreenVertices pixelWriterVertices = new ScreenVertices();
+
+    /**
+     * Состояние конвейера, переиспользуемое между моделями и кадрами одного потока.
+     */
+    private static final class Pipeline {
+        // Экранные координаты вершин текущей модели, считаются один раз за кадр
+        final ScreenVertices screenVertices = new ScreenVertices();
+        final TileRasterizer tileRasterizer = new TileRasterizer();
+        final PrimitiveAssembler primitiveAssembler = new PrimitiveAssembler();
+        final Frustum frustum = new Frustum();
+        // Видимость граней текущей модели после отсечения по ее иерархии ограничивающих объемов
+        boolean[] visibleFaces = new boolean[0];
+    }
+
     public static void render(
             final GraphicsContext graphicsContext,
             final Camera camera,
@@ -27,31 +65,442 @@ public class RenderEngine {
             final int height,
             RenderParameters renderParameters
     ) {
+        modelViewProjectionMatrix = calculateModelViewProjectionMatrix(camera);
+
+        if (scene == null || scene.getModels().isEmpty()) {
+            return;
+        }
+
+        if (renderParameters.isFrameBuffer()) {
+            renderFrameBuffer(graphicsContext, scene, width, height, renderParameters);
+            return;
+        }
+
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        RenderContext depthContext = prepareFrameContext(width, height, renderParameters);
+        for (Model model : scene.getModels()) {
+            renderModel(graphicsContext, depthContext, modelViewProjectionMatrix, model, renderParameters);
+        }
+    }
+
+    /**
+     * Растеризует сцену в int[] ARGB буфер и буфер глубины RenderContext,
+     * после чего выводит готовый кадр на холст одним вызовом drawImage.
+     */
+    private static void renderFrameBuffer(
+            final GraphicsContext graphicsContext,
+            final Scene scene,
+            final int width,
+            final int height,
+            final RenderParameters renderParameters
+    ) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        RenderContext context = prepareFrameContext(width, height, renderParameters);
+        renderModels(context, modelViewProjectionMatrix, FrameSnapshot.captureModels(scene, renderParameters),
+                renderParameters);
+        highlightPolygon(context, scene.getHighlightedPolygon());
+        presentFrame(graphicsContext, context);
+    }
+
+    /**
+     * Контекст последнего кадра, нарисованного на холсте: буфер глубины, буфер идентификаторов полигонов
+     * (если включен) и статистика заливки. До первого кадра возвращает null.
+     */
+    public static RenderContext getFrameContext() {
+        return frameContext;
+    }
+
+    /**
+     * Очищенный кадровый контекст размера width x height. Буферы пересоздаются только при изменении размера.
+     */
+    private static RenderContext prepareFrameContext(int width, int height, RenderParameters renderParameters) {
+        if (frameContext == null) {
+            frameContext = new RenderContext(width, height);
+        } else {
+            frameContext.resize(width, height);
+        }
+        frameContext.setIdBufferEnabled(renderParameters.isIdBuffer());
+        frameContext.clear();
+        return frameContext;
+    }
+
+    /**
+     * Подсвечивает пиксели полигона по буферу идентификаторов. Без буфера или полигона ничего не делает.
+     */
+    private static void highlightPolygon(RenderContext context, PolygonIndexData polygon) {
+        PrimitiveIdBuffer idBuffer = context.getIdBuffer();
+        if (idBuffer == null || polygon == null) {
+            return;
+        }
+        idBuffer.highlight(idBuffer.getId(polygon.getModel(), polygon.getPolygonIndex()),
+                context.getColorBuffer(), HIGHLIGHT_COLOR);
+    }
+
+    /**
+     * Рисует сцену в буферы переданного контекста без вывода на холст - для пакетного рендера и бенчмарков.
+     * Контекст перед кадром очищается.
+     */
+    public static void render(
+            final RenderContext context,
+            final Camera camera,
+            final Scene scene,
+            final RenderParameters renderParameters
+    ) {
+        context.setIdBufferEnabled(renderParameters.isIdBuffer());
+        context.clear();
+        if (scene == null) {
+            return;
+        }
+        renderModels(context, calculateModelViewProjectionMatrix(camera),
+                FrameSnapshot.captureModels(scene, renderParameters), renderParameters);
+    }
+
+    /**
+     * Рисует кадр по снимку сцены в буферы контекста, подогнав их под размер снимка. Модели при этом
+     * не читаются, поэтому вызывать можно из любого потока, пока сцена меняется в потоке JavaFX.
+     */
+    public static void render(final RenderContext context, final FrameSnapshot snapshot) {
+        RenderParameters renderParameters = snapshot.getRenderParameters();
+        context.resize(snapshot.getWidth(), snapshot.getHeight());
+        context.setIdBufferEnabled(renderParameters.isIdBuffer());
+        context.clear();
+        renderModels(context, snapshot.getModelViewProjectionMatrix(), snapshot.getModels(), renderParameters);
+        highlightPolygon(context, snapshot.getHighlightedPolygon());
+        context.setSnapshot(snapshot);
+    }
+
+    private static void renderModels(
+            final RenderContext context,
+            final Matrix4f modelViewProjectionMatrix,
+            final List<FrameSnapshot.ModelSnapshot> models,
+            final RenderParameters renderParameters
+    ) {
+        Pipeline pipeline = pipelines.get();
+        for (FrameSnapshot.ModelSnapshot model : models) {
+            renderModel(pipeline, context, modelViewProjectionMatrix, model, renderParameters);
+        }
+    }
+
+    static Matrix4f calculateModelViewProjectionMatrix(Camera camera) {
         Matrix4f modelMatrix = GraphicConveyor.scaleRotateTranslate(new Vector3f(0, 0, 0), new Vector3f(1, 1, 1), new Vector3f(0, 0, 0));
         Matrix4f viewMatrix = camera.getViewMatrix();
         Matrix4f projectionMatrix = camera.getProjectionMatrix();
 
-        modelViewProjectionMatrix = new Matrix4f(projectionMatrix);
-        modelViewProjectionMatrix.multiply(viewMatrix);
-        modelViewProjectionMatrix.multiply(modelMatrix);
+        Matrix4f matrix = new Matrix4f(projectionMatrix);
+        matrix.multiply(viewMatrix);
+        matrix.multiply(modelMatrix);
+        return matrix;
+    }
 
-        if (scene == null || scene.getModels().isEmpty()) {
+    /**
+     * Выводит кадр на width x height пикселей холста. Кадр, растянутый при отрисовке ({@link FrameUpscaler}),
+     * выводится как есть, иначе его растягивает холст. Вызывается только в потоке JavaFX.
+     */
+    public static void presentFrame(GraphicsContext graphicsContext, RenderContext context,
+                                    double width, double height) {
+        if (context.getOutputWidth() == (int) width && context.getOutputHeight() == (int) height) {
+            presentFrame(graphicsContext, context);
             return;
         }
+        updateFrameImage(context);
+        graphicsContext.drawImage(frameImage, 0, 0, width, height);
+    }
 
-        for (Model model : scene.getModels()) {
-            renderModel(graphicsContext, modelViewProjectionMatrix, model, width, height, renderParameters);
+    /**
+     * Выводит кадр контекста на холст без масштабирования. Вызывается только в потоке JavaFX.
+     */
+    public static void presentFrame(GraphicsContext graphicsContext, RenderContext context) {
+        updateFrameImage(context);
+        graphicsContext.drawImage(frameImage, 0, 0);
+    }
+
+    private static void updateFrameImage(RenderContext context) {
+        int width = context.getOutputWidth();
+        int height = context.getOutputHeight();
+        if (frameImage == null || (int) frameImage.getWidth() != width || (int) frameImage.getHeight() != height) {
+            frameImage = new WritableImage(width, height);
+        }
+        frameImage.getPixelWriter().setPixels(0, 0, width, height,
+                PixelFormat.getIntArgbInstance(), context.getOutputBuffer(), 0, width);
+    }
+
+    private static void renderModel(
+            final Pipeline pipeline,
+            final RenderContext context,
+            final Matrix4f modelViewProjectionMatrix,
+            final FrameSnapshot.ModelSnapshot model,
+            final RenderParameters renderParameters
+    ) {
+        final ScreenVertices screenVertices = pipeline.screenVertices;
+        final TileRasterizer tileRasterizer = pipeline.tileRasterizer;
+        final PrimitiveAssembler primitiveAssembler = pipeline.primitiveAssembler;
+        PackedMesh mesh = model.mesh;
+        BoundingVolumeHierarchy hierarchy = model.getHierarchy();
+        boolean[] visible = cullFaces(pipeline, hierarchy, modelViewProjectionMatrix, mesh.getFaceCount(),
+                renderParameters);
+        if (visible == NO_FACES) {
+            return;
+        }
+        // Вдали модель рисуется упрощенной сеткой; ее треугольники помечаются индексами исходных граней
+        int[] sourceFaces = null;
+        LevelsOfDetail levels = model.levelsOfDetail;
+        if (levels != null) {
+            int level = levels.select(projectedSize(hierarchy, modelViewProjectionMatrix, context.getHeight()));
+            if (level >= 0) {
+                mesh = levels.getMesh(level);
+                sourceFaces = levels.getSourceFaces(level);
+                visible = null;
+            }
+        }
+        final int[] faceOffsets = mesh.getFaceOffsets();
+        final int[] vertexIndices = mesh.getVertexIndices();
+        final int faceCount = mesh.getFaceCount();
+        screenVertices.transform(mesh.getPositions(), modelViewProjectionMatrix, context.getWidth(), context.getHeight());
+
+        for (int face = 0; face < faceCount; face++) {
+            if (visible != null && !visible[face]) {
+                continue;
+            }
+            int start = faceOffsets[face];
+            int end = faceOffsets[face + 1];
+            for (int i = start; i < end; i++) {
+                drawEdge(context, screenVertices, vertexIndices[i], vertexIndices[i + 1 < end ? i + 1 : start]);
+            }
+        }
+
+        if (renderParameters.getEmptyParams()) {
+            return;
+        }
+
+        Texture modelTexture = model.texture;
+        final int[] textureVertexIndices = mesh.getTextureVertexIndices();
+        final int textureVertexCount = mesh.getTextureVertexCount();
+        tileRasterizer.begin(context, screenVertices, mesh.getTextureVertices(), modelTexture,
+                renderParameters.isTileRasterizer(), renderParameters.isHierarchicalDepth());
+        final PrimitiveIdBuffer idBuffer = context.getIdBuffer();
+        final int modelSlot = idBuffer == null ? 0 : idBuffer.registerModel(model.model);
+        primitiveAssembler.begin(screenVertices, tileRasterizer,
+                renderParameters.isBackFaceCulling(), renderParameters.isFrustumClipping());
+
+        for (int face = 0; face < faceCount; face++) {
+            int start = faceOffsets[face];
+            int nVerticesInPolygon = faceOffsets[face + 1] - start;
+            if (nVerticesInPolygon < 3 || visible != null && !visible[face]) {
+                continue;
+            }
+            if (modelSlot != 0) {
+                tileRasterizer.setPrimitiveId(PrimitiveIdBuffer.pack(modelSlot,
+                        sourceFaces == null ? face : sourceFaces[face]));
+            }
+            int v0 = vertexIndices[start];
+            int v1 = vertexIndices[start + 1];
+            int v2 = vertexIndices[start + 2];
+            int v3 = nVerticesInPolygon == 4 ? vertexIndices[start + 3] : v2;
+            if (nVerticesInPolygon == 4 && modelTexture != null
+                    && hasTextureVertices(textureVertexIndices, start, 4, textureVertexCount)) {
+                int uv0 = textureVertexIndices[start];
+                int uv1 = textureVertexIndices[start + 1];
+                int uv2 = textureVertexIndices[start + 2];
+                int uv3 = textureVertexIndices[start + 3];
+                primitiveAssembler.addTriangle(v0, v1, v2, uv0, uv1, uv2, 0, 0, 0);
+                primitiveAssembler.addTriangle(v0, v2, v3, uv0, uv2, uv3, 0, 0, 0);
+            }
+            if (nVerticesInPolygon == 3 && renderParameters.isColorPolygon()) {
+                primitiveAssembler.addTriangle(v0, v1, v2, NO_TEXTURE, NO_TEXTURE, NO_TEXTURE, COLOR_A, COLOR_B, COLOR_C);
+            }
+            if (nVerticesInPolygon == 4 && renderParameters.isAllColorPolygon()) {
+                primitiveAssembler.addTriangle(v0, v1, v2, NO_TEXTURE, NO_TEXTURE, NO_TEXTURE, ALL_COLOR, ALL_COLOR, ALL_COLOR);
+                primitiveAssembler.addTriangle(v0, v2, v3, NO_TEXTURE, NO_TEXTURE, NO_TEXTURE, ALL_COLOR, ALL_COLOR, ALL_COLOR);
+            }
+        }
+        tileRasterizer.flush();
+        primitiveAssembler.finish(context);
+    }
+
+    /**
+     * Видимость граней модели по ее иерархии ограничивающих объемов: {@link #NO_FACES}, если модель целиком
+     * вне пирамиды видимости, null, если целиком внутри или отсечение выключено, иначе флаги граней.
+     */
+    private static boolean[] cullFaces(Pipeline pipeline, BoundingVolumeHierarchy hierarchy,
+                                       Matrix4f modelViewProjectionMatrix, int faceCount,
+                                       RenderParameters renderParameters) {
+        if (!renderParameters.isFrustumCulling()) {
+            return null;
+        }
+        if (pipeline.visibleFaces.length < faceCount) {
+            pipeline.visibleFaces = new boolean[faceCount];
+        }
+        pipeline.frustum.set(modelViewProjectionMatrix);
+        return switch (hierarchy.cullFrustum(pipeline.frustum, pipeline.visibleFaces)) {
+            case Frustum.OUTSIDE -> NO_FACES;
+            case Frustum.INSIDE -> null;
+            default -> pipeline.visibleFaces;
+        };
+    }
+
+    /**
+     * Размер проекции модели в пикселях по высоте кадра: диаметр описанной вокруг ее границ сферы,
+     * деленный на глубину центра. Если камера внутри сферы, размер бесконечен.
+     */
+    private static float projectedSize(BoundingVolumeHierarchy hierarchy, Matrix4f modelViewProjectionMatrix,
+                                       int height) {
+        float centerX = (hierarchy.getMin(0) + hierarchy.getMax(0)) * 0.5f;
+        float centerY = (hierarchy.getMin(1) + hierarchy.getMax(1)) * 0.5f;
+        float centerZ = (hierarchy.getMin(2) + hierarchy.getMax(2)) * 0.5f;
+        float sizeX = hierarchy.getMax(0) - hierarchy.getMin(0);
+        float sizeY = hierarchy.getMax(1) - hierarchy.getMin(1);
+        float sizeZ = hierarchy.getMax(2) - hierarchy.getMin(2);
+        float radius = (float) Math.sqrt(sizeX * sizeX + sizeY * sizeY + sizeZ * sizeZ) * 0.5f;
+        // w центра в пространстве отсечения - его глубина; масштаб по y - длина второй строки матрицы
+        float w = modelViewProjectionMatrix.getElement(3, 0) * centerX
+                + modelViewProjectionMatrix.getElement(3, 1) * centerY
+                + modelViewProjectionMatrix.getElement(3, 2) * centerZ
+                + modelViewProjectionMatrix.getElement(3, 3);
+        if (w <= radius) {
+            return Float.POSITIVE_INFINITY;
+        }
+        float scaleX = modelViewProjectionMatrix.getElement(1, 0);
+        float scaleY = modelViewProjectionMatrix.getElement(1, 1);
+        float scaleZ = modelViewProjectionMatrix.getElement(1, 2);
+        float scale = (float) Math.sqrt(scaleX * scaleX + scaleY * scaleY + scaleZ * scaleZ);
+        return radius * scale / w * height;
+    }
+
+    /**
+     * Рисует ребро a - b каркаса. Ребро снаружи пирамиды видимости пропускается, а конец за ближней плоскостью
+     * переносится на нее в однородных координатах, иначе его проекция уходит на другую сторону экрана.
+     */
+    private static void drawEdge(RenderContext context, ScreenVertices screenVertices, int a, int b) {
+        final int[] outcodes = screenVertices.getOutcodes();
+        if ((outcodes[a] & outcodes[b]) != 0) {
+            return;
+        }
+        if (((outcodes[a] | outcodes[b]) & ScreenVertices.OUTSIDE_NEAR) != 0) {
+            if ((outcodes[a] & ScreenVertices.OUTSIDE_NEAR) != 0) {
+                a = clipToNearPlane(screenVertices, a, b);
+            } else {
+                b = clipToNearPlane(screenVertices, b, a);
+            }
+        }
+        final float[] screenX = screenVertices.getX();
+        final float[] screenY = screenVertices.getY();
+        drawLine(context, screenX[a], screenY[a], screenX[b], screenY[b], WIREFRAME_COLOR);
+    }
+
+    /**
+     * Точка пересечения ребра outside - inside с ближней плоскостью, добавленная в screenVertices.
+     */
+    private static int clipToNearPlane(ScreenVertices screenVertices, int outside, int inside) {
+        final float[] x = screenVertices.getClipX();
+        final float[] y = screenVertices.getClipY();
+        final float[] z = screenVertices.getClipZ();
+        final float[] w = screenVertices.getClipW();
+        float outsideDistance = w[outside] + z[outside];
+        float insideDistance = w[inside] + z[inside];
+        float t = outsideDistance / (outsideDistance - insideDistance);
+        return screenVertices.appendVertex(
+                x[outside] + t * (x[inside] - x[outside]),
+                y[outside] + t * (y[inside] - y[outside]),
+                z[outside] + t * (z[inside] - z[outside]),
+                w[outside] + t * (w[inside] - w[outside]));
+    }
+
+    private static boolean hasTextureVertices(int[] textureVertexIndices, int start, int count, int textureVertexCount) {
+        for (int i = start; i < start + count; i++) {
+            int index = textureVertexIndices[i];
+            if (index < 0 || index >= textureVertexCount) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Текстура модели, а если она не загружена - текстура по умолчанию из кэша.
+     */
+    static Texture resolveTexture(Model model) {
+        Texture modelTexture = model.getTexture();
+        return modelTexture != null ? modelTexture : TextureCache.get(DEFAULT_TEXTURE_PATH);
+    }
+
+    /**
+     * Рисует отрезок в буфер кадра без теста глубины. Отрезок предварительно обрезается
+     * по границам кадра (Лианг-Барски), чтобы далекие точки не порождали длинных циклов.
+     */
+    private static void drawLine(RenderContext context, float x0, float y0, float x1, float y1, int color) {
+        final float maxX = context.getWidth() - 1;
+        final float maxY = context.getHeight() - 1;
+        float dx = x1 - x0;
+        float dy = y1 - y0;
+        if (Float.isNaN(dx) || Float.isNaN(dy) || Float.isInfinite(dx) || Float.isInfinite(dy)) {
+            return;
+        }
+
+        // Параметрическое отсечение по четырем границам кадра: x >= 0, x <= maxX, y >= 0, y <= maxY
+        float t0 = 0;
+        float t1 = 1;
+        for (int edge = 0; edge < 4; edge++) {
+            float p;
+            float q;
+            switch (edge) {
+                case 0 -> { p = -dx; q = x0; }
+                case 1 -> { p = dx; q = maxX - x0; }
+                case 2 -> { p = -dy; q = y0; }
+                default -> { p = dy; q = maxY - y0; }
+            }
+            if (p == 0) {
+                if (q < 0) {
+                    return;
+                }
+                continue;
+            }
+            float t = q / p;
+            if (p < 0) {
+                t0 = Math.max(t0, t);
+            } else {
+                t1 = Math.min(t1, t);
+            }
+            if (t0 > t1) {
+                return;
+            }
+        }
+
+        float startX = x0 + t0 * dx;
+        float startY = y0 + t0 * dy;
+        float endX = x0 + t1 * dx;
+        float endY = y0 + t1 * dy;
+
+        int steps = (int) Math.ceil(Math.max(Math.abs(endX - startX), Math.abs(endY - startY)));
+        int width = context.getWidth();
+        int[] colorBuffer = context.getColorBuffer();
+        if (steps == 0) {
+            colorBuffer[Math.round(startY) * width + Math.round(startX)] = color;
+            return;
+        }
+        float stepX = (endX - startX) / steps;
+        float stepY = (endY - startY) / steps;
+        float x = startX;
+        float y = startY;
+        for (int i = 0; i <= steps; i++) {
+            colorBuffer[Math.round(y) * width + Math.round(x)] = color;
+            x += stepX;
+            y += stepY;
         }
     }
 
     private static void renderModel(
             final GraphicsContext graphicsContext,
+            final RenderContext depthContext,
             final Matrix4f modelViewProjectionMatrix,
             final Model model,
-            final int width,
-            final int height,
             RenderParameters renderParameters
     ) {
+        final int width = depthContext.getWidth();
+        final int height = depthContext.getHeight();
         if (model != null) {
             texture = model.getTexture();
         }
@@ -62,22 +511,16 @@ public class RenderEngine {
             return;
         }
 
+        pixelWriterVertices.transform(model.getMesh().getPositions(), modelViewProjectionMatrix, width, height);
         final int nPolygons = model.getPolygons().size();
 
         for (int polygonInd = 0; polygonInd < nPolygons; ++polygonInd) {
-            final int nVerticesInPolygon = model.getPolygons().get(polygonInd).getVertexIndices().size();
+            final ArrayList<Integer> vertexIndices = model.getPolygons().get(polygonInd).getVertexIndices();
+            final int nVerticesInPolygon = vertexIndices.size();
 
             ArrayList<Point2f> screenPoints = new ArrayList<>();
-            ArrayList<Float> zValues = new ArrayList<>();
             for (int vertexInPolygonInd = 0; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
-                Vector3f vertex = model.getVertices().get(model.getPolygons().get(polygonInd).getVertexIndices().get(vertexInPolygonInd));
-
-                Vector3f vertexVecmath = new Vector3f(vertex.getX(), vertex.getY(), vertex.getZ());
-
-                Vector3f transformedVertex = multiplyMatrix4ByVector3(modelViewProjectionMatrix, vertexVecmath);
-                Point2f screenPoint = vertexToPoint(transformedVertex, width, height);
-                screenPoints.add(screenPoint);
-                zValues.add(transformedVertex.getZ());
+                screenPoints.add(screenPoint(vertexIndices.get(vertexInPolygonInd)));
             }
 
             for (int vertexInPolygonInd = 1; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
@@ -98,289 +541,130 @@ public class RenderEngine {
         }
 
         if (!renderParameters.getEmptyParams()) {
-            if (renderParameters.isTexturePolygon()) {
-                renderPolygonTexture(graphicsContext, model, width, height);
+            PixelWriterShader shader = new PixelWriterShader(graphicsContext.getPixelWriter(), depthContext,
+                    renderParameters.isHierarchicalDepth());
+            if (renderParameters.isTexturePolygon() && resolveTexture(model) != null) {
+                renderPolygonTexture(shader, model);
             }
             if (renderParameters.isColorPolygon()) {
-                renderPolygonColor(graphicsContext, model, width, height);
+                renderPolygonColor(shader, model);
             }
             if (renderParameters.isAllColorPolygon()) {
-                renderPolygonAllColor(graphicsContext, model, width, height);
+                renderPolygonAllColor(shader, model);
             }
+            shader.flushStatistics();
         }
     }
 
-    private static void renderPolygonAllColor(
-            GraphicsContext graphicsContext,
-            Model mesh,
-            int width,
-            int height) {
-        float[][] zBuffer = initializeZBuffer(width, height);
-
+    private static void renderPolygonAllColor(PixelWriterShader shader, Model mesh) {
         for (Polygon polygon : mesh.getPolygons()) {
-            if (polygon.getVertexIndices().size() == 4) {
-                Point2f[] screenPoints = new Point2f[polygon.getVertexIndices().size()];
-                float[] zValues = new float[polygon.getVertexIndices().size()];
-
-                for (int i = 0; i < polygon.getVertexIndices().size(); i++) {
-                    Vector3f transformedVertex = transformVertex(mesh, polygon, i, modelViewProjectionMatrix);
-                    screenPoints[i] = vertexToPoint(transformedVertex, width, height);
-                    zValues[i] = transformedVertex.getZ();
-                }
-                rasterizeTriangle(screenPoints, zValues, zBuffer, graphicsContext);
+            ArrayList<Integer> vertexIndices = polygon.getVertexIndices();
+            if (vertexIndices.size() == 4) {
+                shader.setColors(ALL_COLOR, ALL_COLOR, ALL_COLOR);
+                rasterizeQuad(shader, vertexIndices.get(0), vertexIndices.get(1), vertexIndices.get(2), vertexIndices.get(3));
             }
         }
     }
 
-    private static void renderPolygonColor(
-            GraphicsContext graphicsContext,
-            Model mesh,
-            int width,
-            int height
-    ) {
-        float[][] zBuffer = initializeZBuffer(width, height);
-
+    private static void renderPolygonColor(PixelWriterShader shader, Model mesh) {
         for (Polygon polygon : mesh.getPolygons()) {
-            if (polygon.getVertexIndices().size() == 3) {
-                Point2f[] screenPoints = new Point2f[polygon.getVertexIndices().size()];
-                float[] zValues = new float[polygon.getVertexIndices().size()];
-
-                for (int i = 0; i < polygon.getVertexIndices().size(); i++) {
-                    Vector3f transformedVertex = transformVertex(mesh, polygon, i, modelViewProjectionMatrix);
-                    screenPoints[i] = vertexToPoint(transformedVertex, width, height);
-                    zValues[i] = transformedVertex.getZ();
-                }
-                rasterizeTriangleColor(screenPoints, zValues, zBuffer, graphicsContext);
+            ArrayList<Integer> vertexIndices = polygon.getVertexIndices();
+            if (vertexIndices.size() == 3) {
+                shader.setColors(COLOR_A, COLOR_B, COLOR_C);
+                rasterizeTriangle(shader, vertexIndices.get(0), vertexIndices.get(1), vertexIndices.get(2));
             }
         }
     }
 
-    private static void renderPolygonTexture(
-            GraphicsContext graphicsContext,
-            Model mesh,
-            int width,
-            int height
-    ) {
-        float[][] zBuffer = initializeZBuffer(width, height);
+    private static void renderPolygonTexture(PixelWriterShader shader, Model mesh) {
+        shader.setTexture(resolveTexture(mesh));
 
         for (Polygon polygon : mesh.getPolygons()) {
-            if (polygon.getVertexIndices().size() == 4) {
-                Point2f[] screenPoints = new Point2f[polygon.getVertexIndices().size()];
-                float[] zValues = new float[polygon.getVertexIndices().size()];
-
+            ArrayList<Integer> vertexIndices = polygon.getVertexIndices();
+            if (vertexIndices.size() == 4) {
                 ArrayList<Vector2f> texCoords = polygon.getTextureCoordinates();
-
-                for (int i = 0; i < polygon.getVertexIndices().size(); i++) {
-                    Vector3f transformedVertex = transformVertex(mesh, polygon, i, modelViewProjectionMatrix);
-                    float u = texCoords.get(i).getX();
-                    float v = texCoords.get(i).getY();
-
-                    screenPoints[i] = vertexToPoint1(transformedVertex, width, height, u, v);
-                    zValues[i] = transformedVertex.getZ();
-                }
-                rasterizeTexture(screenPoints, zValues, zBuffer, graphicsContext, mesh);
+                shader.setTextureCoordinates(texCoords.get(0), texCoords.get(1), texCoords.get(2));
+                rasterizeTriangle(shader, vertexIndices.get(0), vertexIndices.get(1), vertexIndices.get(2));
+                shader.setTextureCoordinates(texCoords.get(0), texCoords.get(2), texCoords.get(3));
+                rasterizeTriangle(shader, vertexIndices.get(0), vertexIndices.get(2), vertexIndices.get(3));
             }
         }
+        shader.setTexture(null);
     }
 
-    private static void rasterizeTexture(Point2f[] points, float[] zValues, float[][] zBuffer, GraphicsContext graphicsContext, Model model) {
-        Image texture = new Image(Objects.requireNonNull(RenderEngine.class.getResourceAsStream("/images/123.jpg")));
-
-        int minX = (int) Math.max(0, Math.floor(Math.min(
-                points[0].getX(),
-                Math.min(points[1].getX(), Math.min(points[2].getX(), points[3].getX()))
-        )));
-        int maxX = (int) Math.min(zBuffer.length - 1, Math.ceil(Math.max(
-                points[0].getX(),
-                Math.max(points[1].getX(), Math.max(points[2].getX(), points[3].getX()))
-        )));
-        int minY = (int) Math.max(0, Math.floor(Math.min(
-                points[0].getY(),
-                Math.min(points[1].getY(), Math.min(points[2].getY(), points[3].getY()))
-        )));
-        int maxY = (int) Math.min(zBuffer[0].length - 1, Math.ceil(Math.max(
-                points[0].getY(),
-                Math.max(points[1].getY(), Math.max(points[2].getY(), points[3].getY()))
-        )));
-
-        for (int x = minX; x <= maxX; x++) {
-            for (int y = minY; y <= maxY; y++) {
-                float[] barycentricCoords1 = calculateBarycentricCoordinates(new Point2f[]{points[0], points[1], points[2]}, x, y);
-                float[] barycentricCoords2 = calculateBarycentricCoordinates(new Point2f[]{points[0], points[2], points[3]}, x, y);
-
-                boolean insideTriangle1 = isPointInside(barycentricCoords1[0], barycentricCoords1[1], barycentricCoords1[2]);
-                boolean insideTriangle2 = isPointInside(barycentricCoords2[0], barycentricCoords2[1], barycentricCoords2[2]);
-
-                if (insideTriangle1 || insideTriangle2) {
-                    float depth = insideTriangle1 ? interpolateDepth1(barycentricCoords1, zValues) : interpolateDepth1(barycentricCoords2, zValues);
-
-                    if (depth < zBuffer[x][y]) {
-                        zBuffer[x][y] = depth;
-
-                        float u, v;
-                        if (insideTriangle1) {
-                            u = barycentricCoords1[0] * points[0].getU() +
-                                    barycentricCoords1[1] * points[1].getU() +
-                                    barycentricCoords1[2] * points[2].getU();
-                            v = barycentricCoords1[0] * points[0].getV() +
-                                    barycentricCoords1[1] * points[1].getV() +
-                                    barycentricCoords1[2] * points[2].getV();
-                        } else {
-                            u = barycentricCoords2[0] * points[0].getU() +
-                                    barycentricCoords2[1] * points[2].getU() +
-                                    barycentricCoords2[2] * points[3].getU();
-                            v = barycentricCoords2[0] * points[0].getV() +
-                                    barycentricCoords2[1] * points[2].getV() +
-                                    barycentricCoords2[2] * points[3].getV();
-                        }
-
-                        Color textureColor = getColor1(texture, u, v);
-                        graphicsContext.getPixelWriter().setColor(x, y, textureColor);
-                    }
-                }
-            }
-        }
+    /**
+     * Четырехугольник как два треугольника с общей диагональю a - c. Правило верхнего-левого ребра
+     * не дает закрасить пиксели диагонали дважды.
+     */
+    private static void rasterizeQuad(PixelWriterShader shader, int a, int b, int c, int d) {
+        rasterizeTriangle(shader, a, b, c);
+        rasterizeTriangle(shader, a, c, d);
     }
 
-    public static Color getColor1(Image texture, float u, float v) {
-        u = clamp1(u, 0.0f, 1.0f);
-        v = clamp1(v, 0.0f, 1.0f);
-
-        int x = (int) Math.min((int) (u * (texture.getWidth() - 1)), texture.getWidth() - 1);
-        int y = (int) Math.min((int) ((1 - v) * (texture.getHeight() - 1)), texture.getHeight() - 1);
-
-        PixelReader pixelReader = texture.getPixelReader();
-        return pixelReader.getColor(x, y);
+    private static void rasterizeTriangle(PixelWriterShader shader, int a, int b, int c) {
+        final float[] screenX = pixelWriterVertices.getX();
+        final float[] screenY = pixelWriterVertices.getY();
+        final float[] screenZ = pixelWriterVertices.getZ();
+        shader.setDepths(screenZ[a], screenZ[b], screenZ[c]);
+        TriangleRasterizer.rasterize(screenX[a], screenY[a], screenX[b], screenY[b], screenX[c], screenY[c],
+                shader.context.getWidth(), shader.context.getHeight(), shader);
     }
 
-    private static float clamp1(float value, float min, float max) {
-        return Math.max(min, Math.min(max, value));
-    }
-
-    private static void rasterizeTriangle(Point2f[] points, float[] zValues, float[][] zBuffer, GraphicsContext graphicsContext) {
-        Color colorA = Color.RED;
-        int minX = (int) Math.max(0, Math.floor(Math.min(
-                points[0].getX(),
-                Math.min(points[1].getX(), Math.min(points[2].getX(), points[3].getX()))
-        )));
-        int maxX = (int) Math.min(zBuffer.length - 1, Math.ceil(Math.max(
-                points[0].getX(),
-                Math.max(points[1].getX(), Math.max(points[2].getX(), points[3].getX()))
-        )));
-        int minY = (int) Math.max(0, Math.floor(Math.min(
-                points[0].getY(),
-                Math.min(points[1].getY(), Math.min(points[2].getY(), points[3].getY()))
-        )));
-        int maxY = (int) Math.min(zBuffer[0].length - 1, Math.ceil(Math.max(
-                points[0].getY(),
-                Math.max(points[1].getY(), Math.max(points[2].getY(), points[3].getY()))
-        )));
-
-        for (int x = minX; x <= maxX; x++) {
-            for (int y = minY; y <= maxY; y++) {
-                float[] barycentricCoords1 = calculateBarycentricCoordinates(new Point2f[]{points[0], points[1], points[2]}, x, y);
-                float[] barycentricCoords2 = calculateBarycentricCoordinates(new Point2f[]{points[0], points[2], points[3]}, x, y);
-
-                boolean insideTriangle1 = isPointInside(barycentricCoords1[0], barycentricCoords1[1], barycentricCoords1[2]);
-                boolean insideTriangle2 = isPointInside(barycentricCoords2[0], barycentricCoords2[1], barycentricCoords2[2]);
-
-                if (insideTriangle1 || insideTriangle2) {
-                    float depth = interpolateDepth1(barycentricCoords1, zValues);
-
-                    if (depth < zBuffer[x][y]) {
-                        zBuffer[x][y] = depth;
-                        graphicsContext.getPixelWriter().setColor(x, y, colorA);
-                    }
-                }
-            }
+    /**
+     * Заливка старого режима: тест глубины по общему буферу кадра и запись пикселей через PixelWriter.
+     * Цвета и текстурные координаты задаются перед каждым треугольником, на пиксель ничего не выделяется.
+     */
+    private static final class PixelWriterShader extends DepthTestShader {
+        private final PixelWriter pixelWriter;
+        private int colorA, colorB, colorC;
+        private Texture texture;
+        private float uA, vA, uB, vB, uC, vC;
+
+        PixelWriterShader(PixelWriter pixelWriter, RenderContext depthContext, boolean hierarchicalDepth) {
+            super(depthContext, hierarchicalDepth);
+            this.pixelWriter = pixelWriter;
         }
-    }
 
-    private static void rasterizeTriangleColor(Point2f[] points, float[] zValues, float[][] zBuffer, GraphicsContext graphicsContext) {
-        Color colorA = Color.GREEN;
-        Color colorB = Color.BLACK;
-        Color colorC = Color.YELLOW;
-
-        int minX = (int) Math.max(0, Math.floor(Math.min(points[0].getX(), Math.min(points[1].getX(), points[2].getX()))));
-        int maxX = (int) Math.min(zBuffer.length - 1, Math.ceil(Math.max(points[0].getX(), Math.max(points[1].getX(), points[2].getX()))));
-        int minY = (int) Math.max(0, Math.floor(Math.min(points[0].getY(), Math.min(points[1].getY(), points[2].getY()))));
-        int maxY = (int) Math.min(zBuffer[0].length - 1, Math.ceil(Math.max(points[0].getY(), Math.max(points[1].getY(), points[2].getY()))));
-
-        for (int x = minX; x <= maxX; x++) {
-            for (int y = minY; y <= maxY; y++) {
-                float[] barycentricCoords = calculateBarycentricCoordinates(points, x, y);
-                float lambda0 = barycentricCoords[0];
-                float lambda1 = barycentricCoords[1];
-                float lambda2 = barycentricCoords[2];
-
-                if (isPointInsideTriangle(lambda0, lambda1, lambda2)) {
-                    float depth = interpolateDepth(lambda0, lambda1, lambda2, zValues);
-
-                    if (depth < zBuffer[x][y]) {
-                        zBuffer[x][y] = depth;
-                        Color color = interpolateColor(lambda0, lambda1, lambda2, colorA, colorB, colorC);
-                        graphicsContext.getPixelWriter().setColor(x, y, color);
-                    }
-                }
-            }
+        void setColors(int colorA, int colorB, int colorC) {
+            this.colorA = colorA;
+            this.colorB = colorB;
+            this.colorC = colorC;
         }
-    }
 
-    private static double clamp(double value) {
-        return Math.max(0.0, Math.min(1.0, value));
-    }
-
-    private static Color interpolateColor(float lambda0, float lambda1, float lambda2, Color colorA, Color colorB, Color colorC) {
-        double red = lambda0 * colorA.getRed() + lambda1 * colorB.getRed() + lambda2 * colorC.getRed();
-        double green = lambda0 * colorA.getGreen() + lambda1 * colorB.getGreen() + lambda2 * colorC.getGreen();
-        double blue = lambda0 * colorA.getBlue() + lambda1 * colorB.getBlue() + lambda2 * colorC.getBlue();
-        return new Color(clamp(red), clamp(green), clamp(blue), 1.0);
-    }
-
-    private static boolean isPointInsideTriangle(float lambda0, float lambda1, float lambda2) {
-        return lambda0 >= 0 && lambda1 >= 0 && lambda2 >= 0;
-    }
-
-    private static boolean isPointInside(float lambda0, float lambda1, float lambda2) {
-        return lambda0 >= 0 && lambda1 >= 0 && lambda2 >= 0;
-    }
-
-    private static float interpolateDepth(float lambda0, float lambda1, float lambda2, float[] zValues) {
-        return lambda0 * zValues[0] + lambda1 * zValues[1] + lambda2 * zValues[2];
-    }
-
-    private static float interpolateDepth1(float[] barycentricCoords, float[] zValues) {
-        return barycentricCoords[0] * zValues[0] + barycentricCoords[1] * zValues[1] + barycentricCoords[2] * zValues[2];
-    }
-
-    private static float[] calculateBarycentricCoordinates(Point2f[] points, int x, int y) {
-        float denominator = ((points[1].getY() - points[2].getY()) * (points[0].getX() - points[2].getX()) +
-                (points[2].getX() - points[1].getX()) * (points[0].getY() - points[2].getY()));
-
-        float lambda0 = ((points[1].getY() - points[2].getY()) * (x - points[2].getX()) +
-                (points[2].getX() - points[1].getX()) * (y - points[2].getY())) / denominator;
-
-        float lambda1 = ((points[2].getY() - points[0].getY()) * (x - points[2].getX()) +
-                (points[0].getX() - points[2].getX()) * (y - points[2].getY())) / denominator;
-
-        float lambda2 = 1.0f - lambda0 - lambda1;
-
-        return new float[]{lambda0, lambda1, lambda2};
-    }
+        void setTexture(Texture texture) {
+            this.texture = texture;
+        }
 
-    private static Vector3f transformVertex(Model mesh, Polygon polygon, int vertexIndex, Matrix4f transformationMatrix) {
-        Vector3f vertex = mesh.getVertices().get(polygon.getVertexIndices().get(vertexIndex));
-        Vector3f vertexVecmath = new Vector3f(vertex.getX(), vertex.getY(), vertex.getZ());
-        return multiplyMatrix4ByVector3(transformationMatrix, vertexVecmath);
-    }
+        void setTextureCoordinates(Vector2f a, Vector2f b, Vector2f c) {
+            uA = a.getX();
+            vA = a.getY();
+            uB = b.getX();
+            vB = b.getY();
+            uC = c.getX();
+            vC = c.getY();
+        }
 
-    private static float[][] initializeZBuffer(int width, int height) {
-        float[][] zBuffer = new float[width][height];
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                zBuffer[x][y] = Float.MAX_VALUE;
+        @Override
+        public void shade(int x, int y, float lambda0, float lambda1, float lambda2) {
+            if (!testDepth(x, y, lambda0, lambda1, lambda2)) {
+                return;
+            }
+            if (texture != null) {
+                float u = lambda0 * uA + lambda1 * uB + lambda2 * uC;
+                float v = lambda0 * vA + lambda1 * vB + lambda2 * vC;
+                pixelWriter.setArgb(x, y, texture.getArgb(u, v));
+            } else if (colorA == colorB && colorB == colorC) {
+                pixelWriter.setArgb(x, y, colorA);
+            } else {
+                pixelWriter.setArgb(x, y, TriangleRasterizer.interpolateArgb(lambda0, lambda1, lambda2, colorA, colorB, colorC));
             }
         }
-        return zBuffer;
+    }
+
+    /**
+     * Экранная точка вершины из координат, посчитанных в начале кадра.
+     */
+    private static Point2f screenPoint(int vertexIndex) {
+        return new Point2f(pixelWriterVertices.getX()[vertexIndex], pixelWriterVertices.getY()[vertexIndex]);
     }
 }
@@ -10,6 +10,26 @@ public class RenderParameters {
     private boolean enableTrianglePolygon = false;
     private boolean enableTexturePolygon = false;
     private boolean enablePolygonalGrid = false;
+    private boolean enableFrameBuffer = true;
+    // Заливка буфера кадра по плиткам в нескольких потоках, действует только вместе с enableFrameBuffer.
+    // На одном ядре раскладка по плиткам не окупается, поэтому по умолчанию включена только на многоядерных машинах
+    private boolean enableTileRasterizer = Runtime.getRuntime().availableProcessors() > 1;
+    // Отсечение закрытых треугольников и блоков 8x8 по границам глубины блоков до попиксельного теста
+    private boolean enableHierarchicalDepth = true;
+    // Отбрасывание треугольников, обращенных от камеры, перед заливкой буфера кадра
+    private boolean enableBackFaceCulling = true;
+    // Отсечение всеми шестью плоскостями пирамиды видимости; ближней плоскостью треугольники отсекаются всегда
+    private boolean enableFrustumClipping = false;
+    // Пропуск моделей и групп граней вне пирамиды видимости по иерархии ограничивающих объемов модели
+    private boolean enableFrustumCulling = true;
+    // Запись идентификаторов полигонов по пикселям для подсветки и выбора под курсором
+    private boolean enableIdBuffer = false;
+    // Отрисовка далеких моделей упрощенными сетками из Model.getLevelsOfDetail()
+    private boolean enableLevelOfDetail = true;
+    // Отрисовка буфера кадра в отдельном потоке, холст показывает последний готовый кадр
+    private boolean enableBackgroundRendering = true;
+    // Разрешение кадра подбирается под целевое время кадра, кадр растягивается на холст; только в фоновом потоке
+    private boolean enableDynamicResolution = true;
 
     private Color polygonalGridColor = Color.BLACK;
     private Color defaultFillColor = Color.LIGHTGREY;
@@ -17,6 +37,30 @@ public class RenderParameters {
 
     public RenderParameters() {}
 
+    /**
+     * Копия параметров, например для кадра, который рисуется в другом потоке.
+     */
+    public RenderParameters(RenderParameters other) {
+        this.enableColorPolygon = other.enableColorPolygon;
+        this.enableAllColorPolygon = other.enableAllColorPolygon;
+        this.enableTrianglePolygon = other.enableTrianglePolygon;
+        this.enableTexturePolygon = other.enableTexturePolygon;
+        this.enablePolygonalGrid = other.enablePolygonalGrid;
+        this.enableFrameBuffer = other.enableFrameBuffer;
+        this.enableTileRasterizer = other.enableTileRasterizer;
+        this.enableHierarchicalDepth = other.enableHierarchicalDepth;
+        this.enableBackFaceCulling = other.enableBackFaceCulling;
+        this.enableFrustumClipping = other.enableFrustumClipping;
+        this.enableFrustumCulling = other.enableFrustumCulling;
+        this.enableIdBuffer = other.enableIdBuffer;
+        this.enableLevelOfDetail = other.enableLevelOfDetail;
+        this.enableBackgroundRendering = other.enableBackgroundRendering;
+        this.enableDynamicResolution = other.enableDynamicResolution;
+        this.polygonalGridColor = other.polygonalGridColor;
+        this.defaultFillColor = other.defaultFillColor;
+        this.lightingCoefficient = other.lightingCoefficient;
+    }
+
     public boolean getEmptyParams() {
         if (!this.enableTrianglePolygon &&
                 !this.enableColorPolygon &&
@@ -68,6 +112,86 @@ public class RenderParameters {
     public boolean isTrianglePolygon() {
         return enableTrianglePolygon;
     }
+    public boolean isFrameBuffer() {
+        return enableFrameBuffer;
+    }
+
+    public void setFrameBuffer(boolean enableFrameBuffer) {
+        this.enableFrameBuffer = enableFrameBuffer;
+    }
+
+    public boolean isTileRasterizer() {
+        return enableTileRasterizer;
+    }
+
+    public void setTileRasterizer(boolean enableTileRasterizer) {
+        this.enableTileRasterizer = enableTileRasterizer;
+    }
+
+    public boolean isHierarchicalDepth() {
+        return enableHierarchicalDepth;
+    }
+
+    public void setHierarchicalDepth(boolean enableHierarchicalDepth) {
+        this.enableHierarchicalDepth = enableHierarchicalDepth;
+    }
+
+    public boolean isBackFaceCulling() {
+        return enableBackFaceCulling;
+    }
+
+    public void setBackFaceCulling(boolean enableBackFaceCulling) {
+        this.enableBackFaceCulling = enableBackFaceCulling;
+    }
+
+    public boolean isFrustumClipping() {
+        return enableFrustumClipping;
+    }
+
+    public void setFrustumClipping(boolean enableFrustumClipping) {
+        this.enableFrustumClipping = enableFrustumClipping;
+    }
+
+    public boolean isFrustumCulling() {
+        return enableFrustumCulling;
+    }
+
+    public void setFrustumCulling(boolean enableFrustumCulling) {
+        this.enableFrustumCulling = enableFrustumCulling;
+    }
+
+    public boolean isIdBuffer() {
+        return enableIdBuffer;
+    }
+
+    public void setIdBuffer(boolean enableIdBuffer) {
+        this.enableIdBuffer = enableIdBuffer;
+    }
+
+    public boolean isLevelOfDetail() {
+        return enableLevelOfDetail;
+    }
+
+    public void setLevelOfDetail(boolean enableLevelOfDetail) {
+        this.enableLevelOfDetail = enableLevelOfDetail;
+    }
+
+    public boolean isBackgroundRendering() {
+        return enableBackgroundRendering;
+    }
+
+    public void setBackgroundRendering(boolean enableBackgroundRendering) {
+        this.enableBackgroundRendering = enableBackgroundRendering;
+    }
+
+    public boolean isDynamicResolution() {
+        return enableDynamicResolution;
+    }
+
+    public void setDynamicResolution(boolean enableDynamicResolution) {
+        this.enableDynamicResolution = enableDynamicResolution;
+    }
+
     public Color getPolygonalGridColor() {
         return polygonalGridColor;
     }
@@ -0,0 +1,123 @@
+package com.cgvsu.render_engine;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * Планировщик кадров на AnimationTimer. Изменения камеры, моделей, света и параметров только помечают
+ * кадр устаревшим ({@link #requestRender()}), а рисует его ближайший импульс JavaFX. Поэтому пачка событий
+ * ввода между двумя импульсами дает один кадр, а без изменений холст не перерисовывается.
+ *
+ * <p>Если кадры рисуются в другом потоке ({@link BackgroundRenderer}), renderer только отдает снимок сцены,
+ * а вывод готового кадра на холст делает presenter, он опрашивается на каждом импульсе.</p>
+ */
+public class RenderScheduler {
+    private static final int STATISTICS_WINDOW = 120;
+
+    private final Runnable renderer;
+    private final Runnable presenter;
+    private final FrameStatistics frameTimes = new FrameStatistics(STATISTICS_WINDOW);
+    // Интервалы между кадрами на соседних импульсах: по ним считается достигнутый FPS при непрерывной перерисовке
+    private final FrameStatistics frameIntervals = new FrameStatistics(STATISTICS_WINDOW);
+    private AnimationTimer timer;
+    // Запросить кадр можно из любого потока, например по готовности фоновых вычислений
+    private volatile boolean dirty = true;
+    private boolean previousPulseRendered;
+    private long previousPulseTime;
+
+    public RenderScheduler(Runnable renderer) {
+        this(renderer, null);
+    }
+
+    /**
+     * presenter выводит на холст готовый кадр, если он есть; может быть null.
+     */
+    public RenderScheduler(Runnable renderer, Runnable presenter) {
+        this.renderer = renderer;
+        this.presenter = presenter;
+    }
+
+    /**
+     * Подписывается на импульсы JavaFX. Первый кадр рисуется сразу.
+     */
+    public void start() {
+        if (timer == null) {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    onPulse(now);
+                }
+            };
+        }
+        dirty = true;
+        timer.start();
+    }
+
+    public void stop() {
+        if (timer != null) {
+            timer.stop();
+        }
+        previousPulseRendered = false;
+    }
+
+    /**
+     * Помечает кадр устаревшим: он будет нарисован на следующем импульсе.
+     */
+    public void requestRender() {
+        dirty = true;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Обработка импульса с отметкой времени now в наносекундах: выводит готовый кадр и рисует новый,
+     * если он устарел. Возвращает true, если кадр нарисован.
+     */
+    public boolean onPulse(long now) {
+        if (presenter != null) {
+            presenter.run();
+        }
+        if (!dirty) {
+            previousPulseRendered = false;
+            return false;
+        }
+        // Сбрасывается до отрисовки, чтобы запрос изнутри кадра не потерялся
+        dirty = false;
+        if (previousPulseRendered) {
+            frameIntervals.record(now - previousPulseTime);
+        }
+        previousPulseRendered = true;
+        previousPulseTime = now;
+
+        long start = System.nanoTime();
+        renderer.run();
+        frameTimes.record(System.nanoTime() - start);
+        return true;
+    }
+
+    /**
+     * Средний FPS при непрерывной перерисовке; простой без изменений не учитывается.
+     */
+    public double getAchievedFps() {
+        return frameIntervals.getFps();
+    }
+
+    /**
+     * Процентиль времени отрисовки кадра в миллисекундах по последним кадрам.
+     */
+    public double getFrameTimePercentileMs(double percentile) {
+        return frameTimes.getPercentileMs(percentile);
+    }
+
+    public FrameStatistics getFrameTimes() {
+        return frameTimes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f fps, frame time p50 %.2f ms, p95 %.2f ms, p99 %.2f ms (%d frames)",
+                getAchievedFps(), getFrameTimePercentileMs(50), getFrameTimePercentileMs(95),
+                getFrameTimePercentileMs(99), frameTimes.getCount());
+    }
+}
@@ -0,0 +1,156 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+
+import java.util.Arrays;
+
+/**
+ * Экранные координаты всех вершин модели за текущий кадр.
+ *
+ * <p>Каждая вершина умножается на матрицу MVP ровно один раз, после чего каркас и все режимы заливки
+ * берут координаты по индексу вершины. Массивы переиспользуются между кадрами и моделями
+ * и растут только при появлении модели с большим числом вершин.</p>
+ *
+ * <p>Кроме экранных координат хранятся однородные координаты отсечения и код положения вершины
+ * относительно шести плоскостей пирамиды видимости. Вершины, созданные при отсечении треугольников,
+ * добавляются после вершин модели через {@link #appendVertex}.</p>
+ */
+public final class ScreenVertices {
+
+    // Биты кода положения: вершина лежит снаружи соответствующей плоскости пирамиды видимости
+    public static final int OUTSIDE_LEFT = 1;
+    public static final int OUTSIDE_RIGHT = 1 << 1;
+    public static final int OUTSIDE_BOTTOM = 1 << 2;
+    public static final int OUTSIDE_TOP = 1 << 3;
+    public static final int OUTSIDE_NEAR = 1 << 4;
+    public static final int OUTSIDE_FAR = 1 << 5;
+
+    private final float[] matrix = new float[16];
+    private float[] x = new float[0];
+    private float[] y = new float[0];
+    private float[] z = new float[0];
+    private float[] clipX = new float[0];
+    private float[] clipY = new float[0];
+    private float[] clipZ = new float[0];
+    private float[] clipW = new float[0];
+    private int[] outcodes = new int[0];
+    private int vertexCount;
+    private int size;
+    private int width;
+    private int height;
+
+    /**
+     * Переводит вершины (тройки x, y, z в positions) в экранные координаты кадра width x height.
+     * Порядок вычислений тот же, что в {@link GraphicConveyor#multiplyMatrix4ByVector3}
+     * и {@link GraphicConveyor#vertexToPoint}, поэтому результат совпадает с ними побитно.
+     */
+    public void transform(float[] positions, Matrix4f modelViewProjectionMatrix, int width, int height) {
+        vertexCount = positions.length / 3;
+        size = vertexCount;
+        this.width = width;
+        this.height = height;
+        if (x.length < vertexCount) {
+            grow(vertexCount);
+        }
+        final float[] m = matrix;
+        modelViewProjectionMatrix.toArray(m, 0);
+
+        for (int i = 0, vertex = 0; i < vertexCount; i++, vertex += 3) {
+            float vx = positions[vertex];
+            float vy = positions[vertex + 1];
+            float vz = positions[vertex + 2];
+            float w = 0f + m[12] * vx + m[13] * vy + m[14] * vz + m[15];
+            float cx = 0f + m[0] * vx + m[1] * vy + m[2] * vz + m[3];
+            float cy = 0f + m[4] * vx + m[5] * vy + m[6] * vz + m[7];
+            float cz = 0f + m[8] * vx + m[9] * vy + m[10] * vz + m[11];
+            store(i, cx, cy, cz, w);
+        }
+    }
+
+    /**
+     * Добавляет вершину с однородными координатами отсечения после вершин модели и возвращает ее индекс.
+     * Добавленные вершины живут до следующего {@link #transform}.
+     */
+    public int appendVertex(float cx, float cy, float cz, float w) {
+        if (size == x.length) {
+            grow(Math.max(16, size * 2));
+        }
+        store(size, cx, cy, cz, w);
+        return size++;
+    }
+
+    private void store(int i, float cx, float cy, float cz, float w) {
+        float ndcX = cx / w;
+        float ndcY = cy / w;
+        x[i] = (ndcX + 1) * 0.5f * width;
+        y[i] = (1 - (ndcY + 1) * 0.5f) * height;
+        z[i] = cz / w;
+        clipX[i] = cx;
+        clipY[i] = cy;
+        clipZ[i] = cz;
+        clipW[i] = w;
+        outcodes[i] = (cx < -w ? OUTSIDE_LEFT : 0)
+                | (cx > w ? OUTSIDE_RIGHT : 0)
+                | (cy < -w ? OUTSIDE_BOTTOM : 0)
+                | (cy > w ? OUTSIDE_TOP : 0)
+                | (cz < -w ? OUTSIDE_NEAR : 0)
+                | (cz > w ? OUTSIDE_FAR : 0);
+    }
+
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        clipX = Arrays.copyOf(clipX, capacity);
+        clipY = Arrays.copyOf(clipY, capacity);
+        clipZ = Arrays.copyOf(clipZ, capacity);
+        clipW = Arrays.copyOf(clipW, capacity);
+        outcodes = Arrays.copyOf(outcodes, capacity);
+    }
+
+    /**
+     * Число вершин модели, без добавленных при отсечении.
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Число вершин вместе с добавленными при отсечении.
+     */
+    public int size() {
+        return size;
+    }
+
+    public float[] getX() {
+        return x;
+    }
+
+    public float[] getY() {
+        return y;
+    }
+
+    public float[] getZ() {
+        return z;
+    }
+
+    public float[] getClipX() {
+        return clipX;
+    }
+
+    public float[] getClipY() {
+        return clipY;
+    }
+
+    public float[] getClipZ() {
+        return clipZ;
+    }
+
+    public float[] getClipW() {
+        return clipW;
+    }
+
+    public int[] getOutcodes() {
+        return outcodes;
+    }
+}
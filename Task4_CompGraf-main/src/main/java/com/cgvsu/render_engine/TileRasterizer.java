@@ -0,0 +1,360 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.model.Texture;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Заливка треугольников модели в буферы RenderContext с разбиением экрана на плитки.
+ *
+ * <p>Треугольники накапливаются пачками. При сбросе пачки каждый треугольник раскладывается по плиткам
+ * {@value #TILE_SIZE}x{@value #TILE_SIZE}, которые пересекает его ограничивающий прямоугольник,
+ * и плитки заливаются параллельно в {@link ForkJoinPool}. Каждая плитка пишет только в свой участок буферов
+ * цвета и глубины, а внутри плитки треугольники идут в порядке добавления - результат совпадает
+ * с последовательной заливкой пиксель в пиксель.</p>
+ *
+ * <p>Координаты вершин берутся из {@link ScreenVertices} по индексу, текстурные координаты -
+ * из массива модели, поэтому пачка описывает треугольник несколькими int без копирования геометрии.
+ * Текстурные координаты вершин, созданных при отсечении, добавляются через {@link #addTextureVertex}
+ * и получают индексы после текстурных вершин модели.</p>
+ */
+final class TileRasterizer {
+
+    static final int TILE_SIZE = 64;
+    // Ограничивает память под пачку: большие модели сбрасываются несколькими пачками по порядку
+    private static final int BATCH_SIZE = 1 << 16;
+
+    // Запись треугольника: вершины, текстурные вершины (NO_TEXTURE без текстуры), цвета вершин, прямоугольник на экране,
+    // вершины в фиксированной точке, округленные один раз при добавлении, и идентификатор полигона
+    private static final int A = 0, B = 1, C = 2;
+    private static final int TEXTURE_A = 3, TEXTURE_B = 4, TEXTURE_C = 5;
+    private static final int COLOR_A = 6, COLOR_B = 7, COLOR_C = 8;
+    private static final int MIN_X = 9, MIN_Y = 10, MAX_X = 11, MAX_Y = 12;
+    private static final int FIXED_X0 = 13, FIXED_Y0 = 14, FIXED_X1 = 15, FIXED_Y1 = 16, FIXED_X2 = 17, FIXED_Y2 = 18;
+    private static final int PRIMITIVE_ID = 19;
+    private static final int STRIDE = 20;
+
+    static final int NO_TEXTURE = -1;
+
+    private final int[] triangles = new int[BATCH_SIZE * STRIDE];
+    private int triangleCount;
+
+    private RenderContext context;
+    // Массивы вершин берутся у ScreenVertices при каждом обращении: отсечение может их перевыделить
+    private ScreenVertices vertices;
+    private float[] screenZ;
+    private float[] textureVertices;
+    private int textureVertexCount;
+    private float[] clippedTextureVertices = new float[64];
+    private int clippedTextureVertexCount;
+    private Texture texture;
+    private boolean parallel;
+    private boolean hierarchicalDepth;
+    private int primitiveId;
+
+    private int tilesX;
+    private int tilesY;
+    private int[] tileOffsets = new int[1];
+    private int[] tileTriangles = new int[0];
+
+    /**
+     * Начинает заливку модели, вершины которой уже переведены в экранные координаты.
+     *
+     * @param textureVertices пары (u, v) текстурных вершин модели
+     * @param texture         текстура для треугольников с текстурными вершинами
+     * @param parallel          раскладывать ли треугольники по плиткам и заливать их параллельно
+     * @param hierarchicalDepth отбрасывать ли закрытые треугольники и блоки по границам глубины блоков
+     */
+    void begin(RenderContext context, ScreenVertices vertices, float[] textureVertices, Texture texture,
+               boolean parallel, boolean hierarchicalDepth) {
+        this.context = context;
+        this.vertices = vertices;
+        this.textureVertices = textureVertices;
+        this.textureVertexCount = textureVertices.length / 2;
+        this.clippedTextureVertexCount = 0;
+        this.texture = texture;
+        this.parallel = parallel;
+        this.hierarchicalDepth = hierarchicalDepth;
+        this.triangleCount = 0;
+        this.primitiveId = PrimitiveIdBuffer.NO_ID;
+    }
+
+    /**
+     * Задает идентификатор полигона для следующих {@link #addTriangle}, см. {@link PrimitiveIdBuffer}.
+     */
+    void setPrimitiveId(int primitiveId) {
+        this.primitiveId = primitiveId;
+    }
+
+    /**
+     * Добавляет текстурную вершину (u, v) до конца модели и возвращает ее индекс для {@link #addTriangle}.
+     */
+    int addTextureVertex(float u, float v) {
+        if (clippedTextureVertexCount * 2 == clippedTextureVertices.length) {
+            clippedTextureVertices = Arrays.copyOf(clippedTextureVertices, clippedTextureVertices.length * 2);
+        }
+        clippedTextureVertices[clippedTextureVertexCount * 2] = u;
+        clippedTextureVertices[clippedTextureVertexCount * 2 + 1] = v;
+        return textureVertexCount + clippedTextureVertexCount++;
+    }
+
+    /**
+     * Добавляет треугольник a, b, c. Если textureA != NO_TEXTURE, цвет берется из текстуры по текстурным вершинам,
+     * иначе интерполируется между цветами вершин. Вырожденные и невидимые треугольники отбрасываются сразу.
+     */
+    void addTriangle(int a, int b, int c,
+                     int textureA, int textureB, int textureC,
+                     int colorA, int colorB, int colorC) {
+        final float[] screenX = vertices.getX();
+        final float[] screenY = vertices.getY();
+        final float x0 = screenX[a], y0 = screenY[a];
+        final float x1 = screenX[b], y1 = screenY[b];
+        final float x2 = screenX[c], y2 = screenY[c];
+
+        if (!TriangleRasterizer.isRepresentable(x0) || !TriangleRasterizer.isRepresentable(y0)
+                || !TriangleRasterizer.isRepresentable(x1) || !TriangleRasterizer.isRepresentable(y1)
+                || !TriangleRasterizer.isRepresentable(x2) || !TriangleRasterizer.isRepresentable(y2)) {
+            return;
+        }
+        final int fixedX0 = TriangleRasterizer.toFixed(x0), fixedY0 = TriangleRasterizer.toFixed(y0);
+        final int fixedX1 = TriangleRasterizer.toFixed(x1), fixedY1 = TriangleRasterizer.toFixed(y1);
+        final int fixedX2 = TriangleRasterizer.toFixed(x2), fixedY2 = TriangleRasterizer.toFixed(y2);
+        if (TriangleRasterizer.area(fixedX0, fixedY0, fixedX1, fixedY1, fixedX2, fixedY2) == 0) {
+            return;
+        }
+
+        final int minX = Math.max(0, TriangleRasterizer.firstPixel(Math.min(fixedX0, Math.min(fixedX1, fixedX2))));
+        final int minY = Math.max(0, TriangleRasterizer.firstPixel(Math.min(fixedY0, Math.min(fixedY1, fixedY2))));
+        final int maxX = Math.min(context.getWidth() - 1, TriangleRasterizer.lastPixel(Math.max(fixedX0, Math.max(fixedX1, fixedX2))));
+        final int maxY = Math.min(context.getHeight() - 1, TriangleRasterizer.lastPixel(Math.max(fixedY0, Math.max(fixedY1, fixedY2))));
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+
+        if (triangleCount == BATCH_SIZE) {
+            flush();
+        }
+        int offset = triangleCount++ * STRIDE;
+        triangles[offset + A] = a;
+        triangles[offset + B] = b;
+        triangles[offset + C] = c;
+        triangles[offset + TEXTURE_A] = textureA;
+        triangles[offset + TEXTURE_B] = textureB;
+        triangles[offset + TEXTURE_C] = textureC;
+        triangles[offset + COLOR_A] = colorA;
+        triangles[offset + COLOR_B] = colorB;
+        triangles[offset + COLOR_C] = colorC;
+        triangles[offset + MIN_X] = minX;
+        triangles[offset + MIN_Y] = minY;
+        triangles[offset + MAX_X] = maxX;
+        triangles[offset + MAX_Y] = maxY;
+        triangles[offset + FIXED_X0] = fixedX0;
+        triangles[offset + FIXED_Y0] = fixedY0;
+        triangles[offset + FIXED_X1] = fixedX1;
+        triangles[offset + FIXED_Y1] = fixedY1;
+        triangles[offset + FIXED_X2] = fixedX2;
+        triangles[offset + FIXED_Y2] = fixedY2;
+        triangles[offset + PRIMITIVE_ID] = primitiveId;
+    }
+
+    /**
+     * Заливает накопленные треугольники и очищает пачку.
+     */
+    void flush() {
+        if (triangleCount == 0) {
+            return;
+        }
+        final int width = context.getWidth();
+        final int height = context.getHeight();
+        screenZ = vertices.getZ();
+        tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+
+        if (parallel && tilesX * tilesY > 1) {
+            binTriangles();
+            ForkJoinPool.commonPool().invoke(new TileTask(0, tilesX * tilesY));
+        } else {
+            TriangleShader shader = new TriangleShader();
+            for (int triangle = 0; triangle < triangleCount; triangle++) {
+                shader.fill(triangle, 0, 0, width - 1, height - 1);
+            }
+            shader.flushStatistics();
+        }
+        triangleCount = 0;
+    }
+
+    /**
+     * Раскладывает треугольники по плиткам подсчетом: сначала число треугольников на плитку,
+     * затем смещения и сами индексы. Порядок треугольников внутри плитки сохраняется.
+     */
+    private void binTriangles() {
+        final int tileCount = tilesX * tilesY;
+        if (tileOffsets.length < tileCount + 1) {
+            tileOffsets = new int[tileCount + 1];
+        }
+        Arrays.fill(tileOffsets, 0, tileCount + 1, 0);
+
+        int total = 0;
+        for (int triangle = 0, offset = 0; triangle < triangleCount; triangle++, offset += STRIDE) {
+            int tileMinX = triangles[offset + MIN_X] / TILE_SIZE;
+            int tileMaxX = triangles[offset + MAX_X] / TILE_SIZE;
+            int tileMinY = triangles[offset + MIN_Y] / TILE_SIZE;
+            int tileMaxY = triangles[offset + MAX_Y] / TILE_SIZE;
+            for (int tileY = tileMinY; tileY <= tileMaxY; tileY++) {
+                for (int tileX = tileMinX; tileX <= tileMaxX; tileX++) {
+                    tileOffsets[tileY * tilesX + tileX + 1]++;
+                }
+            }
+            total += (tileMaxX - tileMinX + 1) * (tileMaxY - tileMinY + 1);
+        }
+        for (int tile = 0; tile < tileCount; tile++) {
+            tileOffsets[tile + 1] += tileOffsets[tile];
+        }
+        if (tileTriangles.length < total) {
+            tileTriangles = new int[total];
+        }
+
+        // tileOffsets[tile] служит курсором записи и после цикла указывает на конец плитки
+        for (int triangle = 0, offset = 0; triangle < triangleCount; triangle++, offset += STRIDE) {
+            int tileMinX = triangles[offset + MIN_X] / TILE_SIZE;
+            int tileMaxX = triangles[offset + MAX_X] / TILE_SIZE;
+            int tileMinY = triangles[offset + MIN_Y] / TILE_SIZE;
+            int tileMaxY = triangles[offset + MAX_Y] / TILE_SIZE;
+            for (int tileY = tileMinY; tileY <= tileMaxY; tileY++) {
+                for (int tileX = tileMinX; tileX <= tileMaxX; tileX++) {
+                    tileTriangles[tileOffsets[tileY * tilesX + tileX]++] = triangle;
+                }
+            }
+        }
+        for (int tile = tileCount; tile > 0; tile--) {
+            tileOffsets[tile] = tileOffsets[tile - 1];
+        }
+        tileOffsets[0] = 0;
+    }
+
+    private void fillTile(int tile) {
+        final int clipMinX = (tile % tilesX) * TILE_SIZE;
+        final int clipMinY = (tile / tilesX) * TILE_SIZE;
+        final int clipMaxX = Math.min(clipMinX + TILE_SIZE, context.getWidth()) - 1;
+        final int clipMaxY = Math.min(clipMinY + TILE_SIZE, context.getHeight()) - 1;
+        TriangleShader shader = new TriangleShader();
+        for (int i = tileOffsets[tile]; i < tileOffsets[tile + 1]; i++) {
+            shader.fill(tileTriangles[i], clipMinX, clipMinY, clipMaxX, clipMaxY);
+        }
+        shader.flushStatistics();
+    }
+
+    float getTextureU(int textureVertex) {
+        return textureCoordinate(textureVertex, 0);
+    }
+
+    float getTextureV(int textureVertex) {
+        return textureCoordinate(textureVertex, 1);
+    }
+
+    private float textureCoordinate(int textureVertex, int component) {
+        return textureVertex < textureVertexCount
+                ? textureVertices[textureVertex * 2 + component]
+                : clippedTextureVertices[(textureVertex - textureVertexCount) * 2 + component];
+    }
+
+    /**
+     * Цвет пикселя для текущего треугольника. У каждого потока свой экземпляр.
+     */
+    private final class TriangleShader extends DepthTestShader {
+        private final int width = context.getWidth();
+        private final int[] colorBuffer = context.getColorBuffer();
+        private final int[] ids = context.getIdBuffer() == null ? null : context.getIdBuffer().getIds();
+        private int colorA, colorB, colorC;
+        private int id;
+        private float uA, vA, uB, vB, uC, vC;
+        private boolean textured;
+        private boolean flat;
+
+        TriangleShader() {
+            super(TileRasterizer.this.context, hierarchicalDepth);
+        }
+
+        /**
+         * Заливает часть треугольника внутри прямоугольника отсечения.
+         */
+        void fill(int triangle, int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+            final int offset = triangle * STRIDE;
+            final int minX = Math.max(clipMinX, triangles[offset + MIN_X]);
+            final int minY = Math.max(clipMinY, triangles[offset + MIN_Y]);
+            final int maxX = Math.min(clipMaxX, triangles[offset + MAX_X]);
+            final int maxY = Math.min(clipMaxY, triangles[offset + MAX_Y]);
+            setDepths(screenZ[triangles[offset + A]], screenZ[triangles[offset + B]], screenZ[triangles[offset + C]]);
+            if (isOccluded(minX, minY, maxX, maxY)) {
+                return;
+            }
+            colorA = triangles[offset + COLOR_A];
+            colorB = triangles[offset + COLOR_B];
+            colorC = triangles[offset + COLOR_C];
+            textured = triangles[offset + TEXTURE_A] != NO_TEXTURE;
+            if (textured) {
+                uA = textureCoordinate(triangles[offset + TEXTURE_A], 0);
+                vA = textureCoordinate(triangles[offset + TEXTURE_A], 1);
+                uB = textureCoordinate(triangles[offset + TEXTURE_B], 0);
+                vB = textureCoordinate(triangles[offset + TEXTURE_B], 1);
+                uC = textureCoordinate(triangles[offset + TEXTURE_C], 0);
+                vC = textureCoordinate(triangles[offset + TEXTURE_C], 1);
+            }
+            flat = !textured && colorA == colorB && colorB == colorC;
+            id = triangles[offset + PRIMITIVE_ID];
+
+            TriangleRasterizer.rasterize(
+                    triangles[offset + FIXED_X0], triangles[offset + FIXED_Y0],
+                    triangles[offset + FIXED_X1], triangles[offset + FIXED_Y1],
+                    triangles[offset + FIXED_X2], triangles[offset + FIXED_Y2],
+                    minX, minY, maxX, maxY, this);
+        }
+
+        @Override
+        public void shade(int x, int y, float lambda0, float lambda1, float lambda2) {
+            if (!testDepth(x, y, lambda0, lambda1, lambda2)) {
+                return;
+            }
+            int index = y * width + x;
+            if (ids != null) {
+                ids[index] = id;
+            }
+            if (textured) {
+                float u = lambda0 * uA + lambda1 * uB + lambda2 * uC;
+                float v = lambda0 * vA + lambda1 * vB + lambda2 * vC;
+                colorBuffer[index] = texture.getArgb(u, v);
+            } else if (flat) {
+                colorBuffer[index] = colorA;
+            } else {
+                colorBuffer[index] = TriangleRasterizer.interpolateArgb(lambda0, lambda1, lambda2, colorA, colorB, colorC);
+            }
+        }
+    }
+
+    /**
+     * Делит диапазон плиток пополам, пока не останется одна плитка.
+     */
+    private final class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        TileTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                fillTile(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TileTask(from, middle), new TileTask(middle, to));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.cgvsu.render_engine;
+
+/**
+ * Отсечение треугольника плоскостями пирамиды видимости в однородных координатах (Сазерленд - Ходжмен).
+ *
+ * <p>Отсечение идет до деления на w, поэтому вершины за камерой обрабатываются корректно. Каждая вершина
+ * результата несет барицентрические веса относительно исходного треугольника, по которым вызывающий
+ * интерполирует текстурные координаты и цвета. Буферы переиспользуются, на треугольник ничего не выделяется.</p>
+ */
+final class TriangleClipper {
+
+    static final int ALL_PLANES = ScreenVertices.OUTSIDE_LEFT | ScreenVertices.OUTSIDE_RIGHT
+            | ScreenVertices.OUTSIDE_BOTTOM | ScreenVertices.OUTSIDE_TOP
+            | ScreenVertices.OUTSIDE_NEAR | ScreenVertices.OUTSIDE_FAR;
+
+    // Треугольник после отсечения шестью плоскостями имеет не больше 3 + 6 вершин
+    static final int MAX_VERTICES = 9;
+    // Вершина многоугольника: x, y, z, w и веса трех исходных вершин
+    private static final int STRIDE = 7;
+
+    private float[] polygon = new float[MAX_VERTICES * STRIDE];
+    private float[] scratch = new float[MAX_VERTICES * STRIDE];
+    private int vertexCount;
+
+    /**
+     * Отсекает треугольник a, b, c из vertices плоскостями из planes (биты ScreenVertices.OUTSIDE_*).
+     *
+     * @return число вершин выпуклого многоугольника-результата, 0 - если треугольник целиком снаружи
+     */
+    int clip(ScreenVertices vertices, int a, int b, int c, int planes) {
+        vertexCount = 3;
+        load(vertices, 0, a);
+        load(vertices, 1, b);
+        load(vertices, 2, c);
+
+        for (int plane = 1; plane <= ScreenVertices.OUTSIDE_FAR && vertexCount > 0; plane <<= 1) {
+            if ((planes & plane) != 0) {
+                clipPlane(plane);
+            }
+        }
+        return vertexCount;
+    }
+
+    private void load(ScreenVertices vertices, int slot, int vertex) {
+        int offset = slot * STRIDE;
+        polygon[offset] = vertices.getClipX()[vertex];
+        polygon[offset + 1] = vertices.getClipY()[vertex];
+        polygon[offset + 2] = vertices.getClipZ()[vertex];
+        polygon[offset + 3] = vertices.getClipW()[vertex];
+        polygon[offset + 4] = slot == 0 ? 1 : 0;
+        polygon[offset + 5] = slot == 1 ? 1 : 0;
+        polygon[offset + 6] = slot == 2 ? 1 : 0;
+    }
+
+    float getX(int vertex) {
+        return polygon[vertex * STRIDE];
+    }
+
+    float getY(int vertex) {
+        return polygon[vertex * STRIDE + 1];
+    }
+
+    float getZ(int vertex) {
+        return polygon[vertex * STRIDE + 2];
+    }
+
+    float getW(int vertex) {
+        return polygon[vertex * STRIDE + 3];
+    }
+
+    /**
+     * Вес исходной вершины corner (0, 1 или 2) в вершине результата.
+     */
+    float getWeight(int vertex, int corner) {
+        return polygon[vertex * STRIDE + 4 + corner];
+    }
+
+    /**
+     * Знаковое расстояние до плоскости: неотрицательно внутри пирамиды видимости.
+     */
+    static float distance(int plane, float x, float y, float z, float w) {
+        return switch (plane) {
+            case ScreenVertices.OUTSIDE_LEFT -> w + x;
+            case ScreenVertices.OUTSIDE_RIGHT -> w - x;
+            case ScreenVertices.OUTSIDE_BOTTOM -> w + y;
+            case ScreenVertices.OUTSIDE_TOP -> w - y;
+            case ScreenVertices.OUTSIDE_NEAR -> w + z;
+            default -> w - z;
+        };
+    }
+
+    private void clipPlane(int plane) {
+        int outputCount = 0;
+        for (int i = 0; i < vertexCount; i++) {
+            int current = i * STRIDE;
+            int next = (i + 1 == vertexCount ? 0 : i + 1) * STRIDE;
+            float currentDistance = distance(plane, polygon[current], polygon[current + 1], polygon[current + 2], polygon[current + 3]);
+            float nextDistance = distance(plane, polygon[next], polygon[next + 1], polygon[next + 2], polygon[next + 3]);
+            if (currentDistance >= 0) {
+                System.arraycopy(polygon, current, scratch, outputCount++ * STRIDE, STRIDE);
+            }
+            if ((currentDistance >= 0) != (nextDistance >= 0)) {
+                float t = currentDistance / (currentDistance - nextDistance);
+                int output = outputCount++ * STRIDE;
+                for (int k = 0; k < STRIDE; k++) {
+                    scratch[output + k] = polygon[current + k] + t * (polygon[next + k] - polygon[current + k]);
+                }
+            }
+        }
+        float[] swap = polygon;
+        polygon = scratch;
+        scratch = swap;
+        vertexCount = outputCount;
+    }
+}
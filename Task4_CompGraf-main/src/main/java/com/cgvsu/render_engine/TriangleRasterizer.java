@@ -0,0 +1,203 @@
+package com.cgvsu.render_engine;
+
+/**
+ * Обход пикселей треугольника по функциям ребер в фиксированной точке.
+ *
+ * <p>Координаты вершин округляются до 1/{@value #SUBPIXEL_SCALE} пикселя, уравнения ребер считаются один раз
+ * на треугольник и дальше только прибавляются при шаге по x и y. Экран обходится блоками
+ * {@value #BLOCK_SIZE}x{@value #BLOCK_SIZE}: блок, целиком лежащий снаружи хотя бы одного ребра, пропускается
+ * без попиксельной проверки. Пиксель на общем ребре двух треугольников закрашивается ровно одним из них
+ * по правилу верхнего-левого ребра. Центром пикселя (x, y) считается точка с целыми координатами x, y.</p>
+ */
+public final class TriangleRasterizer {
+
+    public static final int SUBPIXEL_BITS = 8;
+    public static final int SUBPIXEL_SCALE = 1 << SUBPIXEL_BITS;
+    public static final int BLOCK_SIZE = 8;
+    // Модуль экранной координаты, при котором произведения в уравнениях ребер еще помещаются в long
+    public static final float MAX_COORDINATE = 1 << 21;
+
+    /**
+     * Получатель покрытых пикселей. Барицентрические координаты относятся к вершинам в порядке,
+     * в котором они переданы в {@link #rasterize}.
+     */
+    public interface FragmentShader {
+        void shade(int x, int y, float lambda0, float lambda1, float lambda2);
+
+        /**
+         * Вызывается перед обходом блока пикселей [left, right] x [top, bottom], который пересекает треугольник.
+         * Если вернуть false, блок пропускается целиком.
+         */
+        default boolean beginBlock(int left, int top, int right, int bottom) {
+            return true;
+        }
+
+        /**
+         * Вызывается после обхода блока, для которого {@link #beginBlock} вернул true.
+         */
+        default void endBlock(int left, int top, int right, int bottom) {
+        }
+    }
+
+    private TriangleRasterizer() {
+    }
+
+    /**
+     * Проверяет, что экранную координату можно перевести в фиксированную точку. NaN и бесконечности не проходят.
+     */
+    public static boolean isRepresentable(float coordinate) {
+        return Math.abs(coordinate) <= MAX_COORDINATE;
+    }
+
+    public static int toFixed(float coordinate) {
+        return Math.round(coordinate * SUBPIXEL_SCALE);
+    }
+
+    /**
+     * Первый и последний столбец (строка) пикселей, центры которых не выходят за отрезок [fixedMin, fixedMax].
+     */
+    public static int firstPixel(int fixedMin) {
+        return -Math.floorDiv(-fixedMin, SUBPIXEL_SCALE);
+    }
+
+    public static int lastPixel(int fixedMax) {
+        return Math.floorDiv(fixedMax, SUBPIXEL_SCALE);
+    }
+
+    /**
+     * Удвоенная ориентированная площадь треугольника в фиксированных координатах.
+     */
+    public static long area(long x0, long y0, long x1, long y1, long x2, long y2) {
+        return (x1 - x0) * (y2 - y0) - (y1 - y0) * (x2 - x0);
+    }
+
+    /**
+     * Обходит пиксели треугольника с экранными вершинами (x0, y0), (x1, y1), (x2, y2) в кадре width x height.
+     * Треугольник с непредставимыми координатами ({@link #isRepresentable}) пропускается.
+     */
+    public static void rasterize(float x0, float y0, float x1, float y1, float x2, float y2,
+                          int width, int height, FragmentShader shader) {
+        if (!isRepresentable(x0) || !isRepresentable(y0) || !isRepresentable(x1)
+                || !isRepresentable(y1) || !isRepresentable(x2) || !isRepresentable(y2)) {
+            return;
+        }
+        final int fixedX0 = toFixed(x0), fixedY0 = toFixed(y0);
+        final int fixedX1 = toFixed(x1), fixedY1 = toFixed(y1);
+        final int fixedX2 = toFixed(x2), fixedY2 = toFixed(y2);
+        rasterize(fixedX0, fixedY0, fixedX1, fixedY1, fixedX2, fixedY2,
+                Math.max(0, firstPixel(Math.min(fixedX0, Math.min(fixedX1, fixedX2)))),
+                Math.max(0, firstPixel(Math.min(fixedY0, Math.min(fixedY1, fixedY2)))),
+                Math.min(width - 1, lastPixel(Math.max(fixedX0, Math.max(fixedX1, fixedX2)))),
+                Math.min(height - 1, lastPixel(Math.max(fixedY0, Math.max(fixedY1, fixedY2)))),
+                shader);
+    }
+
+    /**
+     * Обходит пиксели треугольника в прямоугольнике [minX, maxX] x [minY, maxY] и передает покрытые в shader.
+     * Вершины задаются в фиксированной точке ({@link #toFixed}) в любом порядке обхода.
+     */
+    public static void rasterize(int x0, int y0, int x1, int y1, int x2, int y2,
+                          int minX, int minY, int maxX, int maxY,
+                          FragmentShader shader) {
+        long area = area(x0, y0, x1, y1, x2, y2);
+        if (area == 0 || minX > maxX || minY > maxY) {
+            return;
+        }
+        // Обход приводится к положительной площади; swapped возвращает барицентрические координаты вершинам вызывающего
+        final boolean swapped = area < 0;
+        if (swapped) {
+            int x = x1, y = y1;
+            x1 = x2;
+            y1 = y2;
+            x2 = x;
+            y2 = y;
+            area = -area;
+        }
+
+        // Ребро a -> b: w(p) = (ay - by) * px + (bx - ax) * py + c, w(a) = w(b) = 0, внутри w > 0
+        final long a0 = y1 - y2, b0 = x2 - x1, c0 = -a0 * x1 - b0 * y1;
+        final long a1 = y2 - y0, b1 = x0 - x2, c1 = -a1 * x2 - b1 * y2;
+        final long a2 = y0 - y1, b2 = x1 - x0, c2 = -a2 * x0 - b2 * y0;
+        // Пиксели на ребре принадлежат треугольнику, только если ребро верхнее или левое
+        final long bias0 = isTopLeft(a0, b0) ? 0 : 1;
+        final long bias1 = isTopLeft(a1, b1) ? 0 : 1;
+        final long bias2 = isTopLeft(a2, b2) ? 0 : 1;
+        // Шаг на один пиксель
+        final long stepX0 = a0 * SUBPIXEL_SCALE, stepY0 = b0 * SUBPIXEL_SCALE;
+        final long stepX1 = a1 * SUBPIXEL_SCALE, stepY1 = b1 * SUBPIXEL_SCALE;
+        final long stepX2 = a2 * SUBPIXEL_SCALE, stepY2 = b2 * SUBPIXEL_SCALE;
+        final float inverseArea = 1.0f / area;
+
+        for (int blockY = minY & -BLOCK_SIZE; blockY <= maxY; blockY += BLOCK_SIZE) {
+            final int top = Math.max(minY, blockY);
+            final int bottom = Math.min(maxY, blockY + BLOCK_SIZE - 1);
+            for (int blockX = minX & -BLOCK_SIZE; blockX <= maxX; blockX += BLOCK_SIZE) {
+                final int left = Math.max(minX, blockX);
+                final int right = Math.min(maxX, blockX + BLOCK_SIZE - 1);
+
+                long row0 = edgeAt(a0, b0, c0, left, top) - bias0;
+                long row1 = edgeAt(a1, b1, c1, left, top) - bias1;
+                long row2 = edgeAt(a2, b2, c2, left, top) - bias2;
+                // Функция ребра линейна, поэтому ее максимум на блоке достигается в одном из углов
+                if (row0 + Math.max(0, stepX0 * (right - left)) + Math.max(0, stepY0 * (bottom - top)) < 0
+                        || row1 + Math.max(0, stepX1 * (right - left)) + Math.max(0, stepY1 * (bottom - top)) < 0
+                        || row2 + Math.max(0, stepX2 * (right - left)) + Math.max(0, stepY2 * (bottom - top)) < 0) {
+                    continue;
+                }
+                if (!shader.beginBlock(left, top, right, bottom)) {
+                    continue;
+                }
+
+                for (int y = top; y <= bottom; y++) {
+                    long w0 = row0, w1 = row1, w2 = row2;
+                    for (int x = left; x <= right; x++) {
+                        if ((w0 | w1 | w2) >= 0) {
+                            float lambda0 = (w0 + bias0) * inverseArea;
+                            float lambda1 = (w1 + bias1) * inverseArea;
+                            float lambda2 = (w2 + bias2) * inverseArea;
+                            if (swapped) {
+                                shader.shade(x, y, lambda0, lambda2, lambda1);
+                            } else {
+                                shader.shade(x, y, lambda0, lambda1, lambda2);
+                            }
+                        }
+                        w0 += stepX0;
+                        w1 += stepX1;
+                        w2 += stepX2;
+                    }
+                    row0 += stepY0;
+                    row1 += stepY1;
+                    row2 += stepY2;
+                }
+                shader.endBlock(left, top, right, bottom);
+            }
+        }
+    }
+
+    /**
+     * Цвет ARGB, интерполированный между цветами вершин по барицентрическим координатам.
+     */
+    public static int interpolateArgb(float lambda0, float lambda1, float lambda2, int colorA, int colorB, int colorC) {
+        int red = interpolateChannel(lambda0, lambda1, lambda2, colorA >> 16, colorB >> 16, colorC >> 16);
+        int green = interpolateChannel(lambda0, lambda1, lambda2, colorA >> 8, colorB >> 8, colorC >> 8);
+        int blue = interpolateChannel(lambda0, lambda1, lambda2, colorA, colorB, colorC);
+        return 0xFF000000 | (red << 16) | (green << 8) | blue;
+    }
+
+    private static int interpolateChannel(float lambda0, float lambda1, float lambda2, int a, int b, int c) {
+        float value = lambda0 * (a & 0xFF) + lambda1 * (b & 0xFF) + lambda2 * (c & 0xFF);
+        return Math.max(0, Math.min(255, Math.round(value)));
+    }
+
+    private static long edgeAt(long a, long b, long c, int x, int y) {
+        return a * ((long) x << SUBPIXEL_BITS) + b * ((long) y << SUBPIXEL_BITS) + c;
+    }
+
+    /**
+     * Для положительной площади при оси y вниз: верхнее ребро горизонтально и идет вправо (a == 0, b > 0),
+     * левое идет вверх (a > 0).
+     */
+    private static boolean isTopLeft(long a, long b) {
+        return a > 0 || (a == 0 && b > 0);
+    }
+}
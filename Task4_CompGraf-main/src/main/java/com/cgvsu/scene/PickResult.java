@@ -0,0 +1,27 @@
+package com.cgvsu.scene;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+
+/**
+ * Результат выбора лучом: модель, индекс полигона, точка попадания в мировых координатах
+ * и параметр луча до нее (0 - ближняя плоскость камеры, 1 - дальняя).
+ */
+public class PickResult extends PolygonIndexData {
+    private final Vector3f point;
+    private final float distance;
+
+    public PickResult(int polygonIndex, Model model, Vector3f point, float distance) {
+        super(polygonIndex, model);
+        this.point = point;
+        this.distance = distance;
+    }
+
+    public Vector3f getPoint() {
+        return point;
+    }
+
+    public float getDistance() {
+        return distance;
+    }
+}
@@ -19,4 +19,20 @@ public class PolygonIndexData {
     public int getPolygonIndex() {
         return polygonIndex;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PolygonIndexData other)) {
+            return false;
+        }
+        return model == other.model && polygonIndex == other.polygonIndex;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(model) * 31 + polygonIndex;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.cgvsu.scene;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.render_engine.Camera;
+
+/**
+ * Выбор модели и полигона под курсором.
+ *
+ * <p>Точка экрана переводится в нормализованные координаты и обратной матрицей вида-проекции
+ * разворачивается в отрезок от ближней до дальней плоскости камеры. Отрезок пересекается с иерархией
+ * ограничивающих объемов каждой модели ({@link Model#getBoundingVolumeHierarchy()}), так что выбор стоит
+ * логарифм от числа граней, а не полный перебор вершин.</p>
+ */
+public class RayPicker {
+
+    /**
+     * Ближайший полигон под точкой (x, y) кадра width x height или null.
+     * Модели рисуются без собственных преобразований, поэтому луч строится в координатах вершин.
+     */
+    public static PickResult pick(Scene scene, Camera camera, double x, double y, int width, int height) {
+        Matrix4f viewProjection = camera.getProjectionMatrix().multiplyNew(camera.getViewMatrix());
+        Matrix4f inverse;
+        try {
+            inverse = viewProjection.inverse(new Matrix4f());
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        // Та же развертка, что в ScreenVertices, только в обратную сторону
+        float ndcX = (float) (2 * x / width - 1);
+        float ndcY = (float) (1 - 2 * y / height);
+        Vector3f near = inverse.transformPoint(new Vector3f(ndcX, ndcY, -1), new Vector3f());
+        Vector3f far = inverse.transformPoint(new Vector3f(ndcX, ndcY, 1), new Vector3f());
+        return pick(scene, near, far);
+    }
+
+    /**
+     * Ближайший к from полигон на отрезке from - to или null.
+     */
+    public static PickResult pick(Scene scene, Vector3f from, Vector3f to) {
+        float ox = from.getX(), oy = from.getY(), oz = from.getZ();
+        float dx = to.getX() - ox, dy = to.getY() - oy, dz = to.getZ() - oz;
+        float[] distance = {1};
+        Model pickedModel = null;
+        int pickedPolygon = -1;
+        for (Model model : scene.getModels()) {
+            int polygon = model.getBoundingVolumeHierarchy().intersectRay(ox, oy, oz, dx, dy, dz, distance);
+            if (polygon >= 0) {
+                pickedModel = model;
+                pickedPolygon = polygon;
+            }
+        }
+        if (pickedModel == null) {
+            return null;
+        }
+        float t = distance[0];
+        return new PickResult(pickedPolygon, pickedModel, new Vector3f(ox + t * dx, oy + t * dy, oz + t * dz), t);
+    }
+}
@@ -13,6 +13,8 @@ public class Scene {
 
     private HashMap<Model, ModelSceneOptions> models;
     private Model activeModel;
+    // Полигон под курсором, подсвечивается в кадре при включенном буфере идентификаторов
+    private PolygonIndexData highlightedPolygon;
     private List<Camera> cameras = new ArrayList<>();
     private int activeCameraIndex;
 
@@ -43,6 +45,14 @@ public class Scene {
         return activeModel;
     }
 
+    public void setHighlightedPolygon(PolygonIndexData highlightedPolygon) {
+        this.highlightedPolygon = highlightedPolygon;
+    }
+
+    public PolygonIndexData getHighlightedPolygon() {
+        return highlightedPolygon;
+    }
+
     public Set<Model> getModels() {
         return models.keySet();
     }
@@ -78,12 +88,14 @@ public class Scene {
         models.put(model, options);
     }
 
+    /**
+     * Модель, у одной из граней которой есть вершина, равная point. Грани ищутся по иерархии ограничивающих
+     * объемов модели, поэтому проверяются только листья, чьи параллелепипеды содержат точку.
+     */
     public Model getModelAt(Vector3f point) {
         for (Model model : models.keySet()) {
-            for (Vector3f vertex : model.getVertices()) {
-                if (vertex.equals(point)) {
-                    return model;
-                }
+            if (model.getBoundingVolumeHierarchy().findFaceWithVertex(point.getX(), point.getY(), point.getZ()) >= 0) {
+                return model;
             }
         }
         return null;
@@ -0,0 +1,166 @@
+package com.cgvsu.math.tests.Graphics;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.BoundingVolumeHierarchy;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.ModelEditingTools;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.render_engine.BackgroundRenderer;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.FrameSnapshot;
+import com.cgvsu.render_engine.GraphicConveyor;
+import com.cgvsu.render_engine.RenderContext;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderParameters;
+import com.cgvsu.scene.Scene;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class BackgroundRendererTest {
+    private static final Path MODEL_PATH = Path.of("3DModels/SimpleModelsForReaderTests/UglyManHeadFromVova_26kPoints.obj");
+    private static final int WIDTH = 160;
+    private static final int HEIGHT = 120;
+
+    @Test
+    public void testSnapshotIsNotAffectedByLaterEdits() throws Exception {
+        Model model = ObjReader.read(MODEL_PATH);
+        Scene scene = new Scene();
+        scene.addModel(model);
+        Camera camera = camera(0);
+        RenderParameters parameters = parameters();
+
+        RenderContext reference = new RenderContext(WIDTH, HEIGHT);
+        RenderEngine.render(reference, camera, scene, parameters);
+        FrameSnapshot snapshot = FrameSnapshot.capture(scene, camera, parameters, WIDTH, HEIGHT);
+        BoundingVolumeHierarchy hierarchy = model.getBoundingVolumeHierarchy();
+        float[] rootBounds = bounds(hierarchy);
+
+        // Сцена меняется, пока снимок ждет отрисовки
+        ModelEditingTools.deformModelFromTransformationMatrix(
+                GraphicConveyor.scaleRotateTranslate(new Vector3f(0, 90, 0), new Vector3f(2, 1, 1), new Vector3f(3, 0, 0)),
+                model);
+        model.deletePolygon(0);
+        parameters.setColorPolygon(false);
+        camera.setPosition(new Vector3f(0, 0, 10));
+        Assertions.assertNotSame(hierarchy, model.getBoundingVolumeHierarchy());
+        Assertions.assertArrayEquals(rootBounds, bounds(hierarchy));
+
+        RenderContext context = new RenderContext(1, 1);
+        RenderEngine.render(context, snapshot);
+        Assertions.assertEquals(WIDTH, context.getWidth());
+        Assertions.assertArrayEquals(reference.getColorBuffer(), context.getColorBuffer());
+    }
+
+    @Test
+    public void testHierarchyIsBuiltOnRenderThread() throws Exception {
+        Model model = ObjReader.read(MODEL_PATH);
+        Scene scene = new Scene();
+        scene.addModel(model);
+        RenderParameters parameters = parameters();
+        RenderContext reference = new RenderContext(WIDTH, HEIGHT);
+        parameters.setFrustumCulling(false);
+        RenderEngine.render(reference, camera(0), scene, parameters);
+        parameters.setFrustumCulling(true);
+
+        // Снимок не строит иерархию: у только что загруженной модели ее нет
+        FrameSnapshot snapshot = FrameSnapshot.capture(scene, camera(0), parameters, WIDTH, HEIGHT);
+        Assertions.assertNull(model.findBoundingVolumeHierarchy());
+
+        Semaphore frames = new Semaphore(0);
+        BackgroundRenderer renderer = new BackgroundRenderer(frames::release);
+        try {
+            renderer.submit(snapshot);
+            Assertions.assertTrue(frames.tryAcquire(30, TimeUnit.SECONDS));
+            Assertions.assertArrayEquals(reference.getColorBuffer(), renderer.takeFrame().getColorBuffer());
+        } finally {
+            renderer.shutdown();
+        }
+
+        // Иерархия из потока отрисовки достается модели и уточняется после деформации
+        BoundingVolumeHierarchy hierarchy = model.findBoundingVolumeHierarchy();
+        Assertions.assertNotNull(hierarchy);
+        Assertions.assertSame(hierarchy, model.getBoundingVolumeHierarchy());
+        ModelEditingTools.deformModelFromTransformationMatrix(
+                GraphicConveyor.scaleRotateTranslate(new Vector3f(0, 0, 0), new Vector3f(2, 2, 2), new Vector3f(0, 0, 0)),
+                model);
+        BoundingVolumeHierarchy refitted = model.findBoundingVolumeHierarchy();
+        Assertions.assertNotNull(refitted);
+        Assertions.assertNotSame(hierarchy, refitted);
+        Assertions.assertTrue(refitted.hasTopologyOf(model.getMesh()));
+
+        model.deletePolygon(0);
+        Assertions.assertNull(model.findBoundingVolumeHierarchy());
+    }
+
+    @Test
+    public void testRendersLatestSnapshotOffThread() throws Exception {
+        Model model = ObjReader.read(MODEL_PATH);
+        Scene scene = new Scene();
+        scene.addModel(model);
+        RenderParameters parameters = parameters();
+        Semaphore frames = new Semaphore(0);
+        Thread[] renderThread = new Thread[1];
+        BackgroundRenderer renderer = new BackgroundRenderer(() -> {
+            renderThread[0] = Thread.currentThread();
+            frames.release();
+        });
+        try {
+            Assertions.assertNull(renderer.takeFrame());
+            renderer.submit(FrameSnapshot.capture(scene, camera(0), parameters, WIDTH, HEIGHT));
+            Assertions.assertTrue(frames.tryAcquire(30, TimeUnit.SECONDS));
+            Assertions.assertNotSame(Thread.currentThread(), renderThread[0]);
+            RenderContext first = renderer.takeFrame();
+            Assertions.assertSame(first, renderer.getFrontFrame());
+            Assertions.assertNull(renderer.takeFrame());
+
+            // Пачка снимков: последний обязательно рисуется, промежуточные могут быть пропущены
+            for (int i = 1; i <= 10; i++) {
+                renderer.submit(FrameSnapshot.capture(scene, camera(i * 10), parameters, WIDTH, HEIGHT));
+            }
+            RenderContext expected = new RenderContext(WIDTH, HEIGHT);
+            RenderEngine.render(expected, camera(100), scene, parameters);
+            RenderContext latest = null;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (System.nanoTime() < deadline) {
+                frames.tryAcquire(1, TimeUnit.SECONDS);
+                RenderContext frame = renderer.takeFrame();
+                if (frame != null) {
+                    Assertions.assertNotSame(latest, frame);
+                    latest = frame;
+                    if (Arrays.equals(expected.getColorBuffer(), frame.getColorBuffer())) {
+                        break;
+                    }
+                }
+            }
+            Assertions.assertNotNull(latest);
+            Assertions.assertArrayEquals(expected.getColorBuffer(), latest.getColorBuffer());
+            Assertions.assertSame(latest, renderer.getFrontFrame());
+        } finally {
+            renderer.shutdown();
+        }
+    }
+
+    private static Camera camera(float azimuth) {
+        Camera camera = new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 1.0f,
+                (float) WIDTH / HEIGHT, 1, 200);
+        camera.setAzimuth(azimuth);
+        return camera;
+    }
+
+    private static RenderParameters parameters() {
+        RenderParameters parameters = new RenderParameters();
+        parameters.setColorPolygon(true);
+        parameters.setIdBuffer(true);
+        return parameters;
+    }
+
+    private static float[] bounds(BoundingVolumeHierarchy hierarchy) {
+        return new float[]{hierarchy.getMin(0), hierarchy.getMin(1), hierarchy.getMin(2),
+                hierarchy.getMax(0), hierarchy.getMax(1), hierarchy.getMax(2)};
+    }
+}
@@ -0,0 +1,86 @@
+package com.cgvsu.math.tests.Graphics;
+
+import com.cgvsu.BatchRenderer;
+import com.cgvsu.render_engine.FrameEncoder;
+import com.cgvsu.render_engine.RenderContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+public class BatchRendererTest {
+
+    private static final Path MODEL_PATH = Path.of("3DModels/SimpleModelsForReaderTests/UglyManHeadFromVova_26kPoints.obj");
+
+    @Test
+    public void testEncoders() throws IOException {
+        RenderContext context = new RenderContext(2, 2);
+        int[] colors = {0xFF102030, 0x00000000, 0x80FFFFFF, 0xFF0000FF};
+        System.arraycopy(colors, 0, context.getColorBuffer(), 0, colors.length);
+
+        ByteArrayOutputStream ppm = new ByteArrayOutputStream();
+        FrameEncoder.write(context, FrameEncoder.PPM, ppm);
+        byte[] header = "P6\n2 2\n255\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] bytes = ppm.toByteArray();
+        Assertions.assertArrayEquals(header, Arrays.copyOf(bytes, header.length));
+        Assertions.assertArrayEquals(new byte[]{0x10, 0x20, 0x30, 0, 0, 0, -1, -1, -1, 0, 0, -1},
+                Arrays.copyOfRange(bytes, header.length, bytes.length));
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        FrameEncoder.write(context, FrameEncoder.PNG, png);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png.toByteArray()));
+        Assertions.assertArrayEquals(colors, image.getRGB(0, 0, 2, 2, null, 0, 2));
+    }
+
+    @Test
+    public void testParallelBatchMatchesSequential() throws IOException {
+        Path input = Files.createTempDirectory("batch-input");
+        Path output = Files.createTempDirectory("batch-output");
+        Path sequentialOutput = Files.createTempDirectory("batch-sequential");
+        for (String name : List.of("a.obj", "b.obj", "c.obj")) {
+            Files.copy(MODEL_PATH, input.resolve(name));
+        }
+        Files.writeString(input.resolve("notes.txt"), "not a model");
+
+        List<BatchRenderer.Result> results = BatchRenderer.render(BatchRenderer.Options.parse(new String[]{
+                input.toString(), output.toString(), "--size", "160x120", "--mode", "color", "--threads", "3"}));
+        List<BatchRenderer.Result> sequential = BatchRenderer.render(BatchRenderer.Options.parse(new String[]{
+                input.toString(), sequentialOutput.toString(), "--size", "160x120", "--mode", "color", "--threads", "1"}));
+
+        Assertions.assertEquals(3, results.size());
+        byte[] reference = Files.readAllBytes(sequential.get(0).output());
+        BufferedImage image = ImageIO.read(sequential.get(0).output().toFile());
+        int covered = 0;
+        for (int pixel : image.getRGB(0, 0, 160, 120, null, 0, 160)) {
+            covered += pixel >>> 24 != 0 ? 1 : 0;
+        }
+        Assertions.assertTrue(covered > 1000);
+        for (int i = 0; i < results.size(); i++) {
+            BatchRenderer.Result result = results.get(i);
+            Assertions.assertNull(result.error());
+            Assertions.assertTrue(result.faceCount() > 0);
+            Assertions.assertEquals(output.resolve("abc".charAt(i) + ".png"), result.output());
+            Assertions.assertArrayEquals(reference, Files.readAllBytes(result.output()));
+            Assertions.assertArrayEquals(reference, Files.readAllBytes(sequential.get(i).output()));
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidOptions() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BatchRenderer.Options.parse(new String[]{"in"}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BatchRenderer.Options.parse(new String[]{"in", "out", "--size", "big"}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BatchRenderer.Options.parse(new String[]{"in", "out", "--format", "gif"}));
+    }
+}
@@ -0,0 +1,109 @@
+package com.cgvsu.math.tests.Graphics;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.render_engine.BackgroundRenderer;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.DynamicResolution;
+import com.cgvsu.render_engine.FrameSnapshot;
+import com.cgvsu.render_engine.ProgressiveRefinement;
+import com.cgvsu.render_engine.RenderContext;
+import com.cgvsu.render_engine.RenderParameters;
+import com.cgvsu.scene.Scene;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class DynamicResolutionTest {
+    private static final long TARGET = 16_000_000L;
+
+    @Test
+    public void testConvergesToTargetFrameTime() {
+        DynamicResolution resolution = new DynamicResolution(TARGET);
+        // Полный кадр вдевятеро дороже цели: в нее укладывается треть разрешения
+        for (int i = 0; i < 30; i++) {
+            float scale = resolution.getScale();
+            resolution.onFrameRendered(scale, (long) (9 * TARGET * scale * scale));
+        }
+        Assertions.assertEquals(1f / 3, resolution.getScale(), 0.03f);
+
+        // Холст уменьшился: разрешение растет обратно до полного
+        for (int i = 0; i < 30; i++) {
+            float scale = resolution.getScale();
+            resolution.onFrameRendered(scale, (long) (TARGET / 4 * scale * scale));
+        }
+        Assertions.assertEquals(1, resolution.getScale());
+    }
+
+    @Test
+    public void testKeepsScaleWithinTolerance() {
+        DynamicResolution resolution = new DynamicResolution(TARGET);
+        resolution.onFrameRendered(1, 4 * TARGET);
+        float scale = resolution.getScale();
+        Assertions.assertTrue(scale < 1);
+        resolution.onFrameRendered(scale, TARGET + TARGET / 20);
+        Assertions.assertEquals(scale, resolution.getScale());
+        resolution.onFrameRendered(scale, TARGET - TARGET / 20);
+        Assertions.assertEquals(scale, resolution.getScale());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> resolution.setTargetFrameTimeNanos(0));
+    }
+
+    @Test
+    public void testRefinementRespectsMaxScale() {
+        ProgressiveRefinement refinement = new ProgressiveRefinement(TARGET, 0);
+        RenderParameters parameters = new RenderParameters();
+        refinement.setMaxScale(0.4f);
+        Assertions.assertEquals(0.4f, refinement.nextPass(0, parameters).getScale());
+
+        refinement.onCameraMoved(0);
+        ProgressiveRefinement.Pass pass = refinement.nextPass(-1, parameters);
+        Assertions.assertTrue(pass.isInteractive());
+        Assertions.assertEquals(0.4f, pass.getScale());
+        refinement.onFrameRendered(pass, TARGET / 2);
+
+        // Ступень 0.5 выше предела и пропускается, сразу рисуется полный кадр в пределе
+        ProgressiveRefinement.Pass refined = refinement.nextPass(0, parameters);
+        Assertions.assertFalse(refined.isInteractive());
+        Assertions.assertEquals(0.4f, refined.getScale());
+        refinement.onFrameRendered(refined, TARGET);
+        Assertions.assertFalse(refinement.isRefinementDue(0));
+    }
+
+    @Test
+    public void testBackgroundFrameIsUpscaledToCanvas() throws Exception {
+        Model model = ObjReader.read(Path.of("3DModels/SimpleModelsForReaderTests/UglyManHeadFromVova_26kPoints.obj"));
+        Scene scene = new Scene();
+        scene.addModel(model);
+        Camera camera = new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 1.0f, 4f / 3, 1, 200);
+        RenderParameters parameters = new RenderParameters();
+        parameters.setColorPolygon(true);
+        ProgressiveRefinement refinement = new ProgressiveRefinement();
+        refinement.setMaxScale(0.5f);
+        FrameSnapshot snapshot = FrameSnapshot.capture(scene, camera, refinement.nextPass(0, parameters), 160, 120);
+        Assertions.assertEquals(80, snapshot.getWidth());
+        Assertions.assertEquals(160, snapshot.getOutputWidth());
+
+        Semaphore frames = new Semaphore(0);
+        BackgroundRenderer renderer = new BackgroundRenderer(frames::release);
+        try {
+            renderer.submit(snapshot);
+            Assertions.assertTrue(frames.tryAcquire(30, TimeUnit.SECONDS));
+            RenderContext frame = renderer.takeFrame();
+            Assertions.assertEquals(80, frame.getWidth());
+            Assertions.assertEquals(60, frame.getHeight());
+            Assertions.assertEquals(160, frame.getOutputWidth());
+            Assertions.assertEquals(120, frame.getOutputHeight());
+            Assertions.assertEquals(160 * 120, frame.getOutputBuffer().length);
+            Assertions.assertTrue(frame.getFrameTimeNanos() > 0);
+            // Центр модели виден и в кадре, и в растянутом изображении
+            Assertions.assertNotEquals(0, frame.getColorBuffer()[30 * 80 + 40] >>> 24);
+            Assertions.assertNotEquals(0, frame.getOutputBuffer()[60 * 160 + 80] >>> 24);
+        } finally {
+            renderer.shutdown();
+        }
+    }
+}
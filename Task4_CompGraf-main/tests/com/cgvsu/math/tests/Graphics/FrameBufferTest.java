@@ -0,0 +1,93 @@
+package com.cgvsu.math.tests.Graphics;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.RenderContext;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderParameters;
+import com.cgvsu.scene.Scene;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FrameBufferTest {
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 100;
+    // Квадрат из двух треугольников в плоскости z = 0 перед камерой, по высоте занимает около трети кадра
+    private static final String QUAD = """
+            v -20 -20 0
+            v 20 -20 0
+            v 20 20 0
+            v -20 20 0
+            f 1 2 3
+            f 1 3 4
+            """;
+
+    @Test
+    public void testFillWritesColorAndDepth() {
+        RenderContext context = new RenderContext(WIDTH, HEIGHT);
+        RenderEngine.render(context, camera(), scene(), parameters(true));
+
+        int center = HEIGHT / 2 * WIDTH + WIDTH / 2;
+        Assertions.assertEquals(0xFF, context.getColorBuffer()[center] >>> 24);
+        Assertions.assertTrue(context.getZBuffer()[center] < Float.MAX_VALUE);
+        Assertions.assertEquals(0, context.getColorBuffer()[0]);
+        Assertions.assertEquals(Float.MAX_VALUE, context.getZBuffer()[0]);
+        Assertions.assertEquals(0, context.getColorBuffer()[WIDTH * HEIGHT - 1]);
+    }
+
+    @Test
+    public void testWireframeDrawsOnlyEdges() {
+        RenderContext context = new RenderContext(WIDTH, HEIGHT);
+        RenderEngine.render(context, camera(), scene(), parameters(false));
+
+        int[] colors = context.getColorBuffer();
+        Assertions.assertEquals(0, colors[HEIGHT / 2 * WIDTH + WIDTH / 2 - 10]);
+        int row = HEIGHT / 2 * WIDTH;
+        int edges = 0;
+        for (int x = 0; x < WIDTH; x++) {
+            if (colors[row + x] != 0) {
+                edges++;
+            }
+        }
+        // Строка через центр пересекает левое и правое ребро и диагональ
+        Assertions.assertTrue(edges >= 3 && edges <= 9, "edge pixels: " + edges);
+    }
+
+    @Test
+    public void testBuffersAreReusedBetweenFrames() {
+        RenderContext context = new RenderContext(WIDTH, HEIGHT);
+        Scene scene = scene();
+        RenderParameters parameters = parameters(true);
+        RenderEngine.render(context, camera(), scene, parameters);
+        int[] colors = context.getColorBuffer();
+        float[] depth = context.getZBuffer();
+        int[] firstFrame = colors.clone();
+
+        RenderEngine.render(context, camera(), scene, parameters);
+        Assertions.assertSame(colors, context.getColorBuffer());
+        Assertions.assertSame(depth, context.getZBuffer());
+        Assertions.assertArrayEquals(firstFrame, context.getColorBuffer());
+
+        context.resize(WIDTH / 2, HEIGHT / 2);
+        Assertions.assertEquals(WIDTH / 2 * (HEIGHT / 2), context.getColorBuffer().length);
+        Assertions.assertNotSame(colors, context.getColorBuffer());
+    }
+
+    private static Scene scene() {
+        Scene scene = new Scene();
+        scene.addModel(ObjReader.read(QUAD));
+        return scene;
+    }
+
+    private static Camera camera() {
+        return new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 1.0f, (float) WIDTH / HEIGHT, 1, 200);
+    }
+
+    private static RenderParameters parameters(boolean fill) {
+        RenderParameters parameters = new RenderParameters();
+        parameters.setColorPolygon(fill);
+        parameters.setBackFaceCulling(false);
+        return parameters;
+    }
+}
@@ -0,0 +1,72 @@
+package com.cgvsu.math.tests.Graphics;
+
+import com.cgvsu.render_engine.FrameUpscaler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class FrameUpscalerTest {
+
+    @Test
+    public void testSameSizeIsCopied() {
+        int[] source = {0xFF102030, 0x80405060, 0x00000000, 0xFFFFFFFF};
+        int[] target = new int[4];
+        FrameUpscaler.bilinear(source, 2, 2, target, 2, 2);
+        Assertions.assertArrayEquals(source, target);
+    }
+
+    @Test
+    public void testUniformFrameStaysUniform() {
+        int[] source = new int[3 * 2];
+        Arrays.fill(source, 0xFFC0A080);
+        int[] target = new int[7 * 5];
+        FrameUpscaler.bilinear(source, 3, 2, target, 7, 5);
+        for (int color : target) {
+            Assertions.assertEquals(0xFFC0A080, color);
+        }
+    }
+
+    @Test
+    public void testInterpolatesEveryChannel() {
+        // Два пикселя растягиваются в четыре: крайние повторяют исходные, средние смешаны 3:1 и 1:3
+        int[] source = {0x00000000, 0xFFFFFF80};
+        int[] target = new int[4];
+        FrameUpscaler.bilinear(source, 2, 1, target, 4, 1);
+        Assertions.assertEquals(0x00000000, target[0]);
+        Assertions.assertEquals(0xFFFFFF80, target[3]);
+        assertChannels(0x3F3F3F20, target[1]);
+        assertChannels(0xBFBFBF60, target[2]);
+        Assertions.assertTrue(Integer.compareUnsigned(target[1], target[2]) < 0);
+    }
+
+    @Test
+    public void testVerticalGradientIsMonotonic() {
+        int[] source = {0xFF000000, 0xFF0000FF};
+        int[] target = new int[3 * 8];
+        FrameUpscaler.bilinear(source, 1, 2, target, 3, 8);
+        int previous = -1;
+        for (int y = 0; y < 8; y++) {
+            int blue = target[y * 3] & 0xFF;
+            Assertions.assertEquals(target[y * 3], target[y * 3 + 2]);
+            Assertions.assertEquals(0xFF, target[y * 3] >>> 24);
+            Assertions.assertTrue(blue >= previous);
+            previous = blue;
+        }
+        Assertions.assertEquals(0, target[0] & 0xFF);
+        Assertions.assertEquals(0xFF, target[7 * 3] & 0xFF);
+    }
+
+    @Test
+    public void testRejectsSmallBuffer() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> FrameUpscaler.bilinear(new int[4], 2, 2, new int[8], 3, 3));
+    }
+
+    private static void assertChannels(int expected, int actual) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            Assertions.assertEquals((expected >>> shift) & 0xFF, (actual >>> shift) & 0xFF, 1,
+                    "channel " + shift / 8);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.cgvsu.math.tests.Graphics;
+
+import com.cgvsu.math.tests.Model.TestMeshes;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.render_engine.RasterStatistics;
+import com.cgvsu.render_engine.RenderContext;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderParameters;
+import com.cgvsu.scene.Scene;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class HierarchicalDepthTest {
+    @Test
+    public void testDepthBlocks() {
+        RenderContext context = new RenderContext(20, 10);
+        Assertions.assertFalse(context.isDepthOccluded(0, 0, 19, 9, 5));
+
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                context.testAndSetDepth(y * 20 + x, x == 3 ? 2 : 4);
+            }
+        }
+        context.updateDepthBlock(5, 5);
+        Assertions.assertEquals(2, context.getBlockMinDepth(0, 0));
+        Assertions.assertEquals(4, context.getBlockMaxDepth(7, 7));
+        Assertions.assertTrue(context.isDepthOccluded(0, 0, 7, 7, 4));
+        Assertions.assertFalse(context.isDepthOccluded(0, 0, 7, 7, 3.5f));
+        Assertions.assertFalse(context.isDepthOccluded(0, 0, 8, 7, 4));
+
+        context.clear();
+        Assertions.assertFalse(context.isDepthOccluded(0, 0, 7, 7, 4));
+    }
+
+    @Test
+    public void testOccludedLayersCulledWithSameImage() {
+        Scene scene = new Scene();
+        scene.addModel(new Model(layers(6, 20)));
+        RenderParameters parameters = new RenderParameters();
+        parameters.setColorPolygon(true);
+        scene.getActiveCamera().setAspectRatio(1.5f);
+
+        RenderContext reference = new RenderContext(300, 200);
+        parameters.setHierarchicalDepth(false);
+        RenderEngine.render(reference, scene.getActiveCamera(), scene, parameters);
+        RenderContext culled = new RenderContext(300, 200);
+        parameters.setHierarchicalDepth(true);
+        RenderEngine.render(culled, scene.getActiveCamera(), scene, parameters);
+
+        Assertions.assertArrayEquals(reference.getColorBuffer(), culled.getColorBuffer());
+        Assertions.assertArrayEquals(reference.getZBuffer(), culled.getZBuffer());
+        RasterStatistics withoutCulling = reference.getStatistics();
+        RasterStatistics withCulling = culled.getStatistics();
+        Assertions.assertEquals(0, withoutCulling.getCulledTriangles());
+        Assertions.assertTrue(withCulling.getCulledTriangles() > 0);
+        Assertions.assertTrue(withCulling.getFragments() < withoutCulling.getFragments());
+        Assertions.assertEquals(withoutCulling.getDepthPassed(), withCulling.getDepthPassed());
+        Assertions.assertEquals(1.0, withCulling.getOverdraw(culled.countCoveredPixels()), 1e-9);
+    }
+
+    /**
+     * Одинаковые квадратные решетки из треугольников, ближняя идет первой.
+     */
+    private static PackedMesh layers(int layerCount, int side) {
+        int vertexSide = side + 1;
+        float[] positions = new float[layerCount * vertexSide * vertexSide * 3];
+        int faceCount = layerCount * side * side * 2;
+        int[] vertexIndices = new int[faceCount * 3];
+        int face = 0;
+        for (int layer = 0; layer < layerCount; layer++) {
+            int base = layer * vertexSide * vertexSide;
+            for (int row = 0; row < vertexSide; row++) {
+                for (int col = 0; col < vertexSide; col++) {
+                    int i = (base + row * vertexSide + col) * 3;
+                    positions[i] = col * 60f / side - 30;
+                    positions[i + 1] = row * 60f / side - 30;
+                    positions[i + 2] = 30 - layer * 5;
+                }
+            }
+            for (int row = 0; row < side; row++) {
+                for (int col = 0; col < side; col++) {
+                    int v = base + row * vertexSide + col;
+                    int[] corners = {v, v + 1, v + vertexSide + 1, v, v + vertexSide + 1, v + vertexSide};
+                    System.arraycopy(corners, 0, vertexIndices, face * 3, 6);
+                    face += 2;
+                }
+            }
+        }
+        return TestMeshes.triangles(positions, vertexIndices);
+    }
+}
@@ -0,0 +1,135 @@
+package com.cgvsu.math.tests.Graphics;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.math.tests.Model.TestMeshes;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.RasterStatistics;
+import com.cgvsu.render_engine.RenderContext;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderParameters;
+import com.cgvsu.render_engine.ScreenVertices;
+import com.cgvsu.scene.Scene;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PrimitiveAssemblerTest {
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 100;
+
+    @Test
+    public void testOutcodes() {
+        Camera camera = new Camera(new Vector3f(0, 0, 0), new Vector3f(0, 0, -1), 1.0f, 1, 0.1f, 100);
+        ScreenVertices vertices = new ScreenVertices();
+        vertices.transform(new float[]{0, 0, -10, 0, 0, 10, -100, 0, -10, 0, 0, -1000},
+                camera.getProjectionMatrix().multiplyNew(camera.getViewMatrix()), WIDTH, HEIGHT);
+
+        int[] outcodes = vertices.getOutcodes();
+        Assertions.assertEquals(0, outcodes[0]);
+        Assertions.assertEquals(ScreenVertices.OUTSIDE_NEAR, outcodes[1] & ScreenVertices.OUTSIDE_NEAR);
+        Assertions.assertNotEquals(0, outcodes[2] & (ScreenVertices.OUTSIDE_LEFT | ScreenVertices.OUTSIDE_RIGHT));
+        Assertions.assertEquals(0, outcodes[2] & ~(ScreenVertices.OUTSIDE_LEFT | ScreenVertices.OUTSIDE_RIGHT));
+        Assertions.assertEquals(ScreenVertices.OUTSIDE_FAR, outcodes[3]);
+
+        int appended = vertices.appendVertex(0, 0, 0, 1);
+        Assertions.assertEquals(4, appended);
+        Assertions.assertEquals(4, vertices.getVertexCount());
+        Assertions.assertEquals(5, vertices.size());
+        Assertions.assertEquals(WIDTH / 2f, vertices.getX()[appended], 1e-4);
+        Assertions.assertEquals(HEIGHT / 2f, vertices.getY()[appended], 1e-4);
+    }
+
+    @Test
+    public void testClosedMeshSameImageWithBackFaceCulling() {
+        Scene scene = new Scene();
+        scene.addModel(new Model(cube(10)));
+        Camera camera = scene.getActiveCamera();
+        camera.setAspectRatio((float) WIDTH / HEIGHT);
+        camera.setPosition(new Vector3f(25, 35, 45));
+        RenderParameters parameters = new RenderParameters();
+        parameters.setColorPolygon(true);
+        // Иначе часть граней отбрасывается по иерархии модели еще до сборки треугольников
+        parameters.setFrustumCulling(false);
+
+        RenderContext reference = new RenderContext(WIDTH, HEIGHT);
+        parameters.setBackFaceCulling(false);
+        RenderEngine.render(reference, camera, scene, parameters);
+        RenderContext culled = new RenderContext(WIDTH, HEIGHT);
+        parameters.setBackFaceCulling(true);
+        RenderEngine.render(culled, camera, scene, parameters);
+
+        Assertions.assertTrue(culled.countCoveredPixels() > 0);
+        Assertions.assertArrayEquals(reference.getColorBuffer(), culled.getColorBuffer());
+        Assertions.assertArrayEquals(reference.getZBuffer(), culled.getZBuffer());
+        Assertions.assertEquals(0, reference.getStatistics().getBackFaces());
+        Assertions.assertEquals(6, culled.getStatistics().getBackFaces());
+        Assertions.assertTrue(culled.getStatistics().getFragments() < reference.getStatistics().getFragments());
+
+        // Изнутри замкнутой сетки видны только задние грани
+        camera.setPosition(new Vector3f(1, 2, 3));
+        RenderEngine.render(culled, camera, scene, parameters);
+        Assertions.assertEquals(0, culled.countCoveredPixels());
+        Assertions.assertEquals(12, culled.getStatistics().getBackFaces()
+                + culled.getStatistics().getOutsideTriangles());
+    }
+
+    @Test
+    public void testTriangleCrossingNearPlaneIsClipped() {
+        // Пол под камерой: одна вершина далеко впереди, две - за камерой
+        float[] positions = {0, -1, -50, 10, -1, 5, -10, -1, 5};
+        Scene scene = new Scene();
+        scene.addModel(new Model(TestMeshes.triangles(positions, new int[]{0, 2, 1})));
+        Camera camera = scene.getActiveCamera();
+        camera.setAspectRatio((float) WIDTH / HEIGHT);
+        camera.setPosition(new Vector3f(0, 0, 0));
+        camera.setTarget(new Vector3f(0, 0, -1));
+        RenderParameters parameters = new RenderParameters();
+        parameters.setColorPolygon(true);
+
+        for (boolean frustumClipping : new boolean[]{false, true}) {
+            parameters.setFrustumClipping(frustumClipping);
+            RenderContext context = new RenderContext(WIDTH, HEIGHT);
+            RenderEngine.render(context, camera, scene, parameters);
+
+            RasterStatistics statistics = context.getStatistics();
+            Assertions.assertEquals(1, statistics.getClippedTriangles());
+            Assertions.assertEquals(0, statistics.getBackFaces());
+            int[] colors = context.getColorBuffer();
+            // Пол виден только ниже горизонта и закрывает низ кадра в центре
+            for (int y = 0; y < HEIGHT / 2; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    Assertions.assertEquals(0, colors[y * WIDTH + x]);
+                }
+            }
+            float[] depths = context.getZBuffer();
+            Assertions.assertNotEquals(Float.MAX_VALUE, depths[(HEIGHT - 1) * WIDTH + WIDTH / 2]);
+            for (float depth : depths) {
+                if (depth != Float.MAX_VALUE) {
+                    Assertions.assertTrue(depth >= -1 && depth <= 1, "depth " + depth);
+                }
+            }
+        }
+    }
+
+    /**
+     * Куб с центром в начале координат, грани против часовой стрелки при взгляде снаружи.
+     */
+    private static PackedMesh cube(float half) {
+        float[] positions = new float[8 * 3];
+        for (int i = 0; i < 8; i++) {
+            positions[i * 3] = (i & 1) == 0 ? -half : half;
+            positions[i * 3 + 1] = (i & 2) == 0 ? -half : half;
+            positions[i * 3 + 2] = (i & 4) == 0 ? -half : half;
+        }
+        int[] faces = {
+                0, 2, 3, 0, 3, 1,
+                4, 5, 7, 4, 7, 6,
+                0, 4, 6, 0, 6, 2,
+                1, 3, 7, 1, 7, 5,
+                0, 1, 5, 0, 5, 4,
+                2, 6, 7, 2, 7, 3
+        };
+        return TestMeshes.triangles(positions, faces);
+    }
+}
@@ -0,0 +1,141 @@
+package com.cgvsu.math.tests.Graphics;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.math.tests.Model.TestMeshes;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.PrimitiveIdBuffer;
+import com.cgvsu.render_engine.RenderContext;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderParameters;
+import com.cgvsu.scene.PickResult;
+import com.cgvsu.scene.PolygonIndexData;
+import com.cgvsu.scene.RayPicker;
+import com.cgvsu.scene.Scene;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PrimitiveIdBufferTest {
+    private static final int WIDTH = 160;
+    private static final int HEIGHT = 120;
+
+    @Test
+    public void testIdsMatchRayPicking() {
+        Scene scene = new Scene();
+        Model near = new Model(cube(10, 0));
+        Model far = new Model(cube(10, -25));
+        scene.addModel(near);
+        scene.addModel(far);
+        Camera camera = new Camera(new Vector3f(30, 25, 50), new Vector3f(-10, 0, -10), 1.0f,
+                (float) WIDTH / HEIGHT, 1, 200);
+        RenderParameters parameters = new RenderParameters();
+        parameters.setAllColorPolygon(true);
+
+        RenderContext reference = new RenderContext(WIDTH, HEIGHT);
+        RenderEngine.render(reference, camera, scene, parameters);
+        Assertions.assertNull(reference.getIdBuffer());
+
+        RenderContext context = new RenderContext(WIDTH, HEIGHT);
+        parameters.setIdBuffer(true);
+        // Плитки пишут идентификаторы параллельно, каждая в свой участок
+        parameters.setTileRasterizer(true);
+        RenderEngine.render(context, camera, scene, parameters);
+        Assertions.assertArrayEquals(reference.getColorBuffer(), context.getColorBuffer());
+        Assertions.assertArrayEquals(reference.getZBuffer(), context.getZBuffer());
+
+        PrimitiveIdBuffer idBuffer = context.getIdBuffer();
+        float[] depths = context.getZBuffer();
+        boolean[] seen = new boolean[2];
+        int checked = 0;
+        for (int y = 1; y < HEIGHT - 1; y++) {
+            for (int x = 1; x < WIDTH - 1; x++) {
+                int id = idBuffer.getId(x, y);
+                Assertions.assertEquals(depths[y * WIDTH + x] != Float.MAX_VALUE, id != PrimitiveIdBuffer.NO_ID);
+                // На границах полигонов отсчет растеризатора и луч могут разойтись из-за округления
+                boolean uniform = true;
+                for (int k = -1; k <= 1; k++) {
+                    for (int l = -1; l <= 1; l++) {
+                        uniform &= idBuffer.getId(x + l, y + k) == id;
+                    }
+                }
+                if (!uniform) {
+                    continue;
+                }
+                PolygonIndexData polygon = idBuffer.getPolygonAt(x, y);
+                PickResult pick = RayPicker.pick(scene, camera, x, y, WIDTH, HEIGHT);
+                if (polygon == null) {
+                    Assertions.assertNull(pick);
+                    continue;
+                }
+                Assertions.assertSame(pick.getModel(), polygon.getModel());
+                Assertions.assertEquals(pick.getPolygonIndex(), polygon.getPolygonIndex());
+                Assertions.assertEquals(id, idBuffer.getId(polygon.getModel(), polygon.getPolygonIndex()));
+                seen[polygon.getModel() == near ? 0 : 1] = true;
+                checked++;
+            }
+        }
+        Assertions.assertTrue(checked > 100);
+        Assertions.assertTrue(seen[0] && seen[1]);
+        Assertions.assertEquals(PrimitiveIdBuffer.NO_ID, idBuffer.getId(-1, 0));
+        Assertions.assertEquals(PrimitiveIdBuffer.NO_ID, idBuffer.getId(new Model(), 0));
+    }
+
+    @Test
+    public void testHighlightAndClear() {
+        Scene scene = new Scene();
+        Model model = new Model(cube(10, 0));
+        scene.addModel(model);
+        Camera camera = new Camera(new Vector3f(30, 25, 50), new Vector3f(0, 0, 0), 1.0f,
+                (float) WIDTH / HEIGHT, 1, 200);
+        RenderParameters parameters = new RenderParameters();
+        parameters.setAllColorPolygon(true);
+        parameters.setIdBuffer(true);
+        RenderContext context = new RenderContext(WIDTH, HEIGHT);
+        RenderEngine.render(context, camera, scene, parameters);
+
+        PrimitiveIdBuffer idBuffer = context.getIdBuffer();
+        PolygonIndexData center = idBuffer.getPolygonAt(WIDTH / 2, HEIGHT / 2);
+        Assertions.assertSame(model, center.getModel());
+        int id = idBuffer.getId(model, center.getPolygonIndex());
+        int[] colors = context.getColorBuffer().clone();
+        idBuffer.highlight(id, context.getColorBuffer(), 0xFF0000FF);
+        int highlighted = 0;
+        for (int i = 0; i < colors.length; i++) {
+            if (idBuffer.getIds()[i] == id) {
+                Assertions.assertEquals(0xFF7F007F, context.getColorBuffer()[i]);
+                highlighted++;
+            } else {
+                Assertions.assertEquals(colors[i], context.getColorBuffer()[i]);
+            }
+        }
+        Assertions.assertTrue(highlighted > 0);
+
+        context.clear();
+        Assertions.assertEquals(PrimitiveIdBuffer.NO_ID, idBuffer.getId(WIDTH / 2, HEIGHT / 2));
+        Assertions.assertEquals(PrimitiveIdBuffer.NO_ID, idBuffer.getId(model, center.getPolygonIndex()));
+        context.setIdBufferEnabled(false);
+        Assertions.assertNull(context.getIdBuffer());
+    }
+
+    /**
+     * Куб из четырехугольных граней с центром (0, 0, z), грани против часовой стрелки при взгляде снаружи.
+     */
+    private static PackedMesh cube(float half, float z) {
+        float[] positions = new float[8 * 3];
+        for (int i = 0; i < 8; i++) {
+            positions[i * 3] = (i & 1) == 0 ? -half : half;
+            positions[i * 3 + 1] = (i & 2) == 0 ? -half : half;
+            positions[i * 3 + 2] = z + ((i & 4) == 0 ? -half : half);
+        }
+        int[] vertexIndices = {
+                0, 2, 3, 1,
+                4, 5, 7, 6,
+                0, 4, 6, 2,
+                1, 3, 7, 5,
+                0, 1, 5, 4,
+                2, 6, 7, 3
+        };
+        return TestMeshes.faces(positions, 4, vertexIndices);
+    }
+}
@@ -0,0 +1,172 @@
+package com.cgvsu.math.tests.Graphics;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.FrameSnapshot;
+import com.cgvsu.render_engine.ProgressiveRefinement;
+import com.cgvsu.render_engine.RenderContext;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderParameters;
+import com.cgvsu.scene.Scene;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+public class ProgressiveRefinementTest {
+    private static final long MS = 1_000_000L;
+    private static final long BUDGET = 16 * MS;
+    private static final long IDLE_DELAY = 150 * MS;
+
+    @Test
+    public void testInteractivePassDegradesParameters() {
+        ProgressiveRefinement refinement = new ProgressiveRefinement(BUDGET, IDLE_DELAY);
+        RenderParameters parameters = parameters();
+        parameters.setLevelOfDetail(false);
+
+        ProgressiveRefinement.Pass idle = refinement.nextPass(0, parameters);
+        Assertions.assertFalse(idle.isInteractive());
+        Assertions.assertEquals(1, idle.getScale());
+        Assertions.assertTrue(idle.getRenderParameters().isIdBuffer());
+
+        refinement.onCameraMoved(0);
+        ProgressiveRefinement.Pass pass = refinement.nextPass(MS, parameters);
+        Assertions.assertTrue(pass.isInteractive());
+        Assertions.assertFalse(pass.getRenderParameters().isIdBuffer());
+        Assertions.assertTrue(pass.getRenderParameters().isLevelOfDetail());
+        Assertions.assertTrue(pass.getRenderParameters().isColorPolygon());
+        // Параметры пользователя не меняются
+        Assertions.assertTrue(parameters.isIdBuffer());
+        Assertions.assertFalse(parameters.isLevelOfDetail());
+    }
+
+    @Test
+    public void testScaleFollowsFrameTime() {
+        ProgressiveRefinement refinement = new ProgressiveRefinement(BUDGET, IDLE_DELAY);
+        RenderParameters parameters = parameters();
+        refinement.onCameraMoved(0);
+
+        // Вчетверо дольше бюджета: масштаб падает, но не больше чем на шаг за кадр
+        ProgressiveRefinement.Pass pass = refinement.nextPass(0, parameters);
+        refinement.onFrameRendered(pass, 4 * BUDGET);
+        Assertions.assertEquals(0.8f, refinement.getInteractiveScale(), 1e-4f);
+
+        for (int i = 0; i < 20; i++) {
+            pass = refinement.nextPass(0, parameters);
+            // Время пропорционально числу пикселей: в бюджет укладывается масштаб 0.5
+            refinement.onFrameRendered(pass, (long) (4 * BUDGET * pass.getScale() * pass.getScale()));
+        }
+        Assertions.assertEquals(0.5f, refinement.getInteractiveScale(), 0.01f);
+        Assertions.assertFalse(refinement.isWireframeOnly());
+
+        for (int i = 0; i < 20; i++) {
+            pass = refinement.nextPass(0, parameters);
+            refinement.onFrameRendered(pass, BUDGET / 10);
+        }
+        Assertions.assertEquals(1, refinement.getInteractiveScale());
+    }
+
+    @Test
+    public void testWireframeWhenMinimalScaleIsOverBudget() {
+        ProgressiveRefinement refinement = new ProgressiveRefinement(BUDGET, IDLE_DELAY);
+        RenderParameters parameters = parameters();
+        refinement.onCameraMoved(0);
+
+        ProgressiveRefinement.Pass pass = refinement.nextPass(0, parameters);
+        while (!refinement.isWireframeOnly()) {
+            Assertions.assertTrue(refinement.getInteractiveScale() > 0);
+            refinement.onFrameRendered(pass, 100 * BUDGET);
+            pass = refinement.nextPass(0, parameters);
+        }
+        Assertions.assertEquals(0.25f, pass.getScale(), 1e-4f);
+        Assertions.assertTrue(pass.getRenderParameters().getEmptyParams());
+
+        // Каркас в бюджет укладывается, но без запаса: заливка не возвращается
+        refinement.onFrameRendered(pass, BUDGET / 2);
+        Assertions.assertTrue(refinement.isWireframeOnly());
+        refinement.onFrameRendered(pass, BUDGET / 4);
+        Assertions.assertFalse(refinement.isWireframeOnly());
+        Assertions.assertTrue(refinement.nextPass(0, parameters).getRenderParameters().isColorPolygon());
+    }
+
+    @Test
+    public void testRefinesAfterIdleDelay() {
+        ProgressiveRefinement refinement = new ProgressiveRefinement(BUDGET, IDLE_DELAY);
+        RenderParameters parameters = parameters();
+        refinement.onCameraMoved(0);
+        for (int i = 0; i < 4; i++) {
+            refinement.onFrameRendered(refinement.nextPass(0, parameters), 10 * BUDGET);
+        }
+        Assertions.assertTrue(refinement.getInteractiveScale() < 0.5f);
+        Assertions.assertFalse(refinement.isRefinementDue(IDLE_DELAY - 1));
+        Assertions.assertTrue(refinement.isRefinementDue(IDLE_DELAY));
+
+        ProgressiveRefinement.Pass half = refinement.nextPass(IDLE_DELAY, parameters);
+        Assertions.assertFalse(half.isInteractive());
+        Assertions.assertEquals(0.5f, half.getScale());
+        Assertions.assertFalse(half.getRenderParameters().isIdBuffer());
+        // Ступень отдана на отрисовку, следующую просить рано
+        Assertions.assertFalse(refinement.isRefinementDue(IDLE_DELAY));
+        refinement.onFrameRendered(half, 10 * BUDGET);
+        Assertions.assertTrue(refinement.isRefinementDue(IDLE_DELAY));
+
+        ProgressiveRefinement.Pass full = refinement.nextPass(IDLE_DELAY, parameters);
+        Assertions.assertEquals(1, full.getScale());
+        Assertions.assertTrue(full.getRenderParameters().isIdBuffer());
+        refinement.onFrameRendered(full, 10 * BUDGET);
+        Assertions.assertFalse(refinement.isRefinementDue(IDLE_DELAY));
+        Assertions.assertFalse(refinement.isInteractive());
+
+        // Ввод прерывает уточнение: устаревший кадр ступени его не продвигает
+        refinement.onCameraMoved(2 * IDLE_DELAY);
+        refinement.onFrameRendered(half, BUDGET);
+        Assertions.assertTrue(refinement.isInteractive());
+    }
+
+    @Test
+    public void testSkipsRefinementStagesNotBetterThanInteractiveFrame() {
+        ProgressiveRefinement refinement = new ProgressiveRefinement(BUDGET, IDLE_DELAY);
+        RenderParameters parameters = parameters();
+        refinement.onCameraMoved(0);
+        refinement.onFrameRendered(refinement.nextPass(0, parameters), BUDGET);
+
+        Assertions.assertEquals(1, refinement.nextPass(IDLE_DELAY, parameters).getScale());
+    }
+
+    @Test
+    public void testSnapshotOfPassIsScaled() throws Exception {
+        Model model = ObjReader.read(Path.of("3DModels/SimpleModelsForReaderTests/UglyManHeadFromVova_26kPoints.obj"));
+        Scene scene = new Scene();
+        scene.addModel(model);
+        Camera camera = new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 1.0f, 4f / 3, 1, 200);
+        ProgressiveRefinement refinement = new ProgressiveRefinement(BUDGET, IDLE_DELAY);
+        refinement.onCameraMoved(0);
+        ProgressiveRefinement.Pass pass = refinement.nextPass(0, parameters());
+        for (int i = 0; i < 5; i++) {
+            refinement.onFrameRendered(pass, 100 * BUDGET);
+            pass = refinement.nextPass(0, parameters());
+        }
+        Assertions.assertFalse(refinement.isWireframeOnly());
+
+        FrameSnapshot snapshot = FrameSnapshot.capture(scene, camera, pass, 160, 120);
+        Assertions.assertSame(pass, snapshot.getPass());
+        Assertions.assertEquals(pass.scaleSize(160), snapshot.getWidth());
+        Assertions.assertEquals(pass.scaleSize(120), snapshot.getHeight());
+        Assertions.assertTrue(snapshot.getWidth() < 160);
+
+        RenderContext context = new RenderContext(160, 120);
+        RenderEngine.render(context, snapshot);
+        Assertions.assertEquals(snapshot.getWidth(), context.getWidth());
+        Assertions.assertSame(snapshot, context.getSnapshot());
+        Assertions.assertNull(context.getIdBuffer());
+    }
+
+    private static RenderParameters parameters() {
+        RenderParameters parameters = new RenderParameters();
+        parameters.setColorPolygon(true);
+        parameters.setIdBuffer(true);
+        return parameters;
+    }
+}
@@ -0,0 +1,83 @@
+package com.cgvsu.math.tests.Graphics;
+
+import com.cgvsu.render_engine.FrameStatistics;
+import com.cgvsu.render_engine.RenderScheduler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RenderSchedulerTest {
+    private static final long PULSE = 16_000_000L;
+
+    @Test
+    public void testRendersOnlyDirtyFramesAndCoalescesRequests() {
+        int[] frames = {0};
+        RenderScheduler scheduler = new RenderScheduler(() -> frames[0]++);
+
+        // Первый кадр рисуется без запроса
+        Assertions.assertTrue(scheduler.onPulse(0));
+        Assertions.assertFalse(scheduler.onPulse(PULSE));
+        Assertions.assertFalse(scheduler.onPulse(2 * PULSE));
+        Assertions.assertEquals(1, frames[0]);
+
+        for (int i = 0; i < 50; i++) {
+            scheduler.requestRender();
+        }
+        Assertions.assertTrue(scheduler.isDirty());
+        Assertions.assertTrue(scheduler.onPulse(3 * PULSE));
+        Assertions.assertFalse(scheduler.onPulse(4 * PULSE));
+        Assertions.assertEquals(2, frames[0]);
+    }
+
+    @Test
+    public void testRequestDuringFrameSchedulesNextFrame() {
+        RenderScheduler[] scheduler = new RenderScheduler[1];
+        int[] frames = {0};
+        scheduler[0] = new RenderScheduler(() -> {
+            if (++frames[0] < 3) {
+                scheduler[0].requestRender();
+            }
+        });
+        for (int pulse = 0; pulse < 5; pulse++) {
+            scheduler[0].onPulse(pulse * PULSE);
+        }
+        Assertions.assertEquals(3, frames[0]);
+        Assertions.assertFalse(scheduler[0].isDirty());
+    }
+
+    @Test
+    public void testAchievedFpsIgnoresIdlePulses() {
+        RenderScheduler scheduler = new RenderScheduler(() -> { });
+        long now = 0;
+        for (int i = 0; i < 10; i++) {
+            scheduler.requestRender();
+            scheduler.onPulse(now += PULSE);
+        }
+        // Долгий простой не занижает FPS
+        Assertions.assertFalse(scheduler.onPulse(now += 1000 * PULSE));
+        for (int i = 0; i < 10; i++) {
+            scheduler.requestRender();
+            scheduler.onPulse(now += PULSE);
+        }
+        Assertions.assertEquals(62.5, scheduler.getAchievedFps(), 1e-6);
+        Assertions.assertEquals(20, scheduler.getFrameTimes().getCount());
+    }
+
+    @Test
+    public void testFrameTimePercentiles() {
+        FrameStatistics statistics = new FrameStatistics(100);
+        Assertions.assertEquals(0, statistics.getPercentileMs(50));
+        for (int i = 100; i >= 1; i--) {
+            statistics.record(i * 1_000_000L);
+        }
+        Assertions.assertEquals(50, statistics.getPercentileMs(50), 1e-9);
+        Assertions.assertEquals(95, statistics.getPercentileMs(95), 1e-9);
+        Assertions.assertEquals(100, statistics.getPercentileMs(100), 1e-9);
+        Assertions.assertEquals(1, statistics.getPercentileMs(0), 1e-9);
+
+        // В окне остаются только последние замеры
+        for (int i = 0; i < 100; i++) {
+            statistics.record(2_000_000L);
+        }
+        Assertions.assertEquals(2, statistics.getPercentileMs(99), 1e-9);
+    }
+}
@@ -0,0 +1,33 @@
+package com.cgvsu.math.tests.Graphics;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Point2f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.GraphicConveyor;
+import com.cgvsu.render_engine.ScreenVertices;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ScreenVerticesTest {
+    @Test
+    public void testMatchesPerVertexTransform() {
+        Camera camera = new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 1.0f, 1, 0.01f, 100);
+        Matrix4f matrix = GraphicConveyor.calculateModelViewProjectionMatrix(camera,
+                new Vector3f(10, 20, 30), new Vector3f(1, 2, 1), new Vector3f(3, -1, 0));
+        float[] positions = {1.5f, -2, 3, 0, 0, 0, -7.25f, 4, 0.5f};
+
+        ScreenVertices screenVertices = new ScreenVertices();
+        screenVertices.transform(positions, matrix, 800, 600);
+
+        Assertions.assertEquals(3, screenVertices.getVertexCount());
+        for (int i = 0; i < 3; i++) {
+            Vector3f vertex = new Vector3f(positions[i * 3], positions[i * 3 + 1], positions[i * 3 + 2]);
+            Vector3f transformed = GraphicConveyor.multiplyMatrix4ByVector3(matrix, vertex);
+            Point2f point = GraphicConveyor.vertexToPoint(transformed, 800, 600);
+            Assertions.assertEquals(point.getX(), screenVertices.getX()[i]);
+            Assertions.assertEquals(point.getY(), screenVertices.getY()[i]);
+            Assertions.assertEquals(transformed.getZ(), screenVertices.getZ()[i]);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.cgvsu.math.tests.Graphics;
+
+import com.cgvsu.math.tests.Model.TestMeshes;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.render_engine.RenderContext;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderParameters;
+import com.cgvsu.scene.Scene;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class TileRasterizerTest {
+    @Test
+    public void testTilesMatchSingleThread() {
+        Scene scene = new Scene();
+        scene.addModel(new Model(randomFaces(500, 3, 1)));
+        scene.addModel(new Model(randomFaces(300, 4, 2)));
+        RenderParameters parameters = new RenderParameters();
+        parameters.setColorPolygon(true);
+        parameters.setAllColorPolygon(true);
+
+        for (int[] size : new int[][]{{300, 200}, {64, 64}, {130, 1}}) {
+            scene.getActiveCamera().setAspectRatio((float) size[0] / size[1]);
+            RenderContext single = new RenderContext(size[0], size[1]);
+            RenderContext tiled = new RenderContext(size[0], size[1]);
+            parameters.setTileRasterizer(false);
+            RenderEngine.render(single, scene.getActiveCamera(), scene, parameters);
+            parameters.setTileRasterizer(true);
+            RenderEngine.render(tiled, scene.getActiveCamera(), scene, parameters);
+
+            Assertions.assertArrayEquals(single.getColorBuffer(), tiled.getColorBuffer());
+            Assertions.assertArrayEquals(single.getZBuffer(), tiled.getZBuffer());
+        }
+    }
+
+    /**
+     * Случайные пересекающиеся грани с числом углов corners в кубе со стороной 90 вокруг начала координат.
+     */
+    private static PackedMesh randomFaces(int faceCount, int corners, long seed) {
+        Random random = new Random(seed);
+        float[] positions = new float[faceCount * corners * 3];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = (random.nextFloat() - 0.5f) * 90;
+        }
+        int[] vertexIndices = new int[faceCount * corners];
+        for (int i = 0; i < vertexIndices.length; i++) {
+            vertexIndices[i] = i;
+        }
+        return TestMeshes.faces(positions, corners, vertexIndices);
+    }
+}
@@ -0,0 +1,86 @@
+package com.cgvsu.math.tests.Graphics;
+
+import com.cgvsu.render_engine.TriangleRasterizer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class TriangleRasterizerTest {
+    private static final int WIDTH = 97;
+    private static final int HEIGHT = 61;
+
+    @Test
+    public void testSharedEdgesCoveredExactlyOnce() {
+        // Решетка со случайно сдвинутыми внутренними узлами: треугольники покрывают прямоугольник без щелей
+        int columns = 9;
+        int rows = 6;
+        float cellWidth = 80f / columns;
+        float cellHeight = 50f / rows;
+        float[][] x = new float[rows + 1][columns + 1];
+        float[][] y = new float[rows + 1][columns + 1];
+        Random random = new Random(7);
+        for (int row = 0; row <= rows; row++) {
+            for (int col = 0; col <= columns; col++) {
+                boolean inner = row > 0 && row < rows && col > 0 && col < columns;
+                x[row][col] = 5 + col * cellWidth + (inner ? (random.nextFloat() - 0.5f) * cellWidth * 0.6f : 0);
+                y[row][col] = 3 + row * cellHeight + (inner ? (random.nextFloat() - 0.5f) * cellHeight * 0.6f : 0);
+            }
+        }
+        // Узлы на целых координатах проверяют пиксели, центр которых лежит ровно на ребре или в вершине
+        x[2][3] = 30;
+        y[2][3] = 20;
+
+        int[] coverage = new int[WIDTH * HEIGHT];
+        TriangleRasterizer.FragmentShader counter = (px, py, lambda0, lambda1, lambda2) -> coverage[py * WIDTH + px]++;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                TriangleRasterizer.rasterize(x[row][col], y[row][col], x[row][col + 1], y[row][col + 1],
+                        x[row + 1][col + 1], y[row + 1][col + 1], WIDTH, HEIGHT, counter);
+                // Второй треугольник с обратным обходом
+                TriangleRasterizer.rasterize(x[row][col], y[row][col], x[row + 1][col], y[row + 1][col],
+                        x[row + 1][col + 1], y[row + 1][col + 1], WIDTH, HEIGHT, counter);
+            }
+        }
+
+        for (int py = 0; py < HEIGHT; py++) {
+            for (int px = 0; px < WIDTH; px++) {
+                boolean inside = px >= 5 && px < 85 && py >= 3 && py < 53;
+                boolean boundary = px == 85 || py == 53;
+                if (inside) {
+                    Assertions.assertEquals(1, coverage[py * WIDTH + px], "pixel " + px + ", " + py);
+                } else if (!boundary) {
+                    Assertions.assertEquals(0, coverage[py * WIDTH + px], "pixel " + px + ", " + py);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBarycentricCoordinatesFollowVertexOrder() {
+        float[][] vertices = {{10, 10}, {50, 12}, {20, 40}};
+        for (int[] order : new int[][]{{0, 1, 2}, {0, 2, 1}}) {
+            float[] a = vertices[order[0]];
+            float[] b = vertices[order[1]];
+            float[] c = vertices[order[2]];
+            int[] count = new int[1];
+            TriangleRasterizer.rasterize(a[0], a[1], b[0], b[1], c[0], c[1], WIDTH, HEIGHT,
+                    (px, py, lambda0, lambda1, lambda2) -> {
+                        count[0]++;
+                        Assertions.assertEquals(1, lambda0 + lambda1 + lambda2, 1e-5);
+                        Assertions.assertEquals(px, lambda0 * a[0] + lambda1 * b[0] + lambda2 * c[0], 1e-3);
+                        Assertions.assertEquals(py, lambda0 * a[1] + lambda1 * b[1] + lambda2 * c[1], 1e-3);
+                    });
+            Assertions.assertTrue(count[0] > 500);
+        }
+    }
+
+    @Test
+    public void testDegenerateAndUnrepresentableTrianglesSkipped() {
+        TriangleRasterizer.FragmentShader fail = (px, py, lambda0, lambda1, lambda2) -> Assertions.fail();
+        TriangleRasterizer.rasterize(1, 1, 10, 10, 20, 20, WIDTH, HEIGHT, fail);
+        TriangleRasterizer.rasterize(1, 1, Float.NaN, 10, 20, 5, WIDTH, HEIGHT, fail);
+        TriangleRasterizer.rasterize(1, 1, 1e30f, 10, 20, 5, WIDTH, HEIGHT, fail);
+        TriangleRasterizer.rasterize(-50, -50, -10, -50, -30, -10, WIDTH, HEIGHT, fail);
+    }
+}
@@ -744,4 +744,57 @@ public class Matrix4fTest {
 
         assertMatrixEquals(inverseOfInverse, matrix);
     }
-}
\ No newline at end of file
+
+    // Аффинная обратная должна совпадать с общей для матрицы с последней строкой 0 0 0 1
+    @Test
+    public void testAffineInverse() {
+        Matrix4f matrix = new Matrix4f(new float[]{
+                0, -2, 0, 5,
+                1, 0, 0, -3,
+                0, 0, 4, 7,
+                0, 0, 0, 1
+        });
+        assertMatrixEquals(matrix.inverse(), matrix.affineInverse(new Matrix4f()));
+    }
+
+    @Test
+    public void testInverseInPlace() {
+        Matrix4f matrix = new Matrix4f(new float[]{
+                1, 2, 3, 4,
+                2, 3, 1, 2,
+                1, 1, 1, -1,
+                1, 0, -2, -6
+        });
+        Matrix4f expected = matrix.inverse();
+        matrix.inverse(matrix);
+        assertMatrixEquals(expected, matrix);
+    }
+
+    @Test
+    public void testInverseTranspose() {
+        Matrix4f matrix = new Matrix4f(new float[]{
+                1, 2, 3, 4,
+                2, 3, 1, 2,
+                1, 1, 1, -1,
+                1, 0, -2, -6
+        });
+        assertMatrixEquals(matrix.inverse().transpositionNew(), matrix.inverseTranspose(new Matrix4f()));
+    }
+
+    // Для масштаба (2, 4, 8) матрица нормалей - обратный масштаб (1/2, 1/4, 1/8)
+    @Test
+    public void testNormalMatrix() {
+        Matrix4f matrix = new Matrix4f(new float[]{
+                2, 0, 0, 1,
+                0, 4, 0, 2,
+                0, 0, 8, 3,
+                0, 0, 0, 1
+        });
+        Matrix3f expected = new Matrix3f(new float[]{
+                0.5f, 0, 0,
+                0, 0.25f, 0,
+                0, 0, 0.125f
+        });
+        Assertions.assertEquals(expected, matrix.normalMatrix(new Matrix3f()));
+    }
+}
@@ -0,0 +1,290 @@
+package com.cgvsu.math.tests.Model;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.BoundingVolumeHierarchy;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.Frustum;
+import com.cgvsu.render_engine.RenderContext;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderParameters;
+import com.cgvsu.render_engine.ScreenVertices;
+import com.cgvsu.scene.PickResult;
+import com.cgvsu.scene.RayPicker;
+import com.cgvsu.scene.Scene;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class BoundingVolumeHierarchyTest {
+    private static final int FACE_COUNT = 3000;
+
+    @Test
+    public void testFindFaceWithVertex() {
+        PackedMesh mesh = randomTriangles(FACE_COUNT, 1);
+        BoundingVolumeHierarchy hierarchy = BoundingVolumeHierarchy.build(mesh);
+        Assertions.assertEquals(FACE_COUNT, hierarchy.getFaceCount());
+        Assertions.assertTrue(hierarchy.getNodeCount() > 1 && hierarchy.getNodeCount() < 2 * FACE_COUNT);
+
+        float[] positions = mesh.getPositions();
+        int[] vertexIndices = mesh.getVertexIndices();
+        for (int corner = 0; corner < vertexIndices.length; corner += 7) {
+            int vertex = vertexIndices[corner] * 3;
+            int face = hierarchy.findFaceWithVertex(positions[vertex], positions[vertex + 1], positions[vertex + 2]);
+            Assertions.assertTrue(face >= 0);
+            boolean found = false;
+            for (int i = mesh.getFaceStart(face); i < mesh.getFaceStart(face + 1); i++) {
+                found |= vertexIndices[i] * 3 == vertex;
+            }
+            Assertions.assertTrue(found);
+        }
+        Assertions.assertEquals(-1, hierarchy.findFaceWithVertex(0.123f, 0.456f, 0.789f));
+        Assertions.assertEquals(-1, hierarchy.findFaceWithVertex(1000, 0, 0));
+    }
+
+    @Test
+    public void testCullFrustumKeepsVisibleFaces() {
+        PackedMesh mesh = randomTriangles(FACE_COUNT, 2);
+        BoundingVolumeHierarchy hierarchy = BoundingVolumeHierarchy.build(mesh);
+        Camera camera = new Camera(new Vector3f(30, 10, 40), new Vector3f(20, 0, 0), 1.0f, 1, 0.1f, 100);
+        Matrix4f matrix = camera.getProjectionMatrix().multiplyNew(camera.getViewMatrix());
+        ScreenVertices vertices = new ScreenVertices();
+        vertices.transform(mesh.getPositions(), matrix, 100, 100);
+
+        boolean[] visible = new boolean[FACE_COUNT];
+        Assertions.assertEquals(Frustum.INTERSECTS, hierarchy.cullFrustum(new Frustum(matrix), visible));
+        int visibleCount = 0;
+        for (int face = 0; face < FACE_COUNT; face++) {
+            int outside = -1;
+            for (int i = mesh.getFaceStart(face); i < mesh.getFaceStart(face + 1); i++) {
+                outside &= vertices.getOutcodes()[mesh.getVertexIndices()[i]];
+            }
+            if (outside == 0) {
+                Assertions.assertTrue(visible[face], "face " + face);
+            }
+            visibleCount += visible[face] ? 1 : 0;
+        }
+        Assertions.assertTrue(visibleCount > 0 && visibleCount < FACE_COUNT);
+
+        Camera away = new Camera(new Vector3f(0, 0, 200), new Vector3f(0, 0, 300), 1.0f, 1, 0.1f, 100);
+        Assertions.assertEquals(Frustum.OUTSIDE, hierarchy.cullFrustum(
+                new Frustum(away.getProjectionMatrix().multiplyNew(away.getViewMatrix())), visible));
+    }
+
+    @Test
+    public void testRefitAfterMovingVertices() {
+        Model model = new Model(randomTriangles(FACE_COUNT, 3));
+        BoundingVolumeHierarchy hierarchy = model.getBoundingVolumeHierarchy();
+        float minX = hierarchy.getMin(0);
+        float maxY = hierarchy.getMax(1);
+
+        // Так же, как деформации ModelEditingTools: новые координаты при тех же гранях
+        ArrayList<Vector3f> moved = new ArrayList<>();
+        for (Vector3f vertex : model.getVertices()) {
+            moved.add(new Vector3f(vertex.getX() + 500, vertex.getY() * 2, vertex.getZ()));
+        }
+        model.setVertices(moved);
+
+        // Уточненная иерархия - копия с той же структурой, прежняя не меняется
+        BoundingVolumeHierarchy refitted = model.getBoundingVolumeHierarchy();
+        Assertions.assertNotSame(hierarchy, refitted);
+        Assertions.assertSame(refitted, model.getBoundingVolumeHierarchy());
+        Assertions.assertEquals(hierarchy.getNodeCount(), refitted.getNodeCount());
+        Assertions.assertEquals(minX, hierarchy.getMin(0));
+        Assertions.assertEquals(minX + 500, refitted.getMin(0), 1e-3);
+        Assertions.assertEquals(maxY * 2, refitted.getMax(1), 1e-3);
+        Vector3f vertex = moved.get(42);
+        Assertions.assertTrue(refitted.findFaceWithVertex(vertex.getX(), vertex.getY(), vertex.getZ()) >= 0);
+
+        model.deletePolygon(0);
+        BoundingVolumeHierarchy rebuilt = model.getBoundingVolumeHierarchy();
+        Assertions.assertNotSame(refitted, rebuilt);
+        Assertions.assertEquals(FACE_COUNT - 1, rebuilt.getFaceCount());
+    }
+
+    @Test
+    public void testSceneGetModelAt() {
+        Scene scene = new Scene();
+        Model first = new Model(randomTriangles(100, 4));
+        Model second = new Model(randomTriangles(100, 5));
+        scene.addModel(first);
+        scene.addModel(second);
+
+        Assertions.assertSame(second, scene.getModelAt(second.getVertices().get(10)));
+        Assertions.assertSame(first, scene.getModelAt(first.getVertices().get(20)));
+        Assertions.assertNull(scene.getModelAt(new Vector3f(1000, 1000, 1000)));
+    }
+
+    @Test
+    public void testFrustumCullingKeepsImage() {
+        Scene scene = new Scene();
+        scene.addModel(new Model(randomTriangles(FACE_COUNT, 6)));
+        scene.addModel(new Model(translated(randomTriangles(200, 7), 0, 0, 500)));
+        Camera camera = scene.getActiveCamera();
+        camera.setPosition(new Vector3f(30, 10, 40));
+        camera.setTarget(new Vector3f(20, 0, 0));
+        RenderParameters parameters = new RenderParameters();
+        parameters.setColorPolygon(true);
+        parameters.setBackFaceCulling(false);
+
+        RenderContext reference = new RenderContext(160, 120);
+        parameters.setFrustumCulling(false);
+        RenderEngine.render(reference, camera, scene, parameters);
+        RenderContext culled = new RenderContext(160, 120);
+        parameters.setFrustumCulling(true);
+        RenderEngine.render(culled, camera, scene, parameters);
+
+        Assertions.assertTrue(culled.countCoveredPixels() > 0);
+        Assertions.assertArrayEquals(reference.getColorBuffer(), culled.getColorBuffer());
+        Assertions.assertArrayEquals(reference.getZBuffer(), culled.getZBuffer());
+        Assertions.assertTrue(culled.getStatistics().getOutsideTriangles()
+                < reference.getStatistics().getOutsideTriangles());
+    }
+
+    @Test
+    public void testIntersectRayMatchesBruteForce() {
+        PackedMesh mesh = randomTriangles(FACE_COUNT, 8);
+        BoundingVolumeHierarchy hierarchy = BoundingVolumeHierarchy.build(mesh);
+        Random random = new Random(9);
+        int hits = 0;
+        for (int ray = 0; ray < 500; ray++) {
+            float ox = random.nextFloat() * 200 - 100, oy = random.nextFloat() * 200 - 100, oz = 100;
+            float dx = random.nextFloat() * 80 - 40 - ox, dy = random.nextFloat() * 80 - 40 - oy, dz = -200;
+            double expected = Double.POSITIVE_INFINITY;
+            for (int face = 0; face < FACE_COUNT; face++) {
+                expected = Math.min(expected, intersect(mesh, face, ox, oy, oz, dx, dy, dz));
+            }
+            float[] distance = {1};
+            int face = hierarchy.intersectRay(ox, oy, oz, dx, dy, dz, distance);
+            if (expected > 1) {
+                Assertions.assertEquals(-1, face);
+                continue;
+            }
+            hits++;
+            Assertions.assertTrue(face >= 0);
+            Assertions.assertEquals(expected, distance[0], 1e-5);
+            Assertions.assertEquals(distance[0], intersect(mesh, face, ox, oy, oz, dx, dy, dz), 1e-5);
+        }
+        Assertions.assertTrue(hits > 50 && hits < 500);
+
+        float[] distance = {0.1f};
+        Assertions.assertEquals(-1, hierarchy.intersectRay(0, 0, 100, 0, 0, -200, distance));
+        Assertions.assertEquals(0.1f, distance[0]);
+    }
+
+    @Test
+    public void testRayPickerMatchesRenderedDepth() {
+        Scene scene = new Scene();
+        Model model = new Model(randomTriangles(FACE_COUNT, 10));
+        scene.addModel(model);
+        Camera camera = new Camera(new Vector3f(20, 30, 90), new Vector3f(0, 0, 0), 0.3f, 1, 10, 200);
+        scene.addCamera(camera);
+        scene.setActiveCamera(1);
+        RenderParameters parameters = new RenderParameters();
+        parameters.setColorPolygon(true);
+        parameters.setBackFaceCulling(false);
+        RenderContext context = new RenderContext(80, 80);
+        RenderEngine.render(context, camera, scene, parameters);
+        Matrix4f matrix = camera.getProjectionMatrix().multiplyNew(camera.getViewMatrix());
+
+        float[] depths = context.getZBuffer();
+        int picked = 0;
+        for (int y = 1; y < 79; y++) {
+            for (int x = 1; x < 79; x++) {
+                // Только пиксели, все соседи которых закрыты или все пусты: на краю силуэта отсчет растеризатора
+                // и луч могут разойтись из-за округления
+                boolean covered = depths[y * 80 + x] != Float.MAX_VALUE;
+                boolean uniform = true;
+                for (int k = -1; k <= 1; k++) {
+                    for (int l = -1; l <= 1; l++) {
+                        uniform &= (depths[(y + k) * 80 + x + l] != Float.MAX_VALUE) == covered;
+                    }
+                }
+                if (!uniform) {
+                    continue;
+                }
+                // Растеризатор берет отсчет пикселя в его целых координатах
+                PickResult pick = RayPicker.pick(scene, camera, x, y, 80, 80);
+                if (!covered) {
+                    Assertions.assertNull(pick);
+                    continue;
+                }
+                Assertions.assertNotNull(pick, x + ", " + y);
+                Assertions.assertSame(model, pick.getModel());
+                Assertions.assertEquals(depths[y * 80 + x],
+                        matrix.transformPoint(pick.getPoint(), new Vector3f()).getZ(), 1e-3);
+                picked++;
+            }
+        }
+        Assertions.assertTrue(picked > 300);
+    }
+
+    /**
+     * Параметр пересечения луча с треугольной гранью через плоскость и барицентрические координаты
+     * или +бесконечность.
+     */
+    private static double intersect(PackedMesh mesh, int face, double ox, double oy, double oz,
+                                    double dx, double dy, double dz) {
+        float[] p = mesh.getPositions();
+        int start = mesh.getFaceStart(face);
+        int a = mesh.getVertexIndices()[start] * 3;
+        int b = mesh.getVertexIndices()[start + 1] * 3;
+        int c = mesh.getVertexIndices()[start + 2] * 3;
+        double[] ab = {p[b] - p[a], p[b + 1] - p[a + 1], p[b + 2] - p[a + 2]};
+        double[] ac = {p[c] - p[a], p[c + 1] - p[a + 1], p[c + 2] - p[a + 2]};
+        double nx = ab[1] * ac[2] - ab[2] * ac[1];
+        double ny = ab[2] * ac[0] - ab[0] * ac[2];
+        double nz = ab[0] * ac[1] - ab[1] * ac[0];
+        double t = (nx * (p[a] - ox) + ny * (p[a + 1] - oy) + nz * (p[a + 2] - oz)) / (nx * dx + ny * dy + nz * dz);
+        if (!(t >= 0)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double[] q = {ox + t * dx - p[a], oy + t * dy - p[a + 1], oz + t * dz - p[a + 2]};
+        double d00 = dot(ab, ab), d01 = dot(ab, ac), d11 = dot(ac, ac), d20 = dot(q, ab), d21 = dot(q, ac);
+        double denominator = d00 * d11 - d01 * d01;
+        double v = (d11 * d20 - d01 * d21) / denominator;
+        double w = (d00 * d21 - d01 * d20) / denominator;
+        return v >= 0 && w >= 0 && v + w <= 1 ? t : Double.POSITIVE_INFINITY;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+    }
+
+    /**
+     * Случайные небольшие треугольники в кубе [-40, 40]^3.
+     */
+    private static PackedMesh randomTriangles(int faceCount, long seed) {
+        Random random = new Random(seed);
+        float[] positions = new float[faceCount * 9];
+        for (int face = 0; face < faceCount; face++) {
+            float x = random.nextFloat() * 80 - 40;
+            float y = random.nextFloat() * 80 - 40;
+            float z = random.nextFloat() * 80 - 40;
+            for (int corner = 0; corner < 3; corner++) {
+                positions[face * 9 + corner * 3] = x + random.nextFloat() * 4;
+                positions[face * 9 + corner * 3 + 1] = y + random.nextFloat() * 4;
+                positions[face * 9 + corner * 3 + 2] = z + random.nextFloat() * 4;
+            }
+        }
+        int[] vertexIndices = new int[faceCount * 3];
+        for (int i = 0; i < vertexIndices.length; i++) {
+            vertexIndices[i] = i;
+        }
+        return TestMeshes.triangles(positions, vertexIndices);
+    }
+
+    private static PackedMesh translated(PackedMesh mesh, float dx, float dy, float dz) {
+        float[] positions = mesh.getPositions().clone();
+        for (int i = 0; i < positions.length; i += 3) {
+            positions[i] += dx;
+            positions[i + 1] += dy;
+            positions[i + 2] += dz;
+        }
+        return mesh.withPositions(positions);
+    }
+}
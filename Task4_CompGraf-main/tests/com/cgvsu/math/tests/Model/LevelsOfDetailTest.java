@@ -0,0 +1,277 @@
+package com.cgvsu.math.tests.Model;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.LevelsOfDetail;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.PrimitiveIdBuffer;
+import com.cgvsu.render_engine.RenderContext;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderParameters;
+import com.cgvsu.scene.Scene;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class LevelsOfDetailTest {
+    private static final int STACKS = 96;
+    private static final int SLICES = 192;
+    private static final float RADIUS = 10;
+
+    @Test
+    public void testLevelsPreserveSeamsAndTextureCoordinates() {
+        PackedMesh source = sphere();
+        LevelsOfDetail levels = LevelsOfDetail.build(source);
+        Assertions.assertEquals(3, levels.getLevelCount());
+
+        Map<String, Integer> vertexByPosition = new HashMap<>();
+        float[] sourcePositions = source.getPositions();
+        for (int vertex = 0; vertex < source.getVertexCount(); vertex++) {
+            vertexByPosition.put(key(sourcePositions, vertex), vertex);
+        }
+        Set<Long> wedges = new HashSet<>();
+        for (int corner = 0; corner < source.getCornerCount(); corner++) {
+            wedges.add(wedge(source.getVertexIndices()[corner], source.getTextureVertexIndices()[corner]));
+        }
+        float orientation = Math.signum(outwardness(source, 0));
+
+        int target = source.getFaceCount();
+        for (int level = 0; level < levels.getLevelCount(); level++) {
+            target /= 4;
+            PackedMesh mesh = levels.getMesh(level);
+            Assertions.assertTrue(mesh.getFaceCount() <= target && mesh.getFaceCount() >= target - 1);
+            Assertions.assertSame(source.getTextureVertices(), mesh.getTextureVertices());
+
+            // Половинное стягивание не создает вершин: у каждого угла исходные координаты и текстурная вершина
+            int[] original = new int[mesh.getVertexCount()];
+            Set<Integer> kept = new HashSet<>();
+            for (int vertex = 0; vertex < mesh.getVertexCount(); vertex++) {
+                Integer index = vertexByPosition.get(key(mesh.getPositions(), vertex));
+                Assertions.assertNotNull(index);
+                original[vertex] = index;
+                kept.add(index);
+            }
+            for (int corner = 0; corner < mesh.getCornerCount(); corner++) {
+                int vertex = original[mesh.getVertexIndices()[corner]];
+                Assertions.assertTrue(wedges.contains(wedge(vertex, mesh.getTextureVertexIndices()[corner])));
+                Assertions.assertEquals(vertex, mesh.getNormalIndices()[corner]);
+            }
+            // Полюса и вершины шва развертки закреплены
+            Assertions.assertTrue(kept.contains(0) && kept.contains(1));
+            for (int stack = 1; stack < STACKS; stack++) {
+                Assertions.assertTrue(kept.contains(vertexIndex(stack, 0)));
+            }
+
+            int[] sourceFaces = levels.getSourceFaces(level);
+            Assertions.assertEquals(mesh.getFaceCount(), sourceFaces.length);
+            Set<Integer> distinct = new HashSet<>();
+            float meanOutwardness = 0;
+            for (int face = 0; face < mesh.getFaceCount(); face++) {
+                Assertions.assertTrue(sourceFaces[face] >= 0 && sourceFaces[face] < source.getFaceCount());
+                Assertions.assertTrue(distinct.add(sourceFaces[face]));
+                // Треугольники не переворачиваются; длинные треугольники у закрепленного шва ближе к центру
+                float outwardness = outwardness(mesh, face) * orientation;
+                Assertions.assertTrue(outwardness > 0);
+                meanOutwardness += outwardness / mesh.getFaceCount();
+            }
+            Assertions.assertTrue(meanOutwardness > 0.9f * RADIUS);
+        }
+    }
+
+    @Test
+    public void testSelectByProjectedSize() {
+        LevelsOfDetail levels = LevelsOfDetail.build(sphere());
+        Assertions.assertEquals(-1, levels.select(10000));
+        Assertions.assertEquals(-1, levels.select(Float.POSITIVE_INFINITY));
+        Assertions.assertEquals(levels.getLevelCount() - 1, levels.select(1));
+        int previous = levels.getLevelCount() - 1;
+        for (float size = 1; size < 10000; size *= 1.5f) {
+            int level = levels.select(size);
+            Assertions.assertTrue(level <= previous);
+            previous = level;
+        }
+    }
+
+    @Test
+    public void testModelKeepsLevelsAfterDeformation() throws Exception {
+        Model model = new Model(sphere());
+        LevelsOfDetail levels = LevelsOfDetail.buildAsync(model).get();
+        Assertions.assertSame(levels, model.getLevelsOfDetail());
+
+        // Северный полюс закреплен и есть на всех уровнях
+        ArrayList<Vector3f> vertices = new ArrayList<>(model.getVertices());
+        vertices.set(0, new Vector3f(0, RADIUS * 2, 0));
+        model.setVertices(vertices);
+        LevelsOfDetail refitted = model.getLevelsOfDetail();
+        Assertions.assertNotNull(refitted);
+        Assertions.assertTrue(refitted.isBuiltFrom(model.getMesh()));
+        Assertions.assertSame(refitted, model.getLevelsOfDetail());
+        Assertions.assertEquals(levels.getLevelCount(), refitted.getLevelCount());
+        for (int level = 0; level < levels.getLevelCount(); level++) {
+            PackedMesh before = levels.getMesh(level);
+            PackedMesh after = refitted.getMesh(level);
+            Assertions.assertSame(before.getVertexIndices(), after.getVertexIndices());
+            Assertions.assertArrayEquals(levels.getSourceFaces(level), refitted.getSourceFaces(level));
+            float[] positions = after.getPositions();
+            int moved = 0;
+            for (int vertex = 0; vertex < after.getVertexCount(); vertex++) {
+                if (positions[vertex * 3 + 1] == RADIUS * 2) {
+                    moved++;
+                } else {
+                    Assertions.assertEquals(key(before.getPositions(), vertex), key(positions, vertex));
+                }
+            }
+            Assertions.assertEquals(1, moved);
+        }
+
+        // После правки граней уровни не подходят, пока не построены заново
+        model.deletePolygon(0);
+        Assertions.assertNull(model.getLevelsOfDetail());
+        LevelsOfDetail rebuilt = LevelsOfDetail.buildAsync(model).get();
+        Assertions.assertSame(rebuilt, model.getLevelsOfDetail());
+        Assertions.assertEquals(model.getMesh().getFaceCount(), rebuilt.getSourceFaces(0).length * 4, 4);
+
+        PackedMesh quad = new PackedMesh(new float[]{0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0}, new float[0], new float[0],
+                new int[]{0, 4}, new int[]{0, 1, 2, 3}, new int[]{PackedMesh.ABSENT, PackedMesh.ABSENT,
+                PackedMesh.ABSENT, PackedMesh.ABSENT}, new int[]{PackedMesh.ABSENT, PackedMesh.ABSENT,
+                PackedMesh.ABSENT, PackedMesh.ABSENT});
+        Assertions.assertEquals(0, LevelsOfDetail.build(quad).getLevelCount());
+    }
+
+    @Test
+    public void testDistantModelIdsReferToSourcePolygons() {
+        Model model = new Model(sphere());
+        LevelsOfDetail levels = LevelsOfDetail.build(model.getMesh());
+        model.setLevelsOfDetail(levels);
+        Scene scene = new Scene();
+        scene.addModel(model);
+        Camera camera = new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 1.0f, 1, 1, 200);
+        RenderParameters parameters = new RenderParameters();
+        parameters.setColorPolygon(true);
+        parameters.setIdBuffer(true);
+
+        parameters.setLevelOfDetail(false);
+        RenderContext reference = new RenderContext(120, 120);
+        RenderEngine.render(reference, camera, scene, parameters);
+        parameters.setLevelOfDetail(true);
+        RenderContext context = new RenderContext(120, 120);
+        RenderEngine.render(context, camera, scene, parameters);
+
+        Set<Integer> coarsest = new HashSet<>();
+        for (int face : levels.getSourceFaces(levels.getLevelCount() - 1)) {
+            coarsest.add(face);
+        }
+        int covered = 0;
+        int referenceCovered = 0;
+        for (int i = 0; i < 120 * 120; i++) {
+            int id = context.getIdBuffer().getIds()[i];
+            if (id != PrimitiveIdBuffer.NO_ID) {
+                Assertions.assertSame(model, context.getIdBuffer().getModel(id));
+                Assertions.assertTrue(coarsest.contains(PrimitiveIdBuffer.getPolygonIndex(id)));
+                covered++;
+            }
+            if (reference.getIdBuffer().getIds()[i] != PrimitiveIdBuffer.NO_ID) {
+                referenceCovered++;
+            }
+        }
+        Assertions.assertTrue(referenceCovered > 200);
+        Assertions.assertTrue(Math.abs(covered - referenceCovered) < referenceCovered / 10);
+    }
+
+    /**
+     * Сфера из треугольников по широтам и долготам. Текстурные вершины образуют сетку (STACKS + 1) x (SLICES + 1),
+     * поэтому у полюсов и на шве долготы 0 углы одной вершины ссылаются на разные текстурные вершины.
+     */
+    private static PackedMesh sphere() {
+        int vertexCount = 2 + (STACKS - 1) * SLICES;
+        float[] positions = new float[vertexCount * 3];
+        positions[1] = RADIUS;
+        positions[4] = -RADIUS;
+        for (int stack = 1; stack < STACKS; stack++) {
+            double theta = Math.PI * stack / STACKS;
+            for (int slice = 0; slice < SLICES; slice++) {
+                double phi = 2 * Math.PI * slice / SLICES;
+                int vertex = vertexIndex(stack, slice);
+                positions[vertex * 3] = (float) (RADIUS * Math.sin(theta) * Math.cos(phi));
+                positions[vertex * 3 + 1] = (float) (RADIUS * Math.cos(theta));
+                positions[vertex * 3 + 2] = (float) (RADIUS * Math.sin(theta) * Math.sin(phi));
+            }
+        }
+        float[] normals = new float[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            normals[i] = positions[i] / RADIUS;
+        }
+        float[] textureVertices = new float[(STACKS + 1) * (SLICES + 1) * 2];
+        for (int stack = 0; stack <= STACKS; stack++) {
+            for (int slice = 0; slice <= SLICES; slice++) {
+                int texture = stack * (SLICES + 1) + slice;
+                textureVertices[texture * 2] = (float) slice / SLICES;
+                textureVertices[texture * 2 + 1] = (float) stack / STACKS;
+            }
+        }
+
+        int faceCount = 2 * STACKS * SLICES - 2 * SLICES;
+        int[] faceOffsets = new int[faceCount + 1];
+        int[] vertexIndices = new int[faceCount * 3];
+        int[] textureVertexIndices = new int[faceCount * 3];
+        int face = 0;
+        for (int stack = 0; stack < STACKS; stack++) {
+            for (int slice = 0; slice < SLICES; slice++) {
+                int[][] quad = {{stack, slice}, {stack, slice + 1}, {stack + 1, slice + 1}, {stack + 1, slice}};
+                int[][] triangles = stack == 0 ? new int[][]{{0, 2, 3}}
+                        : stack == STACKS - 1 ? new int[][]{{0, 1, 2}}
+                        : new int[][]{{0, 1, 2}, {0, 2, 3}};
+                for (int[] triangle : triangles) {
+                    for (int k = 0; k < 3; k++) {
+                        int[] corner = quad[triangle[k]];
+                        vertexIndices[face * 3 + k] = vertexIndex(corner[0], corner[1]);
+                        textureVertexIndices[face * 3 + k] = corner[0] * (SLICES + 1) + corner[1];
+                    }
+                    faceOffsets[++face] = face * 3;
+                }
+            }
+        }
+        return new PackedMesh(positions, textureVertices, normals,
+                faceOffsets, vertexIndices, textureVertexIndices, vertexIndices.clone());
+    }
+
+    private static int vertexIndex(int stack, int slice) {
+        if (stack == 0) {
+            return 0;
+        }
+        if (stack == STACKS) {
+            return 1;
+        }
+        return 2 + (stack - 1) * SLICES + slice % SLICES;
+    }
+
+    /**
+     * Проекция центра треугольника на его нормаль: для выпуклой сферы с центром в начале координат
+     * положительна у обращенных наружу треугольников и не больше радиуса.
+     */
+    private static float outwardness(PackedMesh mesh, int face) {
+        float[] p = mesh.getPositions();
+        int a = mesh.getVertexIndices()[face * 3] * 3;
+        int b = mesh.getVertexIndices()[face * 3 + 1] * 3;
+        int c = mesh.getVertexIndices()[face * 3 + 2] * 3;
+        Vector3f ab = new Vector3f(p[b] - p[a], p[b + 1] - p[a + 1], p[b + 2] - p[a + 2]);
+        Vector3f ac = new Vector3f(p[c] - p[a], p[c + 1] - p[a + 1], p[c + 2] - p[a + 2]);
+        Vector3f normal = ab.cross(ac);
+        normal.normalize();
+        return normal.getX() * p[a] + normal.getY() * p[a + 1] + normal.getZ() * p[a + 2];
+    }
+
+    private static String key(float[] positions, int vertex) {
+        return positions[vertex * 3] + " " + positions[vertex * 3 + 1] + " " + positions[vertex * 3 + 2];
+    }
+
+    private static long wedge(int vertex, int textureVertex) {
+        return (long) vertex << 32 | textureVertex;
+    }
+}
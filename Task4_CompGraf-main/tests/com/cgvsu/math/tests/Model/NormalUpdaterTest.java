@@ -0,0 +1,112 @@
+package com.cgvsu.math.tests.Model;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.ModelEditingTools;
+import com.cgvsu.model.NormalCalculator;
+import com.cgvsu.model.NormalUpdater;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.render_engine.GraphicConveyor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class NormalUpdaterTest {
+
+    private static final Path MODEL_PATH = Path.of("3DModels/SimpleModelsForReaderTests/UglyManHeadFromVova_26kPoints.obj");
+
+    @Test
+    public void testTransformMatchesFullRecalculation() throws IOException {
+        PackedMesh mesh = ObjReader.read(MODEL_PATH).getMesh();
+        NormalUpdater updater = new NormalUpdater(mesh);
+        assertNormalsEqual(NormalCalculator.calculateNormals(mesh), updater.getNormals());
+
+        Matrix4f[] matrices = {
+                // Перенос
+                GraphicConveyor.scaleRotateTranslate(new Vector3f(0, 0, 0), new Vector3f(1, 1, 1), new Vector3f(3, -2, 5)),
+                // Поворот с равномерным масштабом
+                GraphicConveyor.scaleRotateTranslate(new Vector3f(30, 45, -60), new Vector3f(2, 2, 2), new Vector3f(1, 2, 3)),
+                // Неравномерный масштаб
+                GraphicConveyor.scaleRotateTranslate(new Vector3f(10, 20, 30), new Vector3f(1, 3, 0.5f), new Vector3f(0, 0, 0)),
+                // Отражение
+                GraphicConveyor.scaleRotateTranslate(new Vector3f(0, 90, 0), new Vector3f(-1, 1, 1), new Vector3f(0, 0, 0))
+        };
+        for (Matrix4f matrix : matrices) {
+            float[] positions = new float[mesh.getPositions().length];
+            matrix.transformPoints(mesh.getPositions(), 0, positions, 0, positions.length / 3);
+            float[] expected = NormalCalculator.calculateNormals(mesh.withPositions(positions));
+            assertNormalsEqual(expected, updater.transform(matrix));
+        }
+        Matrix4f identity = new Matrix4f(1);
+        Assertions.assertSame(updater.transform(identity), updater.transform(identity));
+    }
+
+    @Test
+    public void testLocalUpdatesMatchFullRecalculation() throws IOException {
+        PackedMesh mesh = ObjReader.read(MODEL_PATH).getMesh();
+        NormalUpdater updater = new NormalUpdater(mesh);
+        Matrix4f matrix = GraphicConveyor.scaleRotateTranslate(
+                new Vector3f(0, 30, 0), new Vector3f(1, 2, 1), new Vector3f(0, 0, 0));
+        float[] positions = new float[mesh.getPositions().length];
+        matrix.transformPoints(mesh.getPositions(), 0, positions, 0, positions.length / 3);
+        updater.transform(matrix);
+
+        int[] changed = {0, 17, 1000, mesh.getVertexCount() - 1};
+        for (int vertex : changed) {
+            positions[vertex * 3] += 0.5f;
+            positions[vertex * 3 + 2] -= 0.25f;
+        }
+        float[] before = updater.getNormals();
+        float[] beforeCopy = before.clone();
+        float[] updated = updater.updateVertices(positions, changed, changed.length);
+        assertNormalsEqual(NormalCalculator.calculateNormals(mesh.withPositions(positions)), updated);
+        // Выданный ранее массив не меняется
+        Assertions.assertArrayEquals(beforeCopy, before);
+
+        int[] faces = new int[updater.getAdjacentFaceCount(17)];
+        Assertions.assertEquals(faces.length, updater.getAdjacentFaces(17, faces));
+        for (int face : faces) {
+            boolean contains = false;
+            for (int corner = mesh.getFaceStart(face); corner < mesh.getFaceStart(face) + mesh.getFaceSize(face); corner++) {
+                contains |= mesh.getVertexIndices()[corner] == 17;
+            }
+            Assertions.assertTrue(contains);
+        }
+    }
+
+    @Test
+    public void testModelKeepsNormalsAfterDeformationAndDeletion() throws IOException {
+        Model model = ObjReader.read(MODEL_PATH);
+        ArrayList<Vector3f> transformation = new ArrayList<>(Arrays.asList(
+                new Vector3f(15, 25, 35), new Vector3f(1, 1.5f, 2), new Vector3f(4, 5, 6)));
+        ModelEditingTools.deformModelFromRawData(transformation, model);
+        PackedMesh deformed = model.getMesh();
+        Assertions.assertEquals(model.getMesh().getVertexCount(), model.getVertices().size());
+        assertNormalsEqual(NormalCalculator.calculateNormals(deformed), deformed.getNormals());
+
+        int polygonCount = model.getPolygons().size();
+        model.deletePolygon(5);
+        model.deletePolygon(polygonCount - 2);
+        PackedMesh remaining = model.getMesh();
+        Assertions.assertEquals(polygonCount - 2, remaining.getFaceCount());
+        assertNormalsEqual(NormalCalculator.calculateNormals(remaining), remaining.getNormals());
+        Assertions.assertEquals(remaining.getNormalCount(), model.getNormals().size());
+
+        // Новая деформация учитывает удаленные полигоны
+        ModelEditingTools.deformModelFromTransformationMatrix(new Matrix4f(1), model);
+        assertNormalsEqual(NormalCalculator.calculateNormals(model.getMesh()), model.getMesh().getNormals());
+    }
+
+    private static void assertNormalsEqual(float[] expected, float[] actual) {
+        Assertions.assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            Assertions.assertEquals(expected[i], actual[i], 1e-3f, "component " + i);
+        }
+    }
+}
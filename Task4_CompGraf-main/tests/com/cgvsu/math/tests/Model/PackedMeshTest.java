@@ -0,0 +1,105 @@
+package com.cgvsu.math.tests.Model;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.ModelTriangulator;
+import com.cgvsu.model.NormalCalculator;
+import com.cgvsu.model.PackedMesh;
+import com.cgvsu.model.Polygon;
+import com.cgvsu.objWriter.ObjWriter;
+import com.cgvsu.objreader.ObjReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class PackedMeshTest {
+
+    private static final Path MODEL_PATH = Path.of("3DModels/SimpleModelsForReaderTests/UglyManHeadFromVova_26kPoints.obj");
+
+    @Test
+    public void testListViewsMatchListModel() throws IOException {
+        Model expected = ObjReader.read(Files.readString(MODEL_PATH));
+        Model actual = ObjReader.read(MODEL_PATH);
+
+        Assertions.assertEquals(expected.getVertices(), actual.getVertices());
+        Assertions.assertEquals(expected.getTextureVertices(), actual.getTextureVertices());
+        Assertions.assertEquals(expected.getNormals(), actual.getNormals());
+        Assertions.assertEquals(expected.getPolygons().size(), actual.getPolygons().size());
+        for (int i = 0; i < expected.getPolygons().size(); i++) {
+            Polygon expectedPolygon = expected.getPolygons().get(i);
+            Polygon actualPolygon = actual.getPolygons().get(i);
+            Assertions.assertEquals(expectedPolygon.getVertexIndices(), actualPolygon.getVertexIndices());
+            Assertions.assertEquals(expectedPolygon.getTextureVertexIndices(), actualPolygon.getTextureVertexIndices());
+            Assertions.assertEquals(expectedPolygon.getNormalIndices(), actualPolygon.getNormalIndices());
+            Assertions.assertEquals(expectedPolygon.getTextureCoordinates(), actualPolygon.getTextureCoordinates());
+        }
+    }
+
+    @Test
+    public void testWriterOutputMatchesListModel() throws IOException {
+        Path expectedPath = Files.createTempFile("expected", ".obj");
+        Path actualPath = Files.createTempFile("actual", ".obj");
+        try {
+            Model expected = ObjReader.read(Files.readString(MODEL_PATH));
+            expected.setOriginalVertices(expected.getVertices());
+            ObjWriter.write(expected, expectedPath.toString(), false);
+            ObjWriter.write(ObjReader.read(MODEL_PATH), actualPath.toString(), false);
+
+            Assertions.assertEquals(Files.readAllLines(expectedPath), Files.readAllLines(actualPath));
+        } finally {
+            Files.deleteIfExists(expectedPath);
+            Files.deleteIfExists(actualPath);
+        }
+    }
+
+    @Test
+    public void testMeshFollowsReplacedLists() {
+        Model model = new Model(PackedMesh.fromLists(
+                new ArrayList<>(Arrays.asList(new Vector3f(0, 0, 0), new Vector3f(1, 0, 0), new Vector3f(0, 1, 0))),
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>(Arrays.asList(triangle(0, 1, 2)))));
+
+        model.setVertices(new ArrayList<>(Arrays.asList(new Vector3f(0, 0, 0), new Vector3f(2, 0, 0), new Vector3f(0, 2, 0))));
+        Assertions.assertEquals(2.0f, model.getMesh().getPositions()[3]);
+        Assertions.assertEquals(1.0f, model.getOriginalMesh().getPositions()[3]);
+
+        model.getPolygons().add(triangle(2, 1, 0));
+        Assertions.assertEquals(2, model.getMesh().getFaceCount());
+    }
+
+    @Test
+    public void testTriangulateKeepsCornerIndices() {
+        PackedMesh quad = new PackedMesh(new float[12], new float[8], new float[0],
+                new int[]{0, 4}, new int[]{0, 1, 2, 3}, new int[]{3, 2, 1, 0},
+                new int[]{PackedMesh.ABSENT, PackedMesh.ABSENT, PackedMesh.ABSENT, PackedMesh.ABSENT});
+
+        PackedMesh triangles = ModelTriangulator.triangulate(quad);
+
+        Assertions.assertEquals(2, triangles.getFaceCount());
+        Assertions.assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3}, triangles.getVertexIndices());
+        Assertions.assertArrayEquals(new int[]{3, 2, 1, 3, 1, 0}, triangles.getTextureVertexIndices());
+    }
+
+    @Test
+    public void testNormalsMatchListCalculation() throws IOException {
+        Model model = ObjReader.read(MODEL_PATH);
+        float[] normals = NormalCalculator.calculateNormals(model.getMesh());
+
+        ArrayList<Vector3f> expected = com.cgvsu.Normals.CalculateNormals.calculateNormals(ObjReader.read(Files.readString(MODEL_PATH)));
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i).getX(), normals[i * 3], 1e-5);
+            Assertions.assertEquals(expected.get(i).getY(), normals[i * 3 + 1], 1e-5);
+            Assertions.assertEquals(expected.get(i).getZ(), normals[i * 3 + 2], 1e-5);
+        }
+    }
+
+    private static Polygon triangle(int a, int b, int c) {
+        Polygon polygon = new Polygon();
+        polygon.setVertexIndices(new ArrayList<>(Arrays.asList(a, b, c)));
+        return polygon;
+    }
+}
@@ -0,0 +1,36 @@
+package com.cgvsu.math.tests.Model;
+
+import com.cgvsu.model.PackedMesh;
+
+import java.util.Arrays;
+
+/**
+ * Сетки для тестов: только позиции вершин, без текстурных координат и нормалей.
+ */
+public final class TestMeshes {
+
+    private TestMeshes() {
+    }
+
+    /**
+     * Сетка из треугольников: каждые три индекса vertexIndices - одна грань.
+     */
+    public static PackedMesh triangles(float[] positions, int[] vertexIndices) {
+        return faces(positions, 3, vertexIndices);
+    }
+
+    /**
+     * Сетка из граней с одинаковым числом углов corners подряд в vertexIndices.
+     */
+    public static PackedMesh faces(float[] positions, int corners, int[] vertexIndices) {
+        int faceCount = vertexIndices.length / corners;
+        int[] faceOffsets = new int[faceCount + 1];
+        for (int face = 0; face <= faceCount; face++) {
+            faceOffsets[face] = face * corners;
+        }
+        int[] absent = new int[vertexIndices.length];
+        Arrays.fill(absent, PackedMesh.ABSENT);
+        return new PackedMesh(positions, new float[0], new float[0],
+                faceOffsets, vertexIndices, absent.clone(), absent);
+    }
+}
@@ -0,0 +1,66 @@
+package com.cgvsu.math.tests.Model;
+
+import com.cgvsu.model.Texture;
+import com.cgvsu.model.TextureCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+class TextureCacheTest {
+
+    @AfterEach
+    void resetCache() {
+        TextureCache.clear();
+        TextureCache.setMaxBytes(256L * 1024 * 1024);
+    }
+
+    private static String writeImage(int size, int argb) throws IOException {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                image.setRGB(x, y, argb);
+            }
+        }
+        File file = Files.createTempFile("texture", ".png").toFile();
+        file.deleteOnExit();
+        ImageIO.write(image, "png", file);
+        return file.getAbsolutePath();
+    }
+
+    @Test
+    void testSameTextureDecodedOnce() throws IOException {
+        String path = writeImage(4, 0xFF336699);
+        Texture first = TextureCache.get(path);
+        Texture second = TextureCache.get(path);
+        Assertions.assertSame(first, second, "Повторное обращение должно вернуть закэшированную текстуру");
+        Assertions.assertEquals(0xFF336699, first.getArgb(0.5f, 0.5f));
+        Assertions.assertEquals(4 * 4 * Integer.BYTES, TextureCache.getUsedBytes());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEvicted() throws IOException {
+        String a = writeImage(8, 0xFFFF0000);
+        String b = writeImage(8, 0xFF00FF00);
+        String c = writeImage(8, 0xFF0000FF);
+        TextureCache.setMaxBytes(2 * 8 * 8 * Integer.BYTES);
+
+        Texture textureA = TextureCache.get(a);
+        TextureCache.get(b);
+        TextureCache.get(a);
+        TextureCache.get(c);
+
+        Assertions.assertEquals(2, TextureCache.size());
+        Assertions.assertSame(textureA, TextureCache.get(a), "Недавно использованная текстура не должна вытесняться");
+    }
+
+    @Test
+    void testMissingTexture() {
+        Assertions.assertNull(TextureCache.get("/images/does-not-exist.png"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.cgvsu.ObjWriterTests;
+
+import com.cgvsu.objWriter.MeshCacheWriter;
+import com.cgvsu.objreader.MeshCache;
+import com.cgvsu.objreader.ModelLoader;
+import com.cgvsu.objreader.ObjData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static com.cgvsu.objreader.ObjDataAssertions.assertSameData;
+import static com.cgvsu.objreader.ObjDataAssertions.readData;
+
+public class MeshCacheWriterTests {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path source = Path.of("3DModels/SimpleModelsForReaderTests/UglyManHeadFromVova_26kPoints.obj");
+        Path cachePath = Files.createTempFile("model", MeshCache.EXTENSION);
+        try {
+            ObjData expected = readData(source);
+            MeshCache.SourceInfo sourceInfo = MeshCache.SourceInfo.of(source);
+            MeshCacheWriter.write(expected, cachePath, sourceInfo);
+
+            Assertions.assertEquals(MeshCache.sizeOf(expected.getVertexCount(), expected.getTextureVertexCount(),
+                    expected.getNormalCount(), expected.getFaceCount(), expected.getIndexCount()), Files.size(cachePath));
+            assertSameData(expected, MeshCache.read(cachePath, sourceInfo));
+        } finally {
+            Files.deleteIfExists(cachePath);
+        }
+    }
+
+    @Test
+    public void testStaleCacheIsIgnored() throws IOException {
+        Path directory = Files.createTempDirectory("meshcache");
+        Path source = directory.resolve("triangle.obj");
+        Path cachePath = MeshCache.cachePathFor(source);
+        try {
+            Files.writeString(source, "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3\n");
+            Assertions.assertEquals(3, ModelLoader.loadData(source).getVertexCount());
+            Assertions.assertTrue(Files.exists(cachePath));
+
+            // Только время изменилось - содержимое то же, кэш по хэшу остается актуальным,
+            // а новое время попадает в заголовок
+            Files.setLastModifiedTime(source, FileTime.fromMillis(0));
+            Assertions.assertNotNull(MeshCache.read(cachePath, MeshCache.SourceInfo.of(source)));
+            Assertions.assertEquals(0, ByteBuffer.wrap(Files.readAllBytes(cachePath)).order(ByteOrder.LITTLE_ENDIAN)
+                    .getLong(16));
+
+            // Содержимое того же размера изменилось - кэш устарел
+            Files.writeString(source, "v 0 0 0\nv 1 0 0\nv 0 2 0\nf 1 2 3\n");
+            Files.setLastModifiedTime(source, FileTime.fromMillis(1000));
+            Assertions.assertNull(MeshCache.read(cachePath, MeshCache.SourceInfo.of(source)));
+            Assertions.assertEquals(2.0f, ModelLoader.loadData(source).getVertices()[7]);
+        } finally {
+            Files.deleteIfExists(cachePath);
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(directory);
+        }
+    }
+}
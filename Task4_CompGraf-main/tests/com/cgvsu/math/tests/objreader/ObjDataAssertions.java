@@ -0,0 +1,51 @@
+package com.cgvsu.objreader;
+
+import org.junit.jupiter.api.Assertions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Общие проверки разобранных OBJ-данных для тестов чтения и кэша.
+ */
+public final class ObjDataAssertions {
+
+    private ObjDataAssertions() {
+    }
+
+    /**
+     * Читает файл последовательным читателем и закрывает поток.
+     */
+    public static ObjData readData(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return ObjReader.readData(in);
+        }
+    }
+
+    public static void assertSameData(ObjData expected, ObjData actual) {
+        Assertions.assertEquals(expected.getVertexCount(), actual.getVertexCount());
+        Assertions.assertEquals(expected.getTextureVertexCount(), actual.getTextureVertexCount());
+        Assertions.assertEquals(expected.getNormalCount(), actual.getNormalCount());
+        Assertions.assertEquals(expected.getFaceCount(), actual.getFaceCount());
+        Assertions.assertEquals(expected.getIndexCount(), actual.getIndexCount());
+        for (int i = 0; i < expected.getVertexCount() * 3; i++) {
+            Assertions.assertEquals(expected.getVertices()[i], actual.getVertices()[i]);
+        }
+        for (int i = 0; i < expected.getTextureVertexCount() * 2; i++) {
+            Assertions.assertEquals(expected.getTextureVertices()[i], actual.getTextureVertices()[i]);
+        }
+        for (int i = 0; i < expected.getNormalCount() * 3; i++) {
+            Assertions.assertEquals(expected.getNormals()[i], actual.getNormals()[i]);
+        }
+        for (int i = 0; i <= expected.getFaceCount(); i++) {
+            Assertions.assertEquals(expected.getFaceOffsets()[i], actual.getFaceOffsets()[i]);
+        }
+        for (int i = 0; i < expected.getIndexCount(); i++) {
+            Assertions.assertEquals(expected.getVertexIndices()[i], actual.getVertexIndices()[i]);
+            Assertions.assertEquals(expected.getTextureVertexIndices()[i], actual.getTextureVertexIndices()[i]);
+            Assertions.assertEquals(expected.getNormalIndices()[i], actual.getNormalIndices()[i]);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+
+class ObjReaderStreamTest {
+
+    private static Model readStream(String content) throws IOException {
+        return ObjReader.read(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void assertSameVectors3(ArrayList<Vector3f> expected, ArrayList<Vector3f> actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i).getX(), actual.get(i).getX());
+            Assertions.assertEquals(expected.get(i).getY(), actual.get(i).getY());
+            Assertions.assertEquals(expected.get(i).getZ(), actual.get(i).getZ());
+        }
+    }
+
+    private static void assertSameModels(Model expected, Model actual) {
+        assertSameVectors3(expected.getVertices(), actual.getVertices());
+        assertSameVectors3(expected.getNormals(), actual.getNormals());
+
+        ArrayList<Vector2f> expectedTexture = expected.getTextureVertices();
+        ArrayList<Vector2f> actualTexture = actual.getTextureVertices();
+        Assertions.assertEquals(expectedTexture.size(), actualTexture.size());
+        for (int i = 0; i < expectedTexture.size(); i++) {
+            Assertions.assertEquals(expectedTexture.get(i).getX(), actualTexture.get(i).getX());
+            Assertions.assertEquals(expectedTexture.get(i).getY(), actualTexture.get(i).getY());
+        }
+
+        Assertions.assertEquals(expected.getPolygons().size(), actual.getPolygons().size());
+        for (int i = 0; i < expected.getPolygons().size(); i++) {
+            Polygon expectedPolygon = expected.getPolygons().get(i);
+            Polygon actualPolygon = actual.getPolygons().get(i);
+            Assertions.assertEquals(expectedPolygon.getVertexIndices(), actualPolygon.getVertexIndices());
+            Assertions.assertEquals(expectedPolygon.getTextureVertexIndices(), actualPolygon.getTextureVertexIndices());
+            Assertions.assertEquals(expectedPolygon.getNormalIndices(), actualPolygon.getNormalIndices());
+            Assertions.assertEquals(expectedPolygon.getTextureCoordinates().size(), actualPolygon.getTextureCoordinates().size());
+        }
+    }
+
+    @Test
+    public void testSameModelAsStringReader() throws IOException {
+        String[] files = {
+                "3DModels/SimpleModelsForReaderTests/GridFull.obj",
+                "3DModels/SimpleModelsForReaderTests/GridHorizontal.obj",
+                "3DModels/SimpleModelsForReaderTests/UglyManHeadFromVova_26kPoints.obj"
+        };
+        for (String file : files) {
+            Path path = Path.of(file);
+            assertSameModels(ObjReader.read(Files.readString(path)), ObjReader.read(path));
+        }
+    }
+
+    @Test
+    public void testFaceWordFormats() throws IOException {
+        String content = "v 0 0 0\r\nv 1 0 0\r\nv 0 1 0\r\nvt 0 0\r\nvt 1 0\r\nvt 0 1\r\nvn 0 0 1\r\n"
+                + "# comment\r\n\r\n"
+                + "f 1 2 3\r\n"
+                + "f 1/1 2/2 3/3\r\n"
+                + "f 1//1 2//1 3//1\r\n"
+                + "f 1/1/1 2/2/1 3/3/1";
+        assertSameModels(ObjReader.read(content), readStream(content));
+    }
+
+    @Test
+    public void testFloatsMatchFloatParseFloat() throws IOException {
+        Random random = new Random(42);
+        StringBuilder content = new StringBuilder();
+        ArrayList<Float> expected = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            String x = Double.toString((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12) - 6));
+            String y = String.format(java.util.Locale.ROOT, "%.6f", random.nextGaussian() * 100);
+            String z = Long.toString(random.nextLong() % 100000) + "." + Math.abs(random.nextInt());
+            content.append("v ").append(x).append(' ').append(y).append(' ').append(z).append('\n');
+            expected.add(Float.parseFloat(x));
+            expected.add(Float.parseFloat(y));
+            expected.add(Float.parseFloat(z));
+        }
+        Model model = readStream(content.toString());
+        for (int i = 0; i < model.getVertices().size(); i++) {
+            Vector3f vertex = model.getVertices().get(i);
+            Assertions.assertEquals(expected.get(i * 3), vertex.getX());
+            Assertions.assertEquals(expected.get(i * 3 + 1), vertex.getY());
+            Assertions.assertEquals(expected.get(i * 3 + 2), vertex.getZ());
+        }
+    }
+
+    @Test
+    public void testErrorsMatchStringReader() {
+        String[] contents = {
+                "v 1.0 2.0\n",
+                "v 1.0 ab 3.0\n",
+                "vt 1.0\n",
+                "vn 1.0 2.0\n",
+                "v 1 2 3\nvt 0 0\nf 1/2 1/1 1/1\n",
+                "v 1 2 3\nf 1/a 1 1\n",
+                "v 1 2 3\nf 1/1/1/1 1 1\n"
+        };
+        for (String content : contents) {
+            ObjReaderException expected = Assertions.assertThrows(ObjReaderException.class, () -> ObjReader.read(content));
+            ObjReaderException actual = Assertions.assertThrows(ObjReaderException.class, () -> readStream(content));
+            Assertions.assertEquals(expected.getMessage(), actual.getMessage());
+        }
+    }
+}
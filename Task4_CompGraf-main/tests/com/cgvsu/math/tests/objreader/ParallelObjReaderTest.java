@@ -0,0 +1,55 @@
+package com.cgvsu.objreader;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.cgvsu.objreader.ObjDataAssertions.assertSameData;
+import static com.cgvsu.objreader.ObjDataAssertions.readData;
+
+class ParallelObjReaderTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private static Path writeTemp(String content) throws IOException {
+        Path path = Files.createTempFile("parallel", ".obj");
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return path;
+    }
+
+    @Test
+    public void testSameDataAsStreamReader() throws IOException {
+        Path path = Path.of("3DModels/SimpleModelsForReaderTests/UglyManHeadFromVova_26kPoints.obj");
+        ObjData expected = readData(path);
+        for (long chunkSize : new long[]{97, 4096, 1 << 20}) {
+            assertSameData(expected, ParallelObjReader.readData(path, POOL, chunkSize));
+        }
+    }
+
+    @Test
+    public void testTextureIndexDeclaredInPreviousChunk() throws IOException {
+        Path path = writeTemp("v 0 0 0\nv 1 0 0\nv 0 1 0\nvt 0 0\nvt 1 0\nvt 0 1\nf 1/1 2/2 3/3\nf 1/3 2/2 3/1\n");
+        try {
+            assertSameData(readData(path), ParallelObjReader.readData(path, POOL, 8));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testErrorReportedWithGlobalLineNumber() throws IOException {
+        Path path = writeTemp("v 0 0 0\nv 1 0 0\nv 0 1 0\nvt 0 0\nf 1/1 2/1 3/1\nf 1/2 2/1 3/1\nv 1 2\n");
+        try {
+            ObjReaderException exception = Assertions.assertThrows(ObjReaderException.class,
+                    () -> ParallelObjReader.readData(path, POOL, 8));
+            Assertions.assertEquals("Error parsing OBJ file on line: 6. Texture index 1 out of bounds.", exception.getMessage());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}